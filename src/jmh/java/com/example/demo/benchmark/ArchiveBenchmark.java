@@ -0,0 +1,98 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.archive.FileOrderArchive;
+import com.example.demo.model.Order;
+import com.example.demo.persistence.OrderJournal;
+import com.example.demo.service.OrderIdScheme;
+import com.example.demo.service.impl.OrderServiceImpl;
+import com.example.demo.store.HeapOrderStore;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.Period;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * {@code getOrder} for an order in memory against one in the archive, where a read inflates the
+ * block holding it, and a page of 100 taken from each tier. Odd ids are completed and archived,
+ * even ids stay in memory. Compare {@code blockSize} values for the trade between cold-read cost
+ * and compression; run with {@code -prof gc} for what a cold read allocates. Heap per tier is
+ * measured by {@link ArchiveFootprint}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class ArchiveBenchmark {
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2025-01-01T00:00:00Z"), ZoneId.of("UTC"));
+
+    @Param({"200000"})
+    public int orders;
+
+    @Param({"16", "64", "256"})
+    public int blockSize;
+
+    private Path directory;
+    private FileOrderArchive archive;
+    private OrderServiceImpl service;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("order-archive-bench");
+        archive = new FileOrderArchive(directory, blockSize);
+        service = new OrderServiceImpl(CLOCK, OrderJournal.NOOP, new CompositeMeterRegistry(), new HeapOrderStore(),
+                OrderIdScheme.SEQUENTIAL, archive);
+        ArchiveFootprint.populate(service, orders, 3, id -> id % 2 == 1);
+        int archived = service.archive(Period.ofDays(30), orders);
+        System.out.printf("%n%d orders archived in blocks of %d: %.1f bytes per order on disk%n", archived, blockSize,
+                archive.sizeOnDisk() / (double) archived);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        archive.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private long randomId(boolean odd) {
+        long id = ThreadLocalRandom.current().nextLong(1, orders / 2) * 2;
+        return odd ? id - 1 : id;
+    }
+
+    @Benchmark
+    public Order getHot() {
+        return service.getOrder(randomId(false));
+    }
+
+    @Benchmark
+    public Order getArchived() {
+        return service.getOrder(randomId(true));
+    }
+
+    @Benchmark
+    public List<Order> pageHot() {
+        return service.getOrders(randomId(false), 100);
+    }
+
+    // Half of the page is in memory and half comes from the archive
+    @Benchmark
+    public List<Order> pageWithArchived() {
+        return service.getOrders(randomId(false), 100, true);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.archive.FileOrderArchive;
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderStatus;
+import com.example.demo.persistence.OrderJournal;
+import com.example.demo.service.OrderIdScheme;
+import com.example.demo.service.impl.OrderServiceImpl;
+import com.example.demo.store.HeapOrderStore;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.Period;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongPredicate;
+import java.util.stream.Collectors;
+
+/**
+ * Heap held by the service (store, id set and indexes) before and after archiving completed
+ * orders, and what they take on disk instead. {@code --completed} is the share of orders that
+ * are completed and old enough to archive; the rest stay in memory.
+ * <p>
+ * Not a JMH benchmark, since it measures the heap rather than a timed operation. Run with
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.main=com.example.demo.benchmark.ArchiveFootprint
+ * -Djmh.jvmArgs="-Xmx4g" -Djmh.args="--orders=1000000 --completed=0.9"}. Cold-read latency is
+ * measured by {@link ArchiveBenchmark}.
+ */
+public class ArchiveFootprint {
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2025-01-01T00:00:00Z"), ZoneId.of("UTC"));
+    private static final int BATCH = 5000;
+
+    /** Creates {@code count} orders dated in 2024 and completes those {@code completed} picks. */
+    static void populate(OrderServiceImpl service, int count, int entries, LongPredicate completed) {
+        for (int created = 0; created < count; created += BATCH) {
+            List<Order> batch = new ArrayList<>(BATCH);
+            for (long id = created + 1; id <= Math.min(count, created + BATCH); id++) {
+                batch.add(OrderStoreFootprint.order(id, entries));
+            }
+            List<Long> ids = service.createOrders(batch).stream().map(result -> result.getOrder().getId()).toList();
+            for (OrderStatus status : List.of(OrderStatus.PROCESSING, OrderStatus.COMPLETED)) {
+                Map<Long, Order> updates = new LinkedHashMap<>();
+                for (Long id : ids) {
+                    if (completed.test(id)) {
+                        Order update = new Order();
+                        update.setStatus(status);
+                        updates.put(id, update);
+                    }
+                }
+                service.updateOrders(updates);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Arrays.stream(args)
+                .map(arg -> arg.replaceFirst("^--", "").split("=", 2))
+                .collect(Collectors.toMap(kv -> kv[0], kv -> kv.length > 1 ? kv[1] : "true"));
+        int orders = Integer.parseInt(options.getOrDefault("orders", "1000000"));
+        int entries = Integer.parseInt(options.getOrDefault("entries", "3"));
+        double share = Double.parseDouble(options.getOrDefault("completed", "0.9"));
+        int blockSize = Integer.parseInt(options.getOrDefault("block-size", "16"));
+        long modulus = 1000;
+        long threshold = Math.round(share * modulus);
+
+        Path directory = Files.createTempDirectory("order-archive-footprint");
+        FileOrderArchive archive = new FileOrderArchive(directory, blockSize);
+        long baseline = usedHeapAfterGc();
+        OrderServiceImpl service = new OrderServiceImpl(CLOCK, OrderJournal.NOOP, new CompositeMeterRegistry(),
+                new HeapOrderStore(), OrderIdScheme.SEQUENTIAL, archive);
+        populate(service, orders, entries, id -> id % modulus < threshold);
+        long before = usedHeapAfterGc() - baseline;
+
+        long start = System.nanoTime();
+        int archived = 0;
+        for (int moved; (moved = service.archive(Period.ofDays(30), 100_000)) > 0; ) {
+            archived += moved;
+        }
+        double archiveMillis = (System.nanoTime() - start) / 1e6;
+        long after = usedHeapAfterGc() - baseline;
+
+        System.out.printf("%d orders, %d entries each, %d archived in %.0f ms in blocks of %d%n", orders, entries,
+                archived, archiveMillis, blockSize);
+        System.out.printf("%-28s %14s %14s%n", "", "MB", "B/order");
+        System.out.printf("%-28s %14.1f %14.1f%n", "heap, all in memory", before / 1e6, before / (double) orders);
+        System.out.printf("%-28s %14.1f %14.1f%n", "heap, after archiving", after / 1e6, after / (double) orders);
+        System.out.printf("%-28s %14.1f %14.1f%n", "archive on disk", archive.sizeOnDisk() / 1e6,
+                archive.sizeOnDisk() / (double) Math.max(1, archived));
+        if (service.getAllOrders(true).size() != orders) {
+            throw new IllegalStateException("Orders lost in archiving");
+        }
+        archive.close();
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
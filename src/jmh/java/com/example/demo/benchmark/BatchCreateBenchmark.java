@@ -0,0 +1,78 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.BatchResult;
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderEntry;
+import com.example.demo.service.impl.OrderServiceImpl;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Importing {@code batchSize} orders as individual creates (one JSON body each, like one
+ * {@code POST /orders} per order) against one {@code POST /orders/batch} body. Both sides include
+ * Jackson parsing of the request bodies; neither includes HTTP.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx1g"})
+@State(Scope.Benchmark)
+public class BatchCreateBenchmark {
+
+    @Param({"10000"})
+    public int batchSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private List<byte[]> singleBodies;
+    private byte[] batchBody;
+    private OrderServiceImpl orderService;
+
+    @Setup(Level.Trial)
+    public void prepareBodies() throws IOException {
+        List<Order> orders = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            orders.add(new Order(null, "Imported order " + i, null, null, null, List.of(
+                    new OrderEntry("P" + (i % 100), "Product " + (i % 100), 1 + i % 5, 9.99),
+                    new OrderEntry("P" + (i % 7), "Product " + (i % 7), 2, 15.0))));
+        }
+        singleBodies = new ArrayList<>(batchSize);
+        for (Order order : orders) {
+            singleBodies.add(objectMapper.writeValueAsBytes(order));
+        }
+        batchBody = objectMapper.writeValueAsBytes(orders);
+    }
+
+    @Setup(Level.Invocation)
+    public void freshStore() {
+        orderService = new OrderServiceImpl(Clock.systemUTC());
+    }
+
+    @Benchmark
+    public int singleCreates() throws IOException {
+        int created = 0;
+        for (byte[] body : singleBodies) {
+            orderService.createOrder(objectMapper.readValue(body, Order.class));
+            created++;
+        }
+        return created;
+    }
+
+    @Benchmark
+    public int batchCreate() throws IOException {
+        List<Order> orders = objectMapper.readValue(batchBody, new TypeReference<List<Order>>() {});
+        List<BatchResult> results = orderService.createOrders(orders);
+        return results.size();
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.demo.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files ({@code -rf json}) benchmark by benchmark, e.g. the files
+ * {@code make bench} writes per commit to {@code benchmarks/results/}.
+ * <pre>
+ *   make bench-diff BASE=benchmarks/results/abc123.json HEAD=benchmarks/results/def456.json
+ * </pre>
+ * The change column is signed so that positive always means "better", whatever the score unit.
+ */
+public class BenchmarkDiff {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: BenchmarkDiff <base.json> <head.json>");
+            System.exit(2);
+        }
+        Map<String, JsonNode> base = load(Path.of(args[0]));
+        Map<String, JsonNode> head = load(Path.of(args[1]));
+
+        System.out.printf("%-90s %14s %14s %10s%n", "Benchmark", "Base", "Head", "Change");
+        for (Map.Entry<String, JsonNode> entry : head.entrySet()) {
+            JsonNode headMetric = entry.getValue().get("primaryMetric");
+            JsonNode baseResult = base.get(entry.getKey());
+            String unit = headMetric.get("scoreUnit").asText();
+            double headScore = headMetric.get("score").asDouble();
+            if (baseResult == null) {
+                System.out.printf("%-90s %14s %14.3f %10s  %s%n", entry.getKey(), "-", headScore, "new", unit);
+                continue;
+            }
+            double baseScore = baseResult.get("primaryMetric").get("score").asDouble();
+            // Throughput units (ops/time) improve upwards, time units (time/op) improve downwards
+            boolean higherIsBetter = unit.startsWith("ops/");
+            double change = (headScore - baseScore) / baseScore * 100.0 * (higherIsBetter ? 1 : -1);
+            System.out.printf("%-90s %14.3f %14.3f %+9.1f%%  %s%n", entry.getKey(), baseScore, headScore, change, unit);
+        }
+        for (String removed : base.keySet()) {
+            if (!head.containsKey(removed)) {
+                System.out.printf("%-90s %14s %14s %10s%n", removed, "", "-", "removed");
+            }
+        }
+    }
+
+    private static Map<String, JsonNode> load(Path file) throws IOException {
+        Map<String, JsonNode> results = new TreeMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file.toFile())) {
+            results.put(key(result), result);
+        }
+        return results;
+    }
+
+    private static String key(JsonNode result) {
+        String benchmark = result.get("benchmark").asText();
+        StringBuilder key = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1));
+        Map<String, String> params = new LinkedHashMap<>();
+        if (result.has("params")) {
+            result.get("params").fields().forEachRemaining(p -> params.put(p.getKey(), p.getValue().asText()));
+        }
+        params.forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+        key.append(" t=").append(result.get("threads").asInt()).append(' ').append(result.get("mode").asText());
+        return key.toString();
+    }
+}
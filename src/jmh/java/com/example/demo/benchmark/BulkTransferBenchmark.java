@@ -0,0 +1,137 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.Money;
+import com.example.demo.model.Order;
+import com.example.demo.persistence.OrderJournal;
+import com.example.demo.service.OrderIdScheme;
+import com.example.demo.service.impl.OrderServiceImpl;
+import com.example.demo.store.HeapOrderStore;
+import com.example.demo.store.OffHeapOrderStore;
+import com.example.demo.store.StoreEngine;
+import com.example.demo.transfer.ImportResult;
+import com.example.demo.transfer.OrderExporter;
+import com.example.demo.transfer.OrderImporter;
+import com.example.demo.transfer.TransferFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk import and export throughput at scale. Writes a dump of {@code --orders} generated orders
+ * (10 million by default) with the exporter, then for each {@code --parallelism} imports it into
+ * an empty service from a file channel and exports the service back to a file, reporting rows per
+ * second for each. Parsing scales with cores up to the point where the single inserting thread is
+ * the bottleneck; compare parallelism 1 against the core count.
+ * <p>
+ * Not a JMH benchmark, since one run is a multi-second pass over a file. Run with
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.main=com.example.demo.benchmark.BulkTransferBenchmark
+ * -Djmh.jvmArgs="-Xmx24g -XX:MaxDirectMemorySize=8g" -Djmh.args="--format=CSV --parallelism=1,4,8 --engine=OFF_HEAP"}.
+ * Ten million orders need about 10 GB of heap with the HEAP engine.
+ */
+public class BulkTransferBenchmark {
+    private static final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Arrays.stream(args)
+                .map(arg -> arg.replaceFirst("^--", "").split("=", 2))
+                .collect(Collectors.toMap(kv -> kv[0], kv -> kv.length > 1 ? kv[1] : "true"));
+        int orders = Integer.parseInt(options.getOrDefault("orders", "10000000"));
+        int entries = Integer.parseInt(options.getOrDefault("entries", "3"));
+        TransferFormat format = TransferFormat.valueOf(options.getOrDefault("format", "NDJSON"));
+        StoreEngine engine = StoreEngine.valueOf(options.getOrDefault("engine", "HEAP"));
+        int chunkSize = Integer.parseInt(options.getOrDefault("chunk-size", "1000"));
+        List<Integer> parallelisms = Arrays.stream(options.getOrDefault("parallelism",
+                        String.valueOf(Runtime.getRuntime().availableProcessors())).split(","))
+                .map(Integer::parseInt).toList();
+
+        Path directory = Files.createTempDirectory("order-transfer-bench");
+        Path dump = directory.resolve("dump." + format.name().toLowerCase());
+        Path exported = directory.resolve("export." + format.name().toLowerCase());
+        OrderExporter exporter = new OrderExporter(objectMapper, new CompositeMeterRegistry(), 1000);
+        long start = System.nanoTime();
+        long rows = export(exporter, dump, format, generated(orders, entries));
+        System.out.printf("Generated %d orders, %d %s rows, %.0f MB in %.1f s%n", orders, rows, format,
+                Files.size(dump) / 1e6, (System.nanoTime() - start) / 1e9);
+        // Compile the import and export paths before the first measured run
+        Path warmUp = directory.resolve("warm-up");
+        int warmUpOrders = Math.min(orders, 200_000);
+        export(exporter, warmUp, format, generated(warmUpOrders, entries));
+        importInto(newService(engine), warmUp, format, parallelisms.get(0), chunkSize);
+        export(exporter, exported, format, generated(warmUpOrders, entries));
+        Files.delete(warmUp);
+
+        List<String> lines = new ArrayList<>();
+        for (int parallelism : parallelisms) {
+            OrderServiceImpl service = newService(engine);
+            ImportResult result = importInto(service, dump, format, parallelism, chunkSize);
+            if (result.imported() != orders) {
+                throw new IllegalStateException("Imported " + result.imported() + " of " + orders + ", first error: "
+                        + result.errors().get(0));
+            }
+            start = System.nanoTime();
+            long exportedRows = export(exporter, exported, format, service::getOrders);
+            double exportSeconds = (System.nanoTime() - start) / 1e9;
+            lines.add(String.format("%-12d %12.0f %14.0f %12.1f %14.0f", parallelism, result.rowsPerSecond(),
+                    result.imported() / (result.elapsedMillis() / 1e3), exportSeconds, exportedRows / exportSeconds));
+            service = null;
+            System.gc();
+        }
+        System.out.printf("%d orders of %d entries as %s into the %s store, chunks of %d records%n", orders, entries,
+                format, engine, chunkSize);
+        System.out.printf("%-12s %12s %14s %12s %14s%n", "parallelism", "import rows/s", "import orders/s",
+                "export s", "export rows/s");
+        lines.forEach(System.out::println);
+        Files.deleteIfExists(dump);
+        Files.deleteIfExists(exported);
+        Files.delete(directory);
+    }
+
+    private static OrderServiceImpl newService(StoreEngine engine) {
+        return new OrderServiceImpl(Clock.systemUTC(), OrderJournal.NOOP, new CompositeMeterRegistry(),
+                engine == StoreEngine.OFF_HEAP ? new OffHeapOrderStore() : new HeapOrderStore(), OrderIdScheme.SEQUENTIAL);
+    }
+
+    private static ImportResult importInto(OrderServiceImpl service, Path dump, TransferFormat format, int parallelism,
+                                           int chunkSize) throws Exception {
+        try (OrderImporter importer = new OrderImporter(service, objectMapper, new CompositeMeterRegistry(), parallelism, chunkSize);
+             FileChannel channel = FileChannel.open(dump, StandardOpenOption.READ)) {
+            return importer.importFrom(channel, format);
+        }
+    }
+
+    // Pages of generated orders, as OrderService.getOrders would return them
+    private static BiFunction<Long, Integer, List<Order>> generated(int orders, int entries) {
+        return (after, limit) -> {
+            long first = after == null ? 1 : after + 1;
+            List<Order> page = new ArrayList<>(limit);
+            for (long id = first; id < first + limit && id <= orders; id++) {
+                Order order = OrderStoreFootprint.order(id, entries);
+                order.setAmountCents(Money.total(order.getEntries())); // the import checks it
+                page.add(order);
+            }
+            return page;
+        };
+    }
+
+    private static long export(OrderExporter exporter, Path file, TransferFormat format,
+                               BiFunction<Long, Integer, List<Order>> pages) throws Exception {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+            return exporter.exportTo(out, format, pages);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.model.Order;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Closed-loop throughput of a partitioned cluster of 1 to N nodes. Each request goes to a random
+ * node: 80% get a random existing order (forwarded unless that node owns it), 15% create one and
+ * 5% read a page of 50, which asks every node. All nodes run in this JVM, so on one machine this
+ * shows the cost of forwarding and scatter-gather rather than the gain from more hardware; give
+ * each node its own host or container for scale-out numbers.
+ * <p>
+ * Not a JMH benchmark, since it needs real servers. Run with
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.main=com.example.demo.benchmark.ClusterThroughput
+ * -Djmh.args="--nodes=1,2,4 --concurrency=64 --seconds=10"}.
+ */
+public class ClusterThroughput {
+    private static final String BODY = """
+            {"description": "Cluster load", "entries": [{"productCode": "P1", "productName": "Product 1", "quantity": 2, "price": 9.99}]}
+            """;
+    private static final int PRELOADED_ORDERS = 2000;
+    private static final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Arrays.stream(args)
+                .map(arg -> arg.replaceFirst("^--", "").split("=", 2))
+                .collect(Collectors.toMap(kv -> kv[0], kv -> kv.length > 1 ? kv[1] : "true"));
+        int[] nodeCounts = Arrays.stream(options.getOrDefault("nodes", "1,2,4").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "64"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "10"));
+
+        System.out.printf("80%% get / 15%% create / 5%% page of 50, %d concurrent clients, %d s per cluster size%n",
+                concurrency, seconds);
+        System.out.printf("%-6s %12s %10s %10s %10s %8s%n", "nodes", "requests/s", "p50 ms", "p99 ms", "forwarded", "errors");
+        for (int nodes : nodeCounts) {
+            run(nodes, concurrency, seconds);
+        }
+        System.exit(0);
+    }
+
+    private static void run(int nodeCount, int concurrency, int seconds) throws Exception {
+        List<URI> urls = new ArrayList<>(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            try (ServerSocket socket = new ServerSocket(0)) {
+                urls.add(URI.create("http://localhost:" + socket.getLocalPort()));
+            }
+        }
+        String nodeList = urls.stream().map(URI::toString).collect(Collectors.joining(","));
+        List<ConfigurableApplicationContext> contexts = new ArrayList<>(nodeCount);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder().executor(executor).version(HttpClient.Version.HTTP_1_1).build()) {
+            for (int i = 0; i < nodeCount; i++) {
+                contexts.add(SpringApplication.run(DemoApplication.class,
+                        "--server.port=" + urls.get(i).getPort(),
+                        "--orders.cluster.nodes=" + (nodeCount > 1 ? nodeList : ""),
+                        "--orders.cluster.node-id=" + i,
+                        "--orders.persistence.enabled=false",
+                        "--logging.level.com.example.demo=WARN",
+                        "--logging.level.root=WARN"));
+            }
+            // Creates stay on the node that receives them, so spread the preload over every node
+            long[] ids = new long[PRELOADED_ORDERS];
+            for (int i = 0; i < ids.length; i++) {
+                HttpResponse<String> response = client.send(create(urls.get(i % nodeCount)), HttpResponse.BodyHandlers.ofString());
+                ids[i] = objectMapper.readValue(response.body(), Order.class).getId();
+            }
+
+            load(client, executor, urls, ids, concurrency, Math.max(2, seconds / 3)); // warm up
+            Result result = load(client, executor, urls, ids, concurrency, seconds);
+            System.out.printf("%-6d %12.0f %10.1f %10.1f %9.0f%% %8d%n", nodeCount, result.requests / (double) seconds,
+                    result.percentile(0.50), result.percentile(0.99), 100.0 * (nodeCount - 1) / nodeCount * 0.80,
+                    result.errors);
+        } finally {
+            contexts.forEach(ConfigurableApplicationContext::close);
+        }
+    }
+
+    private static Result load(HttpClient client, ExecutorService executor, List<URI> urls, long[] ids,
+                               int concurrency, int seconds) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        LongAdder errors = new LongAdder();
+        List<Future<long[]>> clients = new ArrayList<>(concurrency);
+        for (int c = 0; c < concurrency; c++) {
+            clients.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long[] latencies = new long[1024];
+                int count = 0;
+                while (System.nanoTime() < deadline) {
+                    URI node = urls.get(random.nextInt(urls.size()));
+                    int op = random.nextInt(100);
+                    HttpRequest request = op < 80 ? HttpRequest.newBuilder(node.resolve("/orders/" + ids[random.nextInt(ids.length)])).build()
+                            : op < 95 ? create(node)
+                            : HttpRequest.newBuilder(node.resolve("/orders?limit=50&after=" + ids[random.nextInt(ids.length)])).build();
+                    long start = System.nanoTime();
+                    try {
+                        if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+                            errors.increment();
+                            continue;
+                        }
+                    } catch (Exception e) {
+                        errors.increment();
+                        continue;
+                    }
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = System.nanoTime() - start;
+                }
+                return Arrays.copyOf(latencies, count);
+            }));
+        }
+        List<long[]> all = new ArrayList<>(concurrency);
+        for (Future<long[]> future : clients) {
+            all.add(future.get());
+        }
+        long[] latencies = all.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        return new Result(latencies.length, latencies, errors.sum());
+    }
+
+    private static HttpRequest create(URI node) {
+        return HttpRequest.newBuilder(node.resolve("/orders"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(BODY))
+                .build();
+    }
+
+    private record Result(long requests, long[] sortedLatencies, long errors) {
+        double percentile(double p) {
+            if (sortedLatencies.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.min(sortedLatencies.length - 1, Math.ceil(p * sortedLatencies.length) - 1);
+            return sortedLatencies[Math.max(0, index)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.Order;
+import com.example.demo.service.impl.OrderServiceImpl;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of Flight Recorder on the service hot path, a 90/10 mix of gets and updates over 100k
+ * orders, with no recording, the always-on {@code default} recording from the Dockerfile, the
+ * {@code profile} settings /actuator/jfr starts by default, and {@code profile} with every order
+ * operation recorded ({@code threshold=0ms}). The fork runs with the Dockerfile's stack depth and
+ * DebugNonSafepoints, so {@code off} is the production baseline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-XX:FlightRecorderOptions=stackdepth=128",
+        "-XX:+UnlockDiagnosticVMOptions", "-XX:+DebugNonSafepoints"})
+@State(Scope.Benchmark)
+public class FlightRecorderOverheadBenchmark {
+    private static final int STORE_SIZE = 100_000;
+
+    @Param({"off", "default", "profile", "profile-all-operations"})
+    public String recording;
+
+    private OrderServiceImpl orderService;
+    private Order update;
+    private Recording active;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        orderService = new OrderServiceImpl(Clock.systemUTC());
+        Order template = OrderServiceBenchmark.order(3);
+        List<Order> batch = new ArrayList<>(STORE_SIZE);
+        for (int i = 0; i < STORE_SIZE; i++) {
+            batch.add(template);
+        }
+        orderService.createOrders(batch);
+        update = OrderServiceBenchmark.order(3);
+        update.setDescription("Updated");
+
+        if (!recording.equals("off")) {
+            active = new Recording(Configuration.getConfiguration(recording.startsWith("profile") ? "profile" : "default"));
+            if (recording.equals("profile-all-operations")) {
+                active.enable("com.example.demo.OrderOperation").withThreshold(Duration.ZERO);
+            }
+            active.setToDisk(true);
+            active.setMaxSize(64L << 20);
+            active.start();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (active != null) {
+            active.close();
+        }
+    }
+
+    @Benchmark
+    public Order mixed() {
+        long id = ThreadLocalRandom.current().nextLong(1, STORE_SIZE + 1);
+        if (ThreadLocalRandom.current().nextInt(100) < 90) {
+            return orderService.getOrder(id);
+        }
+        return orderService.updateOrder(id, update);
+    }
+}
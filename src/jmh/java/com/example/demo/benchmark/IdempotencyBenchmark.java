@@ -0,0 +1,73 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.idempotency.IdempotencyStore;
+import com.example.demo.model.Order;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cost of the {@code Idempotency-Key} lookup on {@code POST /orders} with {@code keys} distinct
+ * keys remembered: first requests with keys never seen before, which insert and push the oldest
+ * key out once the store is full, and retries of remembered keys, which replay. The action returns
+ * a prepared order, so only the store is measured. The heap retained per remembered key, UUID key
+ * string included, is printed once per trial; compare it with {@code orders.idempotency.maximum-keys}.
+ * Run with {@code -t 4} for contention on the store.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class IdempotencyBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int keys;
+
+    private IdempotencyStore store;
+    private String[] remembered;
+    private final Order order = OrderServiceBenchmark.order(1);
+    private final IdempotencyStore.Fingerprint fingerprint = IdempotencyStore.fingerprint(order);
+    private final AtomicLong fresh = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long before = usedHeap();
+        store = new IdempotencyStore(Clock.systemUTC(), Duration.ofHours(24), keys, new CompositeMeterRegistry());
+        remembered = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            remembered[i] = UUID.randomUUID().toString();
+            store.execute(remembered[i], fingerprint, () -> order);
+        }
+        // Less the array holding the keys for retries, a header and a compressed reference per key
+        long retained = usedHeap() - before - (16 + 4L * keys);
+        System.out.printf("%n%d keys: %d bytes of heap per remembered key%n", keys, retained / keys);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    @Benchmark
+    public IdempotencyStore.Response firstRequest() {
+        return store.execute("fresh-" + fresh.incrementAndGet(), fingerprint, () -> order);
+    }
+
+    /** Keys are picked at random among the ones remembered at setup, some of which first requests have since evicted. */
+    @Benchmark
+    public IdempotencyStore.Response retry() {
+        String key = remembered[ThreadLocalRandom.current().nextInt(keys)];
+        return store.execute(key, fingerprint, () -> order);
+    }
+}
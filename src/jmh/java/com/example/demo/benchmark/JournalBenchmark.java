@@ -0,0 +1,131 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderEntry;
+import com.example.demo.persistence.FileOrderJournal;
+import com.example.demo.persistence.FsyncPolicy;
+import com.example.demo.service.impl.OrderServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Write throughput of {@code createOrder} per fsync policy, and recovery time of a store
+ * from snapshot plus log tail. Run on the disk the service will use in production; tmpfs
+ * makes every fsync free. Set the directory with {@code -Djournal.bench.dir=/path}.
+ */
+public class JournalBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Writes {
+        @Param({"ALWAYS", "GROUPED", "ASYNC"})
+        public FsyncPolicy fsync;
+
+        @Param({"5"})
+        public int groupCommitMillis;
+
+        Path directory;
+        FileOrderJournal journal;
+        OrderServiceImpl orderService;
+        Order order;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            directory = createDirectory();
+            journal = new FileOrderJournal(directory, fsync, Duration.ofMillis(groupCommitMillis));
+            orderService = new OrderServiceImpl(Clock.systemUTC(), journal);
+            order = new Order(null, "Benchmark order", null, null, null, List.of(
+                    new OrderEntry("P1", "Product 1", 2, 50.0),
+                    new OrderEntry("P2", "Product 2", 1, 75.0)));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            journal.close();
+            deleteRecursively(directory);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 2, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    @Threads(8)
+    @Fork(1)
+    public Order createOrder(Writes state) {
+        return state.orderService.createOrder(state.order);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Recovery {
+        @Param({"100000"})
+        public int snapshotOrders;
+
+        @Param({"100000"})
+        public int logRecords;
+
+        Path directory;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            directory = createDirectory();
+            FileOrderJournal journal = new FileOrderJournal(directory, FsyncPolicy.ASYNC, Duration.ofMillis(5));
+            OrderServiceImpl orderService = new OrderServiceImpl(Clock.systemUTC(), journal);
+            List<OrderEntry> entries = List.of(new OrderEntry("P1", "Product 1", 2, 50.0));
+            for (int i = 0; i < snapshotOrders; i++) {
+                orderService.createOrder(new Order(null, "Order " + i, null, null, null, entries));
+            }
+            orderService.snapshot();
+            for (int i = 0; i < logRecords; i++) {
+                orderService.createOrder(new Order(null, "Tail order " + i, null, null, null, entries));
+            }
+            journal.close();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            deleteRecursively(directory);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    @Fork(value = 1, jvmArgsAppend = {"-Xmx1g"})
+    public int recover(Recovery state) {
+        FileOrderJournal journal = new FileOrderJournal(state.directory, FsyncPolicy.ASYNC, Duration.ofMillis(5));
+        try {
+            OrderServiceImpl orderService = new OrderServiceImpl(Clock.systemUTC(), journal);
+            orderService.recover();
+            return orderService.getAllOrders().size();
+        } finally {
+            journal.close();
+        }
+    }
+
+    static Path createDirectory() throws IOException {
+        String parent = System.getProperty("journal.bench.dir");
+        return parent == null
+                ? Files.createTempDirectory("order-journal-bench")
+                : Files.createTempDirectory(Path.of(parent), "order-journal-bench");
+    }
+
+    static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
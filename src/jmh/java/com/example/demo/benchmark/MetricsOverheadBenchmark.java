@@ -0,0 +1,67 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.Order;
+import com.example.demo.persistence.OrderJournal;
+import com.example.demo.service.impl.OrderServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the service metrics: the same operations against a no-op registry and against the
+ * Prometheus registry used in production, whose timers keep percentile histograms.
+ * Run at several thread counts to see contention on the histograms, e.g.
+ * {@code make bench BENCH=MetricsOverheadBenchmark THREADS="1 4"}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsOverheadBenchmark {
+    private static final int STORE_SIZE = 10_000;
+
+    @Param({"noop", "prometheus"})
+    public String registry;
+
+    OrderServiceImpl orderService;
+    Order update;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MeterRegistry meterRegistry = "prometheus".equals(registry)
+                ? new PrometheusMeterRegistry(PrometheusConfig.DEFAULT)
+                : new CompositeMeterRegistry();
+        orderService = new OrderServiceImpl(Clock.systemUTC(), OrderJournal.NOOP, meterRegistry);
+        List<Order> orders = new ArrayList<>(STORE_SIZE);
+        for (int i = 0; i < STORE_SIZE; i++) {
+            orders.add(OrderServiceBenchmark.order(1));
+        }
+        orderService.createOrders(orders);
+        update = OrderServiceBenchmark.order(1);
+        update.setDescription("Updated");
+    }
+
+    long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, STORE_SIZE + 1);
+    }
+
+    @Benchmark
+    public Order getOrder() {
+        return orderService.getOrder(randomId());
+    }
+
+    @Benchmark
+    public Order updateOrder() {
+        return orderService.updateOrder(randomId(), update);
+    }
+}
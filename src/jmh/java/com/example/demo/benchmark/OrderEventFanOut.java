@@ -0,0 +1,104 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.events.OrderEvent;
+import com.example.demo.events.OrderEventLog;
+import com.example.demo.events.OrderEventSubscriber;
+import com.example.demo.events.OrderEventSubscription;
+import com.example.demo.events.OverflowPolicy;
+import com.example.demo.model.Order;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Fan-out of the order event log: writer threads publish as fast as they can while 1 to N
+ * subscriptions read on their virtual threads. Reports events published and delivered per second,
+ * the publish latency writers saw, and events subscribers lost to overflow (they run with
+ * {@link OverflowPolicy#SKIP}, so falling behind costs events rather than the subscription).
+ * <p>
+ * Not a JMH benchmark, since the interesting numbers are the subscribers' rather than the calling
+ * thread's. Run with {@code mvn -Pjmh test-compile exec:exec -Djmh.main=com.example.demo.benchmark.OrderEventFanOut
+ * -Djmh.args="--subscribers=1,100,1000 --writers=2 --seconds=5"}.
+ */
+public class OrderEventFanOut {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Arrays.stream(args)
+                .map(arg -> arg.replaceFirst("^--", "").split("=", 2))
+                .collect(Collectors.toMap(kv -> kv[0], kv -> kv.length > 1 ? kv[1] : "true"));
+        int[] subscriberCounts = Arrays.stream(options.getOrDefault("subscribers", "1,10,100,1000").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        int writers = Integer.parseInt(options.getOrDefault("writers", "2"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "5"));
+        int capacity = Integer.parseInt(options.getOrDefault("capacity", "65536"));
+
+        System.out.printf("%d writers, ring of %d events, %d s per run%n", writers, capacity, seconds);
+        System.out.printf("%11s %14s %16s %14s %14s %12s%n", "subscribers", "published/s", "delivered/s",
+                "publish p50 ns", "publish p99 ns", "lost/sub");
+        for (int subscribers : subscriberCounts) {
+            run(subscribers, writers, seconds, capacity);
+        }
+        System.exit(0);
+    }
+
+    private static void run(int subscriberCount, int writerCount, int seconds, int capacity) throws Exception {
+        LongAdder delivered = new LongAdder();
+        LongAdder lost = new LongAdder();
+        OrderEventSubscriber subscriber = new OrderEventSubscriber() {
+            @Override
+            public void onEvent(OrderEvent event) {
+                delivered.increment();
+            }
+
+            @Override
+            public void onGap(long fromSequence, long toSequence) {
+                lost.add(toSequence - fromSequence + 1);
+            }
+        };
+        try (OrderEventLog log = new OrderEventLog(capacity)) {
+            List<OrderEventSubscription> subscriptions = new ArrayList<>(subscriberCount);
+            for (int i = 0; i < subscriberCount; i++) {
+                subscriptions.add(log.subscribe(subscriber, OverflowPolicy.SKIP));
+            }
+            Order previous = OrderServiceBenchmark.order(3);
+            previous.setId(1L);
+            Order order = OrderServiceBenchmark.order(3);
+            order.setId(1L);
+
+            long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+            List<long[]> samples = new ArrayList<>();
+            Thread[] writers = new Thread[writerCount];
+            for (int w = 0; w < writerCount; w++) {
+                long[] latencies = new long[1 << 16];
+                samples.add(latencies);
+                writers[w] = Thread.ofPlatform().start(() -> {
+                    int n = 0;
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        log.orderUpdated(previous, order);
+                        latencies[n++ & (latencies.length - 1)] = System.nanoTime() - start;
+                    }
+                });
+            }
+            for (Thread writer : writers) {
+                writer.join();
+            }
+            long published = log.lastSequence();
+            // Let subscribers drain what is still in the ring
+            long drainDeadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (delivered.sum() + lost.sum() < published * subscriberCount && System.nanoTime() < drainDeadline) {
+                Thread.sleep(10);
+            }
+            long[] latencies = samples.stream().flatMapToLong(Arrays::stream).filter(l -> l > 0).sorted().toArray();
+            System.out.printf("%11d %14.0f %16.0f %14d %14d %12.0f%n", subscriberCount,
+                    published / (double) seconds, delivered.sum() / (double) seconds,
+                    latencies[latencies.length / 2], latencies[(int) (latencies.length * 0.99)],
+                    lost.sum() / (double) subscriberCount);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.cache.CacheEviction;
+import com.example.demo.cache.OrderJsonCache;
+import com.example.demo.cluster.OrderCluster;
+import com.example.demo.controller.OrdersController;
+import com.example.demo.model.Order;
+import com.example.demo.service.impl.OrderServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-heavy traffic through {@link OrdersController#getOrder} with the JSON response cache off
+ * and under each eviction policy. {@link #mixed} interleaves updates, each of which invalidates
+ * an entry; {@link #notModified} revalidates with the current ETag. Throughput per thread is the
+ * CPU saving, and {@code -prof gc} shows what serialization allocates, e.g.
+ * {@code make bench BENCH=OrderJsonCacheBenchmark JMH_ARGS="-prof gc"}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderJsonCacheBenchmark {
+    private static final int STORE_SIZE = 10_000;
+
+    @Param({"off", "W_TINY_LFU", "LRU"})
+    public String cache;
+
+    @Param({"10"})
+    public int entriesPerOrder;
+
+    /** Share of {@link #mixed} operations that are reads; the rest are updates. */
+    @Param({"95"})
+    public int readPercent;
+
+    OrdersController controller;
+    // Standalone, the controller never looks at the request
+    final MockHttpServletRequest request = new MockHttpServletRequest();
+    Order update;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        OrderServiceImpl orderService = new OrderServiceImpl(Clock.systemUTC());
+        List<Order> orders = new ArrayList<>(STORE_SIZE);
+        for (int i = 0; i < STORE_SIZE; i++) {
+            orders.add(OrderServiceBenchmark.order(entriesPerOrder));
+        }
+        orderService.createOrders(orders);
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        OrderJsonCache orderJsonCache = "off".equals(cache)
+                ? OrderJsonCache.disabled(objectMapper)
+                : new OrderJsonCache(objectMapper, CacheEviction.valueOf(cache), 64 << 20, new CompositeMeterRegistry());
+        orderService.addChangeListener(orderJsonCache);
+        controller = new OrdersController();
+        ReflectionTestUtils.setField(controller, "orderService", orderService);
+        ReflectionTestUtils.setField(controller, "orderCluster", OrderCluster.standalone(new ObjectMapper()));
+        ReflectionTestUtils.setField(controller, "orderJsonCache", orderJsonCache);
+        update = OrderServiceBenchmark.order(entriesPerOrder);
+        update.setDescription("Updated");
+    }
+
+    long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, STORE_SIZE + 1);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> get() {
+        return controller.getOrder(randomId(), null, request);
+    }
+
+    // Each benchmark gets a fresh store, and only mixed updates, so every order is at version 1 here
+    @Benchmark
+    public ResponseEntity<?> notModified() {
+        return controller.getOrder(randomId(), "\"1\"", request);
+    }
+
+    @Benchmark
+    public Object mixed() {
+        if (ThreadLocalRandom.current().nextInt(100) < readPercent) {
+            return controller.getOrder(randomId(), null, request);
+        }
+        return controller.updateOrder(randomId(), update, null, request);
+    }
+}
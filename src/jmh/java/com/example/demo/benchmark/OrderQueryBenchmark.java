@@ -0,0 +1,95 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderEntry;
+import com.example.demo.model.OrderQuery;
+import com.example.demo.model.OrderStatus;
+import com.example.demo.service.impl.OrderServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Index lookups against a client-side style scan of {@code getAllOrders()}. Every store size contains
+ * the same 100 matching orders (product "RARE", dated 2020-01-01), so the indexed benchmarks should stay
+ * flat as {@code storeSize} grows while the scans grow linearly.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class OrderQueryBenchmark {
+    private static final int MATCHES = 100;
+    private static final LocalDate RARE_DAY = LocalDate.of(2020, 1, 1);
+
+    @Param({"10000", "100000", "1000000"})
+    public int storeSize;
+
+    private OrderServiceImpl orderService;
+    private OrderQuery byProduct;
+    private OrderQuery byDay;
+    private OrderQuery byStatus;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        orderService = new OrderServiceImpl(Clock.systemUTC());
+        List<OrderEntry> common = List.of(new OrderEntry("P1", "Product 1", 1, 10.0));
+        List<OrderEntry> rare = List.of(new OrderEntry("RARE", "Rare product", 1, 10.0));
+        LocalDate today = LocalDate.of(2024, 1, 1);
+        int spacing = storeSize / MATCHES;
+        for (int i = 0; i < storeSize; i++) {
+            boolean match = i % spacing == 0;
+            Order order = orderService.createOrder(new Order(null, "Order " + i, null,
+                    match ? RARE_DAY : today.plusDays(i % 365), null, match ? rare : common));
+            if (match) {
+                Order update = new Order();
+                update.setStatus(OrderStatus.PROCESSING);
+                orderService.updateOrder(order.getId(), update);
+            }
+        }
+        byProduct = new OrderQuery(null, null, null, "RARE");
+        byDay = new OrderQuery(null, RARE_DAY, RARE_DAY, null);
+        byStatus = new OrderQuery(OrderStatus.PROCESSING, null, null, null);
+    }
+
+    @Benchmark
+    public List<Order> indexedByProduct() {
+        return orderService.findOrders(byProduct);
+    }
+
+    @Benchmark
+    public List<Order> indexedByDay() {
+        return orderService.findOrders(byDay);
+    }
+
+    @Benchmark
+    public List<Order> indexedByStatus() {
+        return orderService.findOrders(byStatus);
+    }
+
+    @Benchmark
+    public List<Order> scanByProduct() {
+        return scan(byProduct);
+    }
+
+    @Benchmark
+    public List<Order> scanByStatus() {
+        return scan(byStatus);
+    }
+
+    private List<Order> scan(OrderQuery query) {
+        List<Order> result = new ArrayList<>();
+        for (Order order : orderService.getAllOrders()) {
+            if (query.matches(order)) {
+                result.add(order);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderEntry;
+import com.example.demo.service.impl.OrderServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of every {@link OrderServiceImpl} operation over store size and entries per order.
+ * Thread count is a JMH option, so scale it with {@code -t}, e.g. {@code make bench BENCH=OrderServiceBenchmark THREADS="1 4 8"}.
+ * The default sizes stop at 1M orders; for 10M pass {@code -p storeSize=10000000 -jvmArgsAppend -Xmx8g}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class OrderServiceBenchmark {
+    private static final int SETUP_BATCH = 10_000;
+
+    @State(Scope.Benchmark)
+    public static class Store {
+        @Param({"1000", "100000", "1000000"})
+        public int storeSize;
+
+        @Param({"1", "10"})
+        public int entriesPerOrder;
+
+        /** Share of {@link #mixed} operations that are reads; the rest are updates. */
+        @Param({"90"})
+        public int readPercent;
+
+        OrderServiceImpl orderService;
+        Order template;
+        Order update;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            orderService = new OrderServiceImpl(Clock.systemUTC());
+            template = order(entriesPerOrder);
+            // Populate through the bulk path so setup cost stays reasonable at large sizes
+            List<Order> batch = new ArrayList<>(SETUP_BATCH);
+            for (int i = 0; i < storeSize; i++) {
+                batch.add(template);
+                if (batch.size() == SETUP_BATCH || i == storeSize - 1) {
+                    orderService.createOrders(batch);
+                    batch.clear();
+                }
+            }
+            update = order(entriesPerOrder);
+            update.setDescription("Updated");
+        }
+
+        long randomId() {
+            return ThreadLocalRandom.current().nextLong(1, storeSize + 1);
+        }
+    }
+
+    /** Starts empty every iteration so {@link #createOrder} doesn't grow the store without bound. */
+    @State(Scope.Benchmark)
+    public static class EmptyStore {
+        @Param({"1", "10"})
+        public int entriesPerOrder;
+
+        OrderServiceImpl orderService;
+        Order template;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            orderService = new OrderServiceImpl(Clock.systemUTC());
+            template = order(entriesPerOrder);
+        }
+    }
+
+    @Benchmark
+    public Order createOrder(EmptyStore state) {
+        return state.orderService.createOrder(state.template);
+    }
+
+    @Benchmark
+    public Order getOrder(Store state) {
+        return state.orderService.getOrder(state.randomId());
+    }
+
+    @Benchmark
+    public Order updateOrder(Store state) {
+        return state.orderService.updateOrder(state.randomId(), state.update);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Order> getAllOrders(Store state) {
+        return state.orderService.getAllOrders();
+    }
+
+    /** Deletes a freshly created order, so the store size stays constant. */
+    @Benchmark
+    public Order createAndDeleteOrder(Store state) {
+        Order created = state.orderService.createOrder(state.template);
+        state.orderService.deleteOrder(created.getId());
+        return created;
+    }
+
+    @Benchmark
+    public Order mixed(Store state) {
+        if (ThreadLocalRandom.current().nextInt(100) < state.readPercent) {
+            return state.orderService.getOrder(state.randomId());
+        }
+        return state.orderService.updateOrder(state.randomId(), state.update);
+    }
+
+    static Order order(int entries) {
+        List<OrderEntry> orderEntries = new ArrayList<>(entries);
+        for (int i = 0; i < entries; i++) {
+            orderEntries.add(new OrderEntry("P" + i, "Product " + i, 1 + i % 3, 10.0 + i));
+        }
+        return new Order(null, "Benchmark order", null, null, null, orderEntries);
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.Order;
+import com.example.demo.store.HeapOrderStore;
+import com.example.demo.store.OffHeapOrderStore;
+import com.example.demo.store.OrderStore;
+import com.example.demo.store.StoreEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads and replacing writes against each {@link StoreEngine}, without the service around them.
+ * Off-heap reads decode a fresh order, so run with {@code -prof gc} to see what they allocate, e.g.
+ * {@code make bench BENCH=OrderStoreBenchmark JMH_ARGS="-prof gc"}. Memory per order and GC
+ * pauses are measured by {@link OrderStoreFootprint}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class OrderStoreBenchmark {
+    @Param({"HEAP", "OFF_HEAP"})
+    public StoreEngine engine;
+
+    @Param({"1000000"})
+    public int storeSize;
+
+    @Param({"3"})
+    public int entriesPerOrder;
+
+    OrderStore store;
+    Order[] updates;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = engine == StoreEngine.OFF_HEAP ? new OffHeapOrderStore() : new HeapOrderStore();
+        for (long id = 1; id <= storeSize; id++) {
+            store.put(OrderStoreFootprint.order(id, entriesPerOrder));
+        }
+        updates = new Order[1024];
+        for (int i = 0; i < updates.length; i++) {
+            updates[i] = OrderStoreFootprint.order(i + 1, entriesPerOrder);
+        }
+    }
+
+    long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, storeSize + 1);
+    }
+
+    @Benchmark
+    public Order get() {
+        return store.get(randomId());
+    }
+
+    @Benchmark
+    public void put() {
+        // Ids 1..1024 only, so the heap store keeps its size and the off-heap store keeps compacting
+        store.put(updates[ThreadLocalRandom.current().nextInt(updates.length)]);
+    }
+}
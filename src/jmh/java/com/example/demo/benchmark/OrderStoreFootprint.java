@@ -0,0 +1,119 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderEntry;
+import com.example.demo.model.OrderStatus;
+import com.example.demo.store.HeapOrderStore;
+import com.example.demo.store.OffHeapOrderStore;
+import com.example.demo.store.OrderStore;
+import com.example.demo.store.StoreEngine;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Memory per order and GC pauses for each {@link StoreEngine} at a given store size: retained
+ * heap and direct-buffer bytes after a full GC, the pause of an explicit full GC (which has to
+ * trace every live object), and total GC time while replacing orders under allocation churn.
+ * <p>
+ * Not a JMH benchmark, since it measures the heap rather than a timed operation. Each engine runs
+ * in its own JVM for clean numbers, e.g. {@code mvn -Pjmh test-compile exec:exec
+ * -Djmh.main=com.example.demo.benchmark.OrderStoreFootprint -Djmh.jvmArgs="-Xmx8g -XX:MaxDirectMemorySize=4g"
+ * -Djmh.args="--engine=OFF_HEAP --orders=5000000"}; without {@code --engine} both run in turn.
+ */
+public class OrderStoreFootprint {
+
+    static Order order(long id, int entries) {
+        List<OrderEntry> list = new ArrayList<>(entries);
+        for (int i = 0; i < entries; i++) {
+            list.add(new OrderEntry("P" + (id + i) % 500, "Product " + (id + i) % 500, 1 + i, 9.99));
+        }
+        Order order = new Order(id, "Order " + id, null, LocalDate.of(2024, 1, 1).plusDays(id % 365),
+                OrderStatus.CREATED, List.copyOf(list));
+        order.setAmountCents(999L * entries);
+        order.setVersion(1L);
+        return order;
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options = Arrays.stream(args)
+                .map(arg -> arg.replaceFirst("^--", "").split("=", 2))
+                .collect(Collectors.toMap(kv -> kv[0], kv -> kv.length > 1 ? kv[1] : "true"));
+        int orders = Integer.parseInt(options.getOrDefault("orders", "1000000"));
+        int entries = Integer.parseInt(options.getOrDefault("entries", "3"));
+        int updates = Integer.parseInt(options.getOrDefault("updates", String.valueOf(orders)));
+        List<StoreEngine> engines = options.containsKey("engine")
+                ? List.of(StoreEngine.valueOf(options.get("engine")))
+                : List.of(StoreEngine.values());
+
+        System.out.printf("%d orders, %d entries each, %d replacing updates%n", orders, entries, updates);
+        System.out.printf("%-9s %12s %14s %14s %14s %12s%n", "engine", "heap B/order", "direct B/order",
+                "full GC ms", "churn GC ms", "GC count");
+        for (StoreEngine engine : engines) {
+            run(engine, orders, entries, updates);
+        }
+    }
+
+    private static void run(StoreEngine engine, int orders, int entries, int updates) {
+        long heapBefore = usedHeapAfterGc();
+        long directBefore = directBytes();
+
+        OrderStore store = engine == StoreEngine.OFF_HEAP ? new OffHeapOrderStore() : new HeapOrderStore();
+        for (long id = 1; id <= orders; id++) {
+            store.put(order(id, entries));
+        }
+        long heap = usedHeapAfterGc() - heapBefore;
+        long direct = directBytes() - directBefore;
+
+        long start = System.nanoTime();
+        System.gc();
+        double fullGcMillis = (System.nanoTime() - start) / 1e6;
+
+        long gcMillisBefore = gcMillis();
+        long gcCountBefore = gcCount();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < updates; i++) {
+            store.put(order(random.nextLong(1, orders + 1), entries));
+        }
+        long churnGcMillis = gcMillis() - gcMillisBefore;
+        long churnGcCount = gcCount() - gcCountBefore;
+
+        System.out.printf("%-9s %12.1f %14.1f %14.1f %14d %12d%n", engine, heap / (double) orders,
+                direct / (double) orders, fullGcMillis, churnGcMillis, churnGcCount);
+        if (store.size() != orders) {
+            throw new IllegalStateException("Store lost orders: " + store.size());
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long directBytes() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> "direct".equals(pool.getName()))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+    }
+
+    private static long gcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.Money;
+import com.example.demo.model.OrderEntry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order totaling on its own. {@link #streamDouble} is the stream-over-doubles total the service
+ * used before fixed-point money; run with {@code -prof gc} to compare bytes per operation, e.g.
+ * {@code make bench BENCH=OrderTotalBenchmark JMH_ARGS="-prof gc"}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderTotalBenchmark {
+    @Param({"1", "10", "100"})
+    public int entriesPerOrder;
+
+    List<OrderEntry> entries;
+
+    @Setup
+    public void setUp() {
+        entries = OrderServiceBenchmark.order(entriesPerOrder).getEntries();
+    }
+
+    @Benchmark
+    public double streamDouble() {
+        return entries.stream()
+                .mapToDouble(e -> e.getPrice() * e.getQuantity())
+                .sum();
+    }
+
+    @Benchmark
+    public long fixedPointLoop() {
+        return Money.total(entries);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.model.Order;
+import com.example.demo.service.OrderService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end latency through Tomcat, {@code OrdersController} and Jackson, using the
+ * application's own ObjectMapper for request bodies. Scale client concurrency with {@code -t}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class OrdersApiBenchmark {
+
+    @Param({"1000", "100000"})
+    public int storeSize;
+
+    @Param({"1", "10"})
+    public int entriesPerOrder;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private byte[] createBody;
+    private byte[] updateBody;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = new SpringApplicationBuilder(DemoApplication.class)
+                .properties("server.port=0", "logging.level.root=WARN", "logging.level.com.example.demo=WARN")
+                .run();
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port + "/orders";
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+        Order template = OrderServiceBenchmark.order(entriesPerOrder);
+        createBody = objectMapper.writeValueAsBytes(template);
+        Order update = OrderServiceBenchmark.order(entriesPerOrder);
+        update.setDescription("Updated");
+        updateBody = objectMapper.writeValueAsBytes(update);
+
+        OrderService orderService = context.getBean(OrderService.class);
+        List<Order> batch = new ArrayList<>();
+        for (int i = orderService.getAllOrders().size(); i < storeSize; i++) {
+            batch.add(template);
+        }
+        orderService.createOrders(batch);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int createOrder() throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(createBody)));
+    }
+
+    @Benchmark
+    public int getOrder() throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/" + randomId())).GET());
+    }
+
+    @Benchmark
+    public int updateOrder() throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/" + randomId()))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(updateBody)));
+    }
+
+    @Benchmark
+    public int getOrdersPage() throws Exception {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "?limit=100&after=" + randomId())).GET());
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, storeSize + 1);
+    }
+
+    private int send(HttpRequest.Builder request) throws Exception {
+        HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode());
+        }
+        return response.body().length;
+    }
+}
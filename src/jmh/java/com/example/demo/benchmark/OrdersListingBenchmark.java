@@ -0,0 +1,115 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.controller.NdjsonOrderWriter;
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderEntry;
+import com.example.demo.service.impl.OrderServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the legacy {@code GET /orders} body (copy the map into a list, serialize the list)
+ * with the NDJSON keyset stream. Run with {@code -prof gc} to compare bytes allocated per request;
+ * the {@code *FirstByte} benchmarks abort the response at the first byte written to the socket,
+ * which approximates time-to-first-byte.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx1g"})
+@State(Scope.Benchmark)
+public class OrdersListingBenchmark {
+
+    @Param({"10000", "100000"})
+    public int storeSize;
+
+    private OrderServiceImpl orderService;
+    private ObjectMapper objectMapper;
+    private NdjsonOrderWriter ndjsonWriter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        orderService = new OrderServiceImpl(Clock.systemUTC());
+        List<OrderEntry> entries = List.of(
+                new OrderEntry("P1", "Product 1", 2, 50.0),
+                new OrderEntry("P2", "Product 2", 1, 75.0));
+        for (int i = 0; i < storeSize; i++) {
+            orderService.createOrder(new Order(null, "Order " + i, null, null, null, entries));
+        }
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        ndjsonWriter = new NdjsonOrderWriter(orderService, objectMapper, NdjsonOrderWriter.DEFAULT_PAGE_SIZE);
+    }
+
+    @Benchmark
+    public long fullListBody() throws IOException {
+        CountingOutputStream out = new CountingOutputStream(Long.MAX_VALUE);
+        objectMapper.writeValue(out, orderService.getAllOrders());
+        return out.count;
+    }
+
+    @Benchmark
+    public long streamedBody() throws IOException {
+        CountingOutputStream out = new CountingOutputStream(Long.MAX_VALUE);
+        ndjsonWriter.writeAll(out);
+        return out.count;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long fullListFirstByte() {
+        CountingOutputStream out = new CountingOutputStream(1);
+        try {
+            objectMapper.writeValue(out, orderService.getAllOrders());
+        } catch (IOException clientGone) {
+            // expected once the first byte has been written
+        }
+        return out.count;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long streamedFirstByte() {
+        CountingOutputStream out = new CountingOutputStream(1);
+        try {
+            ndjsonWriter.writeAll(out);
+        } catch (IOException clientGone) {
+            // expected once the first byte has been written
+        }
+        return out.count;
+    }
+
+    /** Discards bytes like a socket would, and behaves like a disconnected client past {@code limit}. */
+    static final class CountingOutputStream extends OutputStream {
+        private static final IOException CLIENT_GONE = new IOException("client disconnected");
+        private final long limit;
+        long count;
+
+        CountingOutputStream(long limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(null, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (count >= limit) {
+                throw CLIENT_GONE;
+            }
+            count += len;
+        }
+    }
+}
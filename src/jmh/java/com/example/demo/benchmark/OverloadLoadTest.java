@@ -0,0 +1,271 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.model.Order;
+import com.example.demo.persistence.OrderJournal;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Tail latency of an overloaded server with neither, admission control alone, and admission control
+ * plus read coalescing. Writes go through a journal that makes one {@code --io-ms} durable write at a
+ * time, standing in for a saturated disk or downstream service, so creates are what overload the
+ * server. A closed-loop run against a warm-up server measures what it can do; the test then offers
+ * {@code --overload} times that, open loop at a fixed arrival rate, so a slow server faces a growing
+ * backlog the way it would from real clients. Latency is counted from when a request was due, not when it was
+ * sent, and requests that take longer than {@code --timeout-ms} count as failed, as a client
+ * would give up on them. Like a client's connection pool, at most {@code --connections} requests
+ * are outstanding; the rest wait for one, which counts toward their latency. The mix: 60% get a
+ * random order, 10% a page of 100 after a random id, 5% the full listing (a dashboard: identical
+ * requests, which coalesce) and 25% creates.
+ * <p>
+ * Not a JMH benchmark, since it needs a real server. Run with
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.main=com.example.demo.benchmark.OverloadLoadTest
+ * -Djmh.args="--seconds=15 --overload=2 --io-ms=10"}; {@code --rate} fixes the arrival rate instead and
+ * {@code --modes} picks and orders the modes.
+ */
+public class OverloadLoadTest {
+    private static final String BODY = """
+            {"description": "Overload", "entries": [{"productCode": "P1", "productName": "Product 1", "quantity": 2, "price": 9.99}]}
+            """;
+    private static final int PRELOADED_ORDERS = 2000;
+    private static final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    static volatile long ioMillis;
+    private static final String[] MODES = {"unprotected", "admission", "admission+coalescing"};
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Arrays.stream(args)
+                .map(arg -> arg.replaceFirst("^--", "").split("=", 2))
+                .collect(Collectors.toMap(kv -> kv[0], kv -> kv.length > 1 ? kv[1] : "true"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "15"));
+        double overload = Double.parseDouble(options.getOrDefault("overload", "2"));
+        Duration timeout = Duration.ofMillis(Long.parseLong(options.getOrDefault("timeout-ms", "2000")));
+        double rate = options.containsKey("rate") ? Double.parseDouble(options.get("rate")) : 0;
+        ioMillis = Long.parseLong(options.getOrDefault("io-ms", "10"));
+        int connections = Integer.parseInt(options.getOrDefault("connections", "256"));
+        List<String> modes = List.of(options.getOrDefault("modes", String.join(",", MODES)).split(","));
+
+        // The modes share this JVM, so compile client and server code before measuring any of them
+        try (Server server = Server.start(false, false)) {
+            server.capacity(seconds);
+            double capacity = server.capacity(Math.max(5, seconds / 2));
+            if (rate == 0) {
+                rate = overload * capacity;
+            }
+        }
+        List<String> rows = new ArrayList<>();
+        for (String mode : modes) {
+            int index = List.of(MODES).indexOf(mode);
+            if (index < 0) {
+                throw new IllegalArgumentException("Unknown mode " + mode + ", expected one of " + String.join(",", MODES));
+            }
+            try (Server server = Server.start(index > 0, index > 1)) {
+                server.capacity(Math.max(3, seconds / 3)); // warm up, closed loop so no backlog builds
+                Result result = server.openLoop(rate, timeout, seconds, connections);
+                rows.add(String.format("%-20s %10.0f %10.0f %9.1f %9.1f %9.1f %9d %9d", mode, rate,
+                        result.ok / (double) seconds, result.percentile(0.50), result.percentile(0.99), result.percentile(0.999),
+                        result.rejected, result.failed));
+            }
+        }
+        System.out.printf("Open loop at %.0f requests/s for %d s, %d ms per write one at a time, %d ms client timeout; "
+                + "latency of successful requests%n", rate, seconds, ioMillis, timeout.toMillis());
+        System.out.printf("%-20s %10s %10s %9s %9s %9s %9s %9s%n", "mode", "offered/s", "ok/s", "p50 ms", "p99 ms",
+                "p99.9 ms", "rejected", "failed");
+        rows.forEach(System.out::println);
+        System.exit(0);
+    }
+
+    private record Result(long ok, long rejected, long failed, long[] sortedLatencies) {
+        double percentile(double p) {
+            if (sortedLatencies.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.min(sortedLatencies.length - 1, Math.ceil(p * sortedLatencies.length) - 1);
+            return sortedLatencies[Math.max(0, index)] / 1e6;
+        }
+    }
+
+    private static final class Server implements AutoCloseable {
+        private final ConfigurableApplicationContext context;
+        private final URI base;
+        private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        private final HttpClient client = HttpClient.newBuilder().executor(executor).version(HttpClient.Version.HTTP_1_1).build();
+        private final long[] ids = new long[PRELOADED_ORDERS];
+
+        private Server(ConfigurableApplicationContext context, URI base) {
+            this.context = context;
+            this.base = base;
+        }
+
+        static Server start(boolean admission, boolean coalescing) throws Exception {
+            int port;
+            try (ServerSocket socket = new ServerSocket(0)) {
+                port = socket.getLocalPort();
+            }
+            SpringApplication application = new SpringApplication(DemoApplication.class, SaturatedJournalConfig.class);
+            Server server = new Server(application.run(
+                    "--server.port=" + port,
+                    "--orders.admission.enabled=" + admission,
+                    "--orders.coalescing.enabled=" + coalescing,
+                    "--orders.persistence.enabled=false",
+                    "--logging.level.com.example.demo=WARN",
+                    "--logging.level.root=WARN"), URI.create("http://localhost:" + port));
+            for (int i = 0; i < server.ids.length; i++) {
+                HttpResponse<String> response = server.client.send(server.create(Duration.ofSeconds(30)), HttpResponse.BodyHandlers.ofString());
+                server.ids[i] = objectMapper.readValue(response.body(), Order.class).getId();
+            }
+            return server;
+        }
+
+        /** Requests per second that 32 clients sending back to back get through. */
+        double capacity(int seconds) throws Exception {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+            LongAdder completed = new LongAdder();
+            List<Future<?>> clients = new ArrayList<>();
+            for (int c = 0; c < 32; c++) {
+                clients.add(executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        client.send(next(Duration.ofSeconds(30)), HttpResponse.BodyHandlers.discarding());
+                        completed.increment();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : clients) {
+                future.get();
+            }
+            return completed.sum() / (double) seconds;
+        }
+
+        Result openLoop(double rate, Duration timeout, int seconds, int maxConnections) throws Exception {
+            Semaphore connections = new Semaphore(maxConnections);
+            long interval = (long) (1e9 / rate);
+            long start = System.nanoTime();
+            long end = start + TimeUnit.SECONDS.toNanos(seconds);
+            LongAdder ok = new LongAdder();
+            LongAdder rejected = new LongAdder();
+            LongAdder failed = new LongAdder();
+            ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+            List<Future<?>> requests = new ArrayList<>();
+            for (long due = start; due < end; due += interval) {
+                LockSupport.parkNanos(due - System.nanoTime());
+                long scheduled = due;
+                requests.add(executor.submit(() -> {
+                    long remaining = scheduled + timeout.toNanos() - System.nanoTime();
+                    if (!connections.tryAcquire(remaining, TimeUnit.NANOSECONDS)) {
+                        failed.increment();
+                        return null;
+                    }
+                    try {
+                        remaining = scheduled + timeout.toNanos() - System.nanoTime();
+                        int status = client.send(next(Duration.ofNanos(Math.max(1, remaining))), HttpResponse.BodyHandlers.discarding())
+                                .statusCode();
+                        long latency = System.nanoTime() - scheduled;
+                        if (status == 429 || status == 503) {
+                            rejected.increment();
+                        } else if (latency > timeout.toNanos()) {
+                            failed.increment();
+                        } else {
+                            ok.increment();
+                            latencies.add(latency);
+                        }
+                    } catch (IOException e) { // timed out, or refused a connection
+                        failed.increment();
+                    } finally {
+                        connections.release();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : requests) {
+                future.get();
+            }
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            return new Result(ok.sum(), rejected.sum(), failed.sum(), sorted);
+        }
+
+        private HttpRequest next(Duration timeout) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int op = random.nextInt(100);
+            long id = ids[random.nextInt(ids.length)];
+            if (op < 25) {
+                return create(timeout);
+            }
+            String path = op < 30 ? "/orders" : op < 40 ? "/orders?limit=100&after=" + id : "/orders/" + id;
+            return HttpRequest.newBuilder(base.resolve(path)).timeout(timeout).build();
+        }
+
+        private HttpRequest create(Duration timeout) {
+            return HttpRequest.newBuilder(base.resolve("/orders"))
+                    .timeout(timeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(BODY))
+                    .build();
+        }
+
+        @Override
+        public void close() {
+            context.close();
+            client.close();
+            executor.close();
+        }
+    }
+
+    /** Replaces the journal with one that makes a single durable write at a time; registered as a source, not scanned. */
+    static class SaturatedJournalConfig {
+        @Bean
+        @Primary
+        OrderJournal saturatedJournal() {
+            ReentrantLock disk = new ReentrantLock();
+            return new OrderJournal() {
+                @Override public void beginMutation() {}
+                @Override public void endMutation() {}
+                @Override public long appendCreate(Order order) { return 0; }
+                @Override public long appendCreates(List<Order> orders) { return 0; }
+                @Override public long appendUpdate(Order order) { return 0; }
+                @Override public long appendDelete(long id) { return 0; }
+                @Override public boolean recover(RecoveryHandler handler) { return false; }
+                @Override public void snapshot(SnapshotSource source) {}
+                @Override public void close() {}
+
+                @Override
+                public void awaitDurable(long position) {
+                    disk.lock();
+                    try {
+                        Thread.sleep(ioMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        disk.unlock();
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.cache.OrderJsonCache;
+import com.example.demo.cluster.OrderCluster;
+import com.example.demo.controller.OrdersController;
+import com.example.demo.model.Order;
+import com.example.demo.service.impl.OrderServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request path through {@link OrdersController} and {@link OrderServiceImpl} with application
+ * logging on at INFO, written to {@code target/request-logging-bench.log} through the appender
+ * setup in {@code log4j2-request-logging-bench.xml}. Compare {@code -prof gc} B/op and throughput
+ * against a run with logging at WARN to see what the log lines cost.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dlog4j2.configurationFile=log4j2-request-logging-bench.xml"})
+@State(Scope.Benchmark)
+public class RequestLoggingBenchmark {
+    private static final int STORE_SIZE = 10_000;
+
+    @Param({"10"})
+    public int entriesPerOrder;
+
+    OrdersController controller;
+    // Standalone, the controller never looks at the request
+    final MockHttpServletRequest request = new MockHttpServletRequest();
+    Order template;
+    Order update;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        OrderServiceImpl orderService = new OrderServiceImpl(Clock.systemUTC());
+        List<Order> orders = new ArrayList<>(STORE_SIZE);
+        for (int i = 0; i < STORE_SIZE; i++) {
+            orders.add(OrderServiceBenchmark.order(entriesPerOrder));
+        }
+        orderService.createOrders(orders);
+        controller = new OrdersController();
+        ReflectionTestUtils.setField(controller, "orderService", orderService);
+        ReflectionTestUtils.setField(controller, "orderCluster", OrderCluster.standalone(new ObjectMapper()));
+        // Serialize on every read, so the benchmark keeps measuring the full request path
+        ReflectionTestUtils.setField(controller, "orderJsonCache",
+                OrderJsonCache.disabled(new ObjectMapper().registerModule(new JavaTimeModule())));
+        template = OrderServiceBenchmark.order(entriesPerOrder);
+        update = OrderServiceBenchmark.order(entriesPerOrder);
+        update.setDescription("Updated");
+    }
+
+    long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, STORE_SIZE + 1);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> getOrder() {
+        return controller.getOrder(randomId(), null, request);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> updateOrder() {
+        return controller.updateOrder(randomId(), update, null, request);
+    }
+
+    /** Creates and deletes, so the store size stays constant. */
+    @Benchmark
+    public Order createAndDeleteOrder() {
+        Order created = (Order) controller.createOrder(template, null, request).getBody();
+        controller.deleteOrder(created.getId(), request);
+        return created;
+    }
+}
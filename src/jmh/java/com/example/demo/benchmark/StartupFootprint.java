@@ -0,0 +1,184 @@
+package com.example.demo.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Startup time and resident memory of the packaged application in each build mode:
+ * <ul>
+ *   <li>{@code jit}: the plain jar, {@code java -jar target/demo-*.jar}</li>
+ *   <li>{@code cds}: the extracted jar with the class data archive from the {@code cds} profile</li>
+ *   <li>{@code aot-cds}: as {@code cds} with the AOT-generated context, from {@code -Paot,cds}</li>
+ *   <li>{@code native}: the GraalVM executable from {@code -Pnative native:compile}</li>
+ * </ul>
+ * Each run starts a fresh process and reports the time Spring logs for startup, the time from
+ * launch until {@code /actuator/health} first answers on the management port, and RSS (from {@code /proc}, so Linux only)
+ * once ready and again after a burst of create and get requests. RSS includes pages mapped from
+ * the jar and the class data archive, which the kernel can drop under the pod's memory limit, so
+ * the anonymous part after the burst is reported too: that is what has to fit. JVM modes run with
+ * the same memory flags as the container. Build with {@code mvn -Paot,cds package -DskipTests}, then run
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.main=com.example.demo.benchmark.StartupFootprint
+ * -Djmh.args="--modes=jit,cds,aot-cds --runs=5"} or {@code make startup}.
+ */
+public class StartupFootprint {
+    private static final String BODY = """
+            {"description": "Startup", "entries": [{"productCode": "P1", "productName": "Product 1", "quantity": 2, "price": 9.99}]}
+            """;
+    private static final Pattern STARTED = Pattern.compile("Started DemoApplication in ([0-9.]+) seconds");
+    // The Dockerfile's JVM flags and settings for the HEAP engine, with MaxRAM standing in for the
+    // pod's memory limit so that heap and other ergonomics are sized as they would be in the container
+    private static final String CONTAINER_FLAGS = "-XX:MaxRAM=128m -XX:MinRAMPercentage=30 -XX:MaxRAMPercentage=30 "
+            + "-XX:MinHeapFreeRatio=10 -XX:MaxHeapFreeRatio=20 -Xss256k -XX:+UseSerialGC -XX:TieredStopAtLevel=1 "
+            + "-XX:CICompilerCount=1 -XX:ReservedCodeCacheSize=16m -XX:MaxDirectMemorySize=16m "
+            + "-XX:+UnlockDiagnosticVMOptions -XX:ArchiveRelocationMode=0 "
+            + "-Dorders.cache.maximum-size=4MB -Dorders.events.capacity=8192";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Arrays.stream(args)
+                .map(arg -> arg.replaceFirst("^--", "").split("=", 2))
+                .collect(Collectors.toMap(kv -> kv[0], kv -> kv.length > 1 ? kv[1] : "true"));
+        List<String> modes = List.of(options.getOrDefault("modes", "jit,cds,aot-cds").split(","));
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        int requests = Integer.parseInt(options.getOrDefault("requests", "2000"));
+        Path target = Path.of(options.getOrDefault("target", "target"));
+        List<String> jvmFlags = List.of(options.getOrDefault("jvm-args", CONTAINER_FLAGS).split(" "));
+
+        System.out.printf("%d runs per mode, %d requests after startup, JVM flags: %s%n", runs, requests, jvmFlags);
+        System.out.printf("%-8s %12s %12s %14s %14s %14s%n", "mode", "started ms", "ready ms", "RSS ready MB", "RSS load MB", "anon load MB");
+        for (String mode : modes) {
+            List<Sample> samples = new ArrayList<>(runs);
+            // The archive records the class path as the training run saw it, from inside target/app
+            File directory = mode.endsWith("cds") ? target.resolve("app").toFile() : null;
+            for (int i = 0; i < runs; i++) {
+                samples.add(run(command(mode, target, jvmFlags), directory, requests));
+            }
+            System.out.printf("%-8s %12.0f %12.0f %14.1f %14.1f %14.1f%n", mode,
+                    median(samples, Sample::startedMillis), median(samples, Sample::readyMillis),
+                    median(samples, Sample::readyRssKb) / 1024, median(samples, Sample::loadedRssKb) / 1024,
+                    median(samples, Sample::loadedAnonKb) / 1024);
+        }
+    }
+
+    static List<String> command(String mode, Path target, List<String> jvmFlags) throws IOException {
+        List<String> command = new ArrayList<>();
+        if ("native".equals(mode)) {
+            command.add(target.resolve("demo").toString());
+            command.add("-Xmx100m");
+            return command;
+        }
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmFlags);
+        switch (mode) {
+            case "jit" -> command.addAll(List.of("-jar", jar(target).toString()));
+            case "cds", "aot-cds" -> {
+                command.add("-XX:SharedArchiveFile=application.jsa");
+                command.add("-Dspring.aot.enabled=" + "aot-cds".equals(mode));
+                command.addAll(List.of("-jar", jar(target).getFileName().toString()));
+            }
+            default -> throw new IllegalArgumentException("Unknown mode " + mode + ", expected jit, cds, aot-cds or native");
+        }
+        return command;
+    }
+
+    private static Path jar(Path target) throws IOException {
+        try (var files = Files.list(target)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No jar in " + target + ", run mvn package first"));
+        }
+    }
+
+    private static Sample run(List<String> command, File directory, int requests) throws Exception {
+        int port = freePort();
+        int managementPort = freePort();
+        List<String> withPort = new ArrayList<>(command);
+        withPort.add("--server.port=" + port);
+        withPort.add("--management.server.port=" + managementPort);
+        File log = File.createTempFile("startup", ".log");
+        log.deleteOnExit();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(withPort).directory(directory).redirectErrorStream(true).redirectOutput(log).start();
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            URI base = URI.create("http://localhost:" + port);
+            awaitHealthy(client, URI.create("http://localhost:" + managementPort), process);
+            double readyMillis = (System.nanoTime() - start) / 1e6;
+            long readyRss = rssKb(process.pid(), "VmRSS:");
+
+            HttpRequest create = HttpRequest.newBuilder(base.resolve("/orders"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(BODY))
+                    .build();
+            for (int i = 1; i <= requests; i++) {
+                client.send(create, HttpResponse.BodyHandlers.discarding());
+                client.send(HttpRequest.newBuilder(base.resolve("/orders/" + i)).build(), HttpResponse.BodyHandlers.discarding());
+            }
+            long loadedRss = rssKb(process.pid(), "VmRSS:");
+            long loadedAnon = rssKb(process.pid(), "RssAnon:");
+
+            Matcher started = STARTED.matcher(Files.readString(log.toPath()));
+            double startedMillis = started.find() ? Double.parseDouble(started.group(1)) * 1000 : Double.NaN;
+            return new Sample(startedMillis, readyMillis, readyRss, loadedRss, loadedAnon);
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void awaitHealthy(HttpClient client, URI base, Process process) throws Exception {
+        HttpRequest health = HttpRequest.newBuilder(base.resolve("/actuator/health")).timeout(Duration.ofSeconds(1)).build();
+        long deadline = System.nanoTime() + Duration.ofSeconds(60).toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with " + process.exitValue());
+            }
+            try {
+                if (client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(5);
+        }
+        throw new IllegalStateException("Application did not become healthy within 60 s");
+    }
+
+    private static long rssKb(long pid, String field) throws IOException {
+        for (String line : Files.readAllLines(Path.of("/proc", String.valueOf(pid), "status"))) {
+            if (line.startsWith(field)) {
+                return Long.parseLong(line.replaceAll("[^0-9]", ""));
+            }
+        }
+        throw new IllegalStateException("No " + field + " for process " + pid);
+    }
+
+    private static double median(List<Sample> samples, ToDoubleFunction<Sample> metric) {
+        double[] values = samples.stream().mapToDouble(metric).sorted().toArray();
+        return values[values.length / 2];
+    }
+
+    private record Sample(double startedMillis, double readyMillis, long readyRssKb, long loadedRssKb, long loadedAnonKb) {}
+}
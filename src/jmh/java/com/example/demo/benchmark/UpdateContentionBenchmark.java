@@ -0,0 +1,70 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.Order;
+import com.example.demo.service.VersionConflictException;
+import com.example.demo.service.impl.OrderServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Update throughput under contention. {@code hotOrders} is how many ids all threads spread their
+ * updates over: 1 puts every thread on the same id, 1024 makes collisions rare. Compare runs at
+ * increasing {@code -t}, e.g. {@code make bench BENCH=UpdateContentionBenchmark THREADS="1 2 4 8"};
+ * with enough hot orders, throughput should grow with the thread count up to the core count.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+public class UpdateContentionBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Store {
+        @Param({"1", "16", "1024"})
+        public int hotOrders;
+
+        OrderServiceImpl orderService;
+        Order update;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            orderService = new OrderServiceImpl(Clock.systemUTC());
+            List<Order> orders = new ArrayList<>(hotOrders);
+            for (int i = 0; i < hotOrders; i++) {
+                orders.add(OrderServiceBenchmark.order(1));
+            }
+            orderService.createOrders(orders);
+            // Entries only, so the update never hits a terminal status and can repeat forever
+            update = OrderServiceBenchmark.order(2);
+        }
+
+        long randomId() {
+            return ThreadLocalRandom.current().nextLong(1, hotOrders + 1);
+        }
+    }
+
+    @Benchmark
+    public Order update(Store store) {
+        return store.orderService.updateOrder(store.randomId(), store.update);
+    }
+
+    /** Read-modify-write loop of an If-Match client: re-read and retry until its version wins. */
+    @Benchmark
+    public Order conditionalUpdate(Store store) {
+        long id = store.randomId();
+        while (true) {
+            Long version = store.orderService.getOrder(id).getVersion();
+            try {
+                return store.orderService.updateOrder(id, store.update, version);
+            } catch (VersionConflictException e) {
+                // lost the race, retry against the new version
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.model.Order;
+import com.example.demo.persistence.OrderJournal;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Closed-loop load test of {@code POST /orders} with platform and with virtual request threads.
+ * Durability is simulated by a journal whose {@code awaitDurable} sleeps, standing in for an
+ * fsync or a remote write, so each request blocks its thread for that long.
+ * <p>
+ * Not a JMH benchmark, since it needs a real server and many concurrent connections. Run with
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.main=com.example.demo.benchmark.VirtualThreadLoadTest
+ * -Djmh.args="--concurrency=1000 --latency-ms=20 --seconds=10"}.
+ */
+public class VirtualThreadLoadTest {
+    private static final String BODY = """
+            {"description": "Load test", "entries": [{"productCode": "P1", "productName": "Product 1", "quantity": 2, "price": 9.99}]}
+            """;
+
+    static volatile long latencyMillis;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Arrays.stream(args)
+                .map(arg -> arg.replaceFirst("^--", "").split("=", 2))
+                .collect(Collectors.toMap(kv -> kv[0], kv -> kv.length > 1 ? kv[1] : "true"));
+        Function<String, Integer> option = name -> Integer.valueOf(options.getOrDefault(name, "0"));
+        int concurrency = options.containsKey("concurrency") ? option.apply("concurrency") : 1000;
+        int seconds = options.containsKey("seconds") ? option.apply("seconds") : 10;
+        latencyMillis = options.containsKey("latency-ms") ? option.apply("latency-ms") : 20;
+
+        System.out.printf("POST /orders, %d concurrent clients, %d ms simulated I/O, %d s per mode%n",
+                concurrency, latencyMillis, seconds);
+        System.out.printf("%-9s %12s %10s %10s %10s %8s%n", "threads", "requests/s", "p50 ms", "p99 ms", "max ms", "errors");
+        for (boolean virtual : new boolean[] {false, true}) {
+            run(virtual, concurrency, seconds);
+        }
+        System.exit(0);
+    }
+
+    private static void run(boolean virtual, int concurrency, int seconds) throws Exception {
+        SpringApplication application = new SpringApplication(DemoApplication.class, SimulatedIoConfig.class);
+        try (ConfigurableApplicationContext context = application.run(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtual,
+                "--logging.level.com.example.demo=WARN",
+                "--orders.persistence.enabled=false")) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI uri = URI.create("http://localhost:" + port + "/orders");
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(BODY))
+                    .build();
+
+            // Warm up the JIT and the connection pool
+            load(request, concurrency, Math.max(2, seconds / 3));
+            Result result = load(request, concurrency, seconds);
+            System.out.printf("%-9s %12.0f %10.1f %10.1f %10.1f %8d%n", virtual ? "virtual" : "platform",
+                    result.requests / (double) seconds, result.percentile(0.50), result.percentile(0.99),
+                    result.percentile(1.0), result.errors);
+        }
+    }
+
+    private static Result load(HttpRequest request, int concurrency, int seconds) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        LongAdder errors = new LongAdder();
+        List<Future<long[]>> clients = new ArrayList<>(concurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder().executor(executor).build()) {
+            for (int i = 0; i < concurrency; i++) {
+                clients.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.increment();
+                                continue;
+                            }
+                        } catch (Exception e) {
+                            errors.increment();
+                            continue;
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - start;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+            List<long[]> all = new ArrayList<>(concurrency);
+            for (Future<long[]> future : clients) {
+                all.add(future.get());
+            }
+            long[] latencies = all.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            return new Result(latencies.length, latencies, errors.sum());
+        }
+    }
+
+    private record Result(long requests, long[] sortedLatencies, long errors) {
+        double percentile(double p) {
+            if (sortedLatencies.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.min(sortedLatencies.length - 1, Math.ceil(p * sortedLatencies.length) - 1);
+            return sortedLatencies[Math.max(0, index)] / 1e6;
+        }
+    }
+
+    /**
+     * Replaces the journal with one whose durability wait blocks like real I/O. Not a
+     * {@code @Configuration}, so component scanning doesn't add it to every other harness.
+     */
+    static class SimulatedIoConfig {
+        @Bean
+        @Primary
+        OrderJournal simulatedIoJournal() {
+            return new OrderJournal() {
+                @Override public void beginMutation() {}
+                @Override public void endMutation() {}
+                @Override public long appendCreate(Order order) { return 0; }
+                @Override public long appendCreates(List<Order> orders) { return 0; }
+                @Override public long appendUpdate(Order order) { return 0; }
+                @Override public long appendDelete(long id) { return 0; }
+                @Override public boolean recover(RecoveryHandler handler) { return false; }
+                @Override public void snapshot(SnapshotSource source) {}
+                @Override public void close() {}
+
+                @Override
+                public void awaitDurable(long position) {
+                    try {
+                        Thread.sleep(latencyMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+        }
+    }
+}
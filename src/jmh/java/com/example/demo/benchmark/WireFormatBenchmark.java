@@ -0,0 +1,83 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderEntry;
+import com.example.demo.model.OrderStatus;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding a page of 100 orders, the body of {@code GET /orders?limit=100} or a batch
+ * create, in each wire format at realistic entry counts. The encoded size of each page is printed
+ * once per trial. Compare formats at the same {@code entriesPerOrder}; run with {@code -prof gc}
+ * for allocation per page.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+    private static final int PAGE_SIZE = 100;
+    private static final TypeReference<List<Order>> ORDER_LIST = new TypeReference<>() {};
+
+    @Param({"JSON", "CBOR", "SMILE"})
+    public String format;
+
+    @Param({"1", "10", "50"})
+    public int entriesPerOrder;
+
+    private ObjectMapper objectMapper;
+    private List<Order> page;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        JsonFactory factory = switch (format) {
+            case "JSON" -> new JsonFactory();
+            case "CBOR" -> new CBORFactory();
+            case "SMILE" -> new SmileFactory();
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+        // The settings Spring Boot applies to every format
+        objectMapper = new ObjectMapper(factory)
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        page = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            List<OrderEntry> entries = new ArrayList<>(entriesPerOrder);
+            for (int e = 0; e < entriesPerOrder; e++) {
+                entries.add(new OrderEntry("SKU-" + (10_000 + (i * 31 + e) % 5000), "Product " + e, 1 + e % 5, 4.99 + e));
+            }
+            Order order = new Order((long) i + 1, "Order " + i, null, LocalDate.of(2024, 1, 1).plusDays(i),
+                    OrderStatus.CREATED, entries);
+            order.setVersion(1L);
+            page.add(order);
+        }
+        encoded = objectMapper.writeValueAsBytes(page);
+        System.out.printf("%n%s, %d entries per order: %d bytes per page of %d%n", format, entriesPerOrder, encoded.length, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public List<Order> decode() throws IOException {
+        return objectMapper.readValue(encoded, ORDER_LIST);
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.demo;
+
+import com.example.demo.events.OrderEvent;
+import com.example.demo.model.BatchResult;
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderEntry;
+import com.example.demo.model.OrderPage;
+import com.example.demo.model.OrderStats;
+import com.example.demo.model.OrderStatus;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Reflection hints for the native image. AOT derives hints from controller signatures, but orders
+ * are also serialized directly with the ObjectMapper (the response cache, the NDJSON and SSE
+ * writers), which it cannot see. Binding hints cover the nested types too (entries, stats totals).
+ */
+public class OrderRuntimeHints implements RuntimeHintsRegistrar {
+    private final BindingReflectionHintsRegistrar bindingHints = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        bindingHints.registerReflectionHints(hints.reflection(),
+                Order.class, OrderEntry.class, OrderStatus.class,
+                OrderPage.class, OrderStats.class, BatchResult.class, OrderEvent.class);
+    }
+}
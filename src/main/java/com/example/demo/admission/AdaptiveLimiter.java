@@ -0,0 +1,103 @@
+package com.example.demo.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A concurrency limit that follows measured latency, after the gradient limiters of Netflix's
+ * concurrency-limits. Two moving averages of request latency are kept: a short one for now and a
+ * long one as the no-load baseline. While the short average stays within {@code tolerance} times
+ * the baseline the limit grows by about its square root per sample; once requests queue and the
+ * short average climbs past that, the limit shrinks in proportion, down to half per sample.
+ * Requests beyond the limit are refused at once instead of joining the queue.
+ */
+public final class AdaptiveLimiter {
+    private static final double SHORT_WEIGHT = 0.1;
+    private static final double LONG_WEIGHT = 0.002;
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+    // Guarded by sampleLock; zero until the first sample
+    private final ReentrantLock sampleLock = new ReentrantLock();
+    private double shortRtt;
+    private double longRtt;
+
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Need 1 <= min <= initial <= max, got min=" + minLimit
+                    + " initial=" + initialLimit + " max=" + maxLimit);
+        }
+        if (tolerance < 1) {
+            throw new IllegalArgumentException("tolerance must be at least 1, got " + tolerance);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.limit = initialLimit;
+    }
+
+    /** Takes a permit, or returns false if the limit is reached. */
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /** Returns a permit along with how long its request took. */
+    public void release(long latencyNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        // Completions that find another one updating skip their sample; the averages don't need all of them
+        if (!sampleLock.tryLock()) {
+            return;
+        }
+        try {
+            sample(latencyNanos, inFlightBefore);
+        } finally {
+            sampleLock.unlock();
+        }
+    }
+
+    /** Returns a permit without a latency sample, for requests whose latency says nothing about load. */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    private void sample(long latencyNanos, int inFlightBefore) {
+        if (longRtt == 0) {
+            shortRtt = longRtt = Math.max(1, latencyNanos);
+            return;
+        }
+        shortRtt += (latencyNanos - shortRtt) * SHORT_WEIGHT;
+        longRtt += (latencyNanos - longRtt) * LONG_WEIGHT;
+        // After a lasting improvement, let the baseline catch up rather than wait for the slow average
+        if (longRtt > 2 * shortRtt) {
+            longRtt *= 0.95;
+        }
+        double current = limit;
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+        // Fast requests at low concurrency say nothing about a higher limit
+        if (gradient == 1.0 && inFlightBefore < current / 2) {
+            return;
+        }
+        double target = current * gradient + Math.sqrt(current);
+        double next = current * (1 - SMOOTHING) + target * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    public int limit() {
+        return (int) limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.demo.admission;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// Web slice tests pick this up too, where there may be no MeterRegistry
+@Configuration
+@EnableConfigurationProperties(AdmissionProperties.class)
+public class AdmissionConfig implements WebMvcConfigurer {
+    private final AdmissionProperties properties;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public AdmissionConfig(AdmissionProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (properties.isEnabled()) {
+            registry.addInterceptor(new AdmissionInterceptor(properties, meterRegistry.getIfAvailable(CompositeMeterRegistry::new)))
+                    .addPathPatterns("/orders", "/orders/**");
+        }
+    }
+}
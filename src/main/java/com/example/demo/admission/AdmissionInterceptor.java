@@ -0,0 +1,97 @@
+package com.example.demo.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Admits each request to a handler method against that endpoint's {@link AdaptiveLimiter}, and
+ * refuses it with 503 or 429 and {@code Retry-After} when the limit is reached, before its body is
+ * read. Streaming responses (SSE, NDJSON) hand their permit back once they go async, since their
+ * duration is the client's and not a measure of load.
+ */
+public class AdmissionInterceptor implements AsyncHandlerInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionInterceptor.class);
+    static final String LIMIT = "orders.admission.limit";
+    static final String IN_FLIGHT = "orders.admission.concurrency";
+    static final String REJECTED = "orders.admission.rejected";
+    private static final String PERMIT = AdmissionInterceptor.class.getName() + ".permit";
+
+    private final AdmissionProperties properties;
+    private final MeterRegistry registry;
+    private final ConcurrentHashMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    private record Endpoint(AdaptiveLimiter limiter, int rejectStatus, Counter rejected) {
+    }
+
+    private record Permit(AdaptiveLimiter limiter, long startNanos) {
+    }
+
+    public AdmissionInterceptor(AdmissionProperties properties, MeterRegistry registry) {
+        this.properties = properties;
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Async redispatches were admitted with their original request
+        if (!(handler instanceof HandlerMethod method) || request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+        Endpoint endpoint = endpoints.computeIfAbsent(method.getMethod().getName(), this::endpoint);
+        if (!endpoint.limiter().tryAcquire()) {
+            endpoint.rejected().increment();
+            logger.debug("Refused {} {} at limit {}", request.getMethod(), request.getRequestURI(), endpoint.limiter().limit());
+            response.setStatus(endpoint.rejectStatus());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            return false;
+        }
+        request.setAttribute(PERMIT, new Permit(endpoint.limiter(), System.nanoTime()));
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(PERMIT) instanceof Permit permit) {
+            request.removeAttribute(PERMIT);
+            permit.limiter().release();
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(PERMIT) instanceof Permit permit) {
+            request.removeAttribute(PERMIT);
+            permit.limiter().release(System.nanoTime() - permit.startNanos());
+        }
+    }
+
+    private Endpoint endpoint(String name) {
+        AdmissionProperties.Limit settings = properties.forEndpoint(name);
+        AdaptiveLimiter limiter = new AdaptiveLimiter(settings.getInitial(), settings.getMin(), settings.getMax(),
+                settings.getTolerance());
+        Gauge.builder(LIMIT, limiter, AdaptiveLimiter::limit)
+                .description("Concurrent requests the endpoint currently admits")
+                .tag("endpoint", name)
+                .register(registry);
+        Gauge.builder(IN_FLIGHT, limiter, AdaptiveLimiter::inFlight)
+                .description("Admitted requests in progress")
+                .tag("endpoint", name)
+                .register(registry);
+        Counter rejected = Counter.builder(REJECTED)
+                .description("Requests refused because the endpoint was at its limit")
+                .tag("endpoint", name)
+                .register(registry);
+        return new Endpoint(limiter, settings.getRejectStatus(), rejected);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.demo.admission;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "orders.admission")
+public class AdmissionProperties {
+    /** Whether requests to /orders are refused once an endpoint's adaptive limit is reached. */
+    private boolean enabled = true;
+    private Limit defaults = new Limit(20, 8, 500, 2.0, 503);
+    /** Per-endpoint overrides of {@code defaults}, keyed by OrdersController method name, e.g. getOrder. */
+    private Map<String, Limit> endpoints = new LinkedHashMap<>();
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public Limit getDefaults() { return defaults; }
+    public void setDefaults(Limit defaults) { this.defaults = defaults; }
+    public Map<String, Limit> getEndpoints() { return endpoints; }
+    public void setEndpoints(Map<String, Limit> endpoints) { this.endpoints = endpoints; }
+
+    /** Settings for {@code endpoint}: its overrides where set, the defaults elsewhere. */
+    Limit forEndpoint(String endpoint) {
+        Limit override = endpoints.get(endpoint);
+        if (override == null) {
+            return defaults;
+        }
+        return new Limit(
+                override.initial != null ? override.initial : defaults.initial,
+                override.min != null ? override.min : defaults.min,
+                override.max != null ? override.max : defaults.max,
+                override.tolerance != null ? override.tolerance : defaults.tolerance,
+                override.rejectStatus != null ? override.rejectStatus : defaults.rejectStatus);
+    }
+
+    public static class Limit {
+        /** Concurrent requests allowed before any latency is measured. */
+        private Integer initial;
+        private Integer min;
+        private Integer max;
+        /** How far latency may rise above its baseline, as a ratio, before the limit shrinks. */
+        private Double tolerance;
+        /** Status of a refused request: 503 (overloaded) or 429 (slow down). */
+        private Integer rejectStatus;
+
+        public Limit() {
+        }
+
+        Limit(Integer initial, Integer min, Integer max, Double tolerance, Integer rejectStatus) {
+            this.initial = initial;
+            this.min = min;
+            this.max = max;
+            this.tolerance = tolerance;
+            this.rejectStatus = rejectStatus;
+        }
+
+        public Integer getInitial() { return initial; }
+        public void setInitial(Integer initial) { this.initial = initial; }
+        public Integer getMin() { return min; }
+        public void setMin(Integer min) { this.min = min; }
+        public Integer getMax() { return max; }
+        public void setMax(Integer max) { this.max = max; }
+        public Double getTolerance() { return tolerance; }
+        public void setTolerance(Double tolerance) { this.tolerance = tolerance; }
+        public Integer getRejectStatus() { return rejectStatus; }
+        public void setRejectStatus(Integer rejectStatus) { this.rejectStatus = rejectStatus; }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.archive;
+
+import com.example.demo.service.impl.OrderServiceImpl;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Configuration
+@EnableConfigurationProperties(ArchiveProperties.class)
+public class ArchiveConfig {
+
+    @Bean
+    public OrderArchive orderArchive(ArchiveProperties properties) {
+        if (!properties.isEnabled()) {
+            return OrderArchive.NONE;
+        }
+        return new FileOrderArchive(properties.getDirectory(), properties.getBlockSize(), properties.getMaxSegments());
+    }
+
+    // Checks orders.archive.enabled when it runs, like the snapshot scheduler, so AOT builds can toggle it
+    @Component
+    static class ArchiveScheduler {
+        private final OrderServiceImpl orderService;
+        private final ArchiveProperties properties;
+
+        ArchiveScheduler(OrderServiceImpl orderService, ArchiveProperties properties) {
+            this.orderService = orderService;
+            this.properties = properties;
+        }
+
+        @Scheduled(initialDelayString = "${orders.archive.interval:PT1H}", fixedDelayString = "${orders.archive.interval:PT1H}")
+        void archive() {
+            if (properties.isEnabled()) {
+                orderService.archive(properties.getMinAge(), properties.getMaxOrdersPerRun());
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.archive;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Period;
+
+@ConfigurationProperties(prefix = "orders.archive")
+public class ArchiveProperties {
+    /** Whether terminal orders are moved out of memory into the archive, and reads fall through to it. */
+    private boolean enabled = false;
+    /** Directory holding the archive segments. */
+    private Path directory = Path.of("archive");
+    /** Completed and cancelled orders are archived once their order date is this far in the past. */
+    private Period minAge = Period.ofDays(30);
+    /** Delay between the end of one archival run and the start of the next. */
+    private Duration interval = Duration.ofHours(1);
+    /** Most orders one run archives, and so the most one run's segment holds before merges. */
+    private int maxOrdersPerRun = 100_000;
+    /** Orders per compressed block; a cold read inflates one block. */
+    private int blockSize = 16;
+    /** Most segment files kept; beyond this the smallest neighbours are merged after each run. */
+    private int maxSegments = 16;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public Path getDirectory() { return directory; }
+    public void setDirectory(Path directory) { this.directory = directory; }
+    public Period getMinAge() { return minAge; }
+    public void setMinAge(Period minAge) { this.minAge = minAge; }
+    public Duration getInterval() { return interval; }
+    public void setInterval(Duration interval) { this.interval = interval; }
+    public int getMaxOrdersPerRun() { return maxOrdersPerRun; }
+    public void setMaxOrdersPerRun(int maxOrdersPerRun) { this.maxOrdersPerRun = maxOrdersPerRun; }
+    public int getBlockSize() { return blockSize; }
+    public void setBlockSize(int blockSize) { this.blockSize = blockSize; }
+    public int getMaxSegments() { return maxSegments; }
+    public void setMaxSegments(int maxSegments) { this.maxSegments = maxSegments; }
+}
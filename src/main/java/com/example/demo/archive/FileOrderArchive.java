@@ -0,0 +1,571 @@
+package com.example.demo.archive;
+
+import com.example.demo.model.Order;
+import com.example.demo.persistence.OrderCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Immutable segment files in one directory, one per archival run:
+ * <pre>
+ *   segment-&lt;n&gt;.seg       header, compressed blocks, footer, trailer
+ *   segment-&lt;n&gt;-&lt;m&gt;.seg   runs n to m merged into one
+ * </pre>
+ * A segment holds orders sorted by id, encoded with {@link OrderCodec} and Deflate-compressed in
+ * blocks of {@code blockSize}. The footer lists every id, each order's offset within its
+ * uncompressed block and the block table; the trailer points at the footer. Segments are written
+ * to a temporary file, fsynced and renamed into place, so a crash never leaves a partial one.
+ * <p>
+ * Segments are memory-mapped read-only. A lookup binary-searches the mapped ids and inflates the
+ * one block that holds the order, so the heap holds nothing per archived order.
+ * <p>
+ * Each lookup visits every segment, so they are merged as they pile up: after an append, the newest
+ * segment is merged into the one before while that holds no more orders, which keeps about log2 of
+ * the number of runs, and the smallest neighbours are merged while there are more than
+ * {@code maxSegments}. A merged segment is written like any other and named after the runs it
+ * covers, so if the merged-away files outlive a crash, opening the archive deletes them.
+ * <p>
+ * Appends and merges hold a {@link ReentrantLock}, never {@code synchronized}, so an archiver
+ * waiting on fsync or a merge doesn't pin a carrier thread when it runs on a virtual thread.
+ */
+public class FileOrderArchive implements OrderArchive {
+    private static final Logger logger = LoggerFactory.getLogger(FileOrderArchive.class);
+    private static final int MAGIC = 0x4F415243; // "OARC"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 20; // magic, version, count, block size, block count
+    private static final int TRAILER_BYTES = 12; // footer offset, magic
+    private static final int BLOCK_ENTRY_BYTES = 16; // offset, compressed length, raw length
+    private static final Pattern SEGMENT = Pattern.compile("segment-(\\d+)(?:-(\\d+))?\\.seg");
+    static final int DEFAULT_MAX_SEGMENTS = 16;
+
+    private final Path directory;
+    private final int blockSize;
+    private final int maxSegments;
+    // Serializes appends and the merges that follow them
+    private final ReentrantLock appendLock = new ReentrantLock();
+    // Replaced on append and merge, never modified, so readers need no lock
+    private volatile List<Segment> segments;
+    private long nextSegment; // guarded by appendLock
+
+    public FileOrderArchive(Path directory, int blockSize) {
+        this(directory, blockSize, DEFAULT_MAX_SEGMENTS);
+    }
+
+    public FileOrderArchive(Path directory, int blockSize, int maxSegments) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize must be positive");
+        }
+        if (maxSegments <= 0) {
+            throw new IllegalArgumentException("maxSegments must be positive");
+        }
+        this.directory = directory;
+        this.blockSize = blockSize;
+        this.maxSegments = maxSegments;
+        List<Segment> opened = new ArrayList<>();
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    if (name.endsWith(".tmp")) {
+                        logger.warn("Deleting unfinished order archive segment {}", file);
+                        Files.delete(file);
+                        continue;
+                    }
+                    Matcher matcher = SEGMENT.matcher(name);
+                    if (matcher.matches()) {
+                        long first = Long.parseLong(matcher.group(1));
+                        long last = matcher.group(2) == null ? first : Long.parseLong(matcher.group(2));
+                        opened.add(Segment.open(file, first, last));
+                        nextSegment = Math.max(nextSegment, last + 1);
+                    }
+                }
+            }
+            // Widest first, so the runs a merge covers come right after it
+            opened.sort(Comparator.comparingLong(Segment::first).thenComparing(Comparator.comparingLong(Segment::last).reversed()));
+            List<Segment> live = new ArrayList<>();
+            for (Segment segment : opened) {
+                if (!live.isEmpty() && segment.last() <= live.get(live.size() - 1).last()) {
+                    logger.warn("Deleting order archive segment {}, already merged into {}", segment.path, live.get(live.size() - 1).path);
+                    Files.delete(segment.path);
+                } else {
+                    live.add(segment);
+                }
+            }
+            opened = live;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open order archive in " + directory, e);
+        }
+        segments = List.copyOf(opened);
+        logger.info("Opened order archive in {}: {} segments, {} orders", directory, segments.size(), size());
+    }
+
+    @Override
+    public Order get(long id) {
+        for (Segment segment : segments) {
+            Order order = segment.get(id);
+            if (order != null) {
+                return order;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean contains(long id) {
+        for (Segment segment : segments) {
+            if (segment.indexOf(id) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void append(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        for (int i = 1; i < orders.size(); i++) {
+            if (orders.get(i).getId() <= orders.get(i - 1).getId()) {
+                throw new IllegalArgumentException("Archived orders must be sorted by id without duplicates");
+            }
+        }
+        appendLock.lock();
+        try {
+            long number = nextSegment;
+            Path path = segmentPath(number, number);
+            try {
+                Segment segment = write(path, orders.iterator(), orders.size(), number, number);
+                List<Segment> updated = new ArrayList<>(segments);
+                updated.add(segment);
+                segments = List.copyOf(updated);
+                nextSegment = number + 1;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to append to order archive", e);
+            }
+            logger.info("Archived {} orders to {} ({} bytes)", orders.size(), path.getFileName(), path.toFile().length());
+            try {
+                compact();
+            } catch (IOException e) {
+                // The appended segment is in place; the next append tries again
+                logger.warn("Failed to merge order archive segments", e);
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /** Segments in the archive; merges keep this to about log2 of the archival runs, and at most maxSegments. */
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    // Called holding appendLock
+    private void compact() throws IOException {
+        while (true) {
+            List<Segment> current = segments;
+            int n = current.size();
+            int from = -1;
+            if (n >= 2 && current.get(n - 2).count() <= current.get(n - 1).count()) {
+                from = n - 2;
+            } else if (n > maxSegments) {
+                long smallest = Long.MAX_VALUE;
+                for (int i = 0; i + 1 < n; i++) {
+                    long merged = (long) current.get(i).count() + current.get(i + 1).count();
+                    if (merged < smallest) {
+                        smallest = merged;
+                        from = i;
+                    }
+                }
+            }
+            if (from < 0) {
+                return;
+            }
+            merge(current, from);
+        }
+    }
+
+    // Replaces segments from and from + 1 with one holding both
+    private void merge(List<Segment> current, int from) throws IOException {
+        Segment older = current.get(from);
+        Segment newer = current.get(from + 1);
+        Path path = segmentPath(older.first(), newer.last());
+        long count = (long) older.count() + newer.count();
+        if (count > Integer.MAX_VALUE) {
+            throw new IOException("Merging " + older.path + " and " + newer.path + " would hold too many orders");
+        }
+        Segment merged = write(path, merge(List.of(older, newer), null), (int) count, older.first(), newer.last());
+        List<Segment> updated = new ArrayList<>(current);
+        updated.set(from, merged);
+        updated.remove(from + 1);
+        segments = List.copyOf(updated);
+        // Readers still iterating them keep their mappings; the files can go
+        Files.delete(older.path);
+        Files.delete(newer.path);
+        logger.info("Merged order archive segments {} and {} into {} ({} orders)",
+                older.path.getFileName(), newer.path.getFileName(), path.getFileName(), merged.count());
+    }
+
+    private Path segmentPath(long first, long last) {
+        return directory.resolve(first == last ? String.format("segment-%06d.seg", first)
+                : String.format("segment-%06d-%06d.seg", first, last));
+    }
+
+    // Writes at most maxCount orders, ascending by id, to a temporary file and renames it into place
+    private Segment write(Path path, Iterator<Order> orders, int maxCount, long first, long last) throws IOException {
+        Path temporary = directory.resolve(path.getFileName() + ".tmp");
+        int maxBlocks = (int) ((maxCount + (long) blockSize - 1) / blockSize);
+        long[] blockOffsets = new long[maxBlocks];
+        int[] compressedLengths = new int[maxBlocks];
+        int[] rawLengths = new int[maxBlocks];
+        long[] ids = new long[maxCount];
+        int[] orderOffsets = new int[maxCount];
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        DataOutputStream rawOut = new DataOutputStream(raw);
+        byte[] chunk = new byte[1 << 14];
+        Deflater deflater = new Deflater();
+        int count = 0;
+        int blockCount = 0;
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16))) {
+            // The count and block count are filled in once the orders have been counted
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(0);
+            out.writeInt(blockSize);
+            out.writeInt(0);
+            long position = HEADER_BYTES;
+            while (orders.hasNext() && count < maxCount) {
+                raw.reset();
+                do {
+                    Order order = orders.next();
+                    ids[count] = order.getId();
+                    orderOffsets[count++] = raw.size();
+                    OrderCodec.write(rawOut, order);
+                } while (count % blockSize != 0 && orders.hasNext() && count < maxCount);
+                deflater.reset();
+                deflater.setInput(raw.toByteArray());
+                deflater.finish();
+                int compressed = 0;
+                while (!deflater.finished()) {
+                    int length = deflater.deflate(chunk);
+                    out.write(chunk, 0, length);
+                    compressed += length;
+                }
+                blockOffsets[blockCount] = position;
+                compressedLengths[blockCount] = compressed;
+                rawLengths[blockCount++] = raw.size();
+                position += compressed;
+            }
+            for (int i = 0; i < count; i++) {
+                out.writeLong(ids[i]);
+            }
+            for (int i = 0; i < count; i++) {
+                out.writeInt(orderOffsets[i]);
+            }
+            for (int block = 0; block < blockCount; block++) {
+                out.writeLong(blockOffsets[block]);
+                out.writeInt(compressedLengths[block]);
+                out.writeInt(rawLengths[block]);
+            }
+            out.writeLong(position);
+            out.writeInt(MAGIC);
+            out.flush();
+            channel.write(ByteBuffer.allocate(4).putInt(0, count), 8);
+            channel.write(ByteBuffer.allocate(4).putInt(0, blockCount), 16);
+            channel.force(true);
+        } finally {
+            deflater.end();
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+        return Segment.open(path, first, last);
+    }
+
+    /**
+     * Merges the segments, whose id ranges may overlap, into one ascending sequence. An id held by
+     * more than one comes from the oldest, as {@link #get} reads it.
+     */
+    @Override
+    public Iterator<Order> orders(Long after) {
+        return merge(segments, after);
+    }
+
+    private static Iterator<Order> merge(List<Segment> segments, Long after) {
+        // Segments are oldest first, so on equal ids the older one's iterator comes out first
+        PriorityQueue<SegmentIterator> heads = new PriorityQueue<>(Comparator.comparingLong(SegmentIterator::peekId)
+                .thenComparingInt(SegmentIterator::age));
+        for (int i = 0; i < segments.size(); i++) {
+            SegmentIterator iterator = segments.get(i).iterator(after, i);
+            if (iterator.hasNext()) {
+                heads.add(iterator);
+            }
+        }
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public Order next() {
+                SegmentIterator head = heads.poll();
+                if (head == null) {
+                    throw new NoSuchElementException();
+                }
+                Order order = head.next();
+                if (head.hasNext()) {
+                    heads.add(head);
+                }
+                while (!heads.isEmpty() && heads.peek().peekId() == order.getId()) {
+                    SegmentIterator duplicate = heads.poll();
+                    duplicate.skip();
+                    if (duplicate.hasNext()) {
+                        heads.add(duplicate);
+                    }
+                }
+                return order;
+            }
+        };
+    }
+
+    @Override
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.count();
+        }
+        return size;
+    }
+
+    /** Bytes the segment files take on disk. */
+    public long sizeOnDisk() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.buffer.capacity();
+        }
+        return bytes;
+    }
+
+    // Mappings are released when the buffers are collected; there is no portable way to unmap sooner
+    @Override
+    public void close() {
+        segments = List.of();
+    }
+
+    private static final class Segment {
+        private final long first;
+        private final long last;
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private final int count;
+        private final int blockSize;
+        private final LongBuffer ids;
+        private final IntBuffer offsets;
+        private final ByteBuffer blocks;
+
+        private Segment(long first, long last, Path path, MappedByteBuffer buffer) throws IOException {
+            this.first = first;
+            this.last = last;
+            this.path = path;
+            this.buffer = buffer;
+            int length = buffer.capacity();
+            if (length < HEADER_BYTES + TRAILER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(length - 4) != MAGIC) {
+                throw new IOException("Corrupt order archive segment " + path);
+            }
+            if (buffer.getInt(4) != FORMAT_VERSION) {
+                throw new IOException("Order archive segment " + path + " has unknown format " + buffer.getInt(4));
+            }
+            count = buffer.getInt(8);
+            blockSize = buffer.getInt(12);
+            int blockCount = buffer.getInt(16);
+            long footer = buffer.getLong(length - TRAILER_BYTES);
+            if (count < 0 || blockSize <= 0 || blockCount < 0 || footer < HEADER_BYTES
+                    || footer + count * 12L + blockCount * (long) BLOCK_ENTRY_BYTES != length - TRAILER_BYTES) {
+                throw new IOException("Corrupt order archive segment " + path);
+            }
+            ids = buffer.slice((int) footer, count * 8).asLongBuffer();
+            offsets = buffer.slice((int) footer + count * 8, count * 4).asIntBuffer();
+            blocks = buffer.slice((int) footer + count * 12, blockCount * BLOCK_ENTRY_BYTES);
+        }
+
+        static Segment open(Path path, long first, long last) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("Order archive segment " + path + " is too large to map");
+                }
+                return new Segment(first, last, path, channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            }
+        }
+
+        // The archival runs this segment holds
+        long first() {
+            return first;
+        }
+
+        long last() {
+            return last;
+        }
+
+        int count() {
+            return count;
+        }
+
+        /** Position of {@code id} in the segment, or -1. */
+        int indexOf(long id) {
+            if (count == 0 || id < ids.get(0) || id > ids.get(count - 1)) {
+                return -1;
+            }
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                long midId = ids.get(mid);
+                if (midId < id) {
+                    low = mid + 1;
+                } else if (midId > id) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        // Position of the first id greater than after
+        int firstAfter(long after) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (ids.get(mid) <= after) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        Order get(long id) {
+            int index = indexOf(id);
+            return index < 0 ? null : decode(inflate(index / blockSize), index);
+        }
+
+        SegmentIterator iterator(Long after, int age) {
+            return new SegmentIterator(this, after == null ? 0 : firstAfter(after), age);
+        }
+
+        byte[] inflate(int block) {
+            int entry = block * BLOCK_ENTRY_BYTES;
+            long offset = blocks.getLong(entry);
+            int compressed = blocks.getInt(entry + 8);
+            byte[] raw = new byte[blocks.getInt(entry + 12)];
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(buffer.slice((int) offset, compressed));
+                int length = 0;
+                while (length < raw.length) {
+                    int inflated = inflater.inflate(raw, length, raw.length - length);
+                    if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+                        throw new DataFormatException("block ends early");
+                    }
+                    length += inflated;
+                }
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("Corrupt block " + block + " in order archive segment " + path, e);
+            } finally {
+                inflater.end();
+            }
+            return raw;
+        }
+
+        Order decode(byte[] block, int index) {
+            int offset = offsets.get(index);
+            try {
+                return OrderCodec.read(new DataInputStream(new ByteArrayInputStream(block, offset, block.length - offset)));
+            } catch (IOException e) {
+                throw new IllegalStateException("Corrupt order " + ids.get(index) + " in order archive segment " + path, e);
+            }
+        }
+    }
+
+    // Inflates each block once, as the iteration reaches it
+    private static final class SegmentIterator implements Iterator<Order> {
+        private final Segment segment;
+        private final int age;
+        private int index;
+        private int blockIndex = -1;
+        private byte[] block;
+
+        SegmentIterator(Segment segment, int index, int age) {
+            this.segment = segment;
+            this.index = index;
+            this.age = age;
+        }
+
+        long peekId() {
+            return segment.ids.get(index);
+        }
+
+        // Position of the segment in the archive, oldest first
+        int age() {
+            return age;
+        }
+
+        void skip() {
+            index++;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < segment.count;
+        }
+
+        @Override
+        public Order next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int wanted = index / segment.blockSize;
+            if (wanted != blockIndex) {
+                block = segment.inflate(wanted);
+                blockIndex = wanted;
+            }
+            return segment.decode(block, index++);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.demo.archive;
+
+import com.example.demo.model.Order;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Cold tier for orders that can no longer change. Orders are appended once, in batches, and
+ * never modified or removed; the hot store drops them once they are here.
+ */
+public interface OrderArchive extends AutoCloseable {
+    /** An empty archive that refuses appends, used when archival is disabled. */
+    OrderArchive NONE = new OrderArchive() {
+        @Override
+        public Order get(long id) {
+            return null;
+        }
+
+        @Override
+        public boolean contains(long id) {
+            return false;
+        }
+
+        @Override
+        public void append(List<Order> orders) {
+            throw new IllegalStateException("Order archival is disabled");
+        }
+
+        @Override
+        public Iterator<Order> orders(Long after) {
+            return Collections.emptyIterator();
+        }
+
+        @Override
+        public long size() {
+            return 0;
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    /** The archived order, decoded afresh on every call, or null if it isn't archived. */
+    Order get(long id);
+
+    boolean contains(long id);
+
+    /** Durably stores {@code orders}, which must be sorted by id, before returning. */
+    void append(List<Order> orders);
+
+    /** Every archived order with an id greater than {@code after} (all of them if null), in ascending id order. */
+    Iterator<Order> orders(Long after);
+
+    long size();
+
+    @Override
+    void close();
+}
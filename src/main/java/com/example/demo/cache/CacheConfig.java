@@ -0,0 +1,26 @@
+package com.example.demo.cache;
+
+import com.example.demo.service.OrderService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+
+    @Bean
+    public OrderJsonCache orderJsonCache(CacheProperties properties, OrderService orderService,
+                                         ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                         @Value("${orders.coalescing.enabled:true}") boolean coalesce) {
+        OrderJsonCache cache = properties.isEnabled()
+                ? new OrderJsonCache(objectMapper, properties.getEviction(), properties.getMaximumSize().toBytes(),
+                        coalesce, meterRegistry)
+                : OrderJsonCache.disabled(objectMapper);
+        orderService.addChangeListener(cache);
+        return cache;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.demo.cache;
+
+/** Eviction policy of the {@link OrderJsonCache}, selected with {@code orders.cache.eviction}. */
+public enum CacheEviction {
+    /** Caffeine's W-TinyLFU: admits by estimated frequency, resists scans of one-off ids. */
+    W_TINY_LFU,
+    /** Least recently used, on a single lock; kept for comparison and for strongly recency-biased traffic. */
+    LRU
+}
@@ -0,0 +1,20 @@
+package com.example.demo.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@ConfigurationProperties(prefix = "orders.cache")
+public class CacheProperties {
+    /** Whether GET /orders/{id} responses are cached; when off every read is serialized. */
+    private boolean enabled = true;
+    private CacheEviction eviction = CacheEviction.W_TINY_LFU;
+    /** Bound on the cached JSON plus a fixed per-entry overhead. */
+    private DataSize maximumSize = DataSize.ofMegabytes(64);
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public CacheEviction getEviction() { return eviction; }
+    public void setEviction(CacheEviction eviction) { this.eviction = eviction; }
+    public DataSize getMaximumSize() { return maximumSize; }
+    public void setMaximumSize(DataSize maximumSize) { this.maximumSize = maximumSize; }
+}
@@ -0,0 +1,304 @@
+package com.example.demo.cache;
+
+import com.example.demo.model.Order;
+import com.example.demo.service.OrderChangeListener;
+import com.example.demo.service.SingleFlight;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongFunction;
+
+/**
+ * Read-through cache of the JSON body served by {@code GET /orders/{id}}, bounded by bytes.
+ * <p>
+ * Invalidation piggybacks on the service's write lock through {@link OrderChangeListener}. To keep
+ * a reader that loaded an order just before an update from caching the old JSON afterwards, each
+ * load records the change count of the id's stripe first and only stores its result if no change
+ * to that stripe happened in between.
+ * <p>
+ * Concurrent misses for the same id share one load and serialization, so a burst of reads of an
+ * order that just changed costs one store lookup. A load is only shared with readers that saw the
+ * same stripe change count, so nobody gets JSON from before a change it could have observed.
+ */
+public class OrderJsonCache implements OrderChangeListener {
+    static final String REQUESTS = "orders.cache.requests";
+    static final String EVICTIONS = "orders.cache.evictions";
+    static final String ENTRIES = "orders.cache.entries";
+    static final String BYTES = "orders.cache.bytes";
+    static final String COALESCED = "orders.cache.coalesced";
+    // Rough heap cost of an entry besides its JSON: boxed key, entry, array header and map node
+    static final int ENTRY_OVERHEAD = 96;
+    private static final int CHANGE_STRIPES = 1024; // power of two
+
+    /** JSON of an order at a version. */
+    public record Entry(long version, byte[] json) {
+        int weight() {
+            return ENTRY_OVERHEAD + json.length;
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final Backend backend; // null when caching is disabled
+    private final AtomicLongArray changes = new AtomicLongArray(CHANGE_STRIPES);
+    private final Counter hits;
+    private final Counter misses;
+    private final SingleFlight<LoadKey, Entry> loads; // null when misses load independently
+
+    private record LoadKey(long id, long changes) {
+    }
+
+    public OrderJsonCache(ObjectMapper objectMapper, CacheEviction eviction, long maximumBytes, MeterRegistry registry) {
+        this(objectMapper, eviction, maximumBytes, true, registry);
+    }
+
+    public OrderJsonCache(ObjectMapper objectMapper, CacheEviction eviction, long maximumBytes, boolean coalesceLoads,
+                          MeterRegistry registry) {
+        this.objectMapper = objectMapper;
+        Counter evictions = Counter.builder(EVICTIONS)
+                .description("Cached order responses evicted to stay within orders.cache.maximum-size")
+                .register(registry);
+        this.backend = eviction == CacheEviction.LRU
+                ? new LruBackend(maximumBytes, evictions)
+                : new CaffeineBackend(maximumBytes, evictions);
+        this.hits = requests(registry, "hit");
+        this.misses = requests(registry, "miss");
+        this.loads = coalesceLoads
+                ? new SingleFlight<>(Counter.builder(COALESCED)
+                        .description("Cache misses served by a concurrent load of the same order")
+                        .register(registry))
+                : null;
+        Gauge.builder(ENTRIES, backend, Backend::size)
+                .description("Order responses in the cache")
+                .register(registry);
+        Gauge.builder(BYTES, backend, Backend::weightedSize)
+                .description("Estimated heap held by the cache")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private OrderJsonCache(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.backend = null;
+        MeterRegistry noop = new CompositeMeterRegistry();
+        this.hits = requests(noop, "hit");
+        this.misses = requests(noop, "miss");
+        this.loads = null;
+    }
+
+    /** A pass-through that serializes on every read. */
+    public static OrderJsonCache disabled(ObjectMapper objectMapper) {
+        return new OrderJsonCache(objectMapper);
+    }
+
+    private static Counter requests(MeterRegistry registry, String result) {
+        return Counter.builder(REQUESTS)
+                .description("Order response cache lookups")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private int stripe(long id) {
+        return (int) (id ^ (id >>> 32)) & (CHANGE_STRIPES - 1);
+    }
+
+    /**
+     * Returns the JSON of the order's current version, loading and serializing it on a miss, or
+     * null if the loader finds no such order.
+     */
+    public Entry get(long id, LongFunction<Order> loader) {
+        if (backend != null) {
+            Entry cached = backend.get(id);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+            misses.increment();
+        }
+        int stripe = stripe(id);
+        long changesBefore = changes.get(stripe);
+        return loads == null
+                ? load(id, loader, stripe, changesBefore)
+                : loads.load(new LoadKey(id, changesBefore), () -> load(id, loader, stripe, changesBefore));
+    }
+
+    private Entry load(long id, LongFunction<Order> loader, int stripe, long changesBefore) {
+        Order order = loader.apply(id);
+        if (order == null) {
+            return null;
+        }
+        Entry entry = new Entry(order.getVersion() == null ? 0 : order.getVersion(), serialize(order));
+        if (backend != null) {
+            backend.putIf(id, entry, () -> changes.get(stripe) == changesBefore);
+        }
+        return entry;
+    }
+
+    private byte[] serialize(Order order) {
+        try {
+            return objectMapper.writeValueAsBytes(order);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize order " + order.getId(), e);
+        }
+    }
+
+    @Override
+    public void orderUpdated(Order previous, Order order) {
+        invalidate(order.getId());
+    }
+
+    @Override
+    public void orderDeleted(long id) {
+        invalidate(id);
+    }
+
+    // Count the change before dropping the entry, so a load racing with it can't store stale JSON
+    private void invalidate(long id) {
+        changes.incrementAndGet(stripe(id));
+        if (backend != null) {
+            backend.invalidate(id);
+        }
+    }
+
+    long size() {
+        return backend == null ? 0 : backend.size();
+    }
+
+    private interface Backend {
+        Entry get(long id);
+
+        /** Stores the entry if the condition, checked atomically with the store, still holds. */
+        void putIf(long id, Entry entry, BooleanSupplier condition);
+
+        void invalidate(long id);
+
+        long size();
+
+        long weightedSize();
+    }
+
+    private static final class CaffeineBackend implements Backend {
+        private final Cache<Long, Entry> cache;
+
+        CaffeineBackend(long maximumBytes, Counter evictions) {
+            cache = Caffeine.newBuilder()
+                    .maximumWeight(maximumBytes)
+                    .weigher((Long id, Entry entry) -> entry.weight())
+                    .evictionListener((id, entry, cause) -> evictions.increment())
+                    .build();
+        }
+
+        @Override
+        public Entry get(long id) {
+            return cache.getIfPresent(id);
+        }
+
+        @Override
+        public void putIf(long id, Entry entry, BooleanSupplier condition) {
+            cache.asMap().compute(id, (key, current) -> condition.getAsBoolean() ? entry : current);
+        }
+
+        @Override
+        public void invalidate(long id) {
+            cache.invalidate(id);
+        }
+
+        @Override
+        public long size() {
+            return cache.estimatedSize();
+        }
+
+        @Override
+        public long weightedSize() {
+            return cache.policy().eviction().orElseThrow().weightedSize().orElse(0);
+        }
+    }
+
+    // A ReentrantLock rather than synchronized, so contended virtual threads don't pin their carrier
+    private static final class LruBackend implements Backend {
+        private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(1024, 0.75f, true);
+        private final ReentrantLock lock = new ReentrantLock();
+        private final long maximumBytes;
+        private final Counter evictions;
+        private long bytes;
+
+        LruBackend(long maximumBytes, Counter evictions) {
+            this.maximumBytes = maximumBytes;
+            this.evictions = evictions;
+        }
+
+        @Override
+        public Entry get(long id) {
+            lock.lock();
+            try {
+                return entries.get(id); // moves the entry to the most recently used end
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void putIf(long id, Entry entry, BooleanSupplier condition) {
+            lock.lock();
+            try {
+                if (!condition.getAsBoolean()) {
+                    return;
+                }
+                Entry previous = entries.put(id, entry);
+                bytes += entry.weight() - (previous == null ? 0 : previous.weight());
+                // Least recently used first
+                Iterator<Entry> eldest = entries.values().iterator();
+                while (bytes > maximumBytes && eldest.hasNext()) {
+                    bytes -= eldest.next().weight();
+                    eldest.remove();
+                    evictions.increment();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void invalidate(long id) {
+            lock.lock();
+            try {
+                Entry previous = entries.remove(id);
+                if (previous != null) {
+                    bytes -= previous.weight();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public long size() {
+            lock.lock();
+            try {
+                return entries.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public long weightedSize() {
+            lock.lock();
+            try {
+                return bytes;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.demo.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.URI;
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(ClusterProperties.class)
+public class ClusterConfig {
+
+    // Also the service's id scheme
+    @Bean
+    public Partitioning partitioning(ClusterProperties properties) {
+        if (properties.getNodes().size() <= 1) {
+            return Partitioning.standalone();
+        }
+        return new Partitioning(properties.getNodes().stream().map(URI::toString).toList(),
+                properties.getNodeId(), properties.getVirtualNodes());
+    }
+
+    @Bean
+    public OrderCluster orderCluster(ClusterProperties properties, Partitioning partitioning,
+                                     ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        return new OrderCluster(partitioning, partitioning.isStandalone() ? List.of() : properties.getNodes(),
+                properties.getRequestTimeout(), objectMapper, meterRegistry);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.demo.cluster;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "orders.cluster")
+public class ClusterProperties {
+    /** Base URL of every node, the same list on each node. Empty or a single node runs standalone. */
+    private List<URI> nodes = new ArrayList<>();
+    /** This node's position in {@code nodes}. */
+    private int nodeId;
+    /** Points per node on the hash ring; more points spread the partitions more evenly. */
+    private int virtualNodes = 128;
+    /** Limit on each request to another node, forwarded or scatter-gather. */
+    private Duration requestTimeout = Duration.ofSeconds(2);
+
+    public List<URI> getNodes() { return nodes; }
+    public void setNodes(List<URI> nodes) { this.nodes = nodes; }
+    public int getNodeId() { return nodeId; }
+    public void setNodeId(int nodeId) { this.nodeId = nodeId; }
+    public int getVirtualNodes() { return virtualNodes; }
+    public void setVirtualNodes(int virtualNodes) { this.virtualNodes = virtualNodes; }
+    public Duration getRequestTimeout() { return requestTimeout; }
+    public void setRequestTimeout(Duration requestTimeout) { this.requestTimeout = requestTimeout; }
+}
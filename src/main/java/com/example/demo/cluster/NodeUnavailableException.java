@@ -0,0 +1,15 @@
+package com.example.demo.cluster;
+
+/** Another node did not answer a forwarded or scatter-gather request, or answered with an error. */
+public class NodeUnavailableException extends RuntimeException {
+    private final int node;
+
+    public NodeUnavailableException(int node, String message, Throwable cause) {
+        super(message, cause);
+        this.node = node;
+    }
+
+    public int getNode() {
+        return node;
+    }
+}
@@ -0,0 +1,387 @@
+package com.example.demo.cluster;
+
+import com.example.demo.model.BatchResult;
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderPage;
+import com.example.demo.model.OrderStats;
+import com.example.demo.model.OrderStatus;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Routes order requests across the nodes of a partitioned deployment (see {@link Partitioning}).
+ * Requests for one order go to the node that owns it; listings, queries and stats ask every node
+ * in parallel and merge the answers. A request made by another node carries {@link #FORWARDED_HEADER}
+ * and is answered from local orders only, so a request crosses at most one hop.
+ * <p>
+ * Standalone, every method just calls the local supplier it is given.
+ */
+public class OrderCluster implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(OrderCluster.class);
+    public static final String FORWARDED_HEADER = "X-Orders-Forwarded";
+    private static final List<String> FORWARDED_REQUEST_HEADERS =
+            List.of(HttpHeaders.IF_MATCH, HttpHeaders.IF_NONE_MATCH, HttpHeaders.CONTENT_TYPE, "Idempotency-Key");
+    private static final List<String> RELAYED_RESPONSE_HEADERS =
+            List.of(HttpHeaders.ETAG, HttpHeaders.CONTENT_TYPE, "Idempotent-Replayed");
+    private static final TypeReference<List<Order>> ORDER_LIST = new TypeReference<>() {};
+    private static final TypeReference<List<BatchResult>> BATCH_RESULTS = new TypeReference<>() {};
+    private static final List<String> PAGE_FILTERS = List.of("status", "from", "to", "product", "archived");
+    private static final Comparator<Order> BY_ID = Comparator.comparingLong(Order::getId);
+
+    private final Partitioning partitioning;
+    private final List<URI> nodes;
+    private final Duration requestTimeout;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executor;
+    private final HttpClient client;
+    // Per node: [0] calls answered, [1] calls that failed
+    private final Timer[][] remoteTimers;
+
+    public OrderCluster(Partitioning partitioning, List<URI> nodes, Duration requestTimeout,
+                        ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        if (!partitioning.isStandalone() && nodes.size() != partitioning.nodeCount()) {
+            throw new IllegalArgumentException("Partitioning is for " + partitioning.nodeCount() + " nodes, got " + nodes.size());
+        }
+        this.partitioning = partitioning;
+        this.nodes = List.copyOf(nodes);
+        this.requestTimeout = requestTimeout;
+        this.objectMapper = objectMapper;
+        if (partitioning.isStandalone()) {
+            this.executor = null;
+            this.client = null;
+        } else {
+            this.executor = Executors.newVirtualThreadPerTaskExecutor();
+            this.client = HttpClient.newBuilder()
+                    .executor(executor)
+                    .version(HttpClient.Version.HTTP_1_1) // Tomcat here speaks no h2c, skip the upgrade attempt
+                    .connectTimeout(requestTimeout)
+                    .build();
+        }
+        this.remoteTimers = new Timer[this.nodes.size()][];
+        for (int node = 0; node < this.nodes.size(); node++) {
+            remoteTimers[node] = new Timer[] {remoteTimer(meterRegistry, node, "success"), remoteTimer(meterRegistry, node, "failure")};
+        }
+    }
+
+    public static OrderCluster standalone(ObjectMapper objectMapper) {
+        return new OrderCluster(Partitioning.standalone(), List.of(), Duration.ofSeconds(2), objectMapper, new CompositeMeterRegistry());
+    }
+
+    private static Timer remoteTimer(MeterRegistry meterRegistry, int node, String outcome) {
+        return Timer.builder("orders.cluster.remote")
+                .description("Requests this node made of another node")
+                .tag("node", Integer.toString(node))
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    public Partitioning getPartitioning() {
+        return partitioning;
+    }
+
+    /** True if this node answers for {@code id}: it owns the order, or another node already forwarded the request. */
+    public boolean handlesLocally(long id, HttpServletRequest request) {
+        return partitioning.isLocal(id) || isLocalOnly(request);
+    }
+
+    /** True if {@code request} is only about this node's orders. */
+    public boolean isLocalOnly(HttpServletRequest request) {
+        return partitioning.isStandalone() || request.getHeader(FORWARDED_HEADER) != null;
+    }
+
+    /**
+     * True if this node answers for requests carrying {@code key}: it owns the key, or another node
+     * already forwarded the request. Creates with an idempotency key go to the key's owner, so that
+     * every retry meets the one node that remembers it.
+     */
+    public boolean handlesKeyLocally(String key, HttpServletRequest request) {
+        return partitioning.ownerOfKey(key) == partitioning.localNode() || isLocalOnly(request);
+    }
+
+    /** Sends {@code request} on to the owner of {@code id} and relays its answer, whatever the status. */
+    public ResponseEntity<byte[]> forward(long id, HttpServletRequest request, Object body) {
+        return forwardTo(partitioning.ownerOf(id), request, body);
+    }
+
+    /** Sends {@code request} on to the owner of {@code key} and relays its answer, whatever the status. */
+    public ResponseEntity<byte[]> forwardByKey(String key, HttpServletRequest request, Object body) {
+        return forwardTo(partitioning.ownerOfKey(key), request, body);
+    }
+
+    private ResponseEntity<byte[]> forwardTo(int node, HttpServletRequest request, Object body) {
+        // The owner answers in the format the client asked for, and its Content-Type is relayed
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        HttpResponse<byte[]> response = join(send(node, request.getMethod(), pathAndQuery(request), request, body, false,
+                accept != null ? accept : MediaType.APPLICATION_JSON_VALUE));
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(response.statusCode());
+        for (String header : RELAYED_RESPONSE_HEADERS) {
+            response.headers().firstValue(header).ifPresent(value -> builder.header(header, value));
+        }
+        return builder.body(response.body().length == 0 ? null : response.body());
+    }
+
+    /** The orders {@code local} returns on every node for the same request, in ascending id order. */
+    public List<Order> gatherOrders(HttpServletRequest request, Supplier<List<Order>> local) {
+        if (isLocalOnly(request)) {
+            return local.get();
+        }
+        List<List<Order>> parts = gather(pathAndQuery(request), request, ORDER_LIST, local);
+        List<Order> orders = new ArrayList<>(parts.stream().mapToInt(List::size).sum());
+        parts.forEach(orders::addAll);
+        orders.sort(BY_ID);
+        return orders;
+    }
+
+    /**
+     * Keyset pages over the orders of every node, or of this node only for a forwarded request.
+     * Each node returns its first {@code limit} ids after the cursor, so the first {@code limit}
+     * of their union are the cluster's.
+     */
+    public BiFunction<Long, Integer, List<Order>> pages(HttpServletRequest request, BiFunction<Long, Integer, List<Order>> local) {
+        if (isLocalOnly(request)) {
+            return local;
+        }
+        return (after, limit) -> {
+            String path = "/orders?limit=" + limit + (after != null ? "&after=" + after : "") + pageFilters(request);
+            List<OrderPage> parts = gather(path, null, new TypeReference<OrderPage>() {},
+                    () -> new OrderPage(local.apply(after, limit), null));
+            List<Order> orders = new ArrayList<>();
+            parts.forEach(part -> orders.addAll(part.getOrders()));
+            orders.sort(BY_ID);
+            return orders.size() > limit ? orders.subList(0, limit) : orders;
+        };
+    }
+
+    // The client's filters, which every node applies to its own pages
+    private static String pageFilters(HttpServletRequest request) {
+        StringBuilder query = new StringBuilder();
+        for (String name : PAGE_FILTERS) {
+            String value = request.getParameter(name);
+            if (value != null) {
+                query.append('&').append(name).append('=').append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+            }
+        }
+        return query.toString();
+    }
+
+    /** The sum of the stats {@code local} returns on every node for the same request. */
+    public OrderStats gatherStats(HttpServletRequest request, Supplier<OrderStats> local) {
+        if (isLocalOnly(request)) {
+            return local.get();
+        }
+        return merge(gather(pathAndQuery(request), request, new TypeReference<OrderStats>() {}, local));
+    }
+
+    /**
+     * Runs a batch whose items each concern one existing order. Items this node owns go to
+     * {@code local}; the others are sent to their owners, in parallel, as the body {@code bodyOf}
+     * builds for them. Results are renumbered to the items' positions in {@code items}. Items on a
+     * node that does not answer are reported {@link BatchResult.Outcome#UNAVAILABLE}.
+     */
+    public <T> List<BatchResult> scatterBatch(HttpServletRequest request, List<T> items, ToLongFunction<T> idOf,
+                                              Function<List<T>, Object> bodyOf, Function<List<T>, List<BatchResult>> local) {
+        if (isLocalOnly(request)) {
+            return local.apply(items);
+        }
+        List<List<Integer>> positions = new ArrayList<>(nodes.size());
+        for (int node = 0; node < nodes.size(); node++) {
+            positions.add(new ArrayList<>());
+        }
+        for (int i = 0; i < items.size(); i++) {
+            positions.get(partitioning.ownerOf(idOf.applyAsLong(items.get(i)))).add(i);
+        }
+
+        List<CompletableFuture<HttpResponse<byte[]>>> remote = new ArrayList<>(nodes.size());
+        for (int node = 0; node < nodes.size(); node++) {
+            List<Integer> nodePositions = positions.get(node);
+            remote.add(node == partitioning.localNode() || nodePositions.isEmpty() ? null
+                    : send(node, request.getMethod(), pathAndQuery(request), request, bodyOf.apply(select(items, nodePositions)), true));
+        }
+        BatchResult[] results = new BatchResult[items.size()];
+        int localNode = partitioning.localNode();
+        renumber(local.apply(select(items, positions.get(localNode))), positions.get(localNode), results);
+        for (int node = 0; node < nodes.size(); node++) {
+            if (remote.get(node) == null) {
+                continue;
+            }
+            try {
+                renumber(read(join(remote.get(node)).body(), BATCH_RESULTS), positions.get(node), results);
+            } catch (NodeUnavailableException e) {
+                logger.warn(e.getMessage());
+                for (int position : positions.get(node)) {
+                    results[position] = BatchResult.failure(position, idOf.applyAsLong(items.get(position)),
+                            BatchResult.Outcome.UNAVAILABLE, e.getMessage());
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private static <T> List<T> select(List<T> items, List<Integer> positions) {
+        List<T> selected = new ArrayList<>(positions.size());
+        for (int position : positions) {
+            selected.add(items.get(position));
+        }
+        return selected;
+    }
+
+    private static void renumber(List<BatchResult> partResults, List<Integer> positions, BatchResult[] results) {
+        for (BatchResult result : partResults) {
+            int position = positions.get(result.getIndex());
+            result.setIndex(position);
+            results[position] = result;
+        }
+    }
+
+    // Sends to every other node while local runs on the calling thread; the local answer comes first
+    private <T> List<T> gather(String pathAndQuery, HttpServletRequest request, TypeReference<T> type, Supplier<T> local) {
+        List<CompletableFuture<HttpResponse<byte[]>>> remote = new ArrayList<>(nodes.size() - 1);
+        for (int node = 0; node < nodes.size(); node++) {
+            if (node != partitioning.localNode()) {
+                remote.add(send(node, "GET", pathAndQuery, request, null, true));
+            }
+        }
+        List<T> parts = new ArrayList<>(nodes.size());
+        parts.add(local.get());
+        for (CompletableFuture<HttpResponse<byte[]>> response : remote) {
+            parts.add(read(join(response).body(), type));
+        }
+        return parts;
+    }
+
+    private CompletableFuture<HttpResponse<byte[]>> send(int node, String method, String pathAndQuery,
+                                                         HttpServletRequest original, Object body, boolean requireSuccess) {
+        return send(node, method, pathAndQuery, original, body, requireSuccess, MediaType.APPLICATION_JSON_VALUE);
+    }
+
+    private CompletableFuture<HttpResponse<byte[]>> send(int node, String method, String pathAndQuery, HttpServletRequest original,
+                                                         Object body, boolean requireSuccess, String accept) {
+        URI uri = nodes.get(node).resolve(pathAndQuery);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(requestTimeout)
+                .header(FORWARDED_HEADER, Integer.toString(partitioning.localNode()))
+                .header(HttpHeaders.ACCEPT, accept);
+        if (original != null) {
+            for (String header : FORWARDED_REQUEST_HEADERS) {
+                String value = original.getHeader(header);
+                if (value != null) {
+                    builder.setHeader(header, value);
+                }
+            }
+        }
+        if (body != null) {
+            builder.setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+            builder.method(method, HttpRequest.BodyPublishers.ofByteArray(write(body)));
+        } else {
+            builder.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+
+        long start = System.nanoTime();
+        return client.sendAsync(builder.build(), HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, error) -> {
+                    boolean failed = error != null || (requireSuccess && response.statusCode() >= 300);
+                    remoteTimers[node][failed ? 1 : 0].record(Duration.ofNanos(System.nanoTime() - start));
+                    if (error != null) {
+                        throw new NodeUnavailableException(node, "Node " + node + " at " + nodes.get(node)
+                                + " did not answer " + method + " " + pathAndQuery + ": " + error, error);
+                    }
+                    if (failed) {
+                        throw new NodeUnavailableException(node, "Node " + node + " at " + nodes.get(node)
+                                + " answered " + method + " " + pathAndQuery + " with " + response.statusCode(), null);
+                    }
+                    return response;
+                });
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static String pathAndQuery(HttpServletRequest request) {
+        String query = request.getQueryString();
+        return query == null ? request.getRequestURI() : request.getRequestURI() + "?" + query;
+    }
+
+    private byte[] write(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private <T> T read(byte[] body, TypeReference<T> type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static OrderStats merge(List<OrderStats> parts) {
+        Map<OrderStatus, OrderStats.Totals> byStatus = new EnumMap<>(OrderStatus.class);
+        Map<LocalDate, OrderStats.Totals> byDay = new TreeMap<>();
+        Map<String, OrderStats.ProductTotals> byProduct = new TreeMap<>();
+        for (OrderStats part : parts) {
+            part.getByStatus().forEach((status, totals) -> byStatus.merge(status, totals, OrderCluster::add));
+            part.getByDay().forEach((day, totals) -> byDay.merge(day, totals, OrderCluster::add));
+            part.getByProduct().forEach((product, totals) -> byProduct.merge(product, totals, (a, b) ->
+                    new OrderStats.ProductTotals(a.getQuantity() + b.getQuantity(), a.getRevenueCents() + b.getRevenueCents())));
+        }
+        return new OrderStats(byStatus, byDay, byProduct);
+    }
+
+    private static OrderStats.Totals add(OrderStats.Totals a, OrderStats.Totals b) {
+        return new OrderStats.Totals(a.getCount() + b.getCount(), a.getRevenueCents() + b.getRevenueCents());
+    }
+
+    @Override
+    public void close() {
+        if (client != null) {
+            client.close();
+            executor.close();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.demo.cluster;
+
+import com.example.demo.service.OrderIdScheme;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * Which node owns which order. The low {@link #PARTITION_BITS} bits of an id name one of
+ * {@link #PARTITIONS} partitions, and a consistent-hash ring assigns partitions to nodes: every
+ * node puts {@code virtualNodes} points on the ring, hashed from its URL, and a partition belongs
+ * to the first point at or after its own hash. Adding a node therefore only takes partitions
+ * over from the others, it never moves them between existing nodes.
+ * <p>
+ * As the id scheme, a node packs its sequence numbers with the partitions it owns, in turn, so
+ * ids are unique across the cluster without coordination and route back to the node that made them.
+ */
+public class Partitioning implements OrderIdScheme {
+    public static final int PARTITION_BITS = 10;
+    public static final int PARTITIONS = 1 << PARTITION_BITS;
+
+    private final int nodeCount;
+    private final int localNode;
+    // Owner of each partition, null when standalone
+    private final int[] owners;
+    private final int[] localPartitions;
+
+    private Partitioning() {
+        this.nodeCount = 1;
+        this.localNode = 0;
+        this.owners = null;
+        this.localPartitions = null;
+    }
+
+    public Partitioning(List<String> nodes, int localNode, int virtualNodes) {
+        if (nodes.isEmpty() || nodes.size() > PARTITIONS) {
+            throw new IllegalArgumentException("A cluster needs 1 to " + PARTITIONS + " nodes, got " + nodes.size());
+        }
+        if (localNode < 0 || localNode >= nodes.size()) {
+            throw new IllegalArgumentException("Node id " + localNode + " is not a position in the node list of " + nodes.size());
+        }
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("virtualNodes must be positive");
+        }
+        this.nodeCount = nodes.size();
+        this.localNode = localNode;
+        this.owners = assign(nodes, virtualNodes);
+        this.localPartitions = IntStream.range(0, PARTITIONS).filter(p -> owners[p] == localNode).toArray();
+        if (localPartitions.length == 0) {
+            throw new IllegalStateException("Node " + localNode + " owns no partition, raise orders.cluster.virtual-nodes");
+        }
+    }
+
+    /** A single node that owns every id, with ids equal to sequence numbers. */
+    public static Partitioning standalone() {
+        return new Partitioning();
+    }
+
+    private static int[] assign(List<String> nodes, int virtualNodes) {
+        TreeMap<Long, Integer> ring = new TreeMap<>();
+        for (int node = 0; node < nodes.size(); node++) {
+            for (int point = 0; point < virtualNodes; point++) {
+                // On the rare collision the lower node wins, whatever order the points are added in
+                ring.merge(hash(nodes.get(node) + "#" + point), node, Math::min);
+            }
+        }
+        int[] owners = new int[PARTITIONS];
+        for (int partition = 0; partition < PARTITIONS; partition++) {
+            Map.Entry<Long, Integer> point = ring.ceilingEntry(mix(partition));
+            owners[partition] = (point != null ? point : ring.firstEntry()).getValue();
+        }
+        return owners;
+    }
+
+    // FNV-1a, then the mixer below to spread the bits over the ring
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // Murmur3's 64-bit finalizer
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    public boolean isStandalone() {
+        return owners == null;
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public int localNode() {
+        return localNode;
+    }
+
+    public int ownerOf(long id) {
+        return owners == null ? localNode : owners[(int) (id & (PARTITIONS - 1))];
+    }
+
+    public boolean isLocal(long id) {
+        return ownerOf(id) == localNode;
+    }
+
+    /** The node that owns {@code key}, such as an idempotency key: the owner of the partition its hash falls in. */
+    public int ownerOfKey(String key) {
+        return owners == null ? localNode : owners[(int) (hash(key) & (PARTITIONS - 1))];
+    }
+
+    int ownerOfPartition(int partition) {
+        return owners == null ? localNode : owners[partition];
+    }
+
+    @Override
+    public long id(long sequence) {
+        if (owners == null) {
+            return sequence;
+        }
+        return (sequence << PARTITION_BITS) | localPartitions[(int) (sequence % localPartitions.length)];
+    }
+
+    @Override
+    public long sequence(long id) {
+        return owners == null ? id : id >>> PARTITION_BITS;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.demo.controller;
+
+import com.example.demo.model.Order;
+import com.example.demo.service.OrderService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Writes every order as newline-delimited JSON, one keyset page at a time, so only
+ * a single page of orders is ever held by the writer. The output is flushed after
+ * each page, which lets the first bytes reach the client before the scan finishes.
+ */
+public class NdjsonOrderWriter {
+    public static final int DEFAULT_PAGE_SIZE = 500;
+
+    // Returns up to limit orders after the cursor, as OrderService.getOrders does
+    private final BiFunction<Long, Integer, List<Order>> pages;
+    private final ObjectMapper objectMapper;
+    private final int pageSize;
+
+    public NdjsonOrderWriter(OrderService orderService, ObjectMapper objectMapper, int pageSize) {
+        this(orderService::getOrders, objectMapper, pageSize);
+    }
+
+    public NdjsonOrderWriter(BiFunction<Long, Integer, List<Order>> pages, ObjectMapper objectMapper, int pageSize) {
+        this.pages = pages;
+        this.objectMapper = objectMapper;
+        this.pageSize = pageSize;
+    }
+
+    /** Streams all orders to {@code out} and returns the number written. Does not close {@code out}. */
+    public long writeAll(OutputStream out) throws IOException {
+        long written = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null); // we write our own newline separators
+            Long cursor = null;
+            List<Order> page;
+            do {
+                page = pages.apply(cursor, pageSize);
+                for (Order order : page) {
+                    objectMapper.writeValue(generator, order);
+                    generator.writeRaw('\n');
+                }
+                generator.flush();
+                written += page.size();
+                if (!page.isEmpty()) {
+                    cursor = page.get(page.size() - 1).getId();
+                }
+            } while (page.size() == pageSize);
+        }
+        return written;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.demo.controller;
+
+import com.example.demo.cluster.OrderCluster;
+import com.example.demo.model.Order;
+import com.example.demo.service.OrderService;
+import com.example.demo.transfer.ImportResult;
+import com.example.demo.transfer.OrderExporter;
+import com.example.demo.transfer.OrderImporter;
+import com.example.demo.transfer.TransferFormat;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Bulk import and export of order dumps, for seeding and migration. Imports create the orders
+ * on the receiving node, and {@code ?restore=true} puts exported orders back with their ids and
+ * statuses instead; exports cover every node, like the NDJSON stream. Every request needs the
+ * admin token (see {@link com.example.demo.transfer.AdminTokenInterceptor}).
+ */
+@RestController
+@RequestMapping("/admin/orders")
+public class OrderTransferController {
+    private static final Logger logger = LoggerFactory.getLogger(OrderTransferController.class);
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderImporter orderImporter;
+
+    @Autowired
+    private OrderExporter orderExporter;
+
+    @Autowired
+    private OrderCluster orderCluster;
+
+    // The body is read straight from the request stream, never buffered whole
+    @PostMapping(path = "/import", consumes = {OrdersController.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public ImportResult importOrders(@RequestParam(defaultValue = "false") boolean restore,
+                                     HttpServletRequest request) throws IOException {
+        TransferFormat format = TEXT_CSV.isCompatibleWith(MediaType.parseMediaType(request.getContentType()))
+                ? TransferFormat.CSV : TransferFormat.NDJSON;
+        logger.info("Received request to import {} orders restore={}", format, restore);
+        return orderImporter.importFrom(Channels.newChannel(request.getInputStream()), format, restore);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(@RequestParam(defaultValue = "NDJSON") TransferFormat format,
+                                                              @RequestParam(defaultValue = "false") boolean archived,
+                                                              HttpServletRequest request) {
+        logger.info("Received request to export orders as {} archived={}", format, archived);
+        BiFunction<Long, Integer, List<Order>> pages =
+                orderCluster.pages(request, (cursor, size) -> orderService.getOrders(cursor, size, archived));
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, format.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders." + format.name().toLowerCase() + "\"")
+                .body(out -> orderExporter.exportTo(out, format, pages));
+    }
+}
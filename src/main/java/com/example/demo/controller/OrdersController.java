@@ -1,49 +1,362 @@
 package com.example.demo.controller;
 
 
+import com.example.demo.cache.OrderJsonCache;
+import com.example.demo.cluster.NodeUnavailableException;
+import com.example.demo.cluster.OrderCluster;
+import com.example.demo.events.OrderEventLog;
+import com.example.demo.events.OrderEventSubscription;
+import com.example.demo.events.OverflowPolicy;
+import com.example.demo.idempotency.IdempotencyKeyReusedException;
+import com.example.demo.idempotency.IdempotencyStore;
+import com.example.demo.model.BatchResult;
 import com.example.demo.model.Order;
+import com.example.demo.model.OrderPage;
+import com.example.demo.model.OrderQuery;
+import com.example.demo.model.OrderStats;
+import com.example.demo.model.OrderStatus;
 import com.example.demo.service.OrderService;
+import com.example.demo.service.VersionConflictException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 @RestController
 @RequestMapping("/orders")
 public class OrdersController {
     private static final Logger logger = LoggerFactory.getLogger(OrdersController.class);
+    // Request bodies, off unless this logger is at DEBUG, and then only for a sample of requests
+    private static final Logger payloadLogger = LoggerFactory.getLogger("com.example.demo.payload");
+    static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int MAX_BATCH_SIZE = 10_000;
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+    static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
 
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OrderJsonCache orderJsonCache;
+
+    @Autowired
+    private OrderEventLog orderEventLog;
+
+    @Autowired
+    private OrderCluster orderCluster;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Value("${orders.events.overflow:DISCONNECT}")
+    private OverflowPolicy defaultOverflowPolicy;
+
+    @Value("${orders.events.sse-timeout:PT30M}")
+    private Duration changesTimeout;
+
+    @Value("${orders.logging.payload-sample-rate:0.01}")
+    private double payloadSampleRate;
+
+    // A retry with the same Idempotency-Key gets the order the first attempt created, marked
+    // Idempotent-Replayed, and waits for that attempt if it is still running. In a cluster the
+    // request goes to the node that owns the key, the only one that remembers it.
     @PostMapping
-    public Order createOrder(@RequestBody Order order) {
-        logger.info("Received request to create order: {}", order);
-        return orderService.createOrder(order);
+    public ResponseEntity<?> createOrder(@RequestBody Order order,
+                                         @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                         HttpServletRequest request) {
+        logger.info("Received request to create order entries={} idempotency-key={}", entryCount(order), idempotencyKey);
+        logPayload("create", order);
+        if (idempotencyKey == null) {
+            return ResponseEntity.ok(orderService.createOrder(order));
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!orderCluster.handlesKeyLocally(idempotencyKey, request)) {
+            return orderCluster.forwardByKey(idempotencyKey, request, order);
+        }
+        IdempotencyStore.Response response = idempotencyStore.execute(idempotencyKey,
+                IdempotencyStore.fingerprint(order), () -> orderService.createOrder(order));
+        if (response.replayed()) {
+            return ResponseEntity.ok().header(IDEMPOTENT_REPLAYED, "true").body(response.order());
+        }
+        return ResponseEntity.ok(response.order());
     }
 
+    // Served as pre-encoded JSON from the response cache, and as 304 if the client's copy is current.
+    // Orders owned by another node are fetched from it, bypassing the cache, which only sees local changes.
+    // Binary formats are encoded per request; the cache holds JSON only. Each format has its own ETag.
     @GetMapping("/{id}")
-    public Order getOrder(@PathVariable Long id) {
+    public ResponseEntity<?> getOrder(@PathVariable Long id,
+                                      @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                      HttpServletRequest request) {
         logger.info("Received request to get order with id: {}", id);
-        return orderService.getOrder(id);
+        if (!orderCluster.handlesLocally(id, request)) {
+            return orderCluster.forward(id, request, null);
+        }
+        MediaType format = WireFormat.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        if (!MediaType.APPLICATION_JSON.equals(format)) {
+            Order order = orderService.getOrder(id);
+            if (order == null) {
+                return ResponseEntity.ok().build();
+            }
+            String eTag = WireFormat.eTag(order.getVersion() == null ? 0 : order.getVersion(), format);
+            if (matchesAny(ifNoneMatch, eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+            return ResponseEntity.ok().eTag(eTag).contentType(format).body(order);
+        }
+        OrderJsonCache.Entry order = orderJsonCache.get(id, orderService::getOrder);
+        if (order == null) {
+            return ResponseEntity.ok().build();
+        }
+        String eTag = WireFormat.eTag(order.version(), MediaType.APPLICATION_JSON);
+        if (matchesAny(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).contentType(MediaType.APPLICATION_JSON).body(order.json());
     }
 
     @GetMapping
-    public List<Order> getAllOrders() {
-        logger.info("Received request to get all orders");
-        return orderService.getAllOrders();
+    public List<Order> getAllOrders(@RequestParam(required = false) OrderStatus status,
+                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                    @RequestParam(required = false) String product,
+                                    @RequestParam(defaultValue = "false") boolean archived,
+                                    HttpServletRequest request) {
+        OrderQuery query = new OrderQuery(status, from, to, product);
+        if (query.isEmpty()) {
+            logger.info("Received request to get all orders archived={}", archived);
+            return orderCluster.gatherOrders(request, () -> orderService.getAllOrders(archived));
+        }
+        logger.info("Received request to find orders matching {} archived={}", query, archived);
+        return orderCluster.gatherOrders(request, () -> orderService.findOrders(query, archived));
+    }
+
+    @GetMapping("/stats")
+    public OrderStats getStats(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                               HttpServletRequest request) {
+        logger.info("Received request to get order stats from {} to {}", from, to);
+        return orderCluster.gatherStats(request, () -> orderService.getStats(from, to));
+    }
+
+    // Filters narrow the pages the same way they narrow the unpaged listing
+    @GetMapping(params = "limit")
+    public OrderPage getOrders(@RequestParam(required = false) Long after, @RequestParam int limit,
+                               @RequestParam(required = false) OrderStatus status,
+                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                               @RequestParam(required = false) String product,
+                               @RequestParam(defaultValue = "false") boolean archived, HttpServletRequest request) {
+        OrderQuery query = new OrderQuery(status, from, to, product);
+        logger.info("Received request to get orders matching {} after id: {} limit: {} archived: {}", query, after, limit, archived);
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<Order> orders = orderCluster.pages(request, (cursor, size) -> orderService.findOrders(query, cursor, size, archived))
+                .apply(after, pageSize);
+        Long nextCursor = orders.size() == pageSize ? orders.get(orders.size() - 1).getId() : null;
+        return new OrderPage(orders, nextCursor);
+    }
+
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamOrders(@RequestParam(required = false) OrderStatus status,
+                                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                              @RequestParam(required = false) String product,
+                                                              @RequestParam(defaultValue = "false") boolean archived,
+                                                              HttpServletRequest request) {
+        OrderQuery query = new OrderQuery(status, from, to, product);
+        logger.info("Received request to stream orders matching {} archived={}", query, archived);
+        NdjsonOrderWriter writer = new NdjsonOrderWriter(
+                orderCluster.pages(request, (cursor, size) -> orderService.findOrders(query, cursor, size, archived)),
+                objectMapper, NdjsonOrderWriter.DEFAULT_PAGE_SIZE);
+        return ResponseEntity.ok()
+                .header("Content-Type", APPLICATION_NDJSON_VALUE)
+                .body(writer::writeAll);
+    }
+
+    /**
+     * Streams order changes as Server-Sent Events. Resumes after the sequence in {@code after}
+     * or the event id in the Last-Event-ID header of a reconnecting client, otherwise starts with
+     * the next change. In a cluster this is the changes of this node's orders, numbered by this
+     * node; an id from another node or from before a restart gets a RESET event instead.
+     */
+    @GetMapping(path = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) Long after,
+                                    @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId,
+                                    @RequestParam(required = false) OverflowPolicy overflow) {
+        OverflowPolicy policy = overflow != null ? overflow : defaultOverflowPolicy;
+        logger.info("Received request to stream order changes after={} last-event-id={} overflow={}", after, lastEventId, policy);
+        SseEmitter emitter = new SseEmitter(changesTimeout.toMillis());
+        SseOrderEventWriter writer = new SseOrderEventWriter(emitter, orderEventLog);
+        OrderEventSubscription subscription;
+        if (after != null) {
+            subscription = orderEventLog.subscribeAfter(after, writer, policy);
+        } else if (lastEventId != null && !lastEventId.isBlank()) {
+            subscription = orderEventLog.resume(lastEventId.trim(), writer, policy);
+        } else {
+            subscription = orderEventLog.subscribe(writer, policy);
+        }
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+        return emitter;
     }
 
     @PutMapping("/{id}")
-    public Order updateOrder(@PathVariable Long id, @RequestBody Order order) {
-        logger.info("Received request to update order with id: {}", id);
-        return orderService.updateOrder(id, order);
+    public ResponseEntity<?> updateOrder(@PathVariable Long id, @RequestBody Order order,
+                                         @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                         HttpServletRequest request) {
+        logger.info("Received request to update order id={} if-match={}", id, ifMatch);
+        logPayload("update", order);
+        if (!orderCluster.handlesLocally(id, request)) {
+            return orderCluster.forward(id, request, order);
+        }
+        Long expectedVersion = parseIfMatch(ifMatch);
+        if (ifMatch != null && !ifMatch.isBlank() && !"*".equals(ifMatch.trim()) && expectedVersion == null) {
+            // An entity tag we never issued can't match the current version
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+        Order updated = orderService.updateOrder(id, order, expectedVersion);
+        MediaType format = WireFormat.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        return ResponseEntity.ok().eTag(WireFormat.eTag(updated.getVersion(), format)).body(updated);
     }
 
     @DeleteMapping("/{id}")
-    public void deleteOrder(@PathVariable Long id) {
+    public ResponseEntity<byte[]> deleteOrder(@PathVariable Long id, HttpServletRequest request) {
         logger.info("Received request to delete order with id: {}", id);
+        if (!orderCluster.handlesLocally(id, request)) {
+            return orderCluster.forward(id, request, null);
+        }
         orderService.deleteOrder(id);
+        return ResponseEntity.ok().build();
+    }
+
+    @PostMapping("/batch")
+    public List<BatchResult> createOrders(@RequestBody List<Order> orders) {
+        logger.info("Received request to create {} orders", orders.size());
+        logPayload("create batch", orders);
+        checkBatchSize(orders.size());
+        return orderService.createOrders(orders);
+    }
+
+    @PutMapping("/batch")
+    public List<BatchResult> updateOrders(@RequestBody Map<Long, Order> updates, HttpServletRequest request) {
+        logger.info("Received request to update {} orders", updates.size());
+        logPayload("update batch", updates);
+        checkBatchSize(updates.size());
+        return orderCluster.scatterBatch(request, new ArrayList<>(updates.entrySet()), Map.Entry::getKey,
+                OrdersController::toMap, entries -> orderService.updateOrders(toMap(entries)));
+    }
+
+    @PostMapping("/batch/delete")
+    public List<BatchResult> deleteOrders(@RequestBody List<Long> ids, HttpServletRequest request) {
+        logger.info("Received request to delete {} orders", ids.size());
+        checkBatchSize(ids.size());
+        // A null id goes to whichever node owns 0 and is reported NOT_FOUND there
+        return orderCluster.scatterBatch(request, ids, id -> id == null ? 0L : id, part -> part, orderService::deleteOrders);
+    }
+
+    @ExceptionHandler(VersionConflictException.class)
+    public ResponseEntity<String> versionConflict(VersionConflictException e, HttpServletRequest request) {
+        logger.warn(e.getMessage());
+        // The tag of the current version in the format the client reads, as a 200 would carry
+        MediaType format = WireFormat.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .eTag(WireFormat.eTag(e.getActualVersion(), format))
+                .body(e.getMessage());
+    }
+
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<String> idempotencyKeyReused(IdempotencyKeyReusedException e) {
+        logger.warn(e.getMessage());
+        return ResponseEntity.unprocessableEntity().body(e.getMessage());
+    }
+
+    @ExceptionHandler(NodeUnavailableException.class)
+    public ResponseEntity<String> nodeUnavailable(NodeUnavailableException e) {
+        logger.warn(e.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(e.getMessage());
+    }
+
+    // Keeps the request order, which batch results are numbered by
+    private static Map<Long, Order> toMap(List<Map.Entry<Long, Order>> entries) {
+        Map<Long, Order> map = new LinkedHashMap<>();
+        for (Map.Entry<Long, Order> entry : entries) {
+            map.put(entry.getKey(), entry.getValue());
+        }
+        return map;
+    }
+
+    // Accepts 3, "3", weak W/"3" and the binary formats' "3-cbor"; returns null for a missing
+    // header, * or a tag we never issued. Updates check the version whatever format it was read in.
+    static Long parseIfMatch(String ifMatch) {
+        return ifMatch == null ? null : WireFormat.version(opaqueTag(ifMatch));
+    }
+
+    // If-None-Match holds * or a comma-separated list of tags, compared weakly with the current one
+    static boolean matchesAny(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            if ("*".equals(tag.trim()) || eTag.equals(opaqueTag(tag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The tag without W/ and quotes
+    private static String opaqueTag(String tag) {
+        String opaque = tag.trim();
+        if (opaque.startsWith("W/")) {
+            opaque = opaque.substring(2);
+        }
+        if (opaque.length() >= 2 && opaque.startsWith("\"") && opaque.endsWith("\"")) {
+            opaque = opaque.substring(1, opaque.length() - 1);
+        }
+        return opaque;
+    }
+
+    private static int entryCount(Order order) {
+        return order == null || order.getEntries() == null ? 0 : order.getEntries().size();
+    }
+
+    private void logPayload(String operation, Object payload) {
+        if (payloadLogger.isDebugEnabled() && ThreadLocalRandom.current().nextDouble() < payloadSampleRate) {
+            payloadLogger.debug("Sampled {} payload: {}", operation, payload);
+        }
+    }
+
+    // The client's mistake, so 413 rather than the 500 an IllegalArgumentException would become
+    private static void checkBatchSize(int size) {
+        if (size > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Batch size " + size + " exceeds the limit of " + MAX_BATCH_SIZE);
+        }
     }
 }
@@ -0,0 +1,70 @@
+package com.example.demo.controller;
+
+import com.example.demo.events.OrderEvent;
+import com.example.demo.events.OrderEventLog;
+import com.example.demo.events.OrderEventSubscriber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Writes an order event subscription to a {@code GET /orders/changes} response as Server-Sent
+ * Events. The event id is the log's epoch and the sequence number, so a reconnecting client's
+ * {@code Last-Event-ID} resumes right after the last event it saw, as long as it reaches the same
+ * process. Lost ranges are sent as {@code GAP} events. A {@code RESET} event, sent first when the
+ * client resumes from another process's id, and a final {@code OVERFLOW} event under DISCONNECT
+ * both mean the client should reload.
+ */
+class SseOrderEventWriter implements OrderEventSubscriber {
+    private static final Logger logger = LoggerFactory.getLogger(SseOrderEventWriter.class);
+
+    private final SseEmitter emitter;
+    private final OrderEventLog log;
+
+    SseOrderEventWriter(SseEmitter emitter, OrderEventLog log) {
+        this.emitter = emitter;
+        this.log = log;
+    }
+
+    @Override
+    public void onEvent(OrderEvent event) throws IOException {
+        // Blocks while the client is slow to read; the subscription falls behind meanwhile
+        emitter.send(SseEmitter.event()
+                .id(log.eventId(event.getSequence()))
+                .name(event.getType().name())
+                .data(event, MediaType.APPLICATION_JSON));
+    }
+
+    @Override
+    public void onGap(long fromSequence, long toSequence) throws IOException {
+        emitter.send(SseEmitter.event()
+                .name("GAP")
+                .data(Map.of("fromSequence", fromSequence, "toSequence", toSequence), MediaType.APPLICATION_JSON));
+    }
+
+    // Carries the id to resume from, so the client's next reconnect lands in this epoch
+    @Override
+    public void onReset(long sequence) throws IOException {
+        emitter.send(SseEmitter.event()
+                .id(log.eventId(sequence))
+                .name("RESET")
+                .data(Map.of("epoch", log.epoch(), "sequence", sequence), MediaType.APPLICATION_JSON));
+    }
+
+    @Override
+    public void onClose(Throwable cause) {
+        if (cause instanceof IllegalStateException) {
+            logger.warn("Closing order change stream: {}", cause.getMessage());
+            try {
+                emitter.send(SseEmitter.event().name("OVERFLOW").data(cause.getMessage()));
+            } catch (IOException | IllegalStateException e) {
+                // Client already gone
+            }
+        }
+        emitter.complete();
+    }
+}
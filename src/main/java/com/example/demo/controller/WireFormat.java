@@ -0,0 +1,72 @@
+package com.example.demo.controller;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+/**
+ * The body encodings the orders API speaks. JSON is the default; CBOR and Smile encode the same
+ * documents in binary, which machine-to-machine callers parse with far less CPU.
+ */
+public final class WireFormat {
+    public static final MediaType CBOR = MediaType.APPLICATION_CBOR;
+    public static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+    // In order of preference when the client accepts several equally
+    static final List<MediaType> ALL = List.of(MediaType.APPLICATION_JSON, CBOR, SMILE);
+
+    private WireFormat() {
+    }
+
+    /** The format to answer a request with this Accept header in: its most preferred one, else JSON. */
+    static MediaType negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        MediaType best = MediaType.APPLICATION_JSON;
+        double bestQuality = 0;
+        try {
+            for (MediaType accepted : MediaType.parseMediaTypes(accept)) {
+                for (MediaType format : ALL) {
+                    if (accepted.includes(format) && accepted.getQualityValue() > bestQuality) {
+                        best = format;
+                        bestQuality = accepted.getQualityValue();
+                        break;
+                    }
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_JSON;
+        }
+        return best;
+    }
+
+    /**
+     * The entity tag of an order at {@code version} encoded in {@code format}: {@code 3} in JSON,
+     * {@code 3-cbor} and {@code 3-smile} in the binary formats, whose bytes differ from the JSON ones.
+     */
+    static String eTag(long version, MediaType format) {
+        if (CBOR.equals(format)) {
+            return version + "-cbor";
+        }
+        if (SMILE.equals(format)) {
+            return version + "-smile";
+        }
+        return Long.toString(version);
+    }
+
+    /** The version in a tag from {@link #eTag}, in any format, or null for a tag we never issued. */
+    static Long version(String eTag) {
+        String tag = eTag;
+        if (tag.endsWith("-cbor")) {
+            tag = tag.substring(0, tag.length() - "-cbor".length());
+        } else if (tag.endsWith("-smile")) {
+            tag = tag.substring(0, tag.length() - "-smile".length());
+        }
+        try {
+            return Long.valueOf(tag);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
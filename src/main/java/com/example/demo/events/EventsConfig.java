@@ -0,0 +1,19 @@
+package com.example.demo.events;
+
+import com.example.demo.service.OrderService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(EventsProperties.class)
+public class EventsConfig {
+
+    @Bean
+    public OrderEventLog orderEventLog(EventsProperties properties, OrderService orderService, MeterRegistry meterRegistry) {
+        OrderEventLog log = new OrderEventLog(properties.getCapacity(), meterRegistry);
+        orderService.addChangeListener(log);
+        return log;
+    }
+}
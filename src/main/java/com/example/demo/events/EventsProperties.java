@@ -0,0 +1,22 @@
+package com.example.demo.events;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "orders.events")
+public class EventsProperties {
+    /** Events kept for subscribers that fall behind or resume; rounded up to a power of two. */
+    private int capacity = 65536;
+    /** Policy for GET /orders/changes streams that don't ask for one. */
+    private OverflowPolicy overflow = OverflowPolicy.DISCONNECT;
+    /** How long a GET /orders/changes stream stays open before the client has to resume. */
+    private Duration sseTimeout = Duration.ofMinutes(30);
+
+    public int getCapacity() { return capacity; }
+    public void setCapacity(int capacity) { this.capacity = capacity; }
+    public OverflowPolicy getOverflow() { return overflow; }
+    public void setOverflow(OverflowPolicy overflow) { this.overflow = overflow; }
+    public Duration getSseTimeout() { return sseTimeout; }
+    public void setSseTimeout(Duration sseTimeout) { this.sseTimeout = sseTimeout; }
+}
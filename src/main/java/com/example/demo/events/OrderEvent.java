@@ -0,0 +1,37 @@
+package com.example.demo.events;
+
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderStatus;
+
+/**
+ * One change to one order. Sequence numbers start at 1 and are gapless across all orders; events
+ * of the same order are in version order. {@code order} is a copy of the order after the change,
+ * so changing it does not change the stored order, and null for deletes.
+ */
+public class OrderEvent {
+    private final long sequence;
+    private final OrderEventType type;
+    private final long orderId;
+    private final OrderStatus previousStatus;
+    private final Order order;
+
+    public OrderEvent(long sequence, OrderEventType type, long orderId, OrderStatus previousStatus, Order order) {
+        this.sequence = sequence;
+        this.type = type;
+        this.orderId = orderId;
+        this.previousStatus = previousStatus;
+        this.order = order;
+    }
+
+    public long getSequence() { return sequence; }
+    public OrderEventType getType() { return type; }
+    public long getOrderId() { return orderId; }
+    /** Status before a STATUS_CHANGED event, otherwise null. */
+    public OrderStatus getPreviousStatus() { return previousStatus; }
+    public Order getOrder() { return order; }
+
+    @Override
+    public String toString() {
+        return "OrderEvent{sequence=" + sequence + ", type=" + type + ", orderId=" + orderId + '}';
+    }
+}
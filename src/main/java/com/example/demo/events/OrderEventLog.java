@@ -0,0 +1,219 @@
+package com.example.demo.events;
+
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderStatus;
+import com.example.demo.service.OrderChangeListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Change-data capture: a bounded ring buffer of sequence-numbered {@link OrderEvent}s, fed by the
+ * service as an {@link OrderChangeListener} and read by any number of subscriptions.
+ * <p>
+ * Publishing never waits for readers. A writer claims the next sequence, stores the event in its
+ * slot, overwriting the event {@code capacity} sequences older, and only wakes the notifier
+ * thread if some subscription is idle; the notifier then unparks those subscriptions. Each
+ * subscription reads the ring at its own pace on its own virtual thread, so the ring itself is
+ * the per-subscriber buffer, and falling more than {@code capacity} events behind is the
+ * overflow its {@link OverflowPolicy} handles.
+ * <p>
+ * Sequences only live as long as the log and start over at 1 in each process, so every log also
+ * has a random {@link #epoch}. Event ids handed to remote clients carry it, and a client resuming
+ * from another process's id, or from a sequence this log never reached, is told to reload.
+ */
+public class OrderEventLog implements OrderChangeListener, AutoCloseable {
+    static final String PUBLISHED = "orders.events.published";
+    static final String SUBSCRIBERS = "orders.events.subscribers";
+    static final String OVERFLOWS = "orders.events.overflows";
+
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final int mask;
+    private final AtomicReferenceArray<OrderEvent> slots;
+    private final AtomicLong lastSequence = new AtomicLong(); // last one claimed, possibly not yet stored
+    private final Set<OrderEventSubscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final ConcurrentLinkedQueue<OrderEventSubscription> idle = new ConcurrentLinkedQueue<>();
+    private final Thread notifier;
+    private final Counter published;
+    private final Counter overflows;
+    private volatile boolean closed;
+
+    public OrderEventLog(int capacity) {
+        this(capacity, new CompositeMeterRegistry());
+    }
+
+    public OrderEventLog(int capacity, MeterRegistry registry) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Event log capacity must be at least 2");
+        }
+        int slotCount = Integer.highestOneBit(capacity - 1) << 1; // round up to a power of two
+        this.mask = slotCount - 1;
+        this.slots = new AtomicReferenceArray<>(slotCount);
+        this.published = Counter.builder(PUBLISHED)
+                .description("Order change events published")
+                .register(registry);
+        this.overflows = Counter.builder(OVERFLOWS)
+                .description("Subscriptions that fell behind by more than the event log capacity")
+                .register(registry);
+        Gauge.builder(SUBSCRIBERS, subscriptions, Set::size)
+                .description("Open order event subscriptions")
+                .register(registry);
+        this.notifier = Thread.ofPlatform().name("order-events-notifier").daemon().start(this::notifyIdle);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /** Random per log, and so per process; base 36, so it never contains the {@code -} of an event id. */
+    public String epoch() {
+        return epoch;
+    }
+
+    /** The id of the event with this sequence for clients that may resume from it: {@code <epoch>-<sequence>}. */
+    public String eventId(long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    /** Sequence of the newest event, or 0 if none was published yet. */
+    public long lastSequence() {
+        return lastSequence.get();
+    }
+
+    @Override
+    public void orderCreated(Order order) {
+        publish(OrderEventType.CREATED, order.getId(), null, order);
+    }
+
+    @Override
+    public void orderUpdated(Order previous, Order order) {
+        if (previous.getStatus() != order.getStatus()) {
+            publish(OrderEventType.STATUS_CHANGED, order.getId(), previous.getStatus(), order);
+        } else {
+            publish(OrderEventType.UPDATED, order.getId(), null, order);
+        }
+    }
+
+    @Override
+    public void orderDeleted(long id) {
+        publish(OrderEventType.DELETED, id, null, null);
+    }
+
+    private void publish(OrderEventType type, long orderId, OrderStatus previousStatus, Order order) {
+        long sequence = lastSequence.incrementAndGet();
+        OrderEvent event = new OrderEvent(sequence, type, orderId, previousStatus, order);
+        // A writer delayed by a whole lap must not overwrite the newer event already in its slot
+        slots.accumulateAndGet((int) sequence & mask, event,
+                (current, next) -> current == null || current.getSequence() < next.getSequence() ? next : current);
+        published.increment();
+        if (!idle.isEmpty()) {
+            LockSupport.unpark(notifier);
+        }
+    }
+
+    /** Delivers events published from now on. */
+    public OrderEventSubscription subscribe(OrderEventSubscriber subscriber, OverflowPolicy overflowPolicy) {
+        return subscribeAfter(lastSequence.get(), subscriber, overflowPolicy);
+    }
+
+    /**
+     * Delivers events after {@code sequence}, starting with those still in the ring. If they have
+     * already been overwritten the overflow policy applies straight away. A sequence this log has
+     * not reached yet can only come from an earlier process, so the subscriber is
+     * {@link OrderEventSubscriber#onReset reset} and gets events published from now on.
+     */
+    public OrderEventSubscription subscribeAfter(long sequence, OrderEventSubscriber subscriber, OverflowPolicy overflowPolicy) {
+        long last = lastSequence.get();
+        return sequence > last
+                ? start(subscriber, overflowPolicy, last, true)
+                : start(subscriber, overflowPolicy, Math.max(sequence, 0), false);
+    }
+
+    /**
+     * Resumes after an id from {@link #eventId}. An id from another epoch, or one that can't be
+     * parsed, resets the subscriber, which then gets events published from now on.
+     */
+    public OrderEventSubscription resume(String eventId, OrderEventSubscriber subscriber, OverflowPolicy overflowPolicy) {
+        int separator = eventId.lastIndexOf('-');
+        if (separator > 0 && eventId.substring(0, separator).equals(epoch)) {
+            try {
+                return subscribeAfter(Long.parseLong(eventId.substring(separator + 1)), subscriber, overflowPolicy);
+            } catch (NumberFormatException e) {
+                // Not an id we issued
+            }
+        }
+        return start(subscriber, overflowPolicy, lastSequence.get(), true);
+    }
+
+    private OrderEventSubscription start(OrderEventSubscriber subscriber, OverflowPolicy overflowPolicy, long after, boolean reset) {
+        if (closed) {
+            throw new IllegalStateException("Event log is closed");
+        }
+        OrderEventSubscription subscription = new OrderEventSubscription(this, subscriber, overflowPolicy, after + 1, reset);
+        subscriptions.add(subscription);
+        subscription.start();
+        return subscription;
+    }
+
+    /** The event with this sequence if it is in the ring, otherwise null. */
+    OrderEvent read(long sequence) {
+        OrderEvent event = slots.get((int) sequence & mask);
+        return event != null && event.getSequence() == sequence ? event : null;
+    }
+
+    /** Sequences below this have been, or are being, overwritten. */
+    long oldestRetained() {
+        return Math.max(1, lastSequence.get() - mask);
+    }
+
+    /** Parks the subscription until an event may be available at {@code sequence}, or briefly if unsure. */
+    void awaitEvent(OrderEventSubscription subscription, long sequence, long maxNanos) {
+        if (subscription.markIdle()) {
+            idle.add(subscription);
+        }
+        // Re-check after registering, so a publish in between is not missed
+        if (read(sequence) == null && sequence >= oldestRetained() && !subscription.isClosed()) {
+            LockSupport.parkNanos(subscription, maxNanos);
+        }
+    }
+
+    void overflowed() {
+        overflows.increment();
+    }
+
+    void unsubscribed(OrderEventSubscription subscription) {
+        subscriptions.remove(subscription);
+    }
+
+    private void notifyIdle() {
+        while (!closed) {
+            LockSupport.park(this);
+            OrderEventSubscription subscription;
+            while ((subscription = idle.poll()) != null) {
+                subscription.wake();
+            }
+        }
+    }
+
+    int subscriberCount() {
+        return subscriptions.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(notifier);
+        for (OrderEventSubscription subscription : subscriptions) {
+            subscription.close();
+        }
+    }
+}
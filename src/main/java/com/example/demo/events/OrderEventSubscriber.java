@@ -0,0 +1,29 @@
+package com.example.demo.events;
+
+/**
+ * Receives events on the subscription's own virtual thread, one at a time and in sequence order.
+ * A subscriber that blocks, for example on a slow client socket, only delays itself: the writers
+ * keep publishing and the subscription falls behind until its {@link OverflowPolicy} applies.
+ */
+public interface OrderEventSubscriber {
+
+    void onEvent(OrderEvent event) throws Exception;
+
+    /** Events {@code fromSequence} to {@code toSequence} were lost; only called under {@link OverflowPolicy#SKIP}. */
+    default void onGap(long fromSequence, long toSequence) throws Exception {}
+
+    /**
+     * The position the subscriber asked to resume from is not in this log: it comes from before a
+     * restart, or from another node. Events it has not seen may be lost, so it should reload.
+     * Called once, before any event; delivery continues after {@code sequence}, the newest event
+     * at the time.
+     */
+    default void onReset(long sequence) throws Exception {}
+
+    /**
+     * The subscription ended. {@code cause} is null after {@link OrderEventSubscription#close()},
+     * an {@link IllegalStateException} after an overflow under {@link OverflowPolicy#DISCONNECT},
+     * or whatever a callback threw.
+     */
+    default void onClose(Throwable cause) {}
+}
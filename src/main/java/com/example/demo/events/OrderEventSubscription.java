@@ -0,0 +1,104 @@
+package com.example.demo.events;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/** A reader of the {@link OrderEventLog} with its own position and virtual thread. */
+public final class OrderEventSubscription implements AutoCloseable {
+    // Upper bound on a park, so a closed subscription notices promptly even without a wake-up
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final AtomicLong ids = new AtomicLong();
+
+    private final OrderEventLog log;
+    private final OrderEventSubscriber subscriber;
+    private final OverflowPolicy overflowPolicy;
+    private final AtomicBoolean idle = new AtomicBoolean();
+    private volatile long nextSequence;
+    // Whether the subscriber is reset before the first event
+    private final boolean reset;
+    private volatile boolean closed;
+    private Thread thread;
+
+    OrderEventSubscription(OrderEventLog log, OrderEventSubscriber subscriber, OverflowPolicy overflowPolicy,
+                           long nextSequence, boolean reset) {
+        this.log = log;
+        this.subscriber = subscriber;
+        this.overflowPolicy = overflowPolicy;
+        this.nextSequence = nextSequence;
+        this.reset = reset;
+    }
+
+    void start() {
+        thread = Thread.ofVirtual().name("order-events-" + ids.incrementAndGet()).unstarted(this::run);
+        thread.start();
+    }
+
+    /** Sequence of the next event to deliver. */
+    public long getNextSequence() {
+        return nextSequence;
+    }
+
+    /** Events published but not yet delivered. */
+    public long getLag() {
+        return Math.max(0, log.lastSequence() - nextSequence + 1);
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    boolean markIdle() {
+        return idle.compareAndSet(false, true);
+    }
+
+    void wake() {
+        idle.set(false);
+        LockSupport.unpark(thread);
+    }
+
+    private void run() {
+        Throwable cause = null;
+        try {
+            if (reset) {
+                subscriber.onReset(nextSequence - 1);
+            }
+            while (!closed) {
+                long next = nextSequence;
+                OrderEvent event = log.read(next);
+                if (event != null) {
+                    subscriber.onEvent(event);
+                    nextSequence = next + 1;
+                    continue;
+                }
+                long oldest = log.oldestRetained();
+                if (next < oldest) {
+                    log.overflowed();
+                    if (overflowPolicy == OverflowPolicy.DISCONNECT) {
+                        throw new IllegalStateException("Subscriber fell behind: events " + next + " to "
+                                + (oldest - 1) + " were overwritten");
+                    }
+                    subscriber.onGap(next, oldest - 1);
+                    nextSequence = oldest;
+                    continue;
+                }
+                log.awaitEvent(this, next, MAX_PARK_NANOS);
+            }
+        } catch (Exception e) {
+            cause = e;
+        } finally {
+            closed = true;
+            log.unsubscribed(this);
+            subscriber.onClose(cause);
+        }
+    }
+}
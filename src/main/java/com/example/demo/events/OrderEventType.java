@@ -0,0 +1,10 @@
+package com.example.demo.events;
+
+public enum OrderEventType {
+    CREATED,
+    /** Changed without a status transition. */
+    UPDATED,
+    /** Moved to another status, possibly with other changes in the same update. */
+    STATUS_CHANGED,
+    DELETED
+}
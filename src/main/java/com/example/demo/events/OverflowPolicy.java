@@ -0,0 +1,9 @@
+package com.example.demo.events;
+
+/** What a subscription does when it falls so far behind that the ring buffer overwrote events it had not read. */
+public enum OverflowPolicy {
+    /** End the subscription with an error; the consumer resynchronizes from a full read. */
+    DISCONNECT,
+    /** Report the lost range through {@link OrderEventSubscriber#onGap} and continue from the oldest retained event. */
+    SKIP
+}
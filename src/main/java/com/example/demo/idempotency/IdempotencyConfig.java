@@ -0,0 +1,20 @@
+package com.example.demo.idempotency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+@Configuration
+@EnableConfigurationProperties(IdempotencyProperties.class)
+public class IdempotencyConfig {
+
+    @Bean
+    public IdempotencyStore idempotencyStore(IdempotencyProperties properties, Clock clock, MeterRegistry meterRegistry) {
+        return properties.isEnabled()
+                ? new IdempotencyStore(clock, properties.getTtl(), properties.getMaximumKeys(), meterRegistry)
+                : IdempotencyStore.disabled();
+    }
+}
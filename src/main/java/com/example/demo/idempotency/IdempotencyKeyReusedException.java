@@ -0,0 +1,8 @@
+package com.example.demo.idempotency;
+
+/** Thrown when an idempotency key comes back with a request body other than the one it was first used with. */
+public class IdempotencyKeyReusedException extends IllegalStateException {
+    public IdempotencyKeyReusedException(String key) {
+        super("Idempotency key " + key + " was already used for a different request");
+    }
+}
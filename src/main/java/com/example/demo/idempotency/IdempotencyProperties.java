@@ -0,0 +1,22 @@
+package com.example.demo.idempotency;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "orders.idempotency")
+public class IdempotencyProperties {
+    /** Whether POST /orders honours the Idempotency-Key header; when off the header is ignored. */
+    private boolean enabled = true;
+    /** How long after its first use a key is remembered; retries after that create a new order. */
+    private Duration ttl = Duration.ofHours(24);
+    /** Bound on remembered keys, roughly 250 bytes of heap each besides the order itself. */
+    private long maximumKeys = 100_000;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public Duration getTtl() { return ttl; }
+    public void setTtl(Duration ttl) { this.ttl = ttl; }
+    public long getMaximumKeys() { return maximumKeys; }
+    public void setMaximumKeys(long maximumKeys) { this.maximumKeys = maximumKeys; }
+}
@@ -0,0 +1,201 @@
+package com.example.demo.idempotency;
+
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderEntry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the order created by each {@code POST /orders} that carried an {@code Idempotency-Key},
+ * so a retry gets that order back instead of creating another. A duplicate that arrives while the
+ * first attempt is still running waits for it and shares its result, failure included. A failed
+ * attempt is forgotten once it has finished, so the client can try again with the same key.
+ * <p>
+ * Keys expire {@code ttl} after they were first seen, by the injected {@link Clock}, and at most
+ * {@code maximumKeys} are kept. A key evicted early for space is simply executed again if retried,
+ * which is what a client that waited longer than the TTL would get too.
+ */
+public class IdempotencyStore {
+    static final String REQUESTS = "orders.idempotency.requests";
+    static final String KEYS = "orders.idempotency.keys";
+
+    /** The order to respond with, and whether it was created by an earlier request with the key. */
+    public record Response(Order order, boolean replayed) {
+    }
+
+    /** The first 128 bits of the SHA-256 digest of a create request; see {@link #fingerprint}. */
+    public record Fingerprint(long high, long low) {
+    }
+
+    private static final class Execution {
+        final Fingerprint fingerprint;
+        final CompletableFuture<Order> result = new CompletableFuture<>();
+
+        Execution(Fingerprint fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private final Cache<String, Execution> executions; // null when disabled
+    private final Counter executed;
+    private final Counter replayed;
+    private final Counter joined;
+    private final Counter mismatched;
+
+    public IdempotencyStore(Clock clock, Duration ttl, long maximumKeys, MeterRegistry registry) {
+        this.executions = Caffeine.newBuilder()
+                .maximumSize(maximumKeys)
+                .expireAfterWrite(ttl)
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.millis()))
+                .build();
+        this.executed = requests(registry, "executed");
+        this.replayed = requests(registry, "replayed");
+        this.joined = requests(registry, "joined");
+        this.mismatched = requests(registry, "mismatched");
+        Gauge.builder(KEYS, executions, Cache::estimatedSize)
+                .description("Idempotency keys remembered")
+                .register(registry);
+    }
+
+    private IdempotencyStore() {
+        this.executions = null;
+        this.executed = null;
+        this.replayed = null;
+        this.joined = null;
+        this.mismatched = null;
+    }
+
+    /** A store that remembers nothing and runs every request. */
+    public static IdempotencyStore disabled() {
+        return new IdempotencyStore();
+    }
+
+    private static Counter requests(MeterRegistry registry, String result) {
+        return Counter.builder(REQUESTS)
+                .description("Requests carrying an idempotency key")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    /**
+     * Runs {@code action} unless a request with {@code key} ran or is running already, in which
+     * case its result is returned instead. {@code fingerprint} identifies the request body; reusing
+     * a key for a different body throws {@link IdempotencyKeyReusedException}.
+     */
+    public Response execute(String key, Fingerprint fingerprint, Supplier<Order> action) {
+        if (executions == null) {
+            return new Response(action.get(), false);
+        }
+        Execution execution = new Execution(fingerprint);
+        Execution first = executions.asMap().putIfAbsent(key, execution);
+        if (first != null) {
+            if (!first.fingerprint.equals(fingerprint)) {
+                mismatched.increment();
+                throw new IdempotencyKeyReusedException(key);
+            }
+            (first.result.isDone() ? replayed : joined).increment();
+            return new Response(await(first.result), true);
+        }
+        Order order;
+        try {
+            order = action.get();
+        } catch (RuntimeException | Error e) {
+            executions.asMap().remove(key, execution);
+            execution.result.completeExceptionally(e);
+            throw e;
+        }
+        execution.result.complete(order);
+        executed.increment();
+        return new Response(order, false);
+    }
+
+    private static Order await(CompletableFuture<Order> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * A digest of everything in a create request that shapes the order, so a reused key can be told
+     * apart from a retry without keeping the request. The fields are written with their lengths and
+     * null markers, so no two different requests encode alike, and hashed with SHA-256: unlike a
+     * 32-bit hash, a different body can't be crafted or stumbled upon to pass for the first.
+     */
+    public static Fingerprint fingerprint(Order request) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Every JDK provides SHA-256", e);
+        }
+        try (DataOutputStream out = new DataOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), digest))) {
+            writeString(out, request.getDescription());
+            writeString(out, request.getOrderDate() == null ? null : request.getOrderDate().toString());
+            writeString(out, request.getStatus() == null ? null : request.getStatus().name());
+            List<OrderEntry> entries = request.getEntries();
+            out.writeInt(entries == null ? -1 : entries.size());
+            if (entries != null) {
+                for (OrderEntry entry : entries) {
+                    out.writeBoolean(entry != null);
+                    if (entry != null) {
+                        writeString(out, entry.getProductCode());
+                        writeString(out, entry.getProductName());
+                        out.writeInt(entry.getQuantity());
+                        out.writeLong(entry.getPriceCents());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ByteBuffer hash = ByteBuffer.wrap(digest.digest());
+        return new Fingerprint(hash.getLong(), hash.getLong());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /** Keys currently remembered, after pending expiry and eviction have run. */
+    long size() {
+        if (executions == null) {
+            return 0;
+        }
+        executions.cleanUp();
+        return executions.estimatedSize();
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.demo.model;
+
+/** Outcome of one item of a batch request, reported at the item's position in the request. */
+public class BatchResult {
+    public enum Outcome {
+        CREATED,
+        UPDATED,
+        DELETED,
+        NOT_FOUND,
+        REJECTED,
+        /** The node that owns the order did not answer; the change may or may not have been applied. */
+        UNAVAILABLE
+    }
+
+    private int index;
+    private Long id;
+    private Outcome outcome;
+    private String error;
+    private Order order;
+
+    public BatchResult() {}
+
+    public BatchResult(int index, Long id, Outcome outcome, String error, Order order) {
+        this.index = index;
+        this.id = id;
+        this.outcome = outcome;
+        this.error = error;
+        this.order = order;
+    }
+
+    public static BatchResult success(int index, Outcome outcome, Order order) {
+        return new BatchResult(index, order.getId(), outcome, null, order);
+    }
+
+    public static BatchResult failure(int index, Long id, Outcome outcome, String error) {
+        return new BatchResult(index, id, outcome, error, null);
+    }
+
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Outcome getOutcome() { return outcome; }
+    public void setOutcome(Outcome outcome) { this.outcome = outcome; }
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+    public Order getOrder() { return order; }
+    public void setOrder(Order order) { this.order = order; }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "index=" + index +
+                ", id=" + id +
+                ", outcome=" + outcome +
+                ", error='" + error + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.demo.model;
+
+import java.util.List;
+
+/**
+ * Fixed-point money: amounts are held as a {@code long} number of cents so that totals are exact
+ * and can be summed without boxing. The JSON and the public getters still speak decimal units,
+ * converted at the edges with {@link #toCents(double)} and {@link #toDouble(long)}.
+ */
+public final class Money {
+    public static final int SCALE = 100;
+
+    private Money() {}
+
+    /** Rounds a decimal amount to the nearest cent. */
+    public static long toCents(double amount) {
+        if (Double.isNaN(amount) || Double.isInfinite(amount) || Math.abs(amount) >= Long.MAX_VALUE / SCALE) {
+            throw new IllegalArgumentException("Amount out of range: " + amount);
+        }
+        return Math.round(amount * SCALE);
+    }
+
+    public static double toDouble(long cents) {
+        return (double) cents / SCALE;
+    }
+
+    /**
+     * Sum of price times quantity over the entries, in cents. Plain indexed loop so the hot
+     * path allocates nothing; overflow is rejected rather than wrapped.
+     */
+    public static long total(List<OrderEntry> entries) {
+        long total = 0;
+        try {
+            for (int i = 0, n = entries.size(); i < n; i++) {
+                OrderEntry entry = entries.get(i);
+                total = Math.addExact(total, Math.multiplyExact(entry.getPriceCents(), (long) entry.getQuantity()));
+            }
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Order total is out of range");
+        }
+        return total;
+    }
+}
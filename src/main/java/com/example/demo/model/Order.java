@@ -1,22 +1,32 @@
 package com.example.demo.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.time.LocalDate;
 import java.util.List;
 
 public class Order {
+    // Marks an amount that was never set, so getAmount() can still return null
+    private static final long NO_AMOUNT = Long.MIN_VALUE;
+    // Caps the entries shown so logging an order stays bounded however large it is
+    private static final int MAX_ENTRIES_IN_TO_STRING = 5;
+
     private Long id;
     private String description;
-    private Double amount;
+    // Fixed-point, see Money; exposed as a decimal amount in JSON
+    private long amountCents = NO_AMOUNT;
     private LocalDate orderDate;
     private OrderStatus status;
     private List<OrderEntry> entries;
+    // Incremented by the service on every successful update; used as the ETag
+    private Long version;
 
     public Order() {}
 
     public Order(Long id, String description, Double amount, LocalDate orderDate, OrderStatus status, List<OrderEntry> entries) {
         this.id = id;
         this.description = description;
-        this.amount = amount;
+        setAmount(amount);
         this.orderDate = orderDate;
         this.status = status;
         this.entries = entries;
@@ -26,24 +36,37 @@ public class Order {
     public void setId(Long id) { this.id = id; }
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
-    public Double getAmount() { return amount; }
-    public void setAmount(Double amount) { this.amount = amount; }
+    public Double getAmount() { return amountCents == NO_AMOUNT ? null : Money.toDouble(amountCents); }
+    public void setAmount(Double amount) { this.amountCents = amount == null ? NO_AMOUNT : Money.toCents(amount); }
+    @JsonIgnore public long getAmountCents() { return amountCents; }
+    @JsonIgnore public void setAmountCents(long amountCents) { this.amountCents = amountCents; }
+    public boolean hasAmount() { return amountCents != NO_AMOUNT; }
     public LocalDate getOrderDate() { return orderDate; }
     public void setOrderDate(LocalDate orderDate) { this.orderDate = orderDate; }
     public OrderStatus getStatus() { return status; }
     public void setStatus(OrderStatus status) { this.status = status; }
     public List<OrderEntry> getEntries() { return entries; }
     public void setEntries(List<OrderEntry> entries) { this.entries = entries; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    private String entriesToString() {
+        if (entries == null || entries.size() <= MAX_ENTRIES_IN_TO_STRING) {
+            return String.valueOf(entries);
+        }
+        return entries.subList(0, MAX_ENTRIES_IN_TO_STRING) + "+" + (entries.size() - MAX_ENTRIES_IN_TO_STRING) + " more";
+    }
 
     @Override
     public String toString() {
         return "Order{" +
                 "id=" + id +
                 ", description='" + description + '\'' +
-                ", amount=" + amount +
+                ", amount=" + getAmount() +
                 ", orderDate=" + orderDate +
                 ", status=" + status +
-                ", entries=" + entries +
+                ", entries=" + entriesToString() +
+                ", version=" + version +
                 '}';
     }
 }
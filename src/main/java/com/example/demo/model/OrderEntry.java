@@ -1,10 +1,13 @@
 package com.example.demo.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 public class OrderEntry {
     private String productCode;
     private String productName;
     private int quantity;
-    private double price;
+    // Fixed-point, see Money; exposed as a decimal price in JSON
+    private long priceCents;
 
     public OrderEntry() {}
 
@@ -12,7 +15,7 @@ public class OrderEntry {
         this.productCode = productCode;
         this.productName = productName;
         this.quantity = quantity;
-        this.price = price;
+        this.priceCents = Money.toCents(price);
     }
 
     public String getProductCode() { return productCode; }
@@ -21,8 +24,10 @@ public class OrderEntry {
     public void setProductName(String productName) { this.productName = productName; }
     public int getQuantity() { return quantity; }
     public void setQuantity(int quantity) { this.quantity = quantity; }
-    public double getPrice() { return price; }
-    public void setPrice(double price) { this.price = price; }
+    public double getPrice() { return Money.toDouble(priceCents); }
+    public void setPrice(double price) { this.priceCents = Money.toCents(price); }
+    @JsonIgnore public long getPriceCents() { return priceCents; }
+    @JsonIgnore public void setPriceCents(long priceCents) { this.priceCents = priceCents; }
 
     @Override
     public String toString() {
@@ -30,7 +35,7 @@ public class OrderEntry {
                 "productCode='" + productCode + '\'' +
                 ", productName='" + productName + '\'' +
                 ", quantity=" + quantity +
-                ", price=" + price +
+                ", price=" + getPrice() +
                 '}';
     }
 }
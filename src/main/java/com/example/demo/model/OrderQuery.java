@@ -0,0 +1,71 @@
+package com.example.demo.model;
+
+import java.time.LocalDate;
+
+/**
+ * Filter for {@code OrderService.findOrders}. Every criterion is optional; unset criteria match everything.
+ * {@code from} and {@code to} are both inclusive.
+ */
+public class OrderQuery {
+    private OrderStatus status;
+    private LocalDate from;
+    private LocalDate to;
+    private String productCode;
+
+    public OrderQuery() {}
+
+    public OrderQuery(OrderStatus status, LocalDate from, LocalDate to, String productCode) {
+        this.status = status;
+        this.from = from;
+        this.to = to;
+        this.productCode = productCode;
+    }
+
+    public OrderStatus getStatus() { return status; }
+    public void setStatus(OrderStatus status) { this.status = status; }
+    public LocalDate getFrom() { return from; }
+    public void setFrom(LocalDate from) { this.from = from; }
+    public LocalDate getTo() { return to; }
+    public void setTo(LocalDate to) { this.to = to; }
+    public String getProductCode() { return productCode; }
+    public void setProductCode(String productCode) { this.productCode = productCode; }
+
+    public boolean isEmpty() {
+        return status == null && from == null && to == null && productCode == null;
+    }
+
+    public boolean matches(Order order) {
+        if (status != null && status != order.getStatus()) {
+            return false;
+        }
+        LocalDate date = order.getOrderDate();
+        if (from != null && (date == null || date.isBefore(from))) {
+            return false;
+        }
+        if (to != null && (date == null || date.isAfter(to))) {
+            return false;
+        }
+        if (productCode != null) {
+            if (order.getEntries() == null) {
+                return false;
+            }
+            for (OrderEntry entry : order.getEntries()) {
+                if (productCode.equals(entry.getProductCode())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderQuery{" +
+                "status=" + status +
+                ", from=" + from +
+                ", to=" + to +
+                ", productCode='" + productCode + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/** Order counts and revenue per status, per order date and per product, as served by {@code GET /orders/stats}. */
+public class OrderStats {
+    private Map<OrderStatus, Totals> byStatus;
+    private Map<LocalDate, Totals> byDay;
+    private Map<String, ProductTotals> byProduct;
+
+    public OrderStats() {}
+
+    public OrderStats(Map<OrderStatus, Totals> byStatus, Map<LocalDate, Totals> byDay, Map<String, ProductTotals> byProduct) {
+        this.byStatus = byStatus;
+        this.byDay = byDay;
+        this.byProduct = byProduct;
+    }
+
+    public Map<OrderStatus, Totals> getByStatus() { return byStatus; }
+    public void setByStatus(Map<OrderStatus, Totals> byStatus) { this.byStatus = byStatus; }
+    public Map<LocalDate, Totals> getByDay() { return byDay; }
+    public void setByDay(Map<LocalDate, Totals> byDay) { this.byDay = byDay; }
+    public Map<String, ProductTotals> getByProduct() { return byProduct; }
+    public void setByProduct(Map<String, ProductTotals> byProduct) { this.byProduct = byProduct; }
+
+    /** Number of orders and the sum of their amounts. */
+    public static class Totals {
+        private long count;
+        private long revenueCents;
+
+        public Totals() {}
+
+        public Totals(long count, long revenueCents) {
+            this.count = count;
+            this.revenueCents = revenueCents;
+        }
+
+        public long getCount() { return count; }
+        public void setCount(long count) { this.count = count; }
+        public double getRevenue() { return Money.toDouble(revenueCents); }
+        public void setRevenue(double revenue) { this.revenueCents = Money.toCents(revenue); }
+        @JsonIgnore public long getRevenueCents() { return revenueCents; }
+        @JsonIgnore public void setRevenueCents(long revenueCents) { this.revenueCents = revenueCents; }
+
+        @Override
+        public String toString() {
+            return "Totals{count=" + count + ", revenueCents=" + revenueCents + '}';
+        }
+    }
+
+    /** Quantity ordered and price times quantity, summed over the entries for one product code. */
+    public static class ProductTotals {
+        private long quantity;
+        private long revenueCents;
+
+        public ProductTotals() {}
+
+        public ProductTotals(long quantity, long revenueCents) {
+            this.quantity = quantity;
+            this.revenueCents = revenueCents;
+        }
+
+        public long getQuantity() { return quantity; }
+        public void setQuantity(long quantity) { this.quantity = quantity; }
+        public double getRevenue() { return Money.toDouble(revenueCents); }
+        public void setRevenue(double revenue) { this.revenueCents = Money.toCents(revenue); }
+        @JsonIgnore public long getRevenueCents() { return revenueCents; }
+        @JsonIgnore public void setRevenueCents(long revenueCents) { this.revenueCents = revenueCents; }
+
+        @Override
+        public String toString() {
+            return "ProductTotals{quantity=" + quantity + ", revenueCents=" + revenueCents + '}';
+        }
+    }
+}
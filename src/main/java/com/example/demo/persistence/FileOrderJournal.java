@@ -0,0 +1,479 @@
+package com.example.demo.persistence;
+
+import com.example.demo.model.Order;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Append-only write-ahead log plus periodic snapshots, kept in one directory:
+ * <pre>
+ *   wal-&lt;gen&gt;.log        log segment; records are [int length][int crc32][byte type][payload]
+ *   snapshot-&lt;gen&gt;.bin   full state as of the start of wal-&lt;gen&gt;.log
+ * </pre>
+ * Recovery loads the newest valid snapshot and replays every segment with the same or a later
+ * generation. A torn record at the end of a segment (crash mid-write) ends that segment's replay.
+ * Every process start writes to a fresh segment, so a torn tail is never appended to.
+ * <p>
+ * Only {@link ReentrantLock}s are used, never {@code synchronized}, so threads blocked on fsync
+ * don't pin carrier threads if requests run on virtual threads.
+ */
+public class FileOrderJournal implements OrderJournal {
+    private static final Logger logger = LoggerFactory.getLogger(FileOrderJournal.class);
+
+    private static final byte CREATE = 1;
+    private static final byte UPDATE = 2;
+    private static final byte DELETE = 3;
+    private static final int SNAPSHOT_MAGIC = 0x4F524453; // "ORDS"
+    private static final byte SNAPSHOT_VERSION = 1;
+    private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+    private static final Pattern SEGMENT = Pattern.compile("wal-(\\d+)\\.log");
+    private static final Pattern SNAPSHOT = Pattern.compile("snapshot-(\\d+)\\.bin");
+
+    private final Path directory;
+    private final FsyncPolicy fsyncPolicy;
+    private final long groupCommitNanos;
+
+    // Held shared by mutations, exclusively while switching segments for a snapshot
+    private final ReentrantReadWriteLock mutationLock = new ReentrantReadWriteLock();
+    // Orders writes to the current segment; taken before forceLock when both are needed
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock forceLock = new ReentrantLock();
+    private final Condition durableAdvanced = forceLock.newCondition();
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+
+    private volatile FileChannel channel;
+    private volatile long generation;
+    private volatile long written;
+    private volatile long durable;
+    private volatile boolean closed;
+    private final Thread flusher;
+
+    public FileOrderJournal(Path directory, FsyncPolicy fsyncPolicy, Duration groupCommitInterval) {
+        this.directory = directory;
+        this.fsyncPolicy = fsyncPolicy;
+        this.groupCommitNanos = groupCommitInterval.toNanos();
+        try {
+            Files.createDirectories(directory);
+            long lastGeneration = Math.max(maxGeneration(SEGMENT), maxGeneration(SNAPSHOT));
+            openSegment(lastGeneration + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open order journal in " + directory, e);
+        }
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            flusher = null;
+        } else {
+            flusher = new Thread(this::flushLoop, "order-journal-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+        logger.info("Order journal opened in {} (fsync={}, group commit={})", directory, fsyncPolicy, groupCommitInterval);
+    }
+
+    @Override
+    public void beginMutation() {
+        mutationLock.readLock().lock();
+    }
+
+    @Override
+    public void endMutation() {
+        mutationLock.readLock().unlock();
+    }
+
+    @Override
+    public long appendCreate(Order order) {
+        return append(CREATE, order, 0);
+    }
+
+    @Override
+    public long appendCreates(List<Order> orders) {
+        ByteBuffer[] records = new ByteBuffer[orders.size()];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = encode(CREATE, orders.get(i), 0);
+        }
+        return write(records);
+    }
+
+    @Override
+    public long appendUpdate(Order order) {
+        return append(UPDATE, order, 0);
+    }
+
+    @Override
+    public long appendDelete(long id) {
+        return append(DELETE, null, id);
+    }
+
+    private long append(byte type, Order order, long id) {
+        return write(encode(type, order, id));
+    }
+
+    private long write(ByteBuffer... records) {
+        long length = 0;
+        for (ByteBuffer record : records) {
+            length += record.remaining();
+        }
+        appendLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Order journal is closed");
+            }
+            // Gathering write: a whole batch goes out in as few syscalls as possible
+            long remaining = length;
+            while (remaining > 0) {
+                remaining -= channel.write(records);
+            }
+            written += length;
+            return written;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to order journal", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private static ByteBuffer encode(byte type, Order order, long id) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0); // length placeholder
+            out.writeInt(0); // crc placeholder
+            out.writeByte(type);
+            if (type == DELETE) {
+                out.writeLong(id);
+            } else {
+                OrderCodec.write(out, order);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+        int payloadLength = record.capacity() - 8;
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 8, payloadLength);
+        record.putInt(0, payloadLength);
+        record.putInt(4, (int) crc.getValue());
+        return record;
+    }
+
+    @Override
+    public void awaitDurable(long position) {
+        if (fsyncPolicy == FsyncPolicy.ASYNC || durable >= position) {
+            return;
+        }
+        forceLock.lock();
+        try {
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                // Whoever gets the lock first forces everything written so far; the threads
+                // queued behind it usually find their position already durable.
+                if (durable < position) {
+                    force();
+                }
+                return;
+            }
+            while (durable < position && !closed) {
+                durableAdvanced.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the order journal", e);
+        } finally {
+            forceLock.unlock();
+        }
+    }
+
+    // Caller holds forceLock
+    private void force() {
+        long target = written;
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to fsync order journal", e);
+        }
+        durable = target;
+        durableAdvanced.signalAll();
+    }
+
+    private void flushLoop() {
+        while (!closed) {
+            LockSupport.parkNanos(groupCommitNanos);
+            if (durable == written) {
+                continue;
+            }
+            forceLock.lock();
+            try {
+                if (!closed) {
+                    force();
+                }
+            } catch (RuntimeException e) {
+                logger.error("Background fsync of order journal failed", e);
+            } finally {
+                forceLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public boolean recover(RecoveryHandler handler) {
+        try {
+            long snapshotGeneration = 0;
+            boolean found = false;
+            List<Long> snapshots = generations(SNAPSHOT);
+            for (int i = snapshots.size() - 1; i >= 0 && !found; i--) {
+                found = loadSnapshot(snapshotPath(snapshots.get(i)), handler);
+                if (found) {
+                    snapshotGeneration = snapshots.get(i);
+                }
+            }
+            long records = 0;
+            for (long segment : generations(SEGMENT)) {
+                if (segment >= snapshotGeneration && segment != generation) {
+                    records += replaySegment(segmentPath(segment), handler);
+                }
+            }
+            logger.info("Recovered order journal: snapshot generation {}, {} log records replayed", snapshotGeneration, records);
+            return found || records > 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to recover order journal from " + directory, e);
+        }
+    }
+
+    private boolean loadSnapshot(Path path, RecoveryHandler handler) throws IOException {
+        // Validate the trailing checksum before handing anything to the handler
+        long size = Files.size(path);
+        if (size < 8) {
+            logger.warn("Ignoring truncated order snapshot {}", path);
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(path), 1 << 16), crc))) {
+            in.skipNBytes(size - 8);
+            long actual = crc.getValue();
+            if (in.readLong() != actual) {
+                logger.warn("Ignoring corrupt order snapshot {}", path);
+                return false;
+            }
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readByte() != SNAPSHOT_VERSION) {
+                logger.warn("Ignoring order snapshot {} with unknown format", path);
+                return false;
+            }
+            handler.nextId(in.readLong());
+            while (in.readByte() != 0) {
+                handler.put(OrderCodec.read(in));
+            }
+        }
+        return true;
+    }
+
+    private long replaySegment(Path path, RecoveryHandler handler) throws IOException {
+        long records = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            CRC32 crc = new CRC32();
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException endOfSegment) {
+                    return records;
+                }
+                int checksum;
+                byte[] payload;
+                try {
+                    checksum = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD_SIZE) {
+                        throw new EOFException("bad record length " + length);
+                    }
+                    payload = in.readNBytes(length);
+                    if (payload.length < length) {
+                        throw new EOFException("short record");
+                    }
+                } catch (EOFException torn) {
+                    logger.warn("Torn record at the end of {} after {} records, ignoring the rest of the segment", path, records);
+                    return records;
+                }
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    logger.warn("Checksum mismatch in {} after {} records, ignoring the rest of the segment", path, records);
+                    return records;
+                }
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+                byte type = record.readByte();
+                if (type == DELETE) {
+                    handler.delete(record.readLong());
+                } else {
+                    handler.put(OrderCodec.read(record));
+                }
+                records++;
+            }
+        }
+    }
+
+    @Override
+    public void snapshot(SnapshotSource source) {
+        if (!snapshotLock.tryLock()) {
+            logger.info("Order snapshot already in progress, skipping");
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            long snapshotGeneration;
+            long nextId;
+            mutationLock.writeLock().lock();
+            try {
+                snapshotGeneration = rollSegment();
+                nextId = source.nextId();
+            } finally {
+                mutationLock.writeLock().unlock();
+            }
+            long count = writeSnapshot(snapshotGeneration, nextId, source.orders());
+            deleteOlderThan(snapshotGeneration);
+            logger.info("Order snapshot {} written with {} orders in {} ms", snapshotGeneration, count,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write order snapshot", e);
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    private long rollSegment() throws IOException {
+        appendLock.lock();
+        forceLock.lock();
+        try {
+            force();
+            channel.close();
+            openSegment(generation + 1);
+            return generation;
+        } finally {
+            forceLock.unlock();
+            appendLock.unlock();
+        }
+    }
+
+    private long writeSnapshot(long snapshotGeneration, long nextId, Iterator<Order> orders) throws IOException {
+        Path target = snapshotPath(snapshotGeneration);
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        long count = 0;
+        CRC32 crc = new CRC32();
+        try (FileOutputStream file = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), crc))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeByte(SNAPSHOT_VERSION);
+            out.writeLong(nextId);
+            while (orders.hasNext()) {
+                out.writeByte(1);
+                OrderCodec.write(out, orders.next());
+                count++;
+            }
+            out.writeByte(0);
+            out.flush();
+            // The trailer is not part of the checksum it carries
+            new DataOutputStream(file).writeLong(crc.getValue());
+            file.getChannel().force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory();
+        return count;
+    }
+
+    private void deleteOlderThan(long snapshotGeneration) throws IOException {
+        for (long segment : generations(SEGMENT)) {
+            if (segment < snapshotGeneration) {
+                Files.deleteIfExists(segmentPath(segment));
+            }
+        }
+        for (long snapshot : generations(SNAPSHOT)) {
+            if (snapshot < snapshotGeneration) {
+                Files.deleteIfExists(snapshotPath(snapshot));
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        appendLock.lock();
+        forceLock.lock();
+        try {
+            force();
+            closed = true;
+            durableAdvanced.signalAll();
+            channel.close();
+        } catch (IOException e) {
+            logger.error("Failed to close order journal", e);
+        } finally {
+            forceLock.unlock();
+            appendLock.unlock();
+        }
+        if (flusher != null) {
+            LockSupport.unpark(flusher);
+        }
+        logger.info("Order journal closed");
+    }
+
+    private void openSegment(long newGeneration) throws IOException {
+        channel = FileChannel.open(segmentPath(newGeneration),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        generation = newGeneration;
+        syncDirectory();
+    }
+
+    private void syncDirectory() {
+        // Makes file creation and renames durable; not supported on every platform
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            logger.debug("Directory fsync not supported for {}", directory);
+        }
+    }
+
+    private Path segmentPath(long segmentGeneration) {
+        return directory.resolve(String.format("wal-%016d.log", segmentGeneration));
+    }
+
+    private Path snapshotPath(long snapshotGeneration) {
+        return directory.resolve(String.format("snapshot-%016d.bin", snapshotGeneration));
+    }
+
+    private long maxGeneration(Pattern pattern) throws IOException {
+        List<Long> all = generations(pattern);
+        return all.isEmpty() ? 0 : all.get(all.size() - 1);
+    }
+
+    private List<Long> generations(Pattern pattern) throws IOException {
+        List<Long> result = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Matcher matcher = pattern.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    result.add(Long.parseLong(matcher.group(1)));
+                }
+            }
+        }
+        result.sort(null);
+        return result;
+    }
+}
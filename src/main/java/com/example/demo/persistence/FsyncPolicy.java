@@ -0,0 +1,11 @@
+package com.example.demo.persistence;
+
+/** When a journal append is forced to disk relative to the write that produced it. */
+public enum FsyncPolicy {
+    /** Every write waits for an fsync. Concurrent writers share one fsync (leader/follower group commit). */
+    ALWAYS,
+    /** Writers wait for the background flusher, which fsyncs once per group-commit interval. */
+    GROUPED,
+    /** Writers never wait; the background flusher fsyncs once per group-commit interval. Up to one interval of writes can be lost. */
+    ASYNC
+}
@@ -0,0 +1,113 @@
+package com.example.demo.persistence;
+
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderEntry;
+import com.example.demo.model.OrderStatus;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary encoding of an {@link Order}, shared by the write-ahead log and snapshots.
+ * Nullable fields are written with a presence marker so a decoded order is field-for-field
+ * equal to the encoded one. Money is written as fixed-point cents, see {@link com.example.demo.model.Money}.
+ */
+public final class OrderCodec {
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    private OrderCodec() {}
+
+    public static void write(DataOutput out, Order order) throws IOException {
+        out.writeLong(order.getId());
+        writeString(out, order.getDescription());
+        if (!order.hasAmount()) {
+            out.writeBoolean(false);
+        } else {
+            out.writeBoolean(true);
+            out.writeLong(order.getAmountCents());
+        }
+        if (order.getOrderDate() == null) {
+            out.writeBoolean(false);
+        } else {
+            out.writeBoolean(true);
+            out.writeLong(order.getOrderDate().toEpochDay());
+        }
+        out.writeByte(order.getStatus() == null ? -1 : order.getStatus().ordinal());
+        if (order.getVersion() == null) {
+            out.writeBoolean(false);
+        } else {
+            out.writeBoolean(true);
+            out.writeLong(order.getVersion());
+        }
+        List<OrderEntry> entries = order.getEntries();
+        if (entries == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(entries.size());
+        for (OrderEntry entry : entries) {
+            writeString(out, entry.getProductCode());
+            writeString(out, entry.getProductName());
+            out.writeInt(entry.getQuantity());
+            out.writeLong(entry.getPriceCents());
+        }
+    }
+
+    public static Order read(DataInput in) throws IOException {
+        Order order = new Order();
+        order.setId(in.readLong());
+        order.setDescription(readString(in));
+        if (in.readBoolean()) {
+            order.setAmountCents(in.readLong());
+        }
+        if (in.readBoolean()) {
+            order.setOrderDate(LocalDate.ofEpochDay(in.readLong()));
+        }
+        byte status = in.readByte();
+        if (status >= 0) {
+            order.setStatus(STATUSES[status]);
+        }
+        if (in.readBoolean()) {
+            order.setVersion(in.readLong());
+        }
+        int size = in.readInt();
+        if (size >= 0) {
+            List<OrderEntry> entries = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                OrderEntry entry = new OrderEntry();
+                entry.setProductCode(readString(in));
+                entry.setProductName(readString(in));
+                entry.setQuantity(in.readInt());
+                entry.setPriceCents(in.readLong());
+                entries.add(entry);
+            }
+            order.setEntries(entries);
+        }
+        return order;
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
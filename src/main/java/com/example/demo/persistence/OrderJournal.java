@@ -0,0 +1,75 @@
+package com.example.demo.persistence;
+
+import com.example.demo.model.Order;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Durability hook for the in-memory order store. The store appends one record per change,
+ * applies the change in memory, and then waits for {@link #awaitDurable} before acknowledging it.
+ * <p>
+ * Appends and the in-memory change they describe must be bracketed by {@link #beginMutation()} and
+ * {@link #endMutation()} so that a snapshot never observes a change whose record went to a log
+ * segment the snapshot is about to supersede.
+ */
+public interface OrderJournal extends AutoCloseable {
+
+    /** Journal used when persistence is disabled: nothing is written and nothing is recovered. */
+    OrderJournal NOOP = new OrderJournal() {
+        @Override public void beginMutation() {}
+        @Override public void endMutation() {}
+        @Override public long appendCreate(Order order) { return 0; }
+        @Override public long appendCreates(List<Order> orders) { return 0; }
+        @Override public long appendUpdate(Order order) { return 0; }
+        @Override public long appendDelete(long id) { return 0; }
+        @Override public void awaitDurable(long position) {}
+        @Override public boolean recover(RecoveryHandler handler) { return false; }
+        @Override public void snapshot(SnapshotSource source) {}
+        @Override public void close() {}
+    };
+
+    void beginMutation();
+
+    void endMutation();
+
+    /** Appends a record and returns the log position to pass to {@link #awaitDurable}. */
+    long appendCreate(Order order);
+
+    /** Appends one create record per order in a single write. */
+    long appendCreates(List<Order> orders);
+
+    long appendUpdate(Order order);
+
+    long appendDelete(long id);
+
+    /** Blocks until every record up to {@code position} is durable under the configured {@link FsyncPolicy}. */
+    void awaitDurable(long position);
+
+    /**
+     * Replays the latest snapshot and every log record written after it.
+     *
+     * @return true if any persisted state was found
+     */
+    boolean recover(RecoveryHandler handler);
+
+    /** Starts a new log segment, writes the current state as a snapshot and drops the files it replaces. */
+    void snapshot(SnapshotSource source);
+
+    @Override
+    void close();
+
+    interface RecoveryHandler {
+        void nextId(long nextId);
+        void put(Order order);
+        void delete(long id);
+    }
+
+    interface SnapshotSource {
+        /** Called while no mutation is in flight, right after the new log segment has been started. */
+        long nextId();
+
+        /** Called afterwards; may be weakly consistent since later changes are also in the new segment. */
+        Iterator<Order> orders();
+    }
+}
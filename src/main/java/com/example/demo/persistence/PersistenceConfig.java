@@ -0,0 +1,42 @@
+package com.example.demo.persistence;
+
+import com.example.demo.service.impl.OrderServiceImpl;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Configuration
+@EnableConfigurationProperties(PersistenceProperties.class)
+public class PersistenceConfig {
+
+    @Bean
+    public OrderJournal orderJournal(PersistenceProperties properties) {
+        if (!properties.isEnabled()) {
+            return OrderJournal.NOOP;
+        }
+        return new FileOrderJournal(properties.getDirectory(), properties.getFsync(), properties.getGroupCommitInterval());
+    }
+
+    // Checks orders.persistence.enabled when it runs rather than with @ConditionalOnProperty,
+    // which an AOT build would evaluate once at build time
+    @Component
+    static class SnapshotScheduler {
+        private final OrderServiceImpl orderService;
+        private final PersistenceProperties properties;
+
+        SnapshotScheduler(OrderServiceImpl orderService, PersistenceProperties properties) {
+            this.orderService = orderService;
+            this.properties = properties;
+        }
+
+        @Scheduled(initialDelayString = "${orders.persistence.snapshot-interval:PT5M}",
+                fixedDelayString = "${orders.persistence.snapshot-interval:PT5M}")
+        void snapshot() {
+            if (properties.isEnabled()) {
+                orderService.snapshot();
+            }
+        }
+    }
+}
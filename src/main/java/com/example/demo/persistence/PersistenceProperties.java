@@ -0,0 +1,30 @@
+package com.example.demo.persistence;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "orders.persistence")
+public class PersistenceProperties {
+    /** Whether orders are journaled to disk and recovered on startup. */
+    private boolean enabled = false;
+    /** Directory holding the write-ahead log segments and snapshots. */
+    private Path directory = Path.of("data");
+    private FsyncPolicy fsync = FsyncPolicy.GROUPED;
+    /** How often the background flusher fsyncs under the GROUPED and ASYNC policies. */
+    private Duration groupCommitInterval = Duration.ofMillis(5);
+    /** Delay between the end of one snapshot and the start of the next. */
+    private Duration snapshotInterval = Duration.ofMinutes(5);
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public Path getDirectory() { return directory; }
+    public void setDirectory(Path directory) { this.directory = directory; }
+    public FsyncPolicy getFsync() { return fsync; }
+    public void setFsync(FsyncPolicy fsync) { this.fsync = fsync; }
+    public Duration getGroupCommitInterval() { return groupCommitInterval; }
+    public void setGroupCommitInterval(Duration groupCommitInterval) { this.groupCommitInterval = groupCommitInterval; }
+    public Duration getSnapshotInterval() { return snapshotInterval; }
+    public void setSnapshotInterval(Duration snapshotInterval) { this.snapshotInterval = snapshotInterval; }
+}
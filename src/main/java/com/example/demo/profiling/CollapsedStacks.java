@@ -0,0 +1,74 @@
+package com.example.demo.profiling;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Folds the stack traces of a recording's samples into collapsed stacks: one line per distinct
+ * stack, frames from the root down separated by semicolons, then a space and its weight. That is
+ * what async-profiler prints with {@code -o collapsed} and what flamegraph.pl and speedscope read.
+ */
+final class CollapsedStacks {
+
+    enum Kind {
+        /** Weighted by sample count, one per thread found running Java code every 10-20 ms. */
+        CPU("jdk.ExecutionSample", null),
+        /** Weighted by the bytes each sampled allocation stands for. */
+        ALLOCATION("jdk.ObjectAllocationSample", "weight");
+
+        final String event;
+        final String weightField; // null to count samples
+
+        Kind(String event, String weightField) {
+            this.event = event;
+            this.weightField = weightField;
+        }
+    }
+
+    private CollapsedStacks() {
+    }
+
+    static String fold(Path recording, Kind kind) throws IOException {
+        Map<String, Long> weights = new HashMap<>();
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                RecordedStackTrace stackTrace = event.getStackTrace();
+                if (stackTrace == null || !event.getEventType().getName().equals(kind.event)) {
+                    continue;
+                }
+                long weight = kind.weightField == null ? 1 : event.getLong(kind.weightField);
+                weights.merge(stack(stackTrace), weight, Long::sum);
+            }
+        }
+        StringBuilder out = new StringBuilder();
+        weights.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(entry -> out.append(entry.getKey()).append(' ').append(entry.getValue()).append('\n'));
+        return out.toString();
+    }
+
+    private static String stack(RecordedStackTrace stackTrace) {
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        StringBuilder stack = new StringBuilder();
+        if (stackTrace.isTruncated()) {
+            stack.append("[truncated]");
+        }
+        for (int i = frames.size() - 1; i >= 0; i--) {
+            RecordedFrame frame = frames.get(i);
+            if (!stack.isEmpty()) {
+                stack.append(';');
+            }
+            stack.append(frame.getMethod().getType().getName()).append('.').append(frame.getMethod().getName());
+        }
+        return stack.toString();
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.demo.profiling;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Flight Recorder on demand, at {@code /actuator/jfr}:
+ * <ul>
+ *   <li>{@code GET} lists the recordings in this JVM, including one started with {@code -XX:StartFlightRecording}</li>
+ *   <li>{@code POST} starts a recording with the {@code default} or {@code profile} settings, optionally
+ *       lowering the threshold of the order operation event so every call is recorded</li>
+ *   <li>{@code POST /{id}} stops it; {@code GET /{id}} downloads what it has recorded so far as a .jfr
+ *       file, running or stopped; {@code DELETE /{id}} discards it</li>
+ *   <li>{@code GET /{id}/cpu} and {@code GET /{id}/allocation} fold its execution or allocation samples into
+ *       collapsed stacks, the input of flamegraph.pl and speedscope</li>
+ * </ul>
+ * Recordings started here stop by themselves after {@code orders.profiling.max-duration} and keep at
+ * most {@code orders.profiling.max-size} on disk, so a forgotten one can't fill it. They leave out the
+ * process's environment variables and system properties, where credentials often live. The
+ * endpoint is not exposed by default; where it is, only on the management port.
+ */
+@Endpoint(id = "jfr")
+public class FlightRecorderEndpoint {
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecorderEndpoint.class);
+    static final String OPERATION_EVENT = "com.example.demo.OrderOperation";
+    // Recorded at every chunk start by both JDK settings
+    private static final List<String> SECRET_EVENTS = List.of("jdk.InitialEnvironmentVariable", "jdk.InitialSystemProperty");
+
+    private final ProfilingProperties properties;
+
+    public record RecordingInfo(long id, String name, String state, Instant started, Duration duration, long sizeBytes) {
+        static RecordingInfo of(Recording recording) {
+            return new RecordingInfo(recording.getId(), recording.getName(), recording.getState().name(),
+                    recording.getStartTime(), recording.getDuration(), recording.getSize());
+        }
+    }
+
+    public FlightRecorderEndpoint(ProfilingProperties properties) {
+        this.properties = properties;
+    }
+
+    @ReadOperation
+    public List<RecordingInfo> recordings() {
+        return FlightRecorder.getFlightRecorder().getRecordings().stream().map(RecordingInfo::of).toList();
+    }
+
+    /**
+     * Starts a recording. {@code settings} is a JDK configuration name, {@code profile} by default;
+     * {@code threshold}, such as {@code 0ms}, overrides the order operation event's 1 ms.
+     */
+    @WriteOperation
+    public RecordingInfo start(@Nullable String settings, @Nullable Duration duration, @Nullable Duration threshold) {
+        Map<String, String> events;
+        try {
+            events = Configuration.getConfiguration(settings == null ? "profile" : settings).getSettings();
+        } catch (IOException | ParseException e) {
+            throw new InvalidEndpointRequestException("Unknown recording settings " + settings, "Unknown settings");
+        }
+        Recording recording = new Recording(events);
+        if (threshold != null) {
+            recording.enable(OPERATION_EVENT).withThreshold(threshold);
+        }
+        SECRET_EVENTS.forEach(recording::disable);
+        Duration maxDuration = properties.getMaxDuration();
+        recording.setName("orders-" + Instant.now());
+        recording.setDuration(duration == null || duration.compareTo(maxDuration) > 0 ? maxDuration : duration);
+        recording.setMaxSize(properties.getMaxSize().toBytes());
+        recording.setToDisk(true);
+        recording.start();
+        logger.info("Started flight recording {} with {} settings for {}", recording.getId(),
+                settings == null ? "profile" : settings, recording.getDuration());
+        return RecordingInfo.of(recording);
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<RecordingInfo> stop(@Selector long id) {
+        Recording recording = find(id);
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        if (recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+            logger.info("Stopped flight recording {}", id);
+        }
+        return new WebEndpointResponse<>(RecordingInfo.of(recording));
+    }
+
+    @ReadOperation
+    public WebEndpointResponse<Resource> download(@Selector long id) {
+        Recording recording = find(id);
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        try {
+            // The dump is deleted once the response has been streamed from it
+            Path dump = dump(recording);
+            return new WebEndpointResponse<>(new InputStreamResource(
+                    Files.newInputStream(dump, StandardOpenOption.DELETE_ON_CLOSE)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @ReadOperation(produces = "text/plain")
+    public WebEndpointResponse<String> stacks(@Selector long id, @Selector String kind) {
+        Recording recording = find(id);
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        CollapsedStacks.Kind samples = switch (kind) {
+            case "cpu" -> CollapsedStacks.Kind.CPU;
+            case "allocation" -> CollapsedStacks.Kind.ALLOCATION;
+            default -> throw new InvalidEndpointRequestException("Unknown kind " + kind + ", expected cpu or allocation",
+                    "Unknown kind");
+        };
+        try {
+            Path dump = dump(recording);
+            try {
+                return new WebEndpointResponse<>(CollapsedStacks.fold(dump, samples));
+            } finally {
+                Files.deleteIfExists(dump);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DeleteOperation
+    public WebEndpointResponse<Void> close(@Selector long id) {
+        Recording recording = find(id);
+        if (recording == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        recording.close();
+        logger.info("Closed flight recording {}", id);
+        return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NO_CONTENT);
+    }
+
+    private static Recording find(long id) {
+        return FlightRecorder.getFlightRecorder().getRecordings().stream()
+                .filter(recording -> recording.getId() == id && recording.getState() != RecordingState.CLOSED)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static Path dump(Recording recording) throws IOException {
+        Path dump = Files.createTempFile("orders-" + recording.getId() + "-", ".jfr");
+        recording.dump(dump);
+        return dump;
+    }
+}
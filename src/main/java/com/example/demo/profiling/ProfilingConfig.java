@@ -0,0 +1,15 @@
+package com.example.demo.profiling;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ProfilingProperties.class)
+public class ProfilingConfig {
+
+    @Bean
+    public FlightRecorderEndpoint flightRecorderEndpoint(ProfilingProperties properties) {
+        return new FlightRecorderEndpoint(properties);
+    }
+}
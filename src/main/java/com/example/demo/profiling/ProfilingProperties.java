@@ -0,0 +1,19 @@
+package com.example.demo.profiling;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "orders.profiling")
+public class ProfilingProperties {
+    /** Longest a recording started from /actuator/jfr runs before it stops by itself. */
+    private Duration maxDuration = Duration.ofMinutes(30);
+    /** Disk a recording started from /actuator/jfr may use; older data is dropped beyond it. */
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+
+    public Duration getMaxDuration() { return maxDuration; }
+    public void setMaxDuration(Duration maxDuration) { this.maxDuration = maxDuration; }
+    public DataSize getMaxSize() { return maxSize; }
+    public void setMaxSize(DataSize maxSize) { this.maxSize = maxSize; }
+}
@@ -0,0 +1,19 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Order;
+
+/**
+ * Notified of every stored change to an order. Called while the service still holds the order's
+ * write lock, so callbacks for one id arrive in version order and before any reader can act on a
+ * newer change; implementations must be quick, must not block and must not call back into the
+ * service.
+ */
+public interface OrderChangeListener {
+
+    default void orderCreated(Order order) {}
+
+    /** The order was replaced by a newer version; {@code previous} is the version it replaced. */
+    void orderUpdated(Order previous, Order order);
+
+    void orderDeleted(long id);
+}
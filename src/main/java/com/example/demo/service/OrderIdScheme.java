@@ -0,0 +1,25 @@
+package com.example.demo.service;
+
+/**
+ * Turns the service's id sequence into order ids and back. Standalone, the id is the sequence
+ * number; in a cluster each node packs its sequence with a partition it owns, so ids never
+ * collide across nodes and tell which node holds the order.
+ */
+public interface OrderIdScheme {
+    OrderIdScheme SEQUENTIAL = new OrderIdScheme() {
+        @Override
+        public long id(long sequence) {
+            return sequence;
+        }
+
+        @Override
+        public long sequence(long id) {
+            return id;
+        }
+    };
+
+    long id(long sequence);
+
+    /** The sequence number {@code id} was made from, for ids allocated by this scheme. */
+    long sequence(long id);
+}
@@ -1,12 +1,74 @@
 package com.example.demo.service;
 
+import com.example.demo.model.BatchResult;
 import com.example.demo.model.Order;
+import com.example.demo.model.OrderQuery;
+import com.example.demo.model.OrderStats;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface OrderService {
     Order createOrder(Order order);
     Order getOrder(Long id);
     List<Order> getAllOrders();
+
+    /**
+     * Keyset pagination over orders in ascending id order.
+     * Returns at most {@code limit} orders whose id is strictly greater than {@code after}
+     * (or from the first order when {@code after} is null).
+     */
+    List<Order> getOrders(Long after, int limit);
+
+    /** Returns the orders matching every criterion set on the query, in ascending id order. */
+    List<Order> findOrders(OrderQuery query);
+
+    /**
+     * Variants of the listings that also read the archive, where completed and cancelled orders
+     * move once they are old enough. {@link #getOrder} always reads through to it. Archived orders
+     * are decoded from disk, so these cost more than the in-memory listings they extend.
+     */
+    List<Order> getAllOrders(boolean includeArchived);
+    List<Order> getOrders(Long after, int limit, boolean includeArchived);
+    List<Order> findOrders(OrderQuery query, boolean includeArchived);
+
+    /**
+     * Keyset pagination over the orders matching {@code query}, as {@link #getOrders(Long, int, boolean)}
+     * pages over all of them. An empty query pages over every order.
+     */
+    List<Order> findOrders(OrderQuery query, Long after, int limit, boolean includeArchived);
+
+    /**
+     * Count and revenue per status and per order date, and quantity and revenue per product code,
+     * maintained on every write. {@code from} and {@code to} optionally bound the days returned.
+     */
+    OrderStats getStats(LocalDate from, LocalDate to);
+
     Order updateOrder(Long id, Order order);
+
+    /**
+     * Conditional update: applied only if the order is still at {@code expectedVersion},
+     * otherwise a {@link VersionConflictException} is thrown. A null version updates unconditionally.
+     */
+    Order updateOrder(Long id, Order order, Long expectedVersion);
     void deleteOrder(Long id);
+
+    /**
+     * Bulk variants of create, update and delete. Every item is processed independently and
+     * reported in request order; a rejected item does not fail the rest of the batch.
+     */
+    List<BatchResult> createOrders(List<Order> orders);
+    List<BatchResult> updateOrders(Map<Long, Order> updates);
+    List<BatchResult> deleteOrders(Collection<Long> ids);
+
+    /**
+     * Puts exported orders back as they were, for restores and migrations: each keeps its id,
+     * status and version instead of being created afresh, and later creates get ids after the
+     * restored ones. An order whose id is already taken, in memory or in the archive, is rejected.
+     */
+    List<BatchResult> restoreOrders(List<Order> orders);
+
+    /** Registers a listener for creates, updates and deletes, including those made through the batch operations. */
+    void addChangeListener(OrderChangeListener listener);
 }
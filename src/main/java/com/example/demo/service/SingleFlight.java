@@ -0,0 +1,64 @@
+package com.example.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent loads of the same key into one: the first caller runs the loader, and
+ * callers that ask for the key while it runs wait for it and share its result. Nothing is kept
+ * once the load finishes, so this is not a cache. Callers that must not see a result from before
+ * some write should put a write counter in the key, so they never join a load that started earlier.
+ * Shared results must not be modified by callers.
+ */
+public final class SingleFlight<K, V> {
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter joined;
+
+    /** {@code joined} counts the calls that were served by another caller's load. */
+    public SingleFlight(Counter joined) {
+        this.joined = joined;
+    }
+
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            joined.increment();
+            return await(running);
+        }
+        V value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+        // Unpublish before completing, so nobody arriving from now on joins a finished load
+        inFlight.remove(key, flight);
+        flight.complete(value);
+        return value;
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    int inFlight() {
+        return inFlight.size();
+    }
+}
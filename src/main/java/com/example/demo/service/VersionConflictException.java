@@ -0,0 +1,16 @@
+package com.example.demo.service;
+
+/** Thrown when a conditional update names a version that is no longer the current one. */
+public class VersionConflictException extends IllegalStateException {
+    private final long expectedVersion;
+    private final long actualVersion;
+
+    public VersionConflictException(Long id, long expectedVersion, long actualVersion) {
+        super("Order " + id + " is at version " + actualVersion + ", not " + expectedVersion);
+        this.expectedVersion = expectedVersion;
+        this.actualVersion = actualVersion;
+    }
+
+    public long getExpectedVersion() { return expectedVersion; }
+    public long getActualVersion() { return actualVersion; }
+}
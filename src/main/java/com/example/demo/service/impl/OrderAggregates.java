@@ -0,0 +1,148 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderEntry;
+import com.example.demo.model.OrderStats;
+import com.example.demo.model.OrderStatus;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals per status, per order date and per product code, adjusted by every write so
+ * that reporting never scans the store. Money is summed in cents.
+ * <p>
+ * Each total is a set of {@link LongAdder}s, so concurrent writers touching the same bucket
+ * don't contend on one counter. The price is that a read is not an atomic snapshot: while
+ * writes are in flight a bucket's count and revenue may reflect different sets of them. Once
+ * writes settle the totals are exact. Buckets are never removed, as in {@link OrderIndexes}.
+ */
+class OrderAggregates {
+    private final Map<OrderStatus, Totals> byStatus = new EnumMap<>(OrderStatus.class);
+    private final ConcurrentSkipListMap<LocalDate, Totals> byDay = new ConcurrentSkipListMap<>();
+    private final Map<String, ProductTotals> byProduct = new ConcurrentHashMap<>();
+
+    OrderAggregates() {
+        // Populated once and never structurally modified, so the EnumMap is safe to share
+        for (OrderStatus status : OrderStatus.values()) {
+            byStatus.put(status, new Totals());
+        }
+    }
+
+    void add(Order order) {
+        apply(order, 1);
+    }
+
+    void remove(Order order) {
+        apply(order, -1);
+    }
+
+    /** Moves the order's contribution for whatever changed; {@code before} and {@code after} are snapshots of the same order. */
+    void update(Order before, Order after) {
+        long revenueBefore = revenue(before);
+        long revenueAfter = revenue(after);
+        if (before.getStatus() != after.getStatus() || revenueBefore != revenueAfter) {
+            addTo(statusTotals(before), -1, -revenueBefore);
+            addTo(statusTotals(after), 1, revenueAfter);
+        }
+        if (!Objects.equals(before.getOrderDate(), after.getOrderDate()) || revenueBefore != revenueAfter) {
+            addTo(dayTotals(before), -1, -revenueBefore);
+            addTo(dayTotals(after), 1, revenueAfter);
+        }
+        // The service keeps the same entry list when an update doesn't replace the entries
+        if (before.getEntries() != after.getEntries()) {
+            applyEntries(before, -1);
+            applyEntries(after, 1);
+        }
+    }
+
+    private void apply(Order order, int sign) {
+        long revenue = revenue(order);
+        addTo(statusTotals(order), sign, sign * revenue);
+        addTo(dayTotals(order), sign, sign * revenue);
+        applyEntries(order, sign);
+    }
+
+    private void applyEntries(Order order, int sign) {
+        List<OrderEntry> entries = order.getEntries();
+        if (entries == null) {
+            return;
+        }
+        for (int i = 0, n = entries.size(); i < n; i++) {
+            OrderEntry entry = entries.get(i);
+            if (entry.getProductCode() == null) {
+                continue;
+            }
+            ProductTotals totals = byProduct.computeIfAbsent(entry.getProductCode(), p -> new ProductTotals());
+            totals.quantity.add(sign * (long) entry.getQuantity());
+            totals.revenueCents.add(sign * entry.getPriceCents() * entry.getQuantity());
+        }
+    }
+
+    private static long revenue(Order order) {
+        return order.hasAmount() ? order.getAmountCents() : 0;
+    }
+
+    private Totals statusTotals(Order order) {
+        return order.getStatus() == null ? null : byStatus.get(order.getStatus());
+    }
+
+    private Totals dayTotals(Order order) {
+        return order.getOrderDate() == null ? null : byDay.computeIfAbsent(order.getOrderDate(), d -> new Totals());
+    }
+
+    private static void addTo(Totals totals, long count, long revenueCents) {
+        if (totals != null) {
+            totals.count.add(count);
+            totals.revenueCents.add(revenueCents);
+        }
+    }
+
+    /** Totals for every status and product, and for the days between {@code from} and {@code to} if given. */
+    OrderStats stats(LocalDate from, LocalDate to) {
+        Map<OrderStatus, OrderStats.Totals> statuses = new EnumMap<>(OrderStatus.class);
+        byStatus.forEach((status, totals) -> statuses.put(status, totals.snapshot()));
+
+        NavigableMap<LocalDate, Totals> days = byDay;
+        if (from != null && to != null) {
+            days = from.isAfter(to) ? Collections.emptyNavigableMap() : byDay.subMap(from, true, to, true);
+        } else if (from != null) {
+            days = byDay.tailMap(from, true);
+        } else if (to != null) {
+            days = byDay.headMap(to, true);
+        }
+        Map<LocalDate, OrderStats.Totals> dayStats = new LinkedHashMap<>();
+        days.forEach((day, totals) -> {
+            OrderStats.Totals snapshot = totals.snapshot();
+            if (snapshot.getCount() != 0) {
+                dayStats.put(day, snapshot);
+            }
+        });
+
+        Map<String, OrderStats.ProductTotals> products = new TreeMap<>();
+        byProduct.forEach((code, totals) -> {
+            OrderStats.ProductTotals snapshot = new OrderStats.ProductTotals(totals.quantity.sum(), totals.revenueCents.sum());
+            if (snapshot.getQuantity() != 0 || snapshot.getRevenueCents() != 0) {
+                products.put(code, snapshot);
+            }
+        });
+        return new OrderStats(statuses, dayStats, products);
+    }
+
+    private static final class Totals {
+        final LongAdder count = new LongAdder();
+        final LongAdder revenueCents = new LongAdder();
+
+        OrderStats.Totals snapshot() {
+            return new OrderStats.Totals(count.sum(), revenueCents.sum());
+        }
+    }
+
+    private static final class ProductTotals {
+        final LongAdder quantity = new LongAdder();
+        final LongAdder revenueCents = new LongAdder();
+    }
+}
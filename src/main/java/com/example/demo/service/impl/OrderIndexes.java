@@ -0,0 +1,156 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderEntry;
+import com.example.demo.model.OrderQuery;
+import com.example.demo.model.OrderStatus;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Secondary indexes over the order store: ids per status, per order date and per product code.
+ * <p>
+ * The indexes only narrow down candidates. Callers must re-check every candidate against the
+ * stored order (see {@link OrderQuery#matches}), so an id that is briefly present in a stale
+ * bucket during a concurrent update never leaks into a result. Empty buckets are kept rather
+ * than pruned: removing a bucket races with a concurrent add into it, and the number of
+ * distinct dates and product codes is small compared to the number of orders.
+ */
+class OrderIndexes {
+    private final Map<OrderStatus, Set<Long>> byStatus = new EnumMap<>(OrderStatus.class);
+    private final ConcurrentSkipListMap<LocalDate, Set<Long>> byDate = new ConcurrentSkipListMap<>();
+    private final Map<String, Set<Long>> byProduct = new ConcurrentHashMap<>();
+
+    OrderIndexes() {
+        // Populated once and never structurally modified, so the EnumMap is safe to share
+        for (OrderStatus status : OrderStatus.values()) {
+            byStatus.put(status, ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    /** Number of orders currently in the status bucket. */
+    int countByStatus(OrderStatus status) {
+        return byStatus.get(status).size();
+    }
+
+    void add(Order order) {
+        Long id = order.getId();
+        if (order.getStatus() != null) {
+            byStatus.get(order.getStatus()).add(id);
+        }
+        if (order.getOrderDate() != null) {
+            byDate.computeIfAbsent(order.getOrderDate(), d -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+        for (String productCode : productCodes(order)) {
+            byProduct.computeIfAbsent(productCode, p -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    void remove(Order order) {
+        Long id = order.getId();
+        if (order.getStatus() != null) {
+            byStatus.get(order.getStatus()).remove(id);
+        }
+        if (order.getOrderDate() != null) {
+            removeFrom(byDate.get(order.getOrderDate()), id);
+        }
+        for (String productCode : productCodes(order)) {
+            removeFrom(byProduct.get(productCode), id);
+        }
+    }
+
+    /** Moves the id between buckets for whatever changed; {@code before} and {@code after} are snapshots of the same order. */
+    void update(Order before, Order after) {
+        Long id = after.getId();
+        if (before.getStatus() != after.getStatus()) {
+            if (before.getStatus() != null) {
+                byStatus.get(before.getStatus()).remove(id);
+            }
+            if (after.getStatus() != null) {
+                byStatus.get(after.getStatus()).add(id);
+            }
+        }
+        if (!Objects.equals(before.getOrderDate(), after.getOrderDate())) {
+            if (before.getOrderDate() != null) {
+                removeFrom(byDate.get(before.getOrderDate()), id);
+            }
+            if (after.getOrderDate() != null) {
+                byDate.computeIfAbsent(after.getOrderDate(), d -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+        Set<String> oldCodes = productCodes(before);
+        Set<String> newCodes = productCodes(after);
+        for (String productCode : oldCodes) {
+            if (!newCodes.contains(productCode)) {
+                removeFrom(byProduct.get(productCode), id);
+            }
+        }
+        for (String productCode : newCodes) {
+            if (!oldCodes.contains(productCode)) {
+                byProduct.computeIfAbsent(productCode, p -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+        }
+    }
+
+    /**
+     * Returns candidate ids for the query from the most selective index that applies,
+     * or null if the query has no indexed criterion.
+     */
+    Collection<Long> candidates(OrderQuery query) {
+        Collection<Long> best = null;
+        if (query.getStatus() != null) {
+            best = byStatus.get(query.getStatus());
+        }
+        if (query.getProductCode() != null) {
+            Set<Long> ids = byProduct.getOrDefault(query.getProductCode(), Collections.emptySet());
+            if (best == null || ids.size() < best.size()) {
+                best = ids;
+            }
+        }
+        if (query.getFrom() != null || query.getTo() != null) {
+            Collection<Set<Long>> buckets = dateRange(query.getFrom(), query.getTo()).values();
+            int size = 0;
+            for (Set<Long> bucket : buckets) {
+                size += bucket.size();
+            }
+            if (best == null || size < best.size()) {
+                List<Long> ids = new ArrayList<>(size);
+                for (Set<Long> bucket : buckets) {
+                    ids.addAll(bucket);
+                }
+                best = ids;
+            }
+        }
+        return best;
+    }
+
+    private NavigableMap<LocalDate, Set<Long>> dateRange(LocalDate from, LocalDate to) {
+        if (from != null && to != null) {
+            return from.isAfter(to) ? Collections.emptyNavigableMap() : byDate.subMap(from, true, to, true);
+        }
+        return from != null ? byDate.tailMap(from, true) : byDate.headMap(to, true);
+    }
+
+    private static void removeFrom(Set<Long> bucket, Long id) {
+        if (bucket != null) {
+            bucket.remove(id);
+        }
+    }
+
+    private static Set<String> productCodes(Order order) {
+        List<OrderEntry> entries = order.getEntries();
+        if (entries == null || entries.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> codes = new HashSet<>();
+        for (OrderEntry entry : entries) {
+            if (entry.getProductCode() != null) {
+                codes.add(entry.getProductCode());
+            }
+        }
+        return codes;
+    }
+}
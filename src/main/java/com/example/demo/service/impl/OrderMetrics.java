@@ -0,0 +1,184 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.archive.OrderArchive;
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderPage;
+import com.example.demo.model.OrderStatus;
+import com.example.demo.store.OrderStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer instruments for {@link OrderServiceImpl}: one timer per operation, gauges for the
+ * store size, per-status counts and archive size, and a counter of rejected requests.
+ * <p>
+ * Timers are resolved once up front, so the per-call cost is two {@code nanoTime} reads and a
+ * histogram record. Rejection counters are looked up on the failure path only. Each call is also
+ * an {@link OrderOperationEvent} for Flight Recorder, whose fields are only filled in when the
+ * event is enabled and over its threshold.
+ */
+class OrderMetrics {
+    static final String OPERATION_TIMER = "orders.operation";
+    static final String REJECTIONS = "orders.rejections";
+    static final String STORE_SIZE = "orders.store.size";
+    static final String STATUS_COUNT = "orders.status.count";
+    static final String COALESCED = "orders.coalesced";
+    static final String ARCHIVE_SIZE = "orders.archive.size";
+    // Reads from memory take well under a millisecond, so the buckets start lower than the default
+    private static final long MIN_EXPECTED_NANOS = 1_000;
+
+    enum Operation {
+        CREATE("create"),
+        GET("get"),
+        GET_ALL("get_all"),
+        PAGE("page"),
+        FIND("find"),
+        STATS("stats"),
+        UPDATE("update"),
+        DELETE("delete"),
+        CREATE_BATCH("create_batch"),
+        UPDATE_BATCH("update_batch"),
+        DELETE_BATCH("delete_batch"),
+        RESTORE_BATCH("restore_batch"),
+        ARCHIVE("archive");
+
+        final String tag;
+
+        Operation(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final Map<Operation, Timer> timers = new EnumMap<>(Operation.class);
+    private LongSupplier storeSize = () -> 0;
+
+    OrderMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (Operation operation : Operation.values()) {
+            timers.put(operation, Timer.builder(OPERATION_TIMER)
+                    .description("Latency of OrderService operations")
+                    .tag("operation", operation.tag)
+                    // Buckets only: p50/p99 come from histogram_quantile() on the server, which
+                    // aggregates across pods and costs far less per call than client-side percentiles
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(MIN_EXPECTED_NANOS))
+                    .maximumExpectedValue(Duration.ofSeconds(10))
+                    .register(registry));
+            // Register the common rejections up front so they scrape as zero rather than missing
+            rejections(operation, IllegalArgumentException.class);
+            rejections(operation, IllegalStateException.class);
+        }
+    }
+
+    /** Gauges read the live store on scrape; nothing is updated on the request path. */
+    void bindStore(OrderStore orderStore, OrderIndexes indexes) {
+        storeSize = orderStore::size;
+        Gauge.builder(STORE_SIZE, orderStore, OrderStore::size)
+                .description("Orders held in memory")
+                .register(registry);
+        for (OrderStatus status : OrderStatus.values()) {
+            Gauge.builder(STATUS_COUNT, indexes, i -> i.countByStatus(status))
+                    .description("Orders per status")
+                    .tag("status", status.name())
+                    .register(registry);
+        }
+    }
+
+    void bindArchive(OrderArchive archive) {
+        Gauge.builder(ARCHIVE_SIZE, archive, OrderArchive::size)
+                .description("Orders moved out of memory into the archive")
+                .register(registry);
+    }
+
+    <T> T time(Operation operation, Supplier<T> call) {
+        return time(operation, null, call);
+    }
+
+    /** Times a call about the order {@code id}, which the event records if the result doesn't name one. */
+    <T> T time(Operation operation, Long id, Supplier<T> call) {
+        OrderOperationEvent event = new OrderOperationEvent();
+        event.begin();
+        long start = System.nanoTime();
+        T result = null;
+        Throwable failure = null;
+        try {
+            result = call.get();
+            return result;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            rejected(operation, e.getClass());
+            failure = e;
+            throw e;
+        } catch (RuntimeException | Error e) {
+            failure = e;
+            throw e;
+        } finally {
+            timers.get(operation).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            event.end();
+            if (event.shouldCommit()) {
+                commit(event, operation, id, result, failure);
+            }
+        }
+    }
+
+    void time(Operation operation, Runnable call) {
+        time(operation, null, call);
+    }
+
+    void time(Operation operation, Long id, Runnable call) {
+        time(operation, id, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    private void commit(OrderOperationEvent event, Operation operation, Long id, Object result, Throwable failure) {
+        event.operation = operation.tag;
+        if (result instanceof Order order) {
+            event.orderId = order.getId() == null ? 0 : order.getId();
+            event.entries = order.getEntries() == null ? 0 : order.getEntries().size();
+            event.orders = 1;
+        } else {
+            event.orderId = id == null ? 0 : id;
+            if (result instanceof Collection<?> orders) {
+                event.orders = orders.size();
+            } else if (result instanceof OrderPage page) {
+                event.orders = page.getOrders().size();
+            }
+        }
+        event.storeSize = storeSize.getAsLong();
+        event.outcome = failure == null ? "ok" : failure.getClass().getSimpleName();
+        event.commit();
+    }
+
+    /** Counts calls answered by a concurrent identical call's result instead of their own. */
+    Counter coalesced(Operation operation) {
+        return Counter.builder(COALESCED)
+                .description("Reads that shared the result of an identical read already in progress")
+                .tag("operation", operation.tag)
+                .register(registry);
+    }
+
+    /** Counts a request or batch item refused by validation, a state check or a version check. */
+    void rejected(Operation operation, Class<? extends Exception> type) {
+        rejections(operation, type).increment();
+    }
+
+    private Counter rejections(Operation operation, Class<? extends Exception> type) {
+        return Counter.builder(REJECTIONS)
+                .description("Requests rejected with IllegalArgumentException or IllegalStateException")
+                .tag("operation", operation.tag)
+                .tag("exception", type.getSimpleName())
+                .register(registry);
+    }
+}
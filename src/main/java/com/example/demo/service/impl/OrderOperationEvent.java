@@ -0,0 +1,48 @@
+package com.example.demo.service.impl;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for one {@link OrderServiceImpl} operation, committed by
+ * {@link OrderMetrics#time}. By default only operations slower than 1 ms are recorded, which
+ * keeps the cost on the fast path to a disabled-event check; lower the threshold of
+ * {@code com.example.demo.OrderOperation} (the jfr actuator endpoint takes it as a parameter)
+ * to see every call while investigating.
+ */
+@Name("com.example.demo.OrderOperation")
+@Label("Order Operation")
+@Category({"Orders", "Service"})
+@Description("An OrderService call, from entry to return")
+@Enabled
+@Threshold("1 ms")
+@StackTrace(false)
+final class OrderOperationEvent extends jdk.jfr.Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Order Id")
+    @Description("The order the call was about or returned; 0 for calls about many orders")
+    long orderId;
+
+    @Label("Entries")
+    @Description("Entries of that order")
+    int entries;
+
+    @Label("Orders")
+    @Description("Orders returned or in the batch")
+    int orders;
+
+    @Label("Store Size")
+    @Description("Orders held in memory when the call returned")
+    long storeSize;
+
+    @Label("Outcome")
+    @Description("ok, or the simple name of the exception thrown")
+    String outcome;
+}
@@ -1,39 +1,130 @@
 package com.example.demo.service.impl;
 
+import com.example.demo.archive.OrderArchive;
+import com.example.demo.model.BatchResult;
+import com.example.demo.model.Money;
 import com.example.demo.model.Order;
 import com.example.demo.model.OrderEntry;
+import com.example.demo.model.OrderQuery;
+import com.example.demo.model.OrderStats;
 import com.example.demo.model.OrderStatus;
+import com.example.demo.persistence.OrderJournal;
+import com.example.demo.service.OrderChangeListener;
+import com.example.demo.service.OrderIdScheme;
 import com.example.demo.service.OrderService;
+import com.example.demo.service.SingleFlight;
+import com.example.demo.service.VersionConflictException;
+import com.example.demo.service.impl.OrderMetrics.Operation;
+import com.example.demo.store.HeapOrderStore;
+import com.example.demo.store.OrderStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.Clock;
 import java.time.LocalDate;
+import java.time.Period;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 @Service
 public class OrderServiceImpl implements OrderService {
     private static final Logger logger = LoggerFactory.getLogger(OrderServiceImpl.class);
-    // Use thread-safe collections for a singleton service
-    private final Map<Long, Order> orderRepo = new ConcurrentHashMap<>();
+    private static final int WRITE_LOCK_STRIPES = 1024; // power of two
+    private final OrderStore orderStore;
+    // Sorted view of the ids in the store, used for keyset pagination
+    private final NavigableSet<Long> orderIds = new ConcurrentSkipListSet<>();
+    // Sequence numbers, turned into ids by the id scheme
     private final AtomicLong idCounter = new AtomicLong(1);
+    private final OrderIndexes indexes = new OrderIndexes();
+    private final OrderAggregates aggregates = new OrderAggregates();
+    private final List<OrderChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    // Writes applied so far. Coalesced reads are keyed by it, so a caller only shares a scan that
+    // started after every write it could have seen, its own included.
+    private final AtomicLong writes = new AtomicLong();
+    private final SingleFlight<Long, List<Order>> allOrdersFlight;
+    private volatile boolean coalesceReads = true;
+    // Orders being copied to the archive, which deletes must leave alone until they are gone from the store
+    private final Set<Long> archiving = ConcurrentHashMap.newKeySet();
+    /*
+     * Serializes writers of the same order; readers never lock. Striped ReentrantLocks rather than
+     * ConcurrentHashMap.compute, because the journal append inside the critical section does file
+     * I/O and would otherwise run inside a map bin monitor, pinning virtual threads to their carrier.
+     */
+    private final ReentrantLock[] writeLocks = new ReentrantLock[WRITE_LOCK_STRIPES];
 
     private final Clock clock;
+    private final OrderJournal journal;
+    private final OrderMetrics metrics;
+    private final OrderIdScheme idScheme;
+    private final OrderArchive archive;
 
-    @Autowired // Inject Clock for testability and time zone consistency
     public OrderServiceImpl(Clock clock) {
+        this(clock, OrderJournal.NOOP);
+    }
+
+    public OrderServiceImpl(Clock clock, OrderJournal journal) {
+        // A composite registry without children hands out no-op meters
+        this(clock, journal, new CompositeMeterRegistry());
+    }
+
+    public OrderServiceImpl(Clock clock, OrderJournal journal, MeterRegistry meterRegistry) {
+        this(clock, journal, meterRegistry, new HeapOrderStore());
+    }
+
+    public OrderServiceImpl(Clock clock, OrderJournal journal, MeterRegistry meterRegistry, OrderStore orderStore) {
+        this(clock, journal, meterRegistry, orderStore, OrderIdScheme.SEQUENTIAL);
+    }
+
+    public OrderServiceImpl(Clock clock, OrderJournal journal, MeterRegistry meterRegistry, OrderStore orderStore,
+                            OrderIdScheme idScheme) {
+        this(clock, journal, meterRegistry, orderStore, idScheme, OrderArchive.NONE);
+    }
+
+    @Autowired // Inject Clock for testability and time zone consistency
+    public OrderServiceImpl(Clock clock, OrderJournal journal, MeterRegistry meterRegistry, OrderStore orderStore,
+                            OrderIdScheme idScheme, OrderArchive archive) {
         this.clock = clock;
+        this.journal = journal;
+        this.orderStore = orderStore;
+        this.idScheme = idScheme;
+        this.archive = archive;
+        this.metrics = new OrderMetrics(meterRegistry);
+        for (int i = 0; i < writeLocks.length; i++) {
+            writeLocks[i] = new ReentrantLock();
+        }
+        metrics.bindStore(orderStore, indexes);
+        metrics.bindArchive(archive);
+        this.allOrdersFlight = new SingleFlight<>(metrics.coalesced(Operation.GET_ALL));
+    }
+
+    /** Whether concurrent getAllOrders calls share one scan; on by default. */
+    @Value("${orders.coalescing.enabled:true}")
+    public void setCoalesceReads(boolean coalesceReads) {
+        this.coalesceReads = coalesceReads;
     }
 
     @PostConstruct
     public void initTestData() {
+        if (recover()) {
+            logger.info("Recovered {} orders from the journal and {} from the archive, skipping test data",
+                    orderStore.size(), archive.size());
+            return;
+        }
         // ... initTestData remains the same, but should use clock ...
         logger.info("Initializing test data for orders...");
         List<OrderEntry> entries1 = List.of(
@@ -52,87 +143,577 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     public Order createOrder(Order order) {
+        return metrics.time(Operation.CREATE, () -> doCreateOrder(order));
+    }
+
+    private Order doCreateOrder(Order order) {
+        String error = validateNewOrder(order);
+        if (error != null) {
+            logger.error(error);
+            throw new IllegalArgumentException(error);
+        }
+        Order newOrder = newOrderFrom(order, LocalDate.now(clock));
+
+        long position;
+        journal.beginMutation();
+        try {
+            newOrder.setId(idScheme.id(idCounter.getAndIncrement()));
+            position = journal.appendCreate(newOrder);
+            insert(newOrder);
+        } finally {
+            journal.endMutation();
+        }
+        journal.awaitDurable(position);
+        logger.info("Order created id={} entries={}", newOrder.getId(), newOrder.getEntries().size());
+        return detach(newOrder);
+    }
+
+    @Override
+    public List<BatchResult> createOrders(List<Order> orders) {
+        return metrics.time(Operation.CREATE_BATCH, () -> doCreateOrders(orders));
+    }
+
+    private List<BatchResult> doCreateOrders(List<Order> orders) {
+        logger.debug("Creating batch of {} orders", orders.size());
+        BatchResult[] results = new BatchResult[orders.size()];
+        List<Order> accepted = new ArrayList<>(orders.size());
+        int[] acceptedIndex = new int[orders.size()];
+        LocalDate today = LocalDate.now(clock);
+
+        // Single pass: validate, total and build every order before touching the store
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            String error = validateNewOrder(order);
+            if (error != null) {
+                results[i] = BatchResult.failure(i, null, BatchResult.Outcome.REJECTED, error);
+                metrics.rejected(Operation.CREATE_BATCH, IllegalArgumentException.class);
+                continue;
+            }
+            try {
+                Order newOrder = newOrderFrom(order, today);
+                acceptedIndex[accepted.size()] = i;
+                accepted.add(newOrder);
+            } catch (IllegalArgumentException e) {
+                results[i] = BatchResult.failure(i, null, BatchResult.Outcome.REJECTED, e.getMessage());
+                metrics.rejected(Operation.CREATE_BATCH, e.getClass());
+            }
+        }
+
+        if (!accepted.isEmpty()) {
+            long position;
+            journal.beginMutation();
+            try {
+                // Reserve the whole id block in one atomic step
+                long firstSequence = idCounter.getAndAdd(accepted.size());
+                for (int i = 0; i < accepted.size(); i++) {
+                    accepted.get(i).setId(idScheme.id(firstSequence + i));
+                }
+                position = journal.appendCreates(accepted);
+                for (Order newOrder : accepted) {
+                    insert(newOrder);
+                }
+            } finally {
+                journal.endMutation();
+            }
+            journal.awaitDurable(position);
+            for (int i = 0; i < accepted.size(); i++) {
+                results[acceptedIndex[i]] = BatchResult.success(acceptedIndex[i], BatchResult.Outcome.CREATED, detach(accepted.get(i)));
+            }
+        }
+        logger.info("Batch create finished: {} created, {} rejected", accepted.size(), orders.size() - accepted.size());
+        return Arrays.asList(results);
+    }
+
+    @Override
+    public List<BatchResult> restoreOrders(List<Order> orders) {
+        return metrics.time(Operation.RESTORE_BATCH, () -> doRestoreOrders(orders));
+    }
+
+    private List<BatchResult> doRestoreOrders(List<Order> orders) {
+        logger.debug("Restoring batch of {} orders", orders.size());
+        BatchResult[] results = new BatchResult[orders.size()];
+        List<Order> accepted = new ArrayList<>(orders.size());
+        int[] acceptedIndex = new int[orders.size()];
+        Set<Long> batchIds = new HashSet<>();
+        LocalDate today = LocalDate.now(clock);
+
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            String error = validateNewOrder(order);
+            if (error == null && (order.getId() == null || order.getId() <= 0)) {
+                error = "Restored order must have a positive id";
+            } else if (error == null && !batchIds.add(order.getId())) {
+                error = "Order " + order.getId() + " appears more than once";
+            }
+            if (error != null) {
+                results[i] = BatchResult.failure(i, order == null ? null : order.getId(), BatchResult.Outcome.REJECTED, error);
+                metrics.rejected(Operation.RESTORE_BATCH, IllegalArgumentException.class);
+                continue;
+            }
+            try {
+                Order restored = newOrderFrom(order, today);
+                restored.setId(order.getId());
+                if (order.getStatus() != null) {
+                    restored.setStatus(order.getStatus());
+                }
+                if (order.getVersion() != null && order.getVersion() > 1) {
+                    restored.setVersion(order.getVersion());
+                }
+                acceptedIndex[accepted.size()] = i;
+                accepted.add(restored);
+            } catch (IllegalArgumentException e) {
+                results[i] = BatchResult.failure(i, order.getId(), BatchResult.Outcome.REJECTED, e.getMessage());
+                metrics.rejected(Operation.RESTORE_BATCH, e.getClass());
+            }
+        }
+
+        int restoredCount = 0;
+        if (!accepted.isEmpty()) {
+            List<Order> fresh = new ArrayList<>(accepted.size());
+            long position;
+            journal.beginMutation();
+            try {
+                // Creates from here on get ids after the restored ones. A create that drew its id
+                // before this and inserts it after the check below could still collide, so restore
+                // before creates reach the id range being restored, as a migration does.
+                for (Order restored : accepted) {
+                    idCounter.accumulateAndGet(idScheme.sequence(restored.getId()) + 1, Math::max);
+                }
+                for (int i = 0; i < accepted.size(); i++) {
+                    Order restored = accepted.get(i);
+                    if (orderStore.get(restored.getId()) != null || archive.contains(restored.getId())) {
+                        results[acceptedIndex[i]] = BatchResult.failure(acceptedIndex[i], restored.getId(),
+                                BatchResult.Outcome.REJECTED, "Order " + restored.getId() + " already exists");
+                        metrics.rejected(Operation.RESTORE_BATCH, IllegalStateException.class);
+                    } else {
+                        fresh.add(restored);
+                    }
+                }
+                // Journaled as creates, which replay as puts of the whole order, status and version included
+                position = journal.appendCreates(fresh);
+                for (Order restored : fresh) {
+                    insert(restored);
+                }
+            } finally {
+                journal.endMutation();
+            }
+            journal.awaitDurable(position);
+            for (int i = 0; i < accepted.size(); i++) {
+                if (results[acceptedIndex[i]] == null) {
+                    results[acceptedIndex[i]] = BatchResult.success(acceptedIndex[i], BatchResult.Outcome.CREATED, detach(accepted.get(i)));
+                    restoredCount++;
+                }
+            }
+        }
+        logger.info("Batch restore finished: {} restored, {} rejected", restoredCount, orders.size() - restoredCount);
+        return Arrays.asList(results);
+    }
+
+    // Returns the reason the order can't be created, or null if it is valid
+    private static String validateNewOrder(Order order) {
+        if (order == null) {
+            return "Order must not be null";
+        }
         if (order.getEntries() == null || order.getEntries().isEmpty()) {
-            logger.error("Order must have at least one entry");
-            throw new IllegalArgumentException("Order must have at least one entry");
+            return "Order must have at least one entry";
+        }
+        return null;
+    }
+
+    // Stored orders own their entries, so later changes to the request objects can't reach the store
+    private static List<OrderEntry> copyEntries(List<OrderEntry> entries) {
+        List<OrderEntry> copy = new ArrayList<>(entries.size());
+        for (OrderEntry entry : entries) {
+            OrderEntry entryCopy = new OrderEntry();
+            entryCopy.setProductCode(entry.getProductCode());
+            entryCopy.setProductName(entry.getProductName());
+            entryCopy.setQuantity(entry.getQuantity());
+            entryCopy.setPriceCents(entry.getPriceCents());
+            copy.add(entryCopy);
+        }
+        return Collections.unmodifiableList(copy);
+    }
+
+    /**
+     * What callers get instead of a stored order: a copy, if the store hands out its own
+     * instances, so that changing it can't bypass validation, the journal, the indexes and the
+     * listeners. Off-heap and archived orders are decoded afresh on every read already.
+     */
+    private Order detach(Order order) {
+        if (order == null || !orderStore.sharesInstances()) {
+            return order;
         }
-        
+        Order copy = new Order(order.getId(), order.getDescription(), null, order.getOrderDate(), order.getStatus(),
+                order.getEntries() == null ? null : copyEntries(order.getEntries()));
+        copy.setAmountCents(order.getAmountCents());
+        copy.setVersion(order.getVersion());
+        return copy;
+    }
+
+    private static Order newOrderFrom(Order order, LocalDate today) {
         // Create a new Order object to ensure immutability of the input
         Order newOrder = new Order();
         newOrder.setDescription(order.getDescription());
-        newOrder.setEntries(order.getEntries());
-
-        double total = newOrder.getEntries().stream()
-                .mapToDouble(e -> e.getPrice() * e.getQuantity())
-                .sum();
-        newOrder.setAmount(total);
+        newOrder.setEntries(copyEntries(order.getEntries()));
+        newOrder.setAmountCents(Money.total(newOrder.getEntries()));
+        newOrder.setVersion(1L);
 
         if (order.getOrderDate() == null) {
-            newOrder.setOrderDate(LocalDate.now(clock)); // Use injected clock
+            newOrder.setOrderDate(today); // Use injected clock
         } else {
             newOrder.setOrderDate(order.getOrderDate());
         }
 
         newOrder.setStatus(OrderStatus.CREATED);
-        newOrder.setId(idCounter.getAndIncrement()); // Use atomic long
-
-        orderRepo.put(newOrder.getId(), newOrder);
-        logger.info("Order created: {}", newOrder);
         return newOrder;
     }
+
+    // Under the new id's write lock, so listeners see the create before any update of the order
+    private void insert(Order newOrder) {
+        ReentrantLock lock = writeLock(newOrder.getId());
+        lock.lock();
+        try {
+            orderStore.put(newOrder);
+            orderIds.add(newOrder.getId());
+            indexes.add(newOrder);
+            aggregates.add(newOrder);
+            writes.incrementAndGet();
+            if (!changeListeners.isEmpty()) {
+                Order published = detach(newOrder);
+                for (OrderChangeListener listener : changeListeners) {
+                    listener.orderCreated(published);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
     
     // ... getOrder and getAllOrders are mostly fine, but getAllOrders should still return a copy ...
+    // Concurrent callers (a dashboard fan-out) share one scan, and so one unmodifiable list
     @Override
     public List<Order> getAllOrders() {
-        logger.info("Fetching all orders");
-        // Creating a new ArrayList is correct to prevent modification of the underlying values collection
-        return new ArrayList<>(orderRepo.values());
+        return metrics.time(Operation.GET_ALL, () -> coalesceReads
+                ? allOrdersFlight.load(writes.get(), () -> Collections.unmodifiableList(doGetAllOrders()))
+                : doGetAllOrders());
+    }
+
+    @Override
+    public List<Order> getAllOrders(boolean includeArchived) {
+        if (!includeArchived) {
+            return getAllOrders();
+        }
+        return metrics.time(Operation.GET_ALL, () -> withArchived(doGetAllOrders().iterator(), archive.orders(null),
+                Integer.MAX_VALUE, order -> true));
+    }
+
+    private List<Order> doGetAllOrders() {
+        logger.debug("Fetching all orders");
+        List<Order> orders = new ArrayList<>(orderStore.size());
+        for (Long id : orderIds) {
+            Order order = orderStore.get(id);
+            if (order != null) {
+                orders.add(detach(order));
+            }
+        }
+        return orders;
+    }
+
+    @Override
+    public List<Order> getOrders(Long after, int limit) {
+        return metrics.time(Operation.PAGE, () -> doGetOrders(after, limit));
+    }
+
+    @Override
+    public List<Order> getOrders(Long after, int limit, boolean includeArchived) {
+        if (!includeArchived) {
+            return getOrders(after, limit);
+        }
+        return metrics.time(Operation.PAGE, () -> {
+            if (limit <= 0) {
+                throw new IllegalArgumentException("limit must be positive");
+            }
+            NavigableSet<Long> ids = after == null ? orderIds : orderIds.tailSet(after, false);
+            Iterator<Order> hot = ids.stream().map(orderStore::get).filter(Objects::nonNull).map(this::detach).iterator();
+            return withArchived(hot, archive.orders(after), limit, order -> true);
+        });
+    }
+
+    private List<Order> doGetOrders(Long after, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        // Walk the sorted id set from the cursor instead of copying the whole map
+        NavigableSet<Long> ids = after == null ? orderIds : orderIds.tailSet(after, false);
+        List<Order> page = new ArrayList<>(Math.min(limit, 256));
+        for (Long id : ids) {
+            Order order = orderStore.get(id);
+            if (order == null) {
+                continue; // deleted between the id scan and the lookup
+            }
+            page.add(detach(order));
+            if (page.size() == limit) {
+                break;
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public List<Order> findOrders(OrderQuery query) {
+        return metrics.time(Operation.FIND, () -> doFindOrders(query));
+    }
+
+    private List<Order> doFindOrders(OrderQuery query) {
+        logger.debug("Finding orders matching {}", query);
+        Collection<Long> candidates = indexes.candidates(query);
+        if (candidates == null) {
+            candidates = orderIds; // no indexed criterion, fall back to a scan
+        }
+        List<Order> result = new ArrayList<>();
+        for (Long id : candidates) {
+            Order order = orderStore.get(id);
+            if (order != null && query.matches(order)) {
+                result.add(detach(order));
+            }
+        }
+        result.sort(Comparator.comparing(Order::getId));
+        return result;
+    }
+
+    @Override
+    public List<Order> findOrders(OrderQuery query, boolean includeArchived) {
+        // Only completed and cancelled orders are ever archived
+        if (!includeArchived || (query.getStatus() != null && !isTerminal(query.getStatus()))) {
+            return findOrders(query);
+        }
+        return metrics.time(Operation.FIND, () -> withArchived(doFindOrders(query).iterator(), archive.orders(null),
+                Integer.MAX_VALUE, query::matches));
+    }
+
+    @Override
+    public List<Order> findOrders(OrderQuery query, Long after, int limit, boolean includeArchived) {
+        if (query.isEmpty()) {
+            return getOrders(after, limit, includeArchived);
+        }
+        return metrics.time(Operation.FIND, () -> {
+            if (limit <= 0) {
+                throw new IllegalArgumentException("limit must be positive");
+            }
+            boolean archived = includeArchived && (query.getStatus() == null || isTerminal(query.getStatus()));
+            return withArchived(matching(query, after), archived ? archive.orders(after) : Collections.emptyIterator(),
+                    limit, query::matches);
+        });
+    }
+
+    // Stored orders matching the query with ids after the cursor, in ascending id order. Index
+    // candidates come unordered, so only those past the cursor are sorted.
+    private Iterator<Order> matching(OrderQuery query, Long after) {
+        Collection<Long> candidates = indexes.candidates(query);
+        Stream<Long> ids = candidates == null
+                ? (after == null ? orderIds : orderIds.tailSet(after, false)).stream()
+                : candidates.stream().filter(id -> after == null || id > after).sorted();
+        return ids.map(orderStore::get).filter(order -> order != null && query.matches(order)).map(this::detach).iterator();
+    }
+
+    /**
+     * Merges hot orders with the archived ones that pass {@code filter}, both in ascending id
+     * order, up to {@code limit}. An order caught between the tiers by a concurrent archival run
+     * is taken from the hot store.
+     */
+    private static List<Order> withArchived(Iterator<Order> hot, Iterator<Order> archived, int limit,
+                                            Predicate<Order> filter) {
+        List<Order> result = new ArrayList<>();
+        Order nextHot = hot.hasNext() ? hot.next() : null;
+        Order nextArchived = nextMatching(archived, filter);
+        while (result.size() < limit && (nextHot != null || nextArchived != null)) {
+            if (nextArchived == null || (nextHot != null && nextHot.getId() <= nextArchived.getId())) {
+                if (nextArchived != null && nextArchived.getId().equals(nextHot.getId())) {
+                    nextArchived = nextMatching(archived, filter);
+                }
+                result.add(nextHot);
+                nextHot = hot.hasNext() ? hot.next() : null;
+            } else {
+                result.add(nextArchived);
+                nextArchived = nextMatching(archived, filter);
+            }
+        }
+        return result;
+    }
+
+    private static Order nextMatching(Iterator<Order> orders, Predicate<Order> filter) {
+        while (orders.hasNext()) {
+            Order order = orders.next();
+            if (filter.test(order)) {
+                return order;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public OrderStats getStats(LocalDate from, LocalDate to) {
+        return metrics.time(Operation.STATS, () -> aggregates.stats(from, to));
     }
 
     @Override
     public Order getOrder(Long id) {
-        logger.info("Fetching order with id: {}", id);
-        return orderRepo.get(id);
+        return metrics.time(Operation.GET, id, () -> doGetOrder(id));
+    }
+
+    private Order doGetOrder(Long id) {
+        logger.debug("Fetching order with id: {}", id);
+        Order order = orderStore.get(id);
+        // Archival writes the archive before it drops the order from the store, so one of them has it
+        return order != null ? detach(order) : archive.get(id);
     }
     
     @Override
     public Order updateOrder(Long id, Order orderUpdateRequest) {
-        logger.info("Updating order with id: {}", id);
+        return updateOrder(id, orderUpdateRequest, null);
+    }
+
+    @Override
+    public Order updateOrder(Long id, Order orderUpdateRequest, Long expectedVersion) {
+        return metrics.time(Operation.UPDATE, id, () -> doUpdateOrder(id, orderUpdateRequest, expectedVersion));
+    }
 
-        // Fetch the existing order. This is the entity we will modify and save.
-        Order existingOrder = orderRepo.get(id);
+    private Order doUpdateOrder(Long id, Order orderUpdateRequest, Long expectedVersion) {
+        logger.debug("Updating order with id: {}", id);
 
-        // 2. Prevent updates on terminal-state orders
-        if (existingOrder.getStatus() == OrderStatus.COMPLETED || existingOrder.getStatus() == OrderStatus.CANCELLED) {
-            logger.error("Cannot update order {} with status {}", id, existingOrder.getStatus());
-            throw new IllegalStateException("Cannot update completed or cancelled order");
+        Applied applied;
+        journal.beginMutation();
+        try {
+            applied = applyUpdate(id, orderUpdateRequest, expectedVersion);
+        } finally {
+            journal.endMutation();
         }
+        journal.awaitDurable(applied.position);
+        logger.info("Order updated id={} status={}", id, applied.order.getStatus());
+        return detach(applied.order);
+    }
 
-        // 3. Apply updates from the request to the existing order entity
-        // Update description if provided
-        if (orderUpdateRequest.getDescription() != null) {
-             existingOrder.setDescription(orderUpdateRequest.getDescription());
-        }
+    @Override
+    public List<BatchResult> updateOrders(Map<Long, Order> updates) {
+        return metrics.time(Operation.UPDATE_BATCH, () -> doUpdateOrders(updates));
+    }
 
-        // Update entries and recalculate amount if provided
-        if (orderUpdateRequest.getEntries() != null && !orderUpdateRequest.getEntries().isEmpty()) {
-            existingOrder.setEntries(orderUpdateRequest.getEntries());
-            double total = orderUpdateRequest.getEntries().stream()
-                    .mapToDouble(e -> e.getPrice() * e.getQuantity())
-                    .sum();
-            existingOrder.setAmount(total);
+    private List<BatchResult> doUpdateOrders(Map<Long, Order> updates) {
+        logger.debug("Updating batch of {} orders", updates.size());
+        List<BatchResult> results = new ArrayList<>(updates.size());
+        long position = 0;
+        journal.beginMutation();
+        try {
+            int index = 0;
+            for (Map.Entry<Long, Order> update : updates.entrySet()) {
+                Long id = update.getKey();
+                if (id == null || (!orderStore.contains(id) && !archive.contains(id))) {
+                    results.add(BatchResult.failure(index++, id, BatchResult.Outcome.NOT_FOUND, "Order with id " + id + " not found"));
+                    continue;
+                }
+                if (update.getValue() == null) {
+                    results.add(BatchResult.failure(index++, id, BatchResult.Outcome.REJECTED, "Update must not be null"));
+                    metrics.rejected(Operation.UPDATE_BATCH, IllegalArgumentException.class);
+                    continue;
+                }
+                try {
+                    Applied applied = applyUpdate(id, update.getValue(), null);
+                    position = Math.max(position, applied.position);
+                    results.add(BatchResult.success(index, BatchResult.Outcome.UPDATED, detach(applied.order)));
+                } catch (RuntimeException e) {
+                    results.add(BatchResult.failure(index, id, BatchResult.Outcome.REJECTED, e.getMessage()));
+                    metrics.rejected(Operation.UPDATE_BATCH, e.getClass());
+                }
+                index++;
+            }
+        } finally {
+            journal.endMutation();
         }
+        journal.awaitDurable(position);
+        logger.info("Batch update finished for {} orders", updates.size());
+        return results;
+    }
+
+    /**
+     * Applies an update as one atomic step per order. Stored orders are never modified: the
+     * new state is built as a fresh {@link Order} with the next version while holding the
+     * order's write lock, and readers keep seeing the previous, complete instance until it is
+     * replaced. Validation, the journal append and the index move all happen under that lock, so
+     * two racing transitions can't both pass validation against the same old status. Caller
+     * holds the journal mutation bracket.
+     */
+    private Applied applyUpdate(Long id, Order orderUpdateRequest, Long expectedVersion) {
+        ReentrantLock lock = writeLock(id);
+        lock.lock();
+        try {
+            Order existingOrder = orderStore.get(id);
+            if (existingOrder == null && archive.contains(id)) {
+                logger.error("Cannot update archived order {}", id);
+                throw new IllegalStateException("Cannot update completed or cancelled order");
+            }
+            if (existingOrder == null) {
+                logger.error("Order with id {} not found", id);
+                throw new IllegalArgumentException("Order with id " + id + " not found");
+            }
+            if (expectedVersion != null && !expectedVersion.equals(existingOrder.getVersion())) {
+                throw new VersionConflictException(id, expectedVersion, existingOrder.getVersion());
+            }
+
+            // Prevent updates on terminal-state orders
+            if (existingOrder.getStatus() == OrderStatus.COMPLETED || existingOrder.getStatus() == OrderStatus.CANCELLED) {
+                logger.error("Cannot update order {} with status {}", id, existingOrder.getStatus());
+                throw new IllegalStateException("Cannot update completed or cancelled order");
+            }
+
+            Order updated = new Order(id, existingOrder.getDescription(), null,
+                    existingOrder.getOrderDate(), existingOrder.getStatus(), existingOrder.getEntries());
+            updated.setAmountCents(existingOrder.getAmountCents());
+            updated.setVersion(existingOrder.getVersion() + 1);
 
-        // Handle status transitions
-        if (orderUpdateRequest.getStatus() != null && !orderUpdateRequest.getStatus().equals(existingOrder.getStatus())) {
-            validateStatusTransition(existingOrder.getStatus(), orderUpdateRequest.getStatus());
-            existingOrder.setStatus(orderUpdateRequest.getStatus());
+            // Update description if provided
+            if (orderUpdateRequest.getDescription() != null) {
+                updated.setDescription(orderUpdateRequest.getDescription());
+            }
+
+            // Update entries and recalculate amount if provided
+            if (orderUpdateRequest.getEntries() != null && !orderUpdateRequest.getEntries().isEmpty()) {
+                updated.setEntries(copyEntries(orderUpdateRequest.getEntries()));
+                updated.setAmountCents(Money.total(updated.getEntries()));
+            }
+
+            // Handle status transitions
+            if (orderUpdateRequest.getStatus() != null && !orderUpdateRequest.getStatus().equals(existingOrder.getStatus())) {
+                validateStatusTransition(existingOrder.getStatus(), orderUpdateRequest.getStatus());
+                updated.setStatus(orderUpdateRequest.getStatus());
+            }
+
+            Applied applied = new Applied();
+            applied.position = journal.appendUpdate(updated);
+            orderStore.put(updated);
+            indexes.update(existingOrder, updated);
+            aggregates.update(existingOrder, updated);
+            writes.incrementAndGet();
+            if (!changeListeners.isEmpty()) {
+                // Listeners hand the order on, into events any subscriber can read, so they get a copy too
+                Order published = detach(updated);
+                for (OrderChangeListener listener : changeListeners) {
+                    listener.orderUpdated(existingOrder, published);
+                }
+            }
+            applied.order = updated;
+            return applied;
+        } finally {
+            lock.unlock();
         }
+    }
 
-        // Persist the updated *existing* order
-        orderRepo.put(id, existingOrder);
-        logger.info("Order updated: {}", existingOrder);
-        return existingOrder;
+    private ReentrantLock writeLock(Long id) {
+        return writeLocks[(int) (id ^ (id >>> 32)) & (writeLocks.length - 1)];
+    }
+
+    private static final class Applied {
+        Order order;
+        long position;
     }
 
     private void validateStatusTransition(OrderStatus from, OrderStatus to) {
@@ -148,19 +729,263 @@ public class OrderServiceImpl implements OrderService {
     
     @Override
     public void deleteOrder(Long id) {
-        logger.info("Deleting order with id: {}", id);
-        Order order = orderRepo.get(id);
-        if (order == null) {
+        metrics.time(Operation.DELETE, id, () -> doDeleteOrder(id));
+    }
+
+    private void doDeleteOrder(Long id) {
+        logger.debug("Deleting order with id: {}", id);
+        long position;
+        journal.beginMutation();
+        try {
+            position = applyDelete(id);
+        } finally {
+            journal.endMutation();
+        }
+        if (position < 0) {
             // Log this event, as it might indicate a client-side issue.
             logger.warn("Attempted to delete non-existent order with id: {}", id);
             return;
         }
+        journal.awaitDurable(position);
+        logger.info("Order deleted id={}", id);
+    }
+
+    @Override
+    public List<BatchResult> deleteOrders(Collection<Long> ids) {
+        return metrics.time(Operation.DELETE_BATCH, () -> doDeleteOrders(ids));
+    }
+
+    private List<BatchResult> doDeleteOrders(Collection<Long> ids) {
+        logger.debug("Deleting batch of {} orders", ids.size());
+        List<BatchResult> results = new ArrayList<>(ids.size());
+        long position = 0;
+        int deleted = 0;
+        journal.beginMutation();
+        try {
+            int index = 0;
+            for (Long id : ids) {
+                long deletedAt;
+                try {
+                    deletedAt = id == null ? -1 : applyDelete(id);
+                } catch (IllegalStateException e) {
+                    results.add(BatchResult.failure(index++, id, BatchResult.Outcome.REJECTED, e.getMessage()));
+                    metrics.rejected(Operation.DELETE_BATCH, e.getClass());
+                    continue;
+                }
+                if (deletedAt < 0) {
+                    results.add(BatchResult.failure(index++, id, BatchResult.Outcome.NOT_FOUND, "Order with id " + id + " not found"));
+                } else {
+                    position = deletedAt;
+                    results.add(new BatchResult(index++, id, BatchResult.Outcome.DELETED, null, null));
+                    deleted++;
+                }
+            }
+        } finally {
+            journal.endMutation();
+        }
+        journal.awaitDurable(position);
+        logger.info("Batch delete finished: {} deleted, {} failed", deleted, ids.size() - deleted);
+        return results;
+    }
 
-        if (order.getStatus() == OrderStatus.COMPLETED) {
-            logger.error("Cannot delete completed order with id: {}", id);
-            throw new IllegalStateException("Cannot delete completed order");
+    /**
+     * Removes the order atomically with the completed-status check, so a concurrent transition
+     * to COMPLETED can't slip in between. Returns the journal position, or -1 if there was no
+     * such order. Caller holds the journal mutation bracket.
+     */
+    private long applyDelete(Long id) {
+        ReentrantLock lock = writeLock(id);
+        lock.lock();
+        try {
+            Order order = orderStore.get(id);
+            if (archiving.contains(id) || (order == null && archive.contains(id))) {
+                logger.error("Cannot delete archived order with id: {}", id);
+                throw new IllegalStateException("Cannot delete archived order");
+            }
+            if (order == null) {
+                return -1;
+            }
+            if (order.getStatus() == OrderStatus.COMPLETED) {
+                logger.error("Cannot delete completed order with id: {}", id);
+                throw new IllegalStateException("Cannot delete completed order");
+            }
+            long position = journal.appendDelete(id);
+            orderStore.remove(id);
+            orderIds.remove(id);
+            indexes.remove(order);
+            aggregates.remove(order);
+            writes.incrementAndGet();
+            for (OrderChangeListener listener : changeListeners) {
+                listener.orderDeleted(id);
+            }
+            return position;
+        } finally {
+            lock.unlock();
         }
-        orderRepo.remove(id);
-        logger.info("Order with id {} deleted successfully.", id);
     }
-}
\ No newline at end of file
+
+    @Override
+    public void addChangeListener(OrderChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    /** Writes a snapshot of the store so that recovery only has to replay the log written after it. */
+    public void snapshot() {
+        journal.snapshot(new OrderJournal.SnapshotSource() {
+            @Override
+            public long nextId() {
+                return idCounter.get();
+            }
+
+            @Override
+            public Iterator<Order> orders() {
+                // Lazily, so an off-heap store materializes one order at a time
+                return orderIds.stream().map(orderStore::get).filter(Objects::nonNull).iterator();
+            }
+        });
+    }
+
+    /**
+     * Moves completed and cancelled orders dated more than {@code minAge} ago, at most
+     * {@code maxOrders} of them, from the store into the archive, and returns how many moved.
+     * They stay readable by id throughout and keep counting toward the stats. The orders are
+     * first marked so that deletes are refused, then written to the archive, and only then
+     * dropped from the store. Nothing is journaled: on restart, orders the journal still holds
+     * are dropped again once the archive is loaded.
+     */
+    public int archive(Period minAge, int maxOrders) {
+        return metrics.time(Operation.ARCHIVE, () -> doArchive(minAge, maxOrders));
+    }
+
+    private int doArchive(Period minAge, int maxOrders) {
+        LocalDate cutoff = LocalDate.now(clock).minus(minAge);
+        List<OrderQuery> queries = List.of(
+                new OrderQuery(OrderStatus.COMPLETED, null, cutoff.minusDays(1), null),
+                new OrderQuery(OrderStatus.CANCELLED, null, cutoff.minusDays(1), null));
+        // Only ids until the batch is picked: under OFF_HEAP every get decodes a new order, and
+        // loading all the due ones would bring every terminal order in the store onto the heap
+        long[] ids = queries.stream()
+                .flatMap(query -> indexes.candidates(query).stream())
+                .mapToLong(Long::longValue)
+                .sorted()
+                .distinct()
+                .toArray();
+        List<Order> batch = new ArrayList<>(Math.min(ids.length, maxOrders));
+        for (long id : ids) {
+            if (batch.size() == maxOrders) {
+                break;
+            }
+            // The candidates may be stale, and a cancelled order may have been deleted since the scan
+            ReentrantLock lock = writeLock(id);
+            lock.lock();
+            try {
+                Order order = orderStore.get(id);
+                if (order != null && queries.stream().anyMatch(query -> query.matches(order))) {
+                    archiving.add(id);
+                    batch.add(order);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        try {
+            archive.append(batch);
+        } catch (RuntimeException e) {
+            batch.forEach(order -> archiving.remove(order.getId()));
+            throw e;
+        }
+        for (Order order : batch) {
+            ReentrantLock lock = writeLock(order.getId());
+            lock.lock();
+            try {
+                // Aggregates keep the order: archiving changes where it lives, not what was sold
+                orderStore.remove(order.getId());
+                orderIds.remove(order.getId());
+                indexes.remove(order);
+                archiving.remove(order.getId());
+                writes.incrementAndGet();
+            } finally {
+                lock.unlock();
+            }
+        }
+        logger.info("Archived {} completed or cancelled orders dated before {}", batch.size(), cutoff);
+        return batch.size();
+    }
+
+    private static boolean isTerminal(OrderStatus status) {
+        return status == OrderStatus.COMPLETED || status == OrderStatus.CANCELLED;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        snapshot();
+    }
+
+    /**
+     * Rebuilds the store, its indexes and the id counter from the journal and the archive.
+     * Called once on startup, before any order is created.
+     *
+     * @return true if the journal or the archive held any state
+     */
+    public boolean recover() {
+        boolean recovered = recoverJournal();
+        return loadArchive() > 0 || recovered;
+    }
+
+    // Archived orders count toward the stats and the id counter, and leave the store if the journal put them back
+    private long loadArchive() {
+        long count = 0;
+        for (Iterator<Order> orders = archive.orders(null); orders.hasNext(); count++) {
+            Order order = orders.next();
+            Order hot = orderStore.get(order.getId());
+            if (hot != null) {
+                orderStore.remove(order.getId());
+                orderIds.remove(order.getId());
+                indexes.remove(hot);
+            } else {
+                aggregates.add(order);
+            }
+            idCounter.accumulateAndGet(idScheme.sequence(order.getId()) + 1, Math::max);
+        }
+        return count;
+    }
+
+    private boolean recoverJournal() {
+        return journal.recover(new OrderJournal.RecoveryHandler() {
+            @Override
+            public void nextId(long nextId) {
+                idCounter.accumulateAndGet(nextId, Math::max);
+            }
+
+            @Override
+            public void put(Order order) {
+                Order previous = orderStore.get(order.getId());
+                orderStore.put(order);
+                if (previous == null) {
+                    orderIds.add(order.getId());
+                    indexes.add(order);
+                    aggregates.add(order);
+                } else {
+                    indexes.update(previous, order);
+                    aggregates.update(previous, order);
+                }
+                idCounter.accumulateAndGet(idScheme.sequence(order.getId()) + 1, Math::max);
+            }
+
+            @Override
+            public void delete(long id) {
+                Order previous = orderStore.get(id);
+                if (previous != null) {
+                    orderStore.remove(id);
+                    orderIds.remove(id);
+                    indexes.remove(previous);
+                    aggregates.remove(previous);
+                }
+                idCounter.accumulateAndGet(idScheme.sequence(id) + 1, Math::max);
+            }
+        });
+    }
+}
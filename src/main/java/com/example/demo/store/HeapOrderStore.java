@@ -0,0 +1,41 @@
+package com.example.demo.store;
+
+import com.example.demo.model.Order;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** The original store: orders kept as objects in a concurrent map. */
+public class HeapOrderStore implements OrderStore {
+    private final Map<Long, Order> orders = new ConcurrentHashMap<>();
+
+    @Override
+    public Order get(long id) {
+        return orders.get(id);
+    }
+
+    @Override
+    public boolean sharesInstances() {
+        return true;
+    }
+
+    @Override
+    public boolean contains(long id) {
+        return orders.containsKey(id);
+    }
+
+    @Override
+    public void put(Order order) {
+        orders.put(order.getId(), order);
+    }
+
+    @Override
+    public boolean remove(long id) {
+        return orders.remove(id) != null;
+    }
+
+    @Override
+    public int size() {
+        return orders.size();
+    }
+}
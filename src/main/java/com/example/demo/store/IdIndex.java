@@ -0,0 +1,155 @@
+package com.example.demo.store;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Map from order id to slab address with primitive keys and values, so an entry costs two
+ * longs instead of a boxed key, a boxed value and a map node.
+ * <p>
+ * Split into segments, each an open-addressing table of interleaved {@code [id, address]}
+ * pairs guarded by a {@link StampedLock}: lookups are optimistic reads that retry under the
+ * read lock only if a writer got in. Id 0 marks an empty slot and address 0 a removed entry,
+ * which are dropped whenever the segment is rehashed.
+ */
+final class IdIndex {
+    static final long ABSENT = 0;
+    private static final int SEGMENTS = 64; // power of two
+    private static final int INITIAL_SLOTS = 16; // per segment, power of two
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    IdIndex() {
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    private static int hash(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private Segment segment(int hash) {
+        return segments[hash >>> 26 & (SEGMENTS - 1)];
+    }
+
+    /** Returns the address of the id, or {@link #ABSENT}. */
+    long get(long id) {
+        int hash = hash(id);
+        return segment(hash).get(id, hash);
+    }
+
+    /** Maps the id to the address and returns the previous address, or {@link #ABSENT}. */
+    long put(long id, long address) {
+        if (id == 0 || address == ABSENT) {
+            throw new IllegalArgumentException("Id and address must be non-zero");
+        }
+        int hash = hash(id);
+        return segment(hash).put(id, address, hash);
+    }
+
+    /** Removes the id and returns its address, or {@link #ABSENT}. */
+    long remove(long id) {
+        int hash = hash(id);
+        return segment(hash).put(id, ABSENT, hash);
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.live;
+        }
+        return size;
+    }
+
+    private static final class Segment {
+        private final StampedLock lock = new StampedLock();
+        private long[] table = new long[INITIAL_SLOTS * 2];
+        private int used; // slots holding an id, including removed ones
+        private volatile int live;
+
+        long get(long id, int hash) {
+            long stamp = lock.tryOptimisticRead();
+            long address = find(table, id, hash);
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    address = find(table, id, hash);
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            return address;
+        }
+
+        private static long find(long[] table, long id, int hash) {
+            int mask = (table.length >> 1) - 1;
+            for (int i = hash & mask, probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+                long key = table[i << 1];
+                if (key == id) {
+                    return table[(i << 1) + 1];
+                }
+                if (key == 0) {
+                    return ABSENT;
+                }
+            }
+            return ABSENT;
+        }
+
+        long put(long id, long address, int hash) {
+            long stamp = lock.writeLock();
+            try {
+                if (address != ABSENT && (used + 1) * 4L > (table.length >> 1) * 3L) {
+                    rehash();
+                }
+                long[] t = table;
+                int mask = (t.length >> 1) - 1;
+                for (int i = hash & mask; ; i = (i + 1) & mask) {
+                    long key = t[i << 1];
+                    if (key == id) {
+                        long previous = t[(i << 1) + 1];
+                        t[(i << 1) + 1] = address;
+                        live += (address == ABSENT ? 0 : 1) - (previous == ABSENT ? 0 : 1);
+                        return previous;
+                    }
+                    if (key == 0) {
+                        if (address != ABSENT) {
+                            t[i << 1] = id;
+                            t[(i << 1) + 1] = address;
+                            used++;
+                            live++;
+                        }
+                        return ABSENT;
+                    }
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        // Called under the write lock; grows only if live entries, not removed ones, fill the table
+        private void rehash() {
+            long[] old = table;
+            int slots = old.length >> 1;
+            if (live * 2L >= slots) {
+                slots <<= 1;
+            }
+            long[] t = new long[slots * 2];
+            int mask = slots - 1;
+            for (int i = 0; i < old.length; i += 2) {
+                long id = old[i];
+                long address = old[i + 1];
+                if (id != 0 && address != ABSENT) {
+                    int j = hash(id) & mask;
+                    while (t[j << 1] != 0) {
+                        j = (j + 1) & mask;
+                    }
+                    t[j << 1] = id;
+                    t[(j << 1) + 1] = address;
+                }
+            }
+            table = t;
+            used = live;
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.example.demo.store;
+
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderEntry;
+import com.example.demo.model.OrderStatus;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps orders as compact binary records in direct {@link ByteBuffer} slabs, so that millions of
+ * orders cost the garbage collector a few buffer objects and a primitive id index instead of
+ * an object graph per order.
+ * <p>
+ * Records are appended to the current slab and never modified; an update appends a new record
+ * and repoints the id. Product codes and names are stored as {@link StringDictionary} codes.
+ * When less than half of a full slab is still referenced, its live records are copied forward
+ * and the slab is dropped, which frees its memory once the buffer is collected. Slab numbers
+ * are never reused, so a reader that looked up an address just before a move still reads an
+ * identical copy, or finds the slab gone and looks the id up again.
+ * <p>
+ * Writers serialize on one lock, reads take no lock. Each {@link #get} decodes a new
+ * {@link Order}, so it allocates where the heap store does not.
+ */
+public class OffHeapOrderStore implements OrderStore {
+    public static final int DEFAULT_SLAB_SIZE = 4 << 20;
+    private static final double COMPACTION_THRESHOLD = 0.5;
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    // Record layout; a length of -1 marks a null description or entry list
+    private static final int LENGTH = 0;      // int, whole record
+    private static final int ID = 4;          // long
+    private static final int VERSION = 12;    // long, NO_VERSION for null
+    private static final int AMOUNT = 20;     // long cents, as Order.getAmountCents
+    private static final int DATE = 28;       // int epoch day, NO_DATE for null
+    private static final int STATUS = 32;     // byte ordinal, -1 for null
+    private static final int DESCRIPTION = 33; // int length, then UTF-8 bytes; entries follow
+    private static final int ENTRY_SIZE = 20; // int code, int name, int quantity, long price cents
+    private static final long NO_VERSION = Long.MIN_VALUE;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    private final int slabSize;
+    private final IdIndex index = new IdIndex();
+    private final StringDictionary productCodes = new StringDictionary();
+    private final StringDictionary productNames = new StringDictionary();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // Slab 0 is never allocated, so no address is 0
+    private volatile AtomicReferenceArray<ByteBuffer> slabs = new AtomicReferenceArray<>(16);
+
+    // Guarded by writeLock
+    private int[] slabEnd = new int[16];
+    private int[] liveBytes = new int[16];
+    private int lastSlab;
+    private int currentSlab;
+    private long compactions;
+
+    public OffHeapOrderStore() {
+        this(DEFAULT_SLAB_SIZE);
+    }
+
+    public OffHeapOrderStore(int slabSize) {
+        if (slabSize < 1024) {
+            throw new IllegalArgumentException("Slab size must be at least 1KB");
+        }
+        this.slabSize = slabSize;
+    }
+
+    private static long address(int slab, int offset) {
+        return (long) slab << 32 | offset;
+    }
+
+    private static int slabOf(long address) {
+        return (int) (address >>> 32);
+    }
+
+    private static int offsetOf(long address) {
+        return (int) address;
+    }
+
+    @Override
+    public Order get(long id) {
+        for (;;) {
+            long address = index.get(id);
+            if (address == IdIndex.ABSENT) {
+                return null;
+            }
+            ByteBuffer slab = slabs.get(slabOf(address));
+            if (slab != null) {
+                return read(slab, offsetOf(address));
+            }
+            // Compacted away after the lookup; the index already points at the copy
+        }
+    }
+
+    @Override
+    public boolean contains(long id) {
+        return index.get(id) != IdIndex.ABSENT;
+    }
+
+    @Override
+    public void put(Order order) {
+        if (order.getId() == null) {
+            throw new IllegalArgumentException("Order id is required");
+        }
+        byte[] description = order.getDescription() == null ? null
+                : order.getDescription().getBytes(StandardCharsets.UTF_8);
+        int epochDay = NO_DATE;
+        if (order.getOrderDate() != null) {
+            long day = order.getOrderDate().toEpochDay();
+            if (day <= NO_DATE || day > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Order date out of range: " + order.getOrderDate());
+            }
+            epochDay = (int) day;
+        }
+        List<OrderEntry> entries = order.getEntries();
+        int length = DESCRIPTION + 4 + (description == null ? 0 : description.length)
+                + 4 + (entries == null ? 0 : entries.size() * ENTRY_SIZE);
+
+        writeLock.lock();
+        try {
+            long address = allocate(length);
+            ByteBuffer slab = slabs.get(slabOf(address));
+            int at = offsetOf(address);
+            slab.putInt(at + LENGTH, length);
+            slab.putLong(at + ID, order.getId());
+            slab.putLong(at + VERSION, order.getVersion() == null ? NO_VERSION : order.getVersion());
+            slab.putLong(at + AMOUNT, order.getAmountCents());
+            slab.putInt(at + DATE, epochDay);
+            slab.put(at + STATUS, order.getStatus() == null ? -1 : (byte) order.getStatus().ordinal());
+            int pos = at + DESCRIPTION;
+            if (description == null) {
+                slab.putInt(pos, -1);
+                pos += 4;
+            } else {
+                slab.putInt(pos, description.length);
+                slab.put(pos + 4, description);
+                pos += 4 + description.length;
+            }
+            if (entries == null) {
+                slab.putInt(pos, -1);
+            } else {
+                slab.putInt(pos, entries.size());
+                pos += 4;
+                for (int i = 0, n = entries.size(); i < n; i++, pos += ENTRY_SIZE) {
+                    OrderEntry entry = entries.get(i);
+                    slab.putInt(pos, productCodes.encode(entry.getProductCode()));
+                    slab.putInt(pos + 4, productNames.encode(entry.getProductName()));
+                    slab.putInt(pos + 8, entry.getQuantity());
+                    slab.putLong(pos + 12, entry.getPriceCents());
+                }
+            }
+            liveBytes[slabOf(address)] += length;
+            long previous = index.put(order.getId(), address);
+            if (previous != IdIndex.ABSENT) {
+                release(previous);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(long id) {
+        writeLock.lock();
+        try {
+            long previous = index.remove(id);
+            if (previous == IdIndex.ABSENT) {
+                return false;
+            }
+            release(previous);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        return index.size();
+    }
+
+    private Order read(ByteBuffer slab, int at) {
+        Order order = new Order();
+        order.setId(slab.getLong(at + ID));
+        long version = slab.getLong(at + VERSION);
+        order.setVersion(version == NO_VERSION ? null : version);
+        order.setAmountCents(slab.getLong(at + AMOUNT));
+        int epochDay = slab.getInt(at + DATE);
+        order.setOrderDate(epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay));
+        byte status = slab.get(at + STATUS);
+        order.setStatus(status < 0 ? null : STATUSES[status]);
+        int pos = at + DESCRIPTION;
+        int descriptionLength = slab.getInt(pos);
+        pos += 4;
+        if (descriptionLength >= 0) {
+            byte[] description = new byte[descriptionLength];
+            slab.get(pos, description);
+            order.setDescription(new String(description, StandardCharsets.UTF_8));
+            pos += descriptionLength;
+        }
+        int entryCount = slab.getInt(pos);
+        pos += 4;
+        if (entryCount >= 0) {
+            List<OrderEntry> entries = new ArrayList<>(entryCount);
+            for (int i = 0; i < entryCount; i++, pos += ENTRY_SIZE) {
+                OrderEntry entry = new OrderEntry();
+                entry.setProductCode(productCodes.decode(slab.getInt(pos)));
+                entry.setProductName(productNames.decode(slab.getInt(pos + 4)));
+                entry.setQuantity(slab.getInt(pos + 8));
+                entry.setPriceCents(slab.getLong(pos + 12));
+                entries.add(entry);
+            }
+            order.setEntries(Collections.unmodifiableList(entries));
+        }
+        return order;
+    }
+
+    // Called under writeLock; records larger than a slab get a slab of their own
+    private long allocate(int length) {
+        if (currentSlab == 0 || slabEnd[currentSlab] + length > slabs.get(currentSlab).capacity()) {
+            currentSlab = newSlab(Math.max(slabSize, length));
+        }
+        int offset = slabEnd[currentSlab];
+        slabEnd[currentSlab] += length;
+        return address(currentSlab, offset);
+    }
+
+    private int newSlab(int capacity) {
+        ByteBuffer buffer;
+        try {
+            buffer = ByteBuffer.allocateDirect(capacity);
+        } catch (OutOfMemoryError e) {
+            // Thrown by the direct memory limit rather than the VM, so the store is still consistent
+            throw new IllegalStateException("Off-heap order store is full: " + e.getMessage()
+                    + "; raise -XX:MaxDirectMemorySize", e);
+        }
+        int slab = ++lastSlab;
+        if (slab == slabEnd.length) {
+            AtomicReferenceArray<ByteBuffer> current = slabs;
+            AtomicReferenceArray<ByteBuffer> grown = new AtomicReferenceArray<>(slab * 2);
+            for (int i = 0; i < slab; i++) {
+                grown.set(i, current.get(i));
+            }
+            slabs = grown;
+            slabEnd = Arrays.copyOf(slabEnd, slab * 2);
+            liveBytes = Arrays.copyOf(liveBytes, slab * 2);
+        }
+        slabs.set(slab, buffer);
+        return slab;
+    }
+
+    // Called under writeLock once the record at the address is no longer referenced
+    private void release(long address) {
+        int slab = slabOf(address);
+        ByteBuffer buffer = slabs.get(slab);
+        liveBytes[slab] -= buffer.getInt(offsetOf(address) + LENGTH);
+        if (slab != currentSlab && liveBytes[slab] < buffer.capacity() * COMPACTION_THRESHOLD) {
+            compact(slab);
+        }
+    }
+
+    private void compact(int slab) {
+        ByteBuffer buffer = slabs.get(slab);
+        for (int at = 0, end = slabEnd[slab]; at < end; ) {
+            int length = buffer.getInt(at + LENGTH);
+            long id = buffer.getLong(at + ID);
+            if (index.get(id) == address(slab, at)) {
+                long moved = allocate(length);
+                slabs.get(slabOf(moved)).put(offsetOf(moved), buffer, at, length);
+                liveBytes[slabOf(moved)] += length;
+                index.put(id, moved);
+            }
+            at += length;
+        }
+        slabs.set(slab, null);
+        slabEnd[slab] = 0;
+        liveBytes[slab] = 0;
+        compactions++;
+    }
+
+    /** Slabs currently allocated. */
+    int slabCount() {
+        writeLock.lock();
+        try {
+            int count = 0;
+            for (int i = 1; i <= lastSlab; i++) {
+                if (slabs.get(i) != null) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    long compactions() {
+        writeLock.lock();
+        try {
+            return compactions;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.demo.store;
+
+import com.example.demo.model.Order;
+
+/**
+ * Primary storage of orders by id, behind {@link com.example.demo.service.impl.OrderServiceImpl}.
+ * <p>
+ * The service serializes writers of the same id and never modifies an order after storing it,
+ * so an engine only needs to make each {@link #put} and {@link #remove} atomic per id and safe
+ * against concurrent {@link #get}s. Pagination and secondary indexes live in the service. Orders
+ * leave the service as copies when the engine {@link #sharesInstances shares its instances}, so
+ * no caller can change a stored order behind the service's back.
+ */
+public interface OrderStore {
+
+    /** Returns the stored order, or null. Engines may return a fresh copy on every call. */
+    Order get(long id);
+
+    /** True if {@link #get} returns the instance given to {@link #put} rather than a fresh copy. */
+    default boolean sharesInstances() {
+        return false;
+    }
+
+    boolean contains(long id);
+
+    /** Inserts or replaces the order stored under its id. */
+    void put(Order order);
+
+    /** Returns true if an order was removed. */
+    boolean remove(long id);
+
+    int size();
+}
@@ -0,0 +1,41 @@
+package com.example.demo.store;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.lang.management.ManagementFactory;
+
+@Configuration
+@EnableConfigurationProperties(StoreProperties.class)
+public class StoreConfig {
+    private static final Logger logger = LoggerFactory.getLogger(StoreConfig.class);
+
+    @Bean
+    public OrderStore orderStore(StoreProperties properties) {
+        if (properties.getEngine() == StoreEngine.OFF_HEAP) {
+            DataSize slabSize = properties.getSlabSize();
+            long directMemory = maxDirectMemory();
+            // Tomcat and NIO take some direct memory too, so fewer slabs than this may fit
+            logger.info("Off-heap order store: {}MB of direct memory holds at most {} slabs of {}KB",
+                    directMemory >> 20, directMemory / slabSize.toBytes(), slabSize.toKilobytes());
+            if (directMemory < 2 * slabSize.toBytes()) {
+                logger.warn("Direct memory is too small for the off-heap order store, which needs a spare slab "
+                        + "to compact into; raise -XX:MaxDirectMemorySize");
+            }
+            return new OffHeapOrderStore(Math.toIntExact(slabSize.toBytes()));
+        }
+        return new HeapOrderStore();
+    }
+
+    // -XX:MaxDirectMemorySize, which defaults to the maximum heap size
+    private static long maxDirectMemory() {
+        long configured = Long.parseLong(ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class)
+                .getVMOption("MaxDirectMemorySize").getValue());
+        return configured > 0 ? configured : Runtime.getRuntime().maxMemory();
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.demo.store;
+
+/** Storage engine behind the order service, selected with {@code orders.store.engine}. */
+public enum StoreEngine {
+    /** Orders stay as Java objects in a ConcurrentHashMap; fastest reads, largest heap footprint. */
+    HEAP,
+    /**
+     * Orders are encoded into direct ByteBuffer slabs with dictionary-encoded product codes and
+     * names. Each read materializes a new {@link com.example.demo.model.Order}.
+     */
+    OFF_HEAP
+}
@@ -0,0 +1,16 @@
+package com.example.demo.store;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@ConfigurationProperties(prefix = "orders.store")
+public class StoreProperties {
+    private StoreEngine engine = StoreEngine.HEAP;
+    /** Size of each direct buffer the OFF_HEAP engine allocates; larger orders get a slab of their own. */
+    private DataSize slabSize = DataSize.ofMegabytes(4);
+
+    public StoreEngine getEngine() { return engine; }
+    public void setEngine(StoreEngine engine) { this.engine = engine; }
+    public DataSize getSlabSize() { return slabSize; }
+    public void setSlabSize(DataSize slabSize) { this.slabSize = slabSize; }
+}
@@ -0,0 +1,47 @@
+package com.example.demo.store;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Assigns a small int to each distinct string so that records store product codes and names
+ * once per distinct value rather than once per entry. Codes are never released; the number of
+ * distinct products is small compared to the number of orders.
+ * <p>
+ * {@link #encode} must be called under the owning store's write lock. {@link #decode} is
+ * lock-free: a reader only ever decodes codes it found in a record published after them.
+ */
+final class StringDictionary {
+    static final int NULL = -1;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private volatile String[] values = new String[64];
+
+    int encode(String value) {
+        if (value == null) {
+            return NULL;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        int next = codes.size();
+        String[] current = values;
+        if (next == current.length) {
+            current = Arrays.copyOf(current, next * 2);
+        }
+        current[next] = value;
+        values = current; // publishes the new value, and the grown array if any
+        codes.put(value, next);
+        return next;
+    }
+
+    String decode(int code) {
+        return code == NULL ? null : values[code];
+    }
+
+    int size() {
+        return codes.size();
+    }
+}
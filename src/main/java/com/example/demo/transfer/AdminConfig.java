@@ -0,0 +1,20 @@
+package com.example.demo.transfer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class AdminConfig implements WebMvcConfigurer {
+    private final String token;
+
+    public AdminConfig(@Value("${orders.admin.token:}") String token) {
+        this.token = token;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AdminTokenInterceptor(token)).addPathPatterns("/admin", "/admin/**");
+    }
+}
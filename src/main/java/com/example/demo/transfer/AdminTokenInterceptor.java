@@ -0,0 +1,47 @@
+package com.example.demo.transfer;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Guards the admin endpoints, which can overwrite and dump every order: a request must carry
+ * {@code Authorization: Bearer <orders.admin.token>}. Without a configured token they are off,
+ * and every request is refused, so a deployment that forgets the token does not expose them.
+ */
+public class AdminTokenInterceptor implements HandlerInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger(AdminTokenInterceptor.class);
+    private static final String BEARER = "Bearer ";
+
+    private final byte[] token;
+
+    public AdminTokenInterceptor(String token) {
+        this.token = token == null || token.isBlank() ? null : token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (token == null) {
+            logger.warn("Refused {} {}: set orders.admin.token to enable the admin endpoints", request.getMethod(),
+                    request.getRequestURI());
+            response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            return false;
+        }
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        // Constant-time, so response times don't reveal how much of a guess was right
+        if (authorization == null || !authorization.startsWith(BEARER) || !MessageDigest.isEqual(token,
+                authorization.substring(BEARER.length()).getBytes(StandardCharsets.UTF_8))) {
+            logger.warn("Refused {} {}: missing or wrong admin token", request.getMethod(), request.getRequestURI());
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+            return false;
+        }
+        return true;
+    }
+}
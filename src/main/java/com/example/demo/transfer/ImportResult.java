@@ -0,0 +1,15 @@
+package com.example.demo.transfer;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import. {@code rows} counts lines (NDJSON) or records (CSV) read, headers
+ * excluded. {@code errors} lists the first rejected orders by the line they start on; {@code rejected}
+ * counts all of them.
+ */
+public record ImportResult(TransferFormat format, long rows, long imported, long rejected, List<Error> errors,
+                           long elapsedMillis, double rowsPerSecond) {
+
+    public record Error(long line, String message) {
+    }
+}
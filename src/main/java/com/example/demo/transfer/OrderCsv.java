@@ -0,0 +1,198 @@
+package com.example.demo.transfer;
+
+import com.example.demo.model.Money;
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderEntry;
+import com.example.demo.model.OrderStatus;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * CSV layout of orders: a header naming the columns, then one record per order entry with the
+ * order's columns repeated. Consecutive records with the same {@code id} form one order; without
+ * an id column every record is an order of one entry. Columns may come in any order, and only
+ * productCode, quantity and price are required; a restore also needs a numeric id. Fields holding a comma, quote or line break are
+ * quoted as in RFC 4180. Money is written in decimal units with two places.
+ */
+final class OrderCsv {
+    static final List<String> COLUMNS = List.of("id", "description", "orderDate", "status", "amount", "version",
+            "productCode", "productName", "quantity", "price");
+
+    // Positions of each column in the header, -1 where absent
+    private final int id;
+    private final int description;
+    private final int orderDate;
+    private final int status;
+    private final int amount;
+    private final int version;
+    private final int productCode;
+    private final int productName;
+    private final int quantity;
+    private final int price;
+
+    private OrderCsv(List<String> header) {
+        id = header.indexOf("id");
+        description = header.indexOf("description");
+        orderDate = header.indexOf("orderDate");
+        status = header.indexOf("status");
+        amount = header.indexOf("amount");
+        version = header.indexOf("version");
+        productCode = header.indexOf("productCode");
+        productName = header.indexOf("productName");
+        quantity = header.indexOf("quantity");
+        price = header.indexOf("price");
+    }
+
+    static OrderCsv forHeader(String header) {
+        List<String> columns = new ArrayList<>();
+        parseRecord(header, 0, columns);
+        columns.replaceAll(String::trim);
+        OrderCsv csv = new OrderCsv(columns);
+        if (csv.productCode < 0 || csv.quantity < 0 || csv.price < 0) {
+            throw new IllegalArgumentException("CSV header must name the productCode, quantity and price columns, got " + columns);
+        }
+        return csv;
+    }
+
+    static void writeHeader(Appendable out) throws IOException {
+        out.append(String.join(",", COLUMNS)).append('\n');
+    }
+
+    /** Writes the order's records and returns how many. */
+    static int write(Appendable out, Order order) throws IOException {
+        List<OrderEntry> entries = order.getEntries() == null || order.getEntries().isEmpty()
+                ? Collections.singletonList(null) : order.getEntries();
+        for (OrderEntry entry : entries) {
+            field(out, order.getId() == null ? null : order.getId().toString()).append(',');
+            field(out, order.getDescription()).append(',');
+            field(out, order.getOrderDate() == null ? null : order.getOrderDate().toString()).append(',');
+            field(out, order.getStatus() == null ? null : order.getStatus().name()).append(',');
+            field(out, order.hasAmount() ? decimal(order.getAmountCents()) : null).append(',');
+            field(out, order.getVersion() == null ? null : order.getVersion().toString()).append(',');
+            if (entry != null) {
+                field(out, entry.getProductCode()).append(',');
+                field(out, entry.getProductName()).append(',');
+                out.append(Integer.toString(entry.getQuantity())).append(',');
+                out.append(decimal(entry.getPriceCents()));
+            } else {
+                out.append(",,,");
+            }
+            out.append('\n');
+        }
+        return entries.size();
+    }
+
+    private static String decimal(long cents) {
+        return BigDecimal.valueOf(cents, 2).toPlainString();
+    }
+
+    private static Appendable field(Appendable out, String value) throws IOException {
+        if (value == null) {
+            return out;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return out.append('"').append(value.replace("\"", "\"\"")).append('"');
+            }
+        }
+        return out.append(value);
+    }
+
+    /**
+     * Parses the record starting at {@code position} into {@code fields} and returns the position
+     * after its newline. Carriage returns outside quotes are dropped.
+     */
+    static int parseRecord(String text, int position, List<String> fields) {
+        fields.clear();
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+        int i = position;
+        while (i < text.length()) {
+            char c = text.charAt(i++);
+            if (inQuotes) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i < text.length() && text.charAt(i) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    inQuotes = false;
+                }
+            } else if (c == '"') {
+                inQuotes = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return i;
+    }
+
+    boolean hasId() {
+        return id >= 0;
+    }
+
+    /** The value of the id column, which groups records into orders, or null if there is none. */
+    String key(List<String> fields) {
+        return value(fields, id);
+    }
+
+    /** A new order with the order columns of {@code fields} and no entries, and with its id if {@code withId}. */
+    Order order(List<String> fields, boolean withId) {
+        Order order = new Order();
+        String key = value(fields, id);
+        if (withId && key != null) {
+            order.setId(Long.parseLong(key));
+        }
+        order.setDescription(value(fields, description));
+        String date = value(fields, orderDate);
+        if (date != null) {
+            order.setOrderDate(LocalDate.parse(date));
+        }
+        String state = value(fields, status);
+        if (state != null) {
+            order.setStatus(OrderStatus.valueOf(state));
+        }
+        String total = value(fields, amount);
+        if (total != null) {
+            order.setAmountCents(Money.toCents(Double.parseDouble(total)));
+        }
+        String revision = value(fields, version);
+        if (revision != null) {
+            order.setVersion(Long.parseLong(revision));
+        }
+        order.setEntries(new ArrayList<>());
+        return order;
+    }
+
+    OrderEntry entry(List<String> fields) {
+        OrderEntry entry = new OrderEntry();
+        entry.setProductCode(value(fields, productCode));
+        entry.setProductName(value(fields, productName));
+        String count = value(fields, quantity);
+        entry.setQuantity(count == null ? 0 : Integer.parseInt(count));
+        String unitPrice = value(fields, price);
+        entry.setPriceCents(unitPrice == null ? 0 : Money.toCents(Double.parseDouble(unitPrice)));
+        return entry;
+    }
+
+    // Blank fields read as absent
+    private static String value(List<String> fields, int index) {
+        if (index < 0 || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index);
+        return value.isBlank() ? null : value;
+    }
+}
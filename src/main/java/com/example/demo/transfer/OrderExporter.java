@@ -0,0 +1,91 @@
+package com.example.demo.transfer;
+
+import com.example.demo.controller.NdjsonOrderWriter;
+import com.example.demo.model.Order;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Bulk export of orders as NDJSON or CSV. Orders are read one keyset page at a time and written
+ * as they come, so an export holds a single page however many orders there are, and the output is
+ * flushed after each page.
+ */
+public class OrderExporter {
+    private static final Logger logger = LoggerFactory.getLogger(OrderExporter.class);
+    static final String ROWS = "orders.export.rows";
+
+    private final ObjectMapper objectMapper;
+    private final int pageSize;
+    private final Map<TransferFormat, Counter> rows = new EnumMap<>(TransferFormat.class);
+
+    public OrderExporter(ObjectMapper objectMapper, MeterRegistry registry, int pageSize) {
+        this.objectMapper = objectMapper;
+        this.pageSize = pageSize;
+        for (TransferFormat format : TransferFormat.values()) {
+            rows.put(format, Counter.builder(ROWS)
+                    .description("Lines or CSV records written by bulk exports")
+                    .tag("format", format.name())
+                    .register(registry));
+        }
+    }
+
+    /**
+     * Writes every order {@code pages} returns, as {@code OrderService.getOrders} does, and
+     * returns the number of lines or CSV records written, header excluded. Does not close {@code out}.
+     */
+    public long exportTo(OutputStream out, TransferFormat format, BiFunction<Long, Integer, List<Order>> pages)
+            throws IOException {
+        long start = System.nanoTime();
+        Counter counter = rows.get(format);
+        long written;
+        if (format == TransferFormat.NDJSON) {
+            written = new NdjsonOrderWriter((after, limit) -> {
+                List<Order> page = pages.apply(after, limit);
+                counter.increment(page.size());
+                return page;
+            }, objectMapper, pageSize).writeAll(out);
+        } else {
+            written = writeCsv(out, pages, counter);
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        logger.info("Exported {} {} rows in {} ms", written, format, millis);
+        return written;
+    }
+
+    private long writeCsv(OutputStream out, BiFunction<Long, Integer, List<Order>> pages, Counter counter) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        OrderCsv.writeHeader(writer);
+        long written = 0;
+        Long cursor = null;
+        List<Order> page;
+        do {
+            page = pages.apply(cursor, pageSize);
+            long records = 0;
+            for (Order order : page) {
+                records += OrderCsv.write(writer, order);
+            }
+            writer.flush();
+            counter.increment(records);
+            written += records;
+            if (!page.isEmpty()) {
+                cursor = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == pageSize);
+        return written;
+    }
+}
@@ -0,0 +1,393 @@
+package com.example.demo.transfer;
+
+import com.example.demo.model.BatchResult;
+import com.example.demo.model.Money;
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderEntry;
+import com.example.demo.model.OrderStatus;
+import com.example.demo.service.OrderService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+
+/**
+ * Bulk import of NDJSON or CSV order dumps. The calling thread splits the input into chunks of
+ * whole records ({@link RecordReader}) and a pool parses and validates the chunks in parallel,
+ * checking each order's amount, where given, against the total of its entries. The calling thread
+ * then creates each chunk's valid orders through {@link OrderService#createOrders}, in input order.
+ * At most twice {@code parallelism} chunks are in flight, which bounds memory whatever the size
+ * of the input.
+ * <p>
+ * An import creates its orders: they get new ids and start as CREATED, as every created order
+ * does, so an order in any other status is rejected rather than silently reopened. A restore puts
+ * exported orders back through {@link OrderService#restoreOrders} with their ids, statuses and
+ * versions; each order must carry its id, and in a cluster be owned by this node.
+ */
+public class OrderImporter implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(OrderImporter.class);
+    static final String ROWS = "orders.import.rows";
+    static final String ORDERS = "orders.import.orders";
+    static final int MAX_ERRORS = 100;
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final int READ_BUFFER_SIZE = 1 << 20;
+
+    private final OrderService orderService;
+    private final ObjectMapper objectMapper;
+    private final int parallelism;
+    private final int chunkSize;
+    private final ForkJoinPool pool;
+    // Whether this node owns an id, and so may restore the order
+    private final LongPredicate isLocal;
+    private final Counter rows;
+    private final Counter imported;
+    private final Counter rejected;
+
+    // Parsing outcome of one chunk: valid orders with the line each starts on, and the rejected ones
+    private record Parsed(List<Order> orders, List<Long> lines, List<ImportResult.Error> errors, long rows) {
+    }
+
+    public OrderImporter(OrderService orderService, ObjectMapper objectMapper, MeterRegistry registry,
+                         int parallelism, int chunkSize) {
+        this(orderService, objectMapper, registry, parallelism, chunkSize, id -> true);
+    }
+
+    public OrderImporter(OrderService orderService, ObjectMapper objectMapper, MeterRegistry registry,
+                         int parallelism, int chunkSize, LongPredicate isLocal) {
+        if (parallelism <= 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("parallelism and chunkSize must be positive");
+        }
+        this.orderService = orderService;
+        this.objectMapper = objectMapper;
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+        this.pool = new ForkJoinPool(parallelism);
+        this.isLocal = isLocal;
+        this.rows = Counter.builder(ROWS)
+                .description("Lines or CSV records read by bulk imports")
+                .register(registry);
+        this.imported = Counter.builder(ORDERS)
+                .description("Orders read by bulk imports")
+                .tag("result", "imported")
+                .register(registry);
+        this.rejected = Counter.builder(ORDERS)
+                .description("Orders read by bulk imports")
+                .tag("result", "rejected")
+                .register(registry);
+    }
+
+    /** Imports every order in {@code channel}, which is read to the end but not closed. */
+    public ImportResult importFrom(ReadableByteChannel channel, TransferFormat format) throws IOException {
+        return importFrom(channel, format, false);
+    }
+
+    /** As {@link #importFrom(ReadableByteChannel, TransferFormat)}, restoring the orders instead if {@code restore}. */
+    public ImportResult importFrom(ReadableByteChannel channel, TransferFormat format, boolean restore) throws IOException {
+        Progress progress = new Progress(format);
+        RecordReader reader = new RecordReader(channel, format == TransferFormat.CSV, READ_BUFFER_SIZE);
+        Function<RecordReader.Chunk, Parsed> parser;
+        RecordReader.RecordKey key = null;
+        if (format == TransferFormat.CSV) {
+            RecordReader.Chunk header = reader.next(1, null);
+            if (header == null) {
+                throw new IllegalArgumentException("CSV import has no header");
+            }
+            OrderCsv csv = OrderCsv.forHeader(new String(header.bytes(), StandardCharsets.UTF_8));
+            if (restore && !csv.hasId()) {
+                throw new IllegalArgumentException("CSV restore needs the id column");
+            }
+            parser = chunk -> parseCsv(chunk, csv, restore);
+            if (csv.hasId()) {
+                List<String> fields = new ArrayList<>();
+                key = (data, from, to) -> {
+                    OrderCsv.parseRecord(new String(data, from, to - from, StandardCharsets.UTF_8), 0, fields);
+                    return csv.key(fields);
+                };
+            }
+        } else {
+            parser = chunk -> parseNdjson(chunk, restore);
+        }
+        logger.info("{} {} orders with {} parsers", restore ? "Restoring" : "Importing", format, parallelism);
+        Deque<CompletableFuture<Parsed>> inFlight = new ArrayDeque<>();
+        try {
+            RecordReader.Chunk chunk;
+            while ((chunk = reader.next(chunkSize, key)) != null) {
+                RecordReader.Chunk next = chunk;
+                inFlight.add(CompletableFuture.supplyAsync(() -> parser.apply(next), pool));
+                if (inFlight.size() >= 2 * parallelism) {
+                    insert(inFlight.poll(), progress, restore);
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                insert(inFlight.poll(), progress, restore);
+            }
+        } finally {
+            inFlight.forEach(future -> future.cancel(false));
+        }
+        ImportResult result = progress.result();
+        logger.info("{} {} orders from {} rows, {} rejected, in {} ms ({} rows/s)", restore ? "Restored" : "Imported", result.imported(),
+                result.rows(), result.rejected(), result.elapsedMillis(), Math.round(result.rowsPerSecond()));
+        return result;
+    }
+
+    private void insert(CompletableFuture<Parsed> future, Progress progress, boolean restore) {
+        Parsed parsed;
+        try {
+            parsed = future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        long created = 0;
+        if (!parsed.orders().isEmpty()) {
+            List<BatchResult> results = restore ? orderService.restoreOrders(parsed.orders())
+                    : orderService.createOrders(parsed.orders());
+            for (int i = 0; i < results.size(); i++) {
+                BatchResult result = results.get(i);
+                if (result.getOutcome() == BatchResult.Outcome.CREATED) {
+                    created++;
+                } else {
+                    progress.reject(new ImportResult.Error(parsed.lines().get(i), result.getError()));
+                }
+            }
+        }
+        parsed.errors().forEach(progress::reject);
+        progress.add(parsed.rows(), created);
+    }
+
+    private Parsed parseNdjson(RecordReader.Chunk chunk, boolean restore) {
+        byte[] bytes = chunk.bytes();
+        Parsed parsed = new Parsed(new ArrayList<>(chunkSize), new ArrayList<>(chunkSize), new ArrayList<>(), countLines(bytes));
+        long line = chunk.firstLine();
+        for (int start = 0; start < bytes.length; line++) {
+            int end = start;
+            while (end < bytes.length && bytes[end] != '\n') {
+                end++;
+            }
+            if (!isBlank(bytes, start, end)) {
+                try {
+                    accept(parsed, objectMapper.readValue(bytes, start, end - start, Order.class), line, restore);
+                } catch (JsonProcessingException e) {
+                    parsed.errors().add(new ImportResult.Error(line, "Malformed order: " + e.getOriginalMessage()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            start = end + 1;
+        }
+        return parsed;
+    }
+
+    private Parsed parseCsv(RecordReader.Chunk chunk, OrderCsv csv, boolean restore) {
+        String text = new String(chunk.bytes(), StandardCharsets.UTF_8);
+        Parsed parsed = new Parsed(new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), 0);
+        List<String> fields = new ArrayList<>();
+        long rows = 0;
+        long line = chunk.firstLine();
+        boolean started = false;
+        Order order = null;
+        String orderKey = null;
+        long orderLine = 0;
+        String error = null;
+        for (int position = 0; position < text.length(); ) {
+            int next = OrderCsv.parseRecord(text, position, fields);
+            long recordLine = line;
+            for (int i = position; i < next; i++) {
+                if (text.charAt(i) == '\n') {
+                    line++;
+                }
+            }
+            position = next;
+            if (fields.size() == 1 && fields.get(0).isBlank()) {
+                continue;
+            }
+            rows++;
+            String key = csv.key(fields);
+            if (!started || key == null || !key.equals(orderKey)) {
+                finish(parsed, order, orderLine, error, restore);
+                started = true;
+                order = null;
+                orderKey = key;
+                orderLine = recordLine;
+                error = null;
+                try {
+                    order = csv.order(fields, restore);
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    error = "Invalid record: " + e.getMessage();
+                }
+            }
+            if (error == null) {
+                try {
+                    order.getEntries().add(csv.entry(fields));
+                } catch (IllegalArgumentException e) {
+                    error = "Invalid record on line " + recordLine + ": " + e.getMessage();
+                }
+            }
+        }
+        finish(parsed, order, orderLine, error, restore);
+        return new Parsed(parsed.orders(), parsed.lines(), parsed.errors(), rows);
+    }
+
+    // An invalid order's later records are still grouped with it, so they are rejected with it
+    private void finish(Parsed parsed, Order order, long line, String error, boolean restore) {
+        if (error != null) {
+            parsed.errors().add(new ImportResult.Error(line, error));
+        } else if (order != null) {
+            accept(parsed, order, line, restore);
+        }
+    }
+
+    // Validates the order and fills in its total
+    private void accept(Parsed parsed, Order order, long line, boolean restore) {
+        String error = restore ? checkRestore(order) : checkCreate(order);
+        if (error == null) {
+            error = validate(order);
+        }
+        if (error != null) {
+            parsed.errors().add(new ImportResult.Error(line, error));
+            return;
+        }
+        parsed.orders().add(order);
+        parsed.lines().add(line);
+    }
+
+    private static String checkCreate(Order order) {
+        if (order.getStatus() != null && order.getStatus() != OrderStatus.CREATED) {
+            return "Order is " + order.getStatus() + ", but an import creates orders as CREATED; restore it to keep its status";
+        }
+        return null;
+    }
+
+    private String checkRestore(Order order) {
+        if (order.getId() == null) {
+            return "Restored order must have an id";
+        }
+        if (!isLocal.test(order.getId())) {
+            return "Order " + order.getId() + " belongs to another node; restore it there";
+        }
+        return null;
+    }
+
+    // Returns why the order can't be imported, or null if it can; sets its amount to the entries' total
+    static String validate(Order order) {
+        List<OrderEntry> entries = order.getEntries();
+        if (entries == null || entries.isEmpty()) {
+            return "Order must have at least one entry";
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            OrderEntry entry = entries.get(i);
+            if (entry == null || entry.getProductCode() == null || entry.getProductCode().isBlank()) {
+                return "Entry " + i + " has no productCode";
+            }
+            if (entry.getQuantity() <= 0) {
+                return "Entry " + i + " has quantity " + entry.getQuantity() + ", which must be positive";
+            }
+            if (entry.getPriceCents() < 0) {
+                return "Entry " + i + " has a negative price";
+            }
+        }
+        long total;
+        try {
+            total = Money.total(entries);
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+        if (order.hasAmount() && order.getAmountCents() != total) {
+            return "Amount " + Money.toDouble(order.getAmountCents()) + " does not match the entries' total "
+                    + Money.toDouble(total);
+        }
+        order.setAmountCents(total);
+        return null;
+    }
+
+    private static long countLines(byte[] bytes) {
+        long lines = 0;
+        for (int start = 0; start < bytes.length; ) {
+            int end = start;
+            while (end < bytes.length && bytes[end] != '\n') {
+                end++;
+            }
+            if (!isBlank(bytes, start, end)) {
+                lines++;
+            }
+            start = end + 1;
+        }
+        return lines;
+    }
+
+    private static boolean isBlank(byte[] bytes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] != ' ' && bytes[i] != '\t' && bytes[i] != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    // Totals of one import, kept by the calling thread; logs progress as chunks complete
+    private final class Progress {
+        private final TransferFormat format;
+        private final long start = System.nanoTime();
+        private long lastLog = start;
+        private long rowCount;
+        private long importedCount;
+        private long rejectedCount;
+        private final List<ImportResult.Error> errors = new ArrayList<>();
+
+        Progress(TransferFormat format) {
+            this.format = format;
+        }
+
+        void reject(ImportResult.Error error) {
+            rejectedCount++;
+            rejected.increment();
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(error);
+            }
+        }
+
+        void add(long rowsRead, long created) {
+            rowCount += rowsRead;
+            importedCount += created;
+            rows.increment(rowsRead);
+            imported.increment(created);
+            long now = System.nanoTime();
+            if (now - lastLog >= PROGRESS_INTERVAL_NANOS) {
+                lastLog = now;
+                logger.info("Import progress: {} rows, {} imported, {} rejected, {} rows/s", rowCount, importedCount,
+                        rejectedCount, Math.round(rowCount / ((now - start) / 1e9)));
+            }
+        }
+
+        ImportResult result() {
+            long elapsed = System.nanoTime() - start;
+            return new ImportResult(format, rowCount, importedCount, rejectedCount, List.copyOf(errors),
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), elapsed == 0 ? 0 : rowCount / (elapsed / 1e9));
+        }
+    }
+}
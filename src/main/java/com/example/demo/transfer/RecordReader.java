@@ -0,0 +1,104 @@
+package com.example.demo.transfer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Splits a channel into chunks of whole newline-terminated records without decoding them, so one
+ * thread can feed several parsers. Only the record boundaries are found here: a newline inside
+ * double quotes does not end a CSV record. Bytes are read into one reusable buffer, which only
+ * grows if a single chunk outgrows it.
+ */
+final class RecordReader {
+    /** Identifies the order a record belongs to, so that a chunk never splits one. */
+    interface RecordKey {
+        String of(byte[] data, int from, int to);
+    }
+
+    /** Whole records, the first of which starts on line {@code firstLine}. */
+    record Chunk(byte[] bytes, long firstLine) {
+    }
+
+    private final ReadableByteChannel channel;
+    private final boolean quoted;
+    private byte[] data;
+    private int length;
+    private boolean eof;
+    private long line = 1;
+
+    RecordReader(ReadableByteChannel channel, boolean quoted, int bufferSize) {
+        this.channel = channel;
+        this.quoted = quoted;
+        this.data = new byte[bufferSize];
+    }
+
+    /**
+     * Returns the next {@code maxRecords} records, or null at the end of the channel. With a
+     * {@code key}, the chunk runs on past {@code maxRecords} until the next record starts a new key.
+     */
+    Chunk next(int maxRecords, RecordKey key) throws IOException {
+        int scanned = 0;
+        int recordStart = 0;
+        int records = 0;
+        boolean inQuotes = false;
+        int cut = -1;
+        String cutKey = null;
+        while (true) {
+            if (scanned == length && !fill()) {
+                return length == 0 ? null : emit(length);
+            }
+            byte b = data[scanned++];
+            if (b == '"' && quoted) {
+                inQuotes = !inQuotes;
+            } else if (b == '\n' && !inQuotes) {
+                if (cut >= 0) {
+                    if (!Objects.equals(key.of(data, recordStart, scanned), cutKey)) {
+                        return emit(cut);
+                    }
+                    cut = scanned;
+                } else if (++records >= maxRecords) {
+                    if (key == null) {
+                        return emit(scanned);
+                    }
+                    cut = scanned;
+                    cutKey = key.of(data, recordStart, scanned);
+                }
+                recordStart = scanned;
+            }
+        }
+    }
+
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        if (length == data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        int read;
+        do {
+            read = channel.read(ByteBuffer.wrap(data, length, data.length - length));
+        } while (read == 0);
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        length += read;
+        return true;
+    }
+
+    private Chunk emit(int end) {
+        Chunk chunk = new Chunk(Arrays.copyOf(data, end), line);
+        for (int i = 0; i < end; i++) {
+            if (data[i] == '\n') {
+                line++;
+            }
+        }
+        System.arraycopy(data, end, data, 0, length - end);
+        length -= end;
+        return chunk;
+    }
+}
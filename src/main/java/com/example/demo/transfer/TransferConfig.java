@@ -0,0 +1,29 @@
+package com.example.demo.transfer;
+
+import com.example.demo.cluster.Partitioning;
+import com.example.demo.controller.NdjsonOrderWriter;
+import com.example.demo.service.OrderService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class TransferConfig {
+
+    /** Parses on every core unless orders.transfer.parallelism says otherwise. */
+    @Bean
+    public OrderImporter orderImporter(OrderService orderService, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                       Partitioning partitioning,
+                                       @Value("${orders.transfer.parallelism:0}") int parallelism,
+                                       @Value("${orders.transfer.chunk-size:1000}") int chunkSize) {
+        int parsers = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        return new OrderImporter(orderService, objectMapper, meterRegistry, parsers, chunkSize, partitioning::isLocal);
+    }
+
+    @Bean
+    public OrderExporter orderExporter(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        return new OrderExporter(objectMapper, meterRegistry, NdjsonOrderWriter.DEFAULT_PAGE_SIZE);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.demo.transfer;
+
+/** File formats for bulk import and export of orders. */
+public enum TransferFormat {
+    /** One order per line as JSON, the same shape as the API's. */
+    NDJSON("application/x-ndjson"),
+    /** One row per order entry, with the order's columns repeated on each; see {@link OrderCsv}. */
+    CSV("text/csv");
+
+    private final String mediaType;
+
+    TransferFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String mediaType() {
+        return mediaType;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.demo.service.impl;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Decides whether a recorded concurrent history is linearizable: whether some total order of its
+ * calls, one that keeps every call that returned before another was invoked ahead of it, makes
+ * the sequential model produce every observed result. Depth-first search in the style of Wing and
+ * Gong, with Lowe's memoization of (calls left, model state) pairs already shown to be dead ends.
+ * Histories are limited to {@link #MAX_CALLS} calls, which keeps the pending set in a long.
+ */
+final class LinearizabilityChecker {
+    static final int MAX_CALLS = Long.SIZE;
+
+    /** One completed call, with the {@link System#nanoTime()} of its invocation and of its return. */
+    record Call<O, R>(int thread, O op, R result, long invoked, long returned) {
+    }
+
+    record Step<S, R>(R result, S next) {
+    }
+
+    interface Model<S, O, R> {
+        /** What {@code op} returns in {@code state}, and the state it leaves behind. */
+        Step<S, R> apply(S state, O op);
+    }
+
+    private record Config(long pending, Object state) {
+    }
+
+    private LinearizabilityChecker() {
+    }
+
+    static <S, O, R> boolean isLinearizable(List<Call<O, R>> history, S initial, Model<S, O, R> model) {
+        if (history.size() > MAX_CALLS) {
+            throw new IllegalArgumentException("Histories are limited to " + MAX_CALLS + " calls, got " + history.size());
+        }
+        List<Call<O, R>> calls = history.stream().sorted(Comparator.comparingLong(Call::invoked)).toList();
+        long all = calls.size() == MAX_CALLS ? -1L : (1L << calls.size()) - 1;
+        return search(calls, all, initial, model, new HashSet<>());
+    }
+
+    private static <S, O, R> boolean search(List<Call<O, R>> calls, long pending, S state, Model<S, O, R> model,
+                                            Set<Config> dead) {
+        if (pending == 0) {
+            return true;
+        }
+        // Only a call invoked before every pending call has returned can take effect next
+        long firstReturn = Long.MAX_VALUE;
+        for (long p = pending; p != 0; p &= p - 1) {
+            firstReturn = Math.min(firstReturn, calls.get(Long.numberOfTrailingZeros(p)).returned());
+        }
+        for (long p = pending; p != 0; p &= p - 1) {
+            int i = Long.numberOfTrailingZeros(p);
+            Call<O, R> call = calls.get(i);
+            if (call.invoked() > firstReturn) {
+                break; // sorted by invocation, so no later call qualifies either
+            }
+            Step<S, R> step = model.apply(state, call.op());
+            long rest = pending & ~(1L << i);
+            if (step.result().equals(call.result()) && dead.add(new Config(rest, step.next()))
+                    && search(calls, rest, step.next(), model, dead)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderEntry;
+import com.example.demo.model.OrderStatus;
+import com.example.demo.service.VersionConflictException;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sequential specification of a single order under {@link OrderServiceImpl}: what a get, update
+ * or delete returns in a given state, and the state it leaves. Written from the documented rules
+ * rather than the implementation's code, so the two can disagree. A null state is an order that
+ * doesn't exist (never created, or deleted).
+ */
+final class OrderModel implements LinearizabilityChecker.Model<OrderModel.View, OrderModel.Op, OrderModel.Outcome> {
+    static final OrderModel INSTANCE = new OrderModel();
+
+    private static final Map<OrderStatus, Set<OrderStatus>> LEGAL = new EnumMap<>(Map.of(
+            OrderStatus.CREATED, EnumSet.of(OrderStatus.PROCESSING),
+            OrderStatus.PROCESSING, EnumSet.of(OrderStatus.COMPLETED, OrderStatus.CANCELLED),
+            OrderStatus.COMPLETED, EnumSet.noneOf(OrderStatus.class),
+            OrderStatus.CANCELLED, EnumSet.noneOf(OrderStatus.class)));
+
+    record Line(String productCode, int quantity, long priceCents) {
+    }
+
+    /** Everything a caller can observe of an order, copied when the call returns. */
+    record View(OrderStatus status, long version, String description, long amountCents, List<Line> entries) {
+        static View of(Order order) {
+            if (order == null) {
+                return null;
+            }
+            List<Line> lines = order.getEntries().stream()
+                    .map(entry -> new Line(entry.getProductCode(), entry.getQuantity(), entry.getPriceCents()))
+                    .toList();
+            return new View(order.getStatus(), order.getVersion(), order.getDescription(), order.getAmountCents(), lines);
+        }
+
+        /** Whether the amount is the total of the entries, as it must be in every order a caller sees. */
+        boolean consistent() {
+            return amountCents == total(entries);
+        }
+    }
+
+    sealed interface Op permits Get, Update, Delete {
+    }
+
+    record Get() implements Op {
+    }
+
+    /** Null fields are left unchanged, as in an update request. */
+    record Update(String description, List<Line> entries, OrderStatus status, Long expectedVersion) implements Op {
+        Order request() {
+            List<OrderEntry> requested = entries == null ? null : entries.stream()
+                    .map(line -> {
+                        OrderEntry entry = new OrderEntry(line.productCode(), line.productCode(), line.quantity(), 0);
+                        entry.setPriceCents(line.priceCents());
+                        return entry;
+                    })
+                    .toList();
+            return new Order(null, description, null, null, status, requested);
+        }
+    }
+
+    record Delete() implements Op {
+    }
+
+    /** The order returned, if any, or the type of exception thrown. */
+    record Outcome(View order, Class<? extends RuntimeException> error) {
+        static final Outcome NONE = new Outcome(null, null);
+
+        static Outcome of(View order) {
+            return new Outcome(order, null);
+        }
+
+        static Outcome thrown(RuntimeException e) {
+            return new Outcome(null, e.getClass());
+        }
+    }
+
+    private OrderModel() {
+    }
+
+    @Override
+    public LinearizabilityChecker.Step<View, Outcome> apply(View state, Op op) {
+        return switch (op) {
+            case Get get -> step(Outcome.of(state), state);
+            case Delete delete -> {
+                if (state != null && state.status() == OrderStatus.COMPLETED) {
+                    yield step(new Outcome(null, IllegalStateException.class), state);
+                }
+                yield step(Outcome.NONE, null); // deleting a missing order is not an error
+            }
+            case Update update -> update(state, update);
+        };
+    }
+
+    private static LinearizabilityChecker.Step<View, Outcome> update(View state, Update update) {
+        if (state == null) {
+            return step(new Outcome(null, IllegalArgumentException.class), null);
+        }
+        if (update.expectedVersion() != null && update.expectedVersion() != state.version()) {
+            return step(new Outcome(null, VersionConflictException.class), state);
+        }
+        if (LEGAL.get(state.status()).isEmpty()) {
+            return step(new Outcome(null, IllegalStateException.class), state);
+        }
+        OrderStatus status = state.status();
+        if (update.status() != null && update.status() != status) {
+            if (!LEGAL.get(status).contains(update.status())) {
+                return step(new Outcome(null, IllegalStateException.class), state);
+            }
+            status = update.status();
+        }
+        String description = update.description() != null ? update.description() : state.description();
+        List<Line> entries = update.entries() != null && !update.entries().isEmpty() ? update.entries() : state.entries();
+        View next = new View(status, state.version() + 1, description, total(entries), entries);
+        return step(Outcome.of(next), next);
+    }
+
+    private static long total(List<Line> entries) {
+        return entries.stream().mapToLong(line -> line.quantity() * line.priceCents()).sum();
+    }
+
+    private static LinearizabilityChecker.Step<View, Outcome> step(Outcome outcome, View next) {
+        return new LinearizabilityChecker.Step<>(outcome, next);
+    }
+}
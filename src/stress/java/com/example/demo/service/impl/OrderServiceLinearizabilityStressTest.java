@@ -0,0 +1,241 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.BatchResult;
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderEntry;
+import com.example.demo.model.OrderStatus;
+import com.example.demo.persistence.OrderJournal;
+import com.example.demo.service.impl.LinearizabilityChecker.Call;
+import com.example.demo.service.impl.OrderModel.Line;
+import com.example.demo.service.impl.OrderModel.Outcome;
+import com.example.demo.service.impl.OrderModel.View;
+import com.example.demo.store.HeapOrderStore;
+import com.example.demo.store.OffHeapOrderStore;
+import com.example.demo.store.StoreEngine;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Races gets, updates, status transitions and deletes on a few orders per round, with creates
+ * allocating ids alongside, and records every call with its invocation and return time. Each
+ * order's history must then be linearizable against {@link OrderModel}: some sequential order of
+ * the calls, consistent with which call finished before which began, explains every result, so
+ * no transition skips the legal graph, no version is lost and no caller sees an amount that isn't
+ * the total of the entries beside it. Across the run, created ids must be unique and gap-free.
+ * <p>
+ * Lives in src/stress/java and runs with {@code mvn -Pstress test}; {@code -Dstress.rounds=}
+ * and {@code -Dstress.threads=} scale it. However many threads race, each order takes at most
+ * {@link LinearizabilityChecker#MAX_CALLS} calls a round, the final read included; once an order's
+ * budget is spent, calls go to the others, and once every budget is, the threads stop early. A
+ * failure prints the offending history.
+ */
+class OrderServiceLinearizabilityStressTest {
+    private static final int ROUNDS = Integer.getInteger("stress.rounds", 2000);
+    private static final int THREADS = Integer.getInteger("stress.threads", 4);
+    private static final int KEYS = 3;
+    private static final int OPS_PER_THREAD = 8;
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    private record Recorded(long id, Call<OrderModel.Op, Outcome> call) {
+    }
+
+    @ParameterizedTest(name = "{0} store")
+    @EnumSource(StoreEngine.class)
+    void concurrentHistories_shouldBeLinearizable(StoreEngine engine) throws Exception {
+        OrderServiceImpl service = new OrderServiceImpl(Clock.fixed(Instant.parse("2024-01-01T10:00:00Z"), ZoneId.of("UTC")),
+                OrderJournal.NOOP, new CompositeMeterRegistry(),
+                engine == StoreEngine.OFF_HEAP ? new OffHeapOrderStore() : new HeapOrderStore());
+        Queue<Long> createdIds = new ConcurrentLinkedQueue<>();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        Random seeds = new Random(42);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                round(service, pool, seeds.nextLong(), createdIds);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Nothing else allocates ids, so every value of the counter was handed out exactly once
+        List<Long> sorted = createdIds.stream().sorted().toList();
+        assertEquals(LongStream.rangeClosed(1, sorted.size()).boxed().toList(), sorted, "ids must be unique and gap-free");
+    }
+
+    private void round(OrderServiceImpl service, ExecutorService pool, long seed, Queue<Long> createdIds) throws Exception {
+        long[] keys = new long[KEYS];
+        Map<Long, View> initial = new HashMap<>();
+        for (int k = 0; k < KEYS; k++) {
+            Order created = service.createOrder(newOrder(new Random(seed + k)));
+            keys[k] = created.getId();
+            createdIds.add(created.getId());
+            initial.put(created.getId(), View.of(created));
+        }
+
+        // Calls each order can still take this round, keeping one for the final read
+        AtomicIntegerArray budget = new AtomicIntegerArray(KEYS);
+        for (int k = 0; k < KEYS; k++) {
+            budget.set(k, LinearizabilityChecker.MAX_CALLS - 1);
+        }
+        Queue<Recorded> history = new ConcurrentLinkedQueue<>();
+        Queue<String> violations = new ConcurrentLinkedQueue<>();
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        List<Future<?>> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            Random random = new Random(seed * 31 + t);
+            threads.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPS_PER_THREAD; i++) {
+                    if (random.nextInt(4) == 0) {
+                        Thread.yield(); // vary the interleaving on machines with few cores
+                    }
+                    int kind = random.nextInt(100);
+                    if (kind >= 92) {
+                        create(service, random, createdIds, violations);
+                        continue;
+                    }
+                    int key = reserve(budget, random.nextInt(KEYS));
+                    if (key < 0) {
+                        break;
+                    }
+                    long id = keys[key];
+                    OrderModel.Op op = nextOp(kind, random);
+                    long invoked = System.nanoTime();
+                    Outcome outcome = call(service, id, op);
+                    long returned = System.nanoTime();
+                    if (outcome.order() != null && !outcome.order().consistent()) {
+                        violations.add("Order " + id + " returned with amount " + outcome.order().amountCents()
+                                + " but entries totalling otherwise: " + outcome.order());
+                    }
+                    history.add(new Recorded(id, new Call<>(thread, op, outcome, invoked, returned)));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> thread : threads) {
+            thread.get(30, TimeUnit.SECONDS);
+        }
+        assertTrue(violations.isEmpty(), () -> String.join("\n", violations));
+
+        // A final read of each order, after every racing call has returned, pins down the end state
+        for (long id : keys) {
+            long invoked = System.nanoTime();
+            Outcome outcome = call(service, id, new OrderModel.Get());
+            history.add(new Recorded(id, new Call<>(-1, new OrderModel.Get(), outcome, invoked, System.nanoTime())));
+        }
+
+        Map<Long, List<Call<OrderModel.Op, Outcome>>> byKey = history.stream()
+                .collect(Collectors.groupingBy(Recorded::id, Collectors.mapping(Recorded::call, Collectors.toList())));
+        for (long id : keys) {
+            List<Call<OrderModel.Op, Outcome>> calls = byKey.get(id);
+            assertTrue(LinearizabilityChecker.isLinearizable(calls, initial.get(id), OrderModel.INSTANCE),
+                    () -> describe(id, initial.get(id), calls));
+        }
+    }
+
+    // Takes one call from the budget of key, or of the next order that has one left; -1 if none has
+    private static int reserve(AtomicIntegerArray budget, int key) {
+        for (int i = 0; i < budget.length(); i++) {
+            int candidate = (key + i) % budget.length();
+            if (budget.getAndUpdate(candidate, left -> Math.max(left - 1, 0)) > 0) {
+                return candidate;
+            }
+        }
+        return -1;
+    }
+
+    private static OrderModel.Op nextOp(int kind, Random random) {
+        if (kind < 30) {
+            return new OrderModel.Get();
+        }
+        if (kind < 50) {
+            return new OrderModel.Update("Rewrite " + random.nextInt(1000), random.nextBoolean() ? lines(random) : null, null, null);
+        }
+        if (kind < 75) {
+            return new OrderModel.Update(null, null, STATUSES[random.nextInt(STATUSES.length)], null);
+        }
+        if (kind < 85) {
+            // Guess at the version, as a client with a stale read would
+            return new OrderModel.Update(null, lines(random), null, 1L + random.nextInt(4));
+        }
+        return new OrderModel.Delete();
+    }
+
+    private static Outcome call(OrderServiceImpl service, long id, OrderModel.Op op) {
+        try {
+            return switch (op) {
+                case OrderModel.Get get -> Outcome.of(View.of(service.getOrder(id)));
+                case OrderModel.Update update -> Outcome.of(View.of(service.updateOrder(id, update.request(), update.expectedVersion())));
+                case OrderModel.Delete delete -> {
+                    service.deleteOrder(id);
+                    yield Outcome.NONE;
+                }
+            };
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return Outcome.thrown(e);
+        }
+    }
+
+    private static void create(OrderServiceImpl service, Random random, Queue<Long> createdIds, Queue<String> violations) {
+        List<Order> created = new ArrayList<>();
+        if (random.nextBoolean()) {
+            created.add(service.createOrder(newOrder(random)));
+        } else {
+            List<Order> batch = new ArrayList<>();
+            for (int i = 0, n = 1 + random.nextInt(3); i < n; i++) {
+                batch.add(newOrder(random));
+            }
+            service.createOrders(batch).stream().map(BatchResult::getOrder).forEach(created::add);
+        }
+        for (Order order : created) {
+            createdIds.add(order.getId());
+            View view = View.of(order);
+            if (view.status() != OrderStatus.CREATED || view.version() != 1 || !view.consistent()) {
+                violations.add("Order " + order.getId() + " created as " + view);
+            }
+        }
+    }
+
+    private static Order newOrder(Random random) {
+        return new OrderModel.Update("Order", lines(random), null, null).request();
+    }
+
+    private static List<Line> lines(Random random) {
+        List<Line> lines = new ArrayList<>();
+        for (int i = 0, n = 1 + random.nextInt(3); i < n; i++) {
+            lines.add(new Line("P" + random.nextInt(5), 1 + random.nextInt(5), 100 + random.nextInt(10_000)));
+        }
+        return lines;
+    }
+
+    private static String describe(long id, View initial, List<Call<OrderModel.Op, Outcome>> calls) {
+        StringBuilder text = new StringBuilder("History of order " + id + " is not linearizable, starting from " + initial);
+        long origin = calls.stream().mapToLong(Call::invoked).min().orElse(0);
+        calls.stream().sorted((a, b) -> Long.compare(a.invoked(), b.invoked())).forEach(call -> text.append(String.format(
+                "%n  thread %2d  [%8d, %8d] ns  %s -> %s", call.thread(), call.invoked() - origin,
+                call.returned() - origin, call.op(), call.result())));
+        return text.toString();
+    }
+}
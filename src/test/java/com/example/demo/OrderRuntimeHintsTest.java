@@ -0,0 +1,30 @@
+package com.example.demo;
+
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderEntry;
+import com.example.demo.model.OrderStats;
+import com.example.demo.model.OrderStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderRuntimeHintsTest {
+
+    @Test
+    void registerHints_shouldCoverOrderSerialization() {
+        RuntimeHints hints = new RuntimeHints();
+        new OrderRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        assertTrue(RuntimeHintsPredicates.reflection().onType(Order.class)
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(Order.class, "getEntries").test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(Order.class, "setStatus").test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(OrderEntry.class, "getPrice").test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(OrderStatus.class).test(hints));
+        // Reached only through OrderStats' map values
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(OrderStats.Totals.class, "getRevenue").test(hints));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveLimiterTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private static void complete(AdaptiveLimiter limiter, long latencyNanos, int times) {
+        for (int i = 0; i < times; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(latencyNanos);
+        }
+    }
+
+    private static void hold(AdaptiveLimiter limiter, int permits) {
+        for (int i = 0; i < permits; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+    }
+
+    @Test
+    void tryAcquire_shouldRefuseBeyondTheLimitUntilAPermitIsReturned() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(4, 1, 100, 2.0);
+        hold(limiter, 4);
+
+        assertFalse(limiter.tryAcquire());
+        assertEquals(4, limiter.inFlight());
+
+        limiter.release();
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void limit_shouldShrinkWhenLatencyClimbsAndStopAtTheMinimum() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(50, 20, 500, 2.0);
+        complete(limiter, FAST, 200);
+        assertEquals(50, limiter.limit());
+
+        complete(limiter, SLOW, 20);
+        assertTrue(limiter.limit() < 40, "limit " + limiter.limit());
+
+        complete(limiter, SLOW, 200);
+        assertEquals(20, limiter.limit());
+    }
+
+    @Test
+    void limit_shouldGrowOnlyWhileItIsUsed() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(10, 1, 100, 2.0);
+        complete(limiter, FAST, 100);
+        assertEquals(10, limiter.limit());
+
+        // Growth stops once the load no longer fills half the limit
+        hold(limiter, 8);
+        complete(limiter, FAST, 100);
+        assertEquals(18, limiter.limit());
+    }
+
+    @Test
+    void constructor_shouldRejectInconsistentBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveLimiter(5, 10, 100, 2.0));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveLimiter(10, 1, 100, 0.5));
+    }
+}
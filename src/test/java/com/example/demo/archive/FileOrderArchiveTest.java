@@ -0,0 +1,245 @@
+package com.example.demo.archive;
+
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderEntry;
+import com.example.demo.model.OrderQuery;
+import com.example.demo.model.OrderStats;
+import com.example.demo.model.OrderStatus;
+import com.example.demo.persistence.FileOrderJournal;
+import com.example.demo.persistence.FsyncPolicy;
+import com.example.demo.persistence.OrderJournal;
+import com.example.demo.service.impl.OrderServiceImpl;
+import com.example.demo.service.OrderIdScheme;
+import com.example.demo.store.HeapOrderStore;
+import com.example.demo.store.OffHeapOrderStore;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileOrderArchiveTest {
+    private final Clock clock = Clock.fixed(Instant.parse("2024-03-01T10:00:00Z"), ZoneId.of("UTC"));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void get_shouldReadOrdersBackFromAnyBlockAndSegmentAfterReopening() {
+        try (FileOrderArchive archive = new FileOrderArchive(directory, 4)) {
+            archive.append(orders(LongStream.rangeClosed(1, 10)));
+            archive.append(orders(LongStream.of(12, 15, 20)));
+        }
+        try (FileOrderArchive archive = new FileOrderArchive(directory, 4)) {
+            assertEquals(13, archive.size());
+            for (long id : new long[]{1, 4, 5, 10, 12, 20}) {
+                Order order = archive.get(id);
+                assertEquals(id, order.getId());
+                assertEquals("Order " + id, order.getDescription());
+                assertEquals(OrderStatus.COMPLETED, order.getStatus());
+                assertEquals(3L, order.getVersion());
+                assertEquals("P" + id, order.getEntries().get(0).getProductCode());
+            }
+            assertNull(archive.get(11));
+            assertNull(archive.get(21));
+            assertTrue(archive.contains(15));
+            assertFalse(archive.contains(0));
+        }
+    }
+
+    @Test
+    void orders_shouldMergeOverlappingSegmentsInIdOrderFromTheCursor() {
+        try (FileOrderArchive archive = new FileOrderArchive(directory, 2)) {
+            archive.append(orders(LongStream.of(2, 4, 6, 8)));
+            archive.append(orders(LongStream.of(1, 5, 9)));
+            assertEquals(List.of(1L, 2L, 4L, 5L, 6L, 8L, 9L), ids(archive.orders(null)));
+            assertEquals(List.of(5L, 6L, 8L, 9L), ids(archive.orders(4L)));
+            assertEquals(List.of(), ids(archive.orders(9L)));
+        }
+    }
+
+    @Test
+    void open_shouldDiscardAnUnfinishedSegment() throws Exception {
+        Files.write(directory.resolve("segment-000000.seg.tmp"), new byte[]{1, 2, 3});
+        try (FileOrderArchive archive = new FileOrderArchive(directory, 4)) {
+            assertEquals(0, archive.size());
+            archive.append(orders(LongStream.of(1)));
+        }
+        try (FileOrderArchive archive = new FileOrderArchive(directory, 4)) {
+            assertEquals(1, archive.size());
+        }
+        assertFalse(Files.exists(directory.resolve("segment-000000.seg.tmp")));
+    }
+
+    @Test
+    void append_shouldMergeSegmentsSoTheirNumberStaysBounded() throws Exception {
+        try (FileOrderArchive archive = new FileOrderArchive(directory, 4, 3)) {
+            // Each run archives ids 10 * run + 1..3; run 0 also holds id 12, which run 1 archives again and merging keeps once
+            archive.append(orders(LongStream.of(1, 2, 3, 12)));
+            for (long run = 1; run < 40; run++) {
+                archive.append(orders(LongStream.rangeClosed(10 * run + 1, 10 * run + 3)));
+                assertTrue(archive.segmentCount() <= 3, () -> archive.segmentCount() + " segments");
+            }
+            assertEquals(120, archive.size());
+            assertEquals(120, ids(archive.orders(null)).size());
+            assertEquals(List.of(11L, 12L, 13L, 21L), ids(archive.orders(3L)).subList(0, 4));
+            assertEquals(archive.segmentCount(), directoryListing().size());
+        }
+        try (FileOrderArchive archive = new FileOrderArchive(directory, 4, 3)) {
+            assertEquals(120, archive.size());
+            assertEquals("Order 393", archive.get(393).getDescription());
+            assertTrue(archive.contains(1));
+            assertFalse(archive.contains(394));
+        }
+    }
+
+    @Test
+    void open_shouldDeleteSegmentsAMergeCoveredBeforeACrash() throws Exception {
+        try (FileOrderArchive archive = new FileOrderArchive(directory, 4)) {
+            archive.append(orders(LongStream.of(1, 2)));
+            archive.append(orders(LongStream.of(3, 4, 5)));
+        }
+        assertEquals(List.of("segment-000000-000001.seg"), directoryListing());
+        // As if the merged runs had not been deleted yet
+        Files.copy(directory.resolve("segment-000000-000001.seg"), directory.resolve("segment-000000.seg"));
+        Files.copy(directory.resolve("segment-000000-000001.seg"), directory.resolve("segment-000001.seg"));
+        try (FileOrderArchive archive = new FileOrderArchive(directory, 4)) {
+            assertEquals(1, archive.segmentCount());
+            assertEquals(List.of(1L, 2L, 3L, 4L, 5L), ids(archive.orders(null)));
+        }
+        assertEquals(List.of("segment-000000-000001.seg"), directoryListing());
+    }
+
+    @Test
+    void archive_shouldMoveOldTerminalOrdersOutOfMemoryAndKeepThemReadable() {
+        FileOrderArchive archive = new FileOrderArchive(directory.resolve("archive"), 4);
+        FileOrderJournal journal = new FileOrderJournal(directory.resolve("journal"), FsyncPolicy.ALWAYS, Duration.ofMillis(2));
+        OrderServiceImpl service = start(journal, archive);
+        Order completed = finish(service, service.createOrder(newOrder("Old", clock.instant(), 60)), OrderStatus.COMPLETED);
+        Order cancelled = finish(service, service.createOrder(newOrder("Old", clock.instant(), 40)), OrderStatus.CANCELLED);
+        Order recent = finish(service, service.createOrder(newOrder("Recent", clock.instant(), 5)), OrderStatus.COMPLETED);
+        Order open = service.createOrder(newOrder("Open", clock.instant(), 90));
+        OrderStats statsBefore = service.getStats(null, null);
+
+        assertEquals(2, service.archive(Period.ofDays(30), 100));
+
+        assertEquals(List.of(recent.getId(), open.getId()), ids(service.getAllOrders().iterator()));
+        assertEquals(List.of(completed.getId(), cancelled.getId(), recent.getId(), open.getId()),
+                ids(service.getAllOrders(true).iterator()));
+        assertEquals(List.of(cancelled.getId(), recent.getId()), ids(service.getOrders(completed.getId(), 2, true).iterator()));
+        OrderQuery completedOnly = new OrderQuery(OrderStatus.COMPLETED, null, null, null);
+        assertEquals(List.of(recent.getId()), ids(service.findOrders(completedOnly).iterator()));
+        assertEquals(List.of(completed.getId(), recent.getId()), ids(service.findOrders(completedOnly, true).iterator()));
+        assertEquals(completed.getVersion(), service.getOrder(completed.getId()).getVersion());
+        assertEquals(completedRevenue(statsBefore), completedRevenue(service.getStats(null, null)));
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> service.deleteOrder(cancelled.getId()));
+        assertEquals("Cannot delete archived order", e.getMessage());
+        assertThrows(IllegalStateException.class, () -> service.updateOrder(cancelled.getId(), newOrder("Again", clock.instant(), 0)));
+        assertEquals(0, service.archive(Period.ofDays(30), 100));
+        journal.close();
+        archive.close();
+
+        // The journal still holds the archived orders; they must not come back into memory
+        archive = new FileOrderArchive(directory.resolve("archive"), 4);
+        journal = new FileOrderJournal(directory.resolve("journal"), FsyncPolicy.ALWAYS, Duration.ofMillis(2));
+        OrderServiceImpl restarted = start(journal, archive);
+        assertEquals(List.of(recent.getId(), open.getId()), ids(restarted.getAllOrders().iterator()));
+        assertEquals(4, restarted.getAllOrders(true).size());
+        assertEquals(completedRevenue(statsBefore), completedRevenue(restarted.getStats(null, null)));
+        assertEquals(5L, restarted.createOrder(newOrder("Next", clock.instant(), 0)).getId());
+        journal.close();
+        archive.close();
+    }
+
+    @Test
+    void archive_shouldOnlyLoadTheOrdersOfOneRun() {
+        AtomicInteger loads = new AtomicInteger();
+        OffHeapOrderStore store = new OffHeapOrderStore() {
+            @Override
+            public Order get(long id) {
+                loads.incrementAndGet();
+                return super.get(id);
+            }
+        };
+        try (FileOrderArchive archive = new FileOrderArchive(directory, 4)) {
+            OrderServiceImpl service = new OrderServiceImpl(clock, OrderJournal.NOOP, new CompositeMeterRegistry(), store,
+                    OrderIdScheme.SEQUENTIAL, archive);
+            List<Long> completed = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                completed.add(finish(service, service.createOrder(newOrder("Old", clock.instant(), 60)), OrderStatus.COMPLETED).getId());
+            }
+            loads.set(0);
+
+            assertEquals(3, service.archive(Period.ofDays(30), 3));
+
+            assertEquals(3, loads.get());
+            assertEquals(completed.subList(0, 3), ids(archive.orders(null)));
+            assertEquals(7, service.getAllOrders().size());
+        }
+    }
+
+    private OrderServiceImpl start(FileOrderJournal journal, OrderArchive archive) {
+        OrderServiceImpl service = new OrderServiceImpl(clock, journal, new CompositeMeterRegistry(), new HeapOrderStore(),
+                OrderIdScheme.SEQUENTIAL, archive);
+        service.recover();
+        return service;
+    }
+
+    private static long completedRevenue(OrderStats stats) {
+        return stats.getByStatus().get(OrderStatus.COMPLETED).getRevenueCents();
+    }
+
+    private static Order finish(OrderServiceImpl service, Order order, OrderStatus status) {
+        Order processing = new Order();
+        processing.setStatus(OrderStatus.PROCESSING);
+        service.updateOrder(order.getId(), processing);
+        Order done = new Order();
+        done.setStatus(status);
+        return service.updateOrder(order.getId(), done);
+    }
+
+    private static Order newOrder(String description, Instant now, int daysAgo) {
+        Order order = new Order();
+        order.setDescription(description);
+        order.setOrderDate(LocalDate.ofInstant(now, ZoneId.of("UTC")).minusDays(daysAgo));
+        order.setEntries(List.of(new OrderEntry("P1", "Product 1", 1, 10.0)));
+        return order;
+    }
+
+    private static List<Order> orders(LongStream ids) {
+        return ids.mapToObj(id -> {
+            Order order = new Order(id, "Order " + id, null, LocalDate.of(2024, 1, 1),
+                    OrderStatus.COMPLETED, List.of(new OrderEntry("P" + id, "Product " + id, 2, 9.99)));
+            order.setVersion(3L);
+            return order;
+        }).toList();
+    }
+
+    private List<String> directoryListing() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    private static List<Long> ids(Iterator<Order> orders) {
+        List<Long> ids = new ArrayList<>();
+        orders.forEachRemaining(order -> ids.add(order.getId()));
+        return ids;
+    }
+}
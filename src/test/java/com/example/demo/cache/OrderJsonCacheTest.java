@@ -0,0 +1,98 @@
+package com.example.demo.cache;
+
+import com.example.demo.model.Order;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderJsonCacheTest {
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private static Order order(long id, long version, String description) {
+        Order order = new Order();
+        order.setId(id);
+        order.setVersion(version);
+        order.setDescription(description);
+        return order;
+    }
+
+    private OrderJsonCache cache(CacheEviction eviction, long maximumBytes) {
+        return new OrderJsonCache(objectMapper, eviction, maximumBytes, registry);
+    }
+
+    private static String json(OrderJsonCache.Entry entry) {
+        return new String(entry.json(), StandardCharsets.UTF_8);
+    }
+
+    @ParameterizedTest
+    @EnumSource(CacheEviction.class)
+    void get_shouldLoadOnceUntilInvalidated(CacheEviction eviction) {
+        OrderJsonCache cache = cache(eviction, 1 << 20);
+        AtomicInteger loads = new AtomicInteger();
+        Order[] current = {order(1, 1, "First")};
+
+        assertTrue(json(cache.get(1, id -> { loads.incrementAndGet(); return current[0]; })).contains("First"));
+        assertTrue(json(cache.get(1, id -> { loads.incrementAndGet(); return current[0]; })).contains("First"));
+        assertEquals(1, loads.get());
+
+        current[0] = order(1, 2, "Second");
+        cache.orderUpdated(null, current[0]);
+        OrderJsonCache.Entry entry = cache.get(1, id -> { loads.incrementAndGet(); return current[0]; });
+        assertEquals(2, entry.version());
+        assertTrue(json(entry).contains("Second"));
+
+        cache.orderDeleted(1);
+        assertNull(cache.get(1, id -> null));
+        assertEquals(1, registry.get(OrderJsonCache.REQUESTS).tag("result", "hit").counter().count());
+        assertEquals(3, registry.get(OrderJsonCache.REQUESTS).tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void get_shouldNotCacheALoadThatRacedWithAnUpdate() {
+        OrderJsonCache cache = cache(CacheEviction.W_TINY_LFU, 1 << 20);
+
+        // The update lands after the loader read version 1 but before the result is stored
+        OrderJsonCache.Entry stale = cache.get(1, id -> {
+            cache.orderUpdated(null, order(1, 2, "New"));
+            return order(1, 1, "Old");
+        });
+
+        assertEquals(1, stale.version());
+        OrderJsonCache.Entry fresh = cache.get(1, id -> order(1, 2, "New"));
+        assertEquals(2, fresh.version());
+    }
+
+    @Test
+    void lru_shouldStayWithinMaximumBytes() {
+        long maximumBytes = 20 * (OrderJsonCache.ENTRY_OVERHEAD + 64);
+        OrderJsonCache cache = cache(CacheEviction.LRU, maximumBytes);
+        for (long id = 1; id <= 100; id++) {
+            cache.get(id, id2 -> order(id2, 1, "Order"));
+        }
+
+        assertTrue(cache.size() < 100);
+        assertTrue(registry.get(OrderJsonCache.BYTES).gauge().value() <= maximumBytes);
+        assertEquals(100 - cache.size(), registry.get(OrderJsonCache.EVICTIONS).counter().count());
+    }
+
+    @Test
+    void disabled_shouldSerializeEveryTime() {
+        OrderJsonCache cache = OrderJsonCache.disabled(objectMapper);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1, id -> { loads.incrementAndGet(); return order(1, 1, "First"); });
+        cache.get(1, id -> { loads.incrementAndGet(); return order(1, 1, "First"); });
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.demo.cluster;
+
+import com.example.demo.DemoApplication;
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderPage;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Three application instances on localhost, partitioned over one id space. */
+class OrderClusterTest {
+    private static final int NODES = 3;
+    private static final String BODY = """
+            {"description": "Cluster", "entries": [{"productCode": "P1", "productName": "Product 1", "quantity": 2, "price": 5.00}]}
+            """;
+
+    private static final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+    private static final List<URI> urls = new ArrayList<>();
+    private static final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private static HttpClient client;
+
+    @BeforeAll
+    static void startNodes() throws Exception {
+        for (int i = 0; i < NODES; i++) {
+            try (ServerSocket socket = new ServerSocket(0)) {
+                urls.add(URI.create("http://localhost:" + socket.getLocalPort()));
+            }
+        }
+        String nodes = urls.stream().map(URI::toString).collect(Collectors.joining(","));
+        for (int i = 0; i < NODES; i++) {
+            contexts.add(SpringApplication.run(DemoApplication.class,
+                    "--server.port=" + urls.get(i).getPort(),
+                    "--management.server.port=0",
+                    "--orders.cluster.nodes=" + nodes,
+                    "--orders.cluster.node-id=" + i,
+                    "--orders.persistence.enabled=false",
+                    "--logging.level.com.example.demo=WARN"));
+        }
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        contexts.forEach(ConfigurableApplicationContext::close);
+        client.close();
+    }
+
+    @Test
+    void everyNode_shouldServeEveryOrder() throws Exception {
+        List<Long> created = new ArrayList<>();
+        for (int node = 0; node < NODES; node++) {
+            for (int i = 0; i < 3; i++) {
+                created.add(objectMapper.readValue(send(node, "POST", "/orders", BODY).body(), Order.class).getId());
+            }
+        }
+        assertEquals(created.size(), created.stream().distinct().count());
+
+        // Reads of another node's orders are forwarded to it
+        for (long id : created) {
+            for (int node = 0; node < NODES; node++) {
+                HttpResponse<String> response = send(node, "GET", "/orders/" + id, null);
+                assertEquals(200, response.statusCode());
+                assertEquals(id, objectMapper.readTree(response.body()).get("id").asLong());
+                assertEquals("\"1\"", response.headers().firstValue("ETag").orElseThrow());
+            }
+        }
+
+        // Listing, paging and stats cover all nodes: 3 created on each, plus the 2 each node seeds
+        List<Order> all = objectMapper.readValue(send(1, "GET", "/orders", null).body(), new TypeReference<>() {});
+        List<Long> allIds = all.stream().map(Order::getId).toList();
+        assertEquals(NODES * 5, allIds.size());
+        assertTrue(allIds.containsAll(created));
+        assertEquals(allIds.stream().sorted().toList(), allIds);
+
+        List<Long> paged = new ArrayList<>();
+        Long cursor = null;
+        do {
+            OrderPage page = objectMapper.readValue(send(2, "GET", "/orders?limit=4" + (cursor == null ? "" : "&after=" + cursor), null).body(), OrderPage.class);
+            page.getOrders().forEach(order -> paged.add(order.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(allIds, paged);
+
+        JsonNode stats = objectMapper.readTree(send(0, "GET", "/orders/stats", null).body());
+        assertEquals(NODES * 5, stats.get("byStatus").get("CREATED").get("count").asLong());
+        // Each node seeds one order with 2 of P1
+        assertEquals(NODES * (3 * 2 + 2), stats.get("byProduct").get("P1").get("quantity").asLong());
+
+        // Conditional update of a remote order: the owner's 412 and ETag are relayed
+        long remote = created.get(NODES * 3 - 1);
+        HttpResponse<String> conflict = send(0, "PUT", "/orders/" + remote, BODY, "If-Match", "\"7\"");
+        assertEquals(412, conflict.statusCode());
+        assertEquals("\"1\"", conflict.headers().firstValue("ETag").orElseThrow());
+
+        // A batch delete spanning every node, reported in request order
+        List<Long> toDelete = List.of(created.get(8), created.get(0), created.get(4), 999_999_999L);
+        JsonNode results = objectMapper.readTree(send(0, "POST", "/orders/batch/delete", objectMapper.writeValueAsString(toDelete)).body());
+        for (int i = 0; i < toDelete.size(); i++) {
+            assertEquals(i, results.get(i).get("index").asInt());
+            assertEquals(toDelete.get(i), results.get(i).get("id").asLong());
+            assertEquals(i < 3 ? "DELETED" : "NOT_FOUND", results.get(i).get("outcome").asText());
+        }
+        List<Order> remaining = objectMapper.readValue(send(2, "GET", "/orders", null).body(), new TypeReference<>() {});
+        assertEquals(NODES * 5 - 3, remaining.size());
+
+        // Creates with an idempotency key go to the key's owner, so a retry through any node is recognised
+        List<HttpResponse<String>> attempts = new ArrayList<>();
+        for (int node = 0; node < NODES; node++) {
+            attempts.add(send(node, "POST", "/orders", BODY, "Idempotency-Key", "cluster-retry"));
+        }
+        long idempotent = objectMapper.readTree(attempts.get(0).body()).get("id").asLong();
+        for (int node = 0; node < NODES; node++) {
+            assertEquals(200, attempts.get(node).statusCode());
+            assertEquals(idempotent, objectMapper.readTree(attempts.get(node).body()).get("id").asLong());
+            assertEquals(node > 0, attempts.get(node).headers().firstValue("Idempotent-Replayed").isPresent());
+        }
+        assertEquals(NODES * 5 - 2,
+                objectMapper.readValue(send(1, "GET", "/orders", null).body(), new TypeReference<List<Order>>() {}).size());
+    }
+
+    private static HttpResponse<String> send(int node, String method, String path, String body, String... headers) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(urls.get(node).resolve(path))
+                .header("Content-Type", "application/json")
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+        if (headers.length > 0) {
+            request.headers(headers);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.demo.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitioningTest {
+    private static final List<String> NODES = List.of("http://orders-0:8080", "http://orders-1:8080", "http://orders-2:8080");
+
+    @Test
+    void standalone_shouldUseSequenceNumbersAsIds() {
+        Partitioning partitioning = Partitioning.standalone();
+
+        assertEquals(42, partitioning.id(42));
+        assertEquals(42, partitioning.sequence(42));
+        assertTrue(partitioning.isLocal(12345));
+    }
+
+    @Test
+    void ids_shouldBeUniqueAcrossNodesAndRouteToTheNodeThatMadeThem() {
+        Set<Long> ids = new HashSet<>();
+        for (int node = 0; node < NODES.size(); node++) {
+            Partitioning partitioning = new Partitioning(NODES, node, 128);
+            for (long sequence = 1; sequence <= 10_000; sequence++) {
+                long id = partitioning.id(sequence);
+                assertTrue(id > 0);
+                assertTrue(ids.add(id), "duplicate id " + id);
+                assertEquals(node, partitioning.ownerOf(id));
+                assertEquals(sequence, partitioning.sequence(id));
+            }
+        }
+    }
+
+    @Test
+    void partitions_shouldBeSpreadOverEveryNodeTheSameWayOnEachNode() {
+        Partitioning first = new Partitioning(NODES, 0, 128);
+        Partitioning second = new Partitioning(NODES, 1, 128);
+        int[] owned = new int[NODES.size()];
+        for (int partition = 0; partition < Partitioning.PARTITIONS; partition++) {
+            assertEquals(first.ownerOfPartition(partition), second.ownerOfPartition(partition));
+            owned[first.ownerOfPartition(partition)]++;
+        }
+        for (int count : owned) {
+            // A fair share is 341 of 1024
+            assertTrue(count > 250 && count < 450, "unbalanced: " + count);
+        }
+    }
+
+    @Test
+    void addingANode_shouldOnlyMovePartitionsToIt() {
+        Partitioning three = new Partitioning(NODES, 0, 128);
+        List<String> four = List.of(NODES.get(0), NODES.get(1), NODES.get(2), "http://orders-3:8080");
+        Partitioning withFourth = new Partitioning(four, 0, 128);
+
+        int moved = 0;
+        for (int partition = 0; partition < Partitioning.PARTITIONS; partition++) {
+            if (three.ownerOfPartition(partition) != withFourth.ownerOfPartition(partition)) {
+                assertEquals(3, withFourth.ownerOfPartition(partition));
+                moved++;
+            }
+        }
+        assertTrue(moved > 0 && moved < Partitioning.PARTITIONS / 2, "moved " + moved);
+    }
+
+    @Test
+    void constructor_shouldRejectANodeIdOutsideTheList() {
+        assertThrows(IllegalArgumentException.class, () -> new Partitioning(NODES, 3, 128));
+    }
+}
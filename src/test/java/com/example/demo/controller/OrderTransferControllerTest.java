@@ -0,0 +1,57 @@
+package com.example.demo.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "orders.admin.token=s3cret")
+@AutoConfigureMockMvc
+class OrderTransferControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void adminEndpoints_shouldRequireTheToken() throws Exception {
+        mockMvc.perform(get("/admin/orders/export"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().string(HttpHeaders.WWW_AUTHENTICATE, "Bearer"));
+        mockMvc.perform(post("/admin/orders/import").contentType(OrdersController.APPLICATION_NDJSON_VALUE)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer s3cre")
+                        .content("{\"entries\": [{\"productCode\": \"P1\", \"quantity\": 1, \"price\": 1.0}]}"))
+                .andExpect(status().isUnauthorized());
+
+        mockMvc.perform(post("/admin/orders/import").contentType(OrdersController.APPLICATION_NDJSON_VALUE)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer s3cret")
+                        .content("{\"id\": 1000, \"status\": \"PROCESSING\", \"entries\": [{\"productCode\": \"P1\", \"quantity\": 1, \"price\": 1.0}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(0))
+                .andExpect(jsonPath("$.rejected").value(1));
+        mockMvc.perform(post("/admin/orders/import?restore=true").contentType(OrdersController.APPLICATION_NDJSON_VALUE)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer s3cret")
+                        .content("{\"id\": 1000, \"status\": \"PROCESSING\", \"entries\": [{\"productCode\": \"P1\", \"quantity\": 1, \"price\": 1.0}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1));
+        MvcResult export = mockMvc.perform(get("/admin/orders/export").header(HttpHeaders.AUTHORIZATION, "Bearer s3cret"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(export))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"id\":1000,")))
+                .andExpect(content().string(containsString("\"status\":\"PROCESSING\"")));
+    }
+}
@@ -0,0 +1,447 @@
+package com.example.demo.controller;
+
+import com.example.demo.cache.CacheEviction;
+import com.example.demo.cache.OrderJsonCache;
+import com.example.demo.cluster.OrderCluster;
+import com.example.demo.events.OrderEventLog;
+import com.example.demo.idempotency.IdempotencyStore;
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderEntry;
+import com.example.demo.model.OrderStatus;
+import com.example.demo.service.OrderService;
+import com.example.demo.service.impl.OrderServiceImpl;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// The service seeds two orders on startup, so the orders created here get ids 3..7
+@WebMvcTest(OrdersController.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class OrdersControllerTest {
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        OrderService orderService() {
+            return new OrderServiceImpl(Clock.fixed(Instant.parse("2024-01-01T10:00:00Z"), ZoneId.of("UTC")));
+        }
+
+        @Bean
+        OrderJsonCache orderJsonCache(OrderService orderService, ObjectMapper objectMapper) {
+            OrderJsonCache cache = new OrderJsonCache(objectMapper, CacheEviction.W_TINY_LFU, 1 << 20, new SimpleMeterRegistry());
+            orderService.addChangeListener(cache);
+            return cache;
+        }
+
+        @Bean
+        OrderCluster orderCluster(ObjectMapper objectMapper) {
+            return OrderCluster.standalone(objectMapper);
+        }
+
+        @Bean
+        IdempotencyStore idempotencyStore() {
+            return new IdempotencyStore(Clock.systemUTC(), Duration.ofHours(1), 1000, new SimpleMeterRegistry());
+        }
+
+        @Bean
+        OrderEventLog orderEventLog(OrderService orderService) {
+            OrderEventLog log = new OrderEventLog(1024);
+            orderService.addChangeListener(log);
+            return log;
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderEventLog orderEventLog;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 5; i++) {
+            orderService.createOrder(new Order(null, "Order " + i, null, null, null,
+                    List.of(new OrderEntry("P1", "Product 1", 1, 10.0))));
+        }
+    }
+
+    @Test
+    void getOrders_withLimit_shouldReturnPageAndCursor() throws Exception {
+        mockMvc.perform(get("/orders").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orders.length()").value(2))
+                .andExpect(jsonPath("$.orders[0].id").value(1))
+                .andExpect(jsonPath("$.nextCursor").value(2));
+
+        mockMvc.perform(get("/orders").param("limit", "10").param("after", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orders.length()").value(2))
+                .andExpect(jsonPath("$.orders[0].id").value(6))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void getAllOrders_withoutParams_shouldStillReturnJsonArray() throws Exception {
+        mockMvc.perform(get("/orders"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(7));
+    }
+
+    @Test
+    void streamOrders_shouldWriteOneJsonDocumentPerLine() throws Exception {
+        MvcResult result = mockMvc.perform(get("/orders").accept(OrdersController.APPLICATION_NDJSON_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", OrdersController.APPLICATION_NDJSON_VALUE))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(7, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":1,"));
+        assertTrue(lines[6].startsWith("{\"id\":7,"));
+    }
+
+    @Test
+    void getAllOrders_withFilters_shouldQueryIndexes() throws Exception {
+        orderService.createOrder(new Order(null, "Dated", null, java.time.LocalDate.of(2023, 6, 1), null,
+                List.of(new OrderEntry("P7", "Product 7", 1, 10.0))));
+
+        mockMvc.perform(get("/orders").param("product", "P7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].description").value("Dated"));
+
+        mockMvc.perform(get("/orders").param("status", "CREATED").param("from", "2023-06-01").param("to", "2023-06-30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    void getOrders_withLimitOrNdjsonAndFilters_shouldOnlyReturnMatchingOrders() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            orderService.createOrder(new Order(null, "Filtered " + i, null, null, null,
+                    List.of(new OrderEntry("P7", "Product 7", 1, 10.0))));
+        }
+        orderService.updateOrder(9L, new Order(null, null, null, null, OrderStatus.PROCESSING, null));
+
+        mockMvc.perform(get("/orders").param("product", "P7").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orders.length()").value(1))
+                .andExpect(jsonPath("$.orders[0].id").value(8))
+                .andExpect(jsonPath("$.nextCursor").value(8));
+        mockMvc.perform(get("/orders").param("product", "P7").param("status", "CREATED").param("limit", "50").param("after", "8"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orders.length()").value(1))
+                .andExpect(jsonPath("$.orders[0].id").value(10))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        MvcResult result = mockMvc.perform(get("/orders").param("product", "P7").accept(OrdersController.APPLICATION_NDJSON_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":8,"));
+        assertTrue(lines[2].startsWith("{\"id\":10,"));
+    }
+
+    @Test
+    void createOrders_shouldReturnPerItemResults() throws Exception {
+        String body = """
+                [{"description": "Batch 1", "entries": [{"productCode": "P1", "productName": "Product 1", "quantity": 2, "price": 5.0}]},
+                 {"description": "No entries"}]
+                """;
+        mockMvc.perform(post("/orders/batch").contentType("application/json").content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].outcome").value("CREATED"))
+                .andExpect(jsonPath("$[0].id").value(8))
+                .andExpect(jsonPath("$[0].order.amount").value(10.0))
+                .andExpect(jsonPath("$[1].outcome").value("REJECTED"))
+                .andExpect(jsonPath("$[1].error").value("Order must have at least one entry"));
+
+        mockMvc.perform(post("/orders/batch/delete").contentType("application/json").content("[8, 1000]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].outcome").value("DELETED"))
+                .andExpect(jsonPath("$[1].outcome").value("NOT_FOUND"));
+    }
+
+    @Test
+    void batch_overTheSizeLimit_shouldBeRejectedWith413() throws Exception {
+        String ids = LongStream.rangeClosed(1, OrdersController.MAX_BATCH_SIZE + 1)
+                .mapToObj(Long::toString)
+                .collect(Collectors.joining(",", "[", "]"));
+        mockMvc.perform(post("/orders/batch/delete").contentType("application/json").content(ids))
+                .andExpect(status().isPayloadTooLarge());
+        assertEquals(7, orderService.getAllOrders().size());
+    }
+
+    @Test
+    void createOrder_retriedWithIdempotencyKey_shouldReplayFirstOrder() throws Exception {
+        String body = """
+                {"description": "Retried", "entries": [{"productCode": "P1", "productName": "Product 1", "quantity": 1, "price": 5.0}]}
+                """;
+        mockMvc.perform(post("/orders").header("Idempotency-Key", "retry-1").contentType("application/json").content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(8))
+                .andExpect(header().doesNotExist("Idempotent-Replayed"));
+        mockMvc.perform(post("/orders").header("Idempotency-Key", "retry-1").contentType("application/json").content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(8))
+                .andExpect(header().string("Idempotent-Replayed", "true"));
+        assertEquals(8, orderService.getAllOrders().size());
+
+        mockMvc.perform(post("/orders").header("Idempotency-Key", "retry-1").contentType("application/json")
+                        .content(body.replace("Retried", "Other")))
+                .andExpect(status().isUnprocessableEntity());
+        mockMvc.perform(post("/orders").header("Idempotency-Key", "x".repeat(256)).contentType("application/json").content(body))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void createOrder_shouldKeepDecimalMoneyInJson() throws Exception {
+        String body = """
+                {"description": "Money", "entries": [{"productCode": "P1", "productName": "Product 1", "quantity": 3, "price": 19.99}]}
+                """;
+        mockMvc.perform(post("/orders").contentType("application/json").content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.amount").value(59.97))
+                .andExpect(jsonPath("$.entries[0].price").value(19.99))
+                .andExpect(jsonPath("$.amountCents").doesNotExist())
+                .andExpect(jsonPath("$.entries[0].priceCents").doesNotExist());
+    }
+
+    @Test
+    void binaryFormats_shouldRoundTripOrdersWhileJsonStaysTheDefault() throws Exception {
+        ObjectMapper cbor = new ObjectMapper(new CBORFactory()).findAndRegisterModules();
+        ObjectMapper smile = new ObjectMapper(new SmileFactory()).findAndRegisterModules();
+        Order order = new Order(null, "Binary", null, LocalDate.of(2024, 3, 1), null,
+                List.of(new OrderEntry("P1", "Product 1", 3, 19.99)));
+
+        MvcResult created = mockMvc.perform(post("/orders").contentType(WireFormat.CBOR).accept(WireFormat.CBOR)
+                        .content(cbor.writeValueAsBytes(order)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(WireFormat.CBOR))
+                .andReturn();
+        Order saved = cbor.readValue(created.getResponse().getContentAsByteArray(), Order.class);
+        assertEquals(8, saved.getId());
+        assertEquals(LocalDate.of(2024, 3, 1), saved.getOrderDate());
+        assertEquals(59.97, saved.getAmount(), 1e-9);
+
+        MvcResult fetched = mockMvc.perform(get("/orders/8").accept(WireFormat.SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(WireFormat.SMILE))
+                .andExpect(header().string("ETag", "\"1-smile\""))
+                .andExpect(header().string("Vary", "Accept"))
+                .andReturn();
+        assertEquals("Binary", smile.readValue(fetched.getResponse().getContentAsByteArray(), Order.class).getDescription());
+        mockMvc.perform(get("/orders/8").accept(WireFormat.SMILE).header("If-None-Match", "\"1-smile\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("Vary", "Accept"));
+        // A cached JSON copy is not a Smile one, and the other way round
+        mockMvc.perform(get("/orders/8").accept(WireFormat.SMILE).header("If-None-Match", "\"1\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-smile\""));
+        mockMvc.perform(get("/orders/8").header("If-None-Match", "\"1-smile\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(header().string("Vary", "Accept"));
+
+        // A binary tag still names the version to update
+        mockMvc.perform(put("/orders/8").contentType(WireFormat.CBOR).accept(WireFormat.CBOR)
+                        .header("If-Match", "\"1-cbor\"").content(cbor.writeValueAsBytes(order)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"2-cbor\""));
+        // A stale writer is told the current version in its own format
+        mockMvc.perform(put("/orders/8").contentType(WireFormat.CBOR).accept(WireFormat.CBOR)
+                        .header("If-Match", "\"1-cbor\"").content(cbor.writeValueAsBytes(order)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(header().string("ETag", "\"2-cbor\""));
+
+        MvcResult listed = mockMvc.perform(get("/orders").accept(WireFormat.CBOR))
+                .andExpect(content().contentType(WireFormat.CBOR))
+                .andReturn();
+        List<Order> orders = cbor.readValue(listed.getResponse().getContentAsByteArray(), new TypeReference<>() {});
+        assertEquals(8, orders.size());
+
+        // Anything, or JSON preferred over a binary format, gets JSON
+        mockMvc.perform(get("/orders/8").accept(MediaType.ALL))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.description").value("Binary"));
+        mockMvc.perform(get("/orders").header("Accept", "application/cbor;q=0.5, application/json"))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(header().string("Vary", "Accept"));
+    }
+
+    @Test
+    void updateOrder_withIfMatch_shouldApplyOnlyToCurrentVersion() throws Exception {
+        mockMvc.perform(get("/orders/3"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""));
+
+        mockMvc.perform(put("/orders/3").header("If-Match", "\"1\"")
+                        .contentType("application/json").content("{\"description\":\"First\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"2\""))
+                .andExpect(jsonPath("$.version").value(2));
+
+        // A second writer still holding version 1 loses
+        mockMvc.perform(put("/orders/3").header("If-Match", "W/\"1\"")
+                        .contentType("application/json").content("{\"description\":\"Second\"}"))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(header().string("ETag", "\"2\""));
+
+        mockMvc.perform(put("/orders/3").header("If-Match", "\"unknown\"")
+                        .contentType("application/json").content("{\"description\":\"Third\"}"))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(put("/orders/3").header("If-Match", "*")
+                        .contentType("application/json").content("{\"description\":\"Fourth\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(3));
+
+        assertEquals("Fourth", orderService.getOrder(3L).getDescription());
+    }
+
+    @Test
+    void getOrder_withIfNoneMatch_shouldReturnNotModifiedUntilUpdated() throws Exception {
+        mockMvc.perform(get("/orders/3"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(jsonPath("$.description").value("Order 0"));
+
+        mockMvc.perform(get("/orders/3").header("If-None-Match", "\"1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"1\""));
+
+        mockMvc.perform(put("/orders/3").contentType("application/json").content("{\"description\":\"Changed\"}"))
+                .andExpect(status().isOk());
+
+        // The cached JSON of version 1 must not be served after the update
+        mockMvc.perform(get("/orders/3").header("If-None-Match", "\"0\", \"1\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"2\""))
+                .andExpect(jsonPath("$.description").value("Changed"));
+
+        mockMvc.perform(get("/orders/3").header("If-None-Match", "*"))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(delete("/orders/3"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/orders/3"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void getStats_shouldReturnTotalsPerStatusDayAndProduct() throws Exception {
+        mockMvc.perform(put("/orders/3").contentType("application/json").content("{\"status\":\"PROCESSING\"}"))
+                .andExpect(status().isOk());
+
+        // Two seeded orders of 175.0 and 60.0, and five of 10.0 created in setUp, all on 2024-01-01
+        mockMvc.perform(get("/orders/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.byStatus.CREATED.count").value(6))
+                .andExpect(jsonPath("$.byStatus.CREATED.revenue").value(275.0))
+                .andExpect(jsonPath("$.byStatus.PROCESSING.count").value(1))
+                .andExpect(jsonPath("$.byStatus.PROCESSING.revenue").value(10.0))
+                .andExpect(jsonPath("$.byDay['2024-01-01'].count").value(7))
+                .andExpect(jsonPath("$.byProduct.P1.quantity").value(7))
+                .andExpect(jsonPath("$.byProduct.P1.revenue").value(150.0))
+                .andExpect(jsonPath("$.byProduct.P3.quantity").value(3));
+
+        mockMvc.perform(get("/orders/stats").param("from", "2024-01-02"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.byDay").isEmpty());
+    }
+
+    @Test
+    void streamChanges_shouldResumeAfterSequenceAndFollowNewChanges() throws Exception {
+        // setUp published sequences 1..5 for orders 3..7
+        MvcResult result = mockMvc.perform(get("/orders/changes").param("after", "3"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(put("/orders/3").contentType("application/json").content("{\"status\":\"PROCESSING\"}"))
+                .andExpect(status().isOk());
+
+        String id4 = "id:" + orderEventLog.eventId(4) + "\n";
+        String id5 = "id:" + orderEventLog.eventId(5) + "\n";
+        String id6 = "id:" + orderEventLog.eventId(6) + "\n";
+        // Sequence 6's data is the last thing written
+        String body = awaitContent(result, "\"previousStatus\":\"CREATED\"");
+        assertTrue(body.indexOf(id4) < body.indexOf(id5) && body.indexOf(id5) < body.indexOf(id6), body);
+        assertTrue(body.contains("event:CREATED"), body);
+        assertTrue(body.contains("event:STATUS_CHANGED"), body);
+        assertFalse(body.contains("id:" + orderEventLog.eventId(3) + "\n"), body);
+
+        // Reconnecting with the last id picks up right after it
+        MvcResult resumed = mockMvc.perform(get("/orders/changes").header("Last-Event-ID", orderEventLog.eventId(5)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        body = awaitContent(resumed, id6);
+        assertFalse(body.contains("RESET") || body.contains(id5), body);
+    }
+
+    @Test
+    void streamChanges_withIdFromAnotherProcess_shouldSendResetBeforeNewChanges() throws Exception {
+        // Sequence 3 of another epoch, e.g. from before a restart, and a sequence this log never reached
+        for (String lastEventId : List.of("0000-3", orderEventLog.eventId(100))) {
+            MvcResult result = mockMvc.perform(get("/orders/changes").header("Last-Event-ID", lastEventId))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            // The event's lines can reach the response in separate writes, so wait for its data
+            String body = awaitContent(result, "\"epoch\":\"" + orderEventLog.epoch() + "\"");
+            assertTrue(body.contains("event:RESET"), body);
+            assertTrue(body.contains("id:" + orderEventLog.eventId(5) + "\n"), body);
+            assertFalse(body.contains("event:CREATED"), body);
+        }
+    }
+
+    private static String awaitContent(MvcResult result, String expected) throws Exception {
+        long deadline = System.nanoTime() + java.util.concurrent.TimeUnit.SECONDS.toNanos(5);
+        String body = result.getResponse().getContentAsString();
+        while (!body.contains(expected) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            body = result.getResponse().getContentAsString();
+        }
+        assertTrue(body.contains(expected), body);
+        return body;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Real ports, so the actuator is served on the management port only, as in production
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "management.server.port=0")
+@AutoConfigureObservability
+class PrometheusEndpointTest {
+
+    @LocalServerPort
+    private int serverPort;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @Test
+    void prometheusEndpoint_shouldExposeOrderMetricsOnTheManagementPortOnly() throws Exception {
+        assertEquals(200, get(serverPort, "/orders/1").statusCode());
+
+        HttpResponse<String> prometheus = get(managementPort, "/actuator/prometheus");
+        assertEquals(200, prometheus.statusCode());
+        String body = prometheus.body();
+        assertTrue(body.contains("orders_operation_seconds_bucket{"));
+        assertTrue(body.contains("operation=\"get\""));
+        assertTrue(body.contains("orders_store_size"));
+        assertTrue(body.contains("orders_status_count{application=\"demo\",status=\"CREATED\"} 2.0"));
+        assertTrue(body.contains("orders_rejections_total{"));
+        assertTrue(body.contains("http_server_requests_seconds_bucket{"));
+
+        assertEquals(404, get(serverPort, "/actuator/prometheus").statusCode());
+        // Flight Recorder is not exposed unless asked for
+        assertEquals(404, get(managementPort, "/actuator/jfr").statusCode());
+    }
+
+    private static HttpResponse<String> get(int port, String path) throws Exception {
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+        }
+    }
+}
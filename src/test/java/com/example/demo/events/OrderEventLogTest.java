@@ -0,0 +1,227 @@
+package com.example.demo.events;
+
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderEventLogTest {
+    private final OrderEventLog log = new OrderEventLog(8);
+
+    @AfterEach
+    void tearDown() {
+        log.close();
+    }
+
+    private static Order order(long id, OrderStatus status) {
+        Order order = new Order();
+        order.setId(id);
+        order.setStatus(status);
+        return order;
+    }
+
+    /** Collects events and reports how the subscription ended. */
+    private static class Recorder implements OrderEventSubscriber {
+        final BlockingQueue<OrderEvent> events = new LinkedBlockingQueue<>();
+        final List<long[]> gaps = new ArrayList<>();
+        final List<Long> resets = new ArrayList<>();
+        final CompletableFuture<Throwable> closed = new CompletableFuture<>();
+
+        @Override
+        public void onEvent(OrderEvent event) {
+            events.add(event);
+        }
+
+        @Override
+        public void onGap(long fromSequence, long toSequence) {
+            gaps.add(new long[] {fromSequence, toSequence});
+        }
+
+        @Override
+        public void onReset(long sequence) {
+            resets.add(sequence);
+        }
+
+        @Override
+        public void onClose(Throwable cause) {
+            closed.complete(cause);
+        }
+
+        OrderEvent next() throws InterruptedException {
+            OrderEvent event = events.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event, "timed out waiting for an event");
+            return event;
+        }
+    }
+
+    @Test
+    void subscriber_shouldReceiveTypedEventsInSequence() throws Exception {
+        Recorder recorder = new Recorder();
+        OrderEventSubscription subscription = log.subscribe(recorder, OverflowPolicy.DISCONNECT);
+
+        log.orderCreated(order(1, OrderStatus.CREATED));
+        log.orderUpdated(order(1, OrderStatus.CREATED), order(1, OrderStatus.CREATED));
+        log.orderUpdated(order(1, OrderStatus.CREATED), order(1, OrderStatus.PROCESSING));
+        log.orderDeleted(1);
+
+        OrderEvent created = recorder.next();
+        assertEquals(1, created.getSequence());
+        assertEquals(OrderEventType.CREATED, created.getType());
+        assertEquals(OrderEventType.UPDATED, recorder.next().getType());
+        OrderEvent statusChanged = recorder.next();
+        assertEquals(OrderEventType.STATUS_CHANGED, statusChanged.getType());
+        assertEquals(OrderStatus.CREATED, statusChanged.getPreviousStatus());
+        OrderEvent deleted = recorder.next();
+        assertEquals(4, deleted.getSequence());
+        assertNull(deleted.getOrder());
+
+        subscription.close();
+        assertNull(recorder.closed.get(5, TimeUnit.SECONDS));
+        assertEquals(0, log.subscriberCount());
+    }
+
+    @Test
+    void subscribeAfter_shouldResumeFromRetainedEvents() throws Exception {
+        for (long id = 1; id <= 5; id++) {
+            log.orderCreated(order(id, OrderStatus.CREATED));
+        }
+        Recorder recorder = new Recorder();
+        log.subscribeAfter(3, recorder, OverflowPolicy.DISCONNECT);
+
+        assertEquals(4, recorder.next().getSequence());
+        assertEquals(5, recorder.next().getSequence());
+        log.orderDeleted(1);
+        assertEquals(6, recorder.next().getSequence());
+    }
+
+    @Test
+    void slowSubscriber_shouldBeDisconnectedWithoutBlockingPublishers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Recorder recorder = new Recorder() {
+            @Override
+            public void onEvent(OrderEvent event) {
+                super.onEvent(event);
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        log.subscribe(recorder, OverflowPolicy.DISCONNECT);
+
+        log.orderCreated(order(1, OrderStatus.CREATED));
+        recorder.next(); // stuck inside the first callback now
+        for (long id = 2; id <= 100; id++) {
+            log.orderCreated(order(id, OrderStatus.CREATED)); // returns although nobody reads
+        }
+        release.countDown();
+
+        Throwable cause = recorder.closed.get(5, TimeUnit.SECONDS);
+        assertInstanceOf(IllegalStateException.class, cause);
+        assertEquals(100, log.lastSequence());
+    }
+
+    @Test
+    void slowSubscriber_withSkip_shouldReportTheGapAndContinue() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Recorder recorder = new Recorder() {
+            @Override
+            public void onEvent(OrderEvent event) {
+                super.onEvent(event);
+                if (event.getSequence() == 1) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        };
+        log.subscribe(recorder, OverflowPolicy.SKIP);
+
+        log.orderCreated(order(1, OrderStatus.CREATED));
+        recorder.next();
+        for (long id = 2; id <= 20; id++) {
+            log.orderCreated(order(id, OrderStatus.CREATED));
+        }
+        release.countDown();
+
+        // Capacity 8: events 13..20 are still in the ring, 2..12 were lost
+        assertEquals(13, recorder.next().getSequence());
+        assertEquals(1, recorder.gaps.size());
+        assertArrayEquals(new long[] {2, 12}, recorder.gaps.get(0));
+        for (long sequence = 14; sequence <= 20; sequence++) {
+            assertEquals(sequence, recorder.next().getSequence());
+        }
+        assertFalse(recorder.closed.isDone());
+    }
+
+    @Test
+    void resumeFromUnknownPosition_shouldResetAndFollowNewEvents() throws Exception {
+        for (long id = 1; id <= 3; id++) {
+            log.orderCreated(order(id, OrderStatus.CREATED));
+        }
+        // A sequence from a longer-lived process, an id from another epoch, and garbage
+        Recorder ahead = new Recorder();
+        log.subscribeAfter(50, ahead, OverflowPolicy.DISCONNECT);
+        Recorder foreign = new Recorder();
+        log.resume("other-2", foreign, OverflowPolicy.DISCONNECT);
+        Recorder garbage = new Recorder();
+        log.resume("garbage", garbage, OverflowPolicy.DISCONNECT);
+        Recorder same = new Recorder();
+        log.resume(log.eventId(2), same, OverflowPolicy.DISCONNECT);
+
+        log.orderDeleted(1);
+
+        for (Recorder recorder : List.of(ahead, foreign, garbage)) {
+            assertEquals(4, recorder.next().getSequence());
+            assertEquals(List.of(3L), recorder.resets);
+        }
+        assertEquals(3, same.next().getSequence());
+        assertEquals(4, same.next().getSequence());
+        assertTrue(same.resets.isEmpty());
+    }
+
+    @Test
+    void manySubscribers_shouldEachSeeEveryEvent() throws Exception {
+        OrderEventLog large = new OrderEventLog(1 << 12);
+        try {
+            List<Recorder> recorders = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                Recorder recorder = new Recorder();
+                large.subscribe(recorder, OverflowPolicy.DISCONNECT);
+                recorders.add(recorder);
+            }
+            Thread[] writers = new Thread[4];
+            for (int w = 0; w < writers.length; w++) {
+                long base = w * 1000L;
+                writers[w] = Thread.ofPlatform().start(() -> {
+                    for (long id = 1; id <= 500; id++) {
+                        large.orderCreated(order(base + id, OrderStatus.CREATED));
+                    }
+                });
+            }
+            for (Thread writer : writers) {
+                writer.join();
+            }
+            for (Recorder recorder : recorders) {
+                for (long sequence = 1; sequence <= 2000; sequence++) {
+                    assertEquals(sequence, recorder.next().getSequence());
+                }
+            }
+        } finally {
+            large.close();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.demo.idempotency;
+
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderEntry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyStoreTest {
+
+    private final MutableClock clock = new MutableClock();
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @Test
+    void retry_shouldReturnFirstOrderWithoutExecutingAgain() {
+        IdempotencyStore store = new IdempotencyStore(clock, Duration.ofHours(1), 100, new SimpleMeterRegistry());
+        Order request = request("Retried");
+
+        IdempotencyStore.Response first = store.execute("k1", IdempotencyStore.fingerprint(request), this::create);
+        IdempotencyStore.Response retry = store.execute("k1", IdempotencyStore.fingerprint(request("Retried")), this::create);
+
+        assertFalse(first.replayed());
+        assertTrue(retry.replayed());
+        assertSame(first.order(), retry.order());
+        assertEquals(1, executions.get());
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> store.execute("k1", IdempotencyStore.fingerprint(request("Other")), this::create));
+    }
+
+    @Test
+    void fingerprint_shouldTellApartBodiesThatCollideUnderStringHashCode() {
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        assertNotEquals(IdempotencyStore.fingerprint(request("Aa")), IdempotencyStore.fingerprint(request("BB")));
+        // Field boundaries count: the same characters split differently are a different request
+        assertNotEquals(IdempotencyStore.fingerprint(new Order(null, "ab", null, null, null, List.of(new OrderEntry("P1", null, 1, 1.0)))),
+                IdempotencyStore.fingerprint(new Order(null, "a", null, null, null, List.of(new OrderEntry("bP1", null, 1, 1.0)))));
+        assertEquals(IdempotencyStore.fingerprint(request("Aa")), IdempotencyStore.fingerprint(request("Aa")));
+
+        IdempotencyStore store = new IdempotencyStore(clock, Duration.ofHours(1), 100, new SimpleMeterRegistry());
+        store.execute("k", IdempotencyStore.fingerprint(request("Aa")), this::create);
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> store.execute("k", IdempotencyStore.fingerprint(request("BB")), this::create));
+    }
+
+    @Test
+    void concurrentDuplicates_shouldWaitForFirstExecution() throws Exception {
+        IdempotencyStore store = new IdempotencyStore(clock, Duration.ofHours(1), 100, new SimpleMeterRegistry());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IdempotencyStore.Fingerprint fingerprint = IdempotencyStore.fingerprint(request("Slow"));
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            Future<IdempotencyStore.Response> first = pool.submit(() -> store.execute("slow", fingerprint, () -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return create();
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            List<Future<IdempotencyStore.Response>> duplicates = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                duplicates.add(pool.submit(() -> store.execute("slow", fingerprint, this::create)));
+            }
+            Thread.sleep(50);
+            duplicates.forEach(duplicate -> assertFalse(duplicate.isDone()));
+            release.countDown();
+
+            Order order = first.get(5, TimeUnit.SECONDS).order();
+            for (Future<IdempotencyStore.Response> duplicate : duplicates) {
+                assertSame(order, duplicate.get(5, TimeUnit.SECONDS).order());
+            }
+            assertEquals(1, executions.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void expiredOrFailedKeys_shouldExecuteAgain() {
+        IdempotencyStore store = new IdempotencyStore(clock, Duration.ofMinutes(10), 100, new SimpleMeterRegistry());
+        IdempotencyStore.Fingerprint fingerprint = IdempotencyStore.fingerprint(request("Expiring"));
+
+        Order first = store.execute("k", fingerprint, this::create).order();
+        clock.advance(Duration.ofMinutes(9));
+        assertSame(first, store.execute("k", fingerprint, this::create).order());
+        clock.advance(Duration.ofMinutes(2));
+        IdempotencyStore.Response afterTtl = store.execute("k", fingerprint, this::create);
+        assertFalse(afterTtl.replayed());
+        assertNotEquals(first.getId(), afterTtl.order().getId());
+
+        assertThrows(IllegalArgumentException.class, () -> store.execute("failing", fingerprint, () -> {
+            throw new IllegalArgumentException("Order must have at least one entry");
+        }));
+        assertFalse(store.execute("failing", fingerprint, this::create).replayed());
+    }
+
+    @Test
+    void highKeyCardinality_shouldStayWithinMaximumKeys() {
+        IdempotencyStore store = new IdempotencyStore(clock, Duration.ofHours(24), 10_000, new SimpleMeterRegistry());
+        IdempotencyStore.Fingerprint fingerprint = IdempotencyStore.fingerprint(request("Unique"));
+        for (int i = 0; i < 1_000_000; i++) {
+            store.execute("key-" + i, fingerprint, this::create);
+            if (i % 100_000 == 0) {
+                assertTrue(store.size() <= 10_000, () -> "size " + store.size());
+            }
+        }
+        assertEquals(1_000_000, executions.get());
+        assertTrue(store.size() <= 10_000, () -> "size " + store.size());
+    }
+
+    private Order create() {
+        executions.incrementAndGet();
+        Order order = request("Created");
+        order.setId(ids.incrementAndGet());
+        return order;
+    }
+
+    private static Order request(String description) {
+        return new Order(null, description, null, null, null, List.of(new OrderEntry("P1", "Product 1", 1, 10.0)));
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T10:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
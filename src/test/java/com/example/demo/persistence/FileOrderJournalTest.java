@@ -0,0 +1,149 @@
+package com.example.demo.persistence;
+
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderEntry;
+import com.example.demo.model.OrderQuery;
+import com.example.demo.model.OrderStatus;
+import com.example.demo.service.impl.OrderServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileOrderJournalTest {
+    private final Clock clock = Clock.fixed(Instant.parse("2024-01-01T10:00:00Z"), ZoneId.of("UTC"));
+
+    @TempDir
+    Path directory;
+
+    private FileOrderJournal journal;
+
+    @ParameterizedTest
+    @EnumSource(FsyncPolicy.class)
+    void restart_shouldReplayCreatesUpdatesAndDeletes(FsyncPolicy policy) {
+        OrderServiceImpl service = start(policy);
+        Order first = service.createOrder(newOrder("First"));
+        Order second = service.createOrder(newOrder("Second"));
+        Order update = new Order();
+        update.setStatus(OrderStatus.PROCESSING);
+        update.setEntries(List.of(new OrderEntry("P2", "Product 2", 3, 5.0)));
+        service.updateOrder(first.getId(), update);
+        service.deleteOrder(second.getId());
+        stop(service, false);
+
+        OrderServiceImpl restarted = start(policy);
+        assertEquals(1, restarted.getAllOrders().size());
+        Order recovered = restarted.getOrder(first.getId());
+        assertEquals(OrderStatus.PROCESSING, recovered.getStatus());
+        assertEquals(15.0, recovered.getAmount());
+        assertEquals("P2", recovered.getEntries().get(0).getProductCode());
+        assertEquals(List.of(recovered.getId()), ids(restarted.findOrders(new OrderQuery(null, null, null, "P2"))));
+        // Ids are never handed out twice, even the one of the deleted order
+        assertEquals(3L, restarted.createOrder(newOrder("Third")).getId());
+        stop(restarted, false);
+    }
+
+    @Test
+    void restart_shouldReplayBatchCreates() {
+        OrderServiceImpl service = start(FsyncPolicy.GROUPED);
+        service.createOrders(List.of(newOrder("One"), newOrder("Two"), newOrder("Three")));
+        service.deleteOrders(List.of(2L));
+        stop(service, false);
+
+        OrderServiceImpl restarted = start(FsyncPolicy.GROUPED);
+        assertEquals(List.of(1L, 3L), ids(restarted.getOrders(null, 10)));
+        assertEquals("Three", restarted.getOrder(3L).getDescription());
+        stop(restarted, false);
+    }
+
+    @Test
+    void restart_shouldLoadSnapshotPlusLogTail() throws IOException {
+        OrderServiceImpl service = start(FsyncPolicy.ALWAYS);
+        for (int i = 0; i < 10; i++) {
+            service.createOrder(newOrder("Before snapshot " + i));
+        }
+        service.snapshot();
+        service.deleteOrder(1L);
+        service.createOrder(newOrder("After snapshot"));
+        stop(service, false);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.filter(f -> f.getFileName().toString().startsWith("snapshot-")).count());
+        }
+        OrderServiceImpl restarted = start(FsyncPolicy.ALWAYS);
+        assertEquals(10, restarted.getAllOrders().size());
+        assertNull(restarted.getOrder(1L));
+        assertEquals("After snapshot", restarted.getOrder(11L).getDescription());
+        stop(restarted, false);
+    }
+
+    @Test
+    void restart_shouldIgnoreTornRecordAtEndOfSegment() throws IOException {
+        OrderServiceImpl service = start(FsyncPolicy.ALWAYS);
+        service.createOrder(newOrder("Complete"));
+        stop(service, false);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            Path segment = files.filter(f -> f.getFileName().toString().startsWith("wal-")).findFirst().orElseThrow();
+            Files.write(segment, new byte[] {0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+        }
+
+        OrderServiceImpl restarted = start(FsyncPolicy.ALWAYS);
+        assertEquals(1, restarted.getAllOrders().size());
+        assertEquals("Complete", restarted.getOrder(1L).getDescription());
+        stop(restarted, false);
+    }
+
+    @Test
+    void initTestData_shouldOnlySeedAnEmptyJournal() {
+        journal = new FileOrderJournal(directory, FsyncPolicy.ASYNC, Duration.ofMillis(2));
+        OrderServiceImpl service = new OrderServiceImpl(clock, journal);
+        service.initTestData();
+        assertEquals(2, service.getAllOrders().size());
+        stop(service, true);
+
+        journal = new FileOrderJournal(directory, FsyncPolicy.ASYNC, Duration.ofMillis(2));
+        OrderServiceImpl restarted = new OrderServiceImpl(clock, journal);
+        restarted.initTestData();
+        assertEquals(2, restarted.getAllOrders().size());
+        stop(restarted, false);
+    }
+
+    private OrderServiceImpl start(FsyncPolicy policy) {
+        journal = new FileOrderJournal(directory, policy, Duration.ofMillis(2));
+        OrderServiceImpl service = new OrderServiceImpl(clock, journal);
+        service.recover();
+        return service;
+    }
+
+    private void stop(OrderServiceImpl service, boolean snapshot) {
+        if (snapshot) {
+            service.shutdown();
+        }
+        journal.close();
+    }
+
+    private static Order newOrder(String description) {
+        Order order = new Order();
+        order.setDescription(description);
+        order.setEntries(List.of(new OrderEntry("P1", "Product 1", 1, 10.0)));
+        return order;
+    }
+
+    private static List<Long> ids(List<Order> orders) {
+        return orders.stream().map(Order::getId).toList();
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.demo.profiling;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The actuator shares MockMvc's context, with the Flight Recorder endpoint exposed
+@SpringBootTest(properties = {"management.server.port=", "management.endpoints.web.exposure.include=jfr"})
+@AutoConfigureMockMvc
+class FlightRecorderEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void recording_shouldCaptureOrderOperationsAndSamples(@TempDir Path dir) throws Exception {
+        String started = mockMvc.perform(post("/actuator/jfr").contentType("application/json")
+                        .content("{\"threshold\": \"0ms\", \"duration\": \"60s\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("RUNNING"))
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(started).get("id").asLong();
+
+        // Only the first read reaches the service; the response cache answers the rest
+        mockMvc.perform(get("/orders/1")).andExpect(status().isOk());
+        for (int i = 0; i < 20; i++) {
+            mockMvc.perform(post("/orders").contentType("application/json").content(
+                            "{\"description\": \"Recorded\", \"entries\": [{\"productCode\": \"P1\", \"productName\": \"Product 1\", \"quantity\": 1, \"price\": 5.0}]}"))
+                    .andExpect(status().isOk());
+        }
+        spin();
+
+        // Downloadable while still running
+        Path file = dir.resolve("orders.jfr");
+        Files.write(file, mockMvc.perform(get("/actuator/jfr/" + id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray());
+        List<RecordedEvent> operations = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals(FlightRecorderEndpoint.OPERATION_EVENT))
+                .toList();
+        RecordedEvent get = operations.stream().filter(event -> "get".equals(event.getString("operation"))).findFirst().orElseThrow();
+        assertEquals(1, get.getLong("orderId"));
+        assertEquals(2, get.getInt("entries"));
+        assertEquals("ok", get.getString("outcome"));
+        List<RecordedEvent> creates = operations.stream().filter(event -> "create".equals(event.getString("operation"))).toList();
+        assertEquals(20, creates.size());
+        assertTrue(creates.stream().allMatch(event -> event.getLong("orderId") > 2 && event.getInt("entries") == 1));
+        assertEquals(creates.get(0).getLong("storeSize") + 19, creates.get(creates.size() - 1).getLong("storeSize"));
+        assertTrue(creates.get(0).getDuration().toNanos() > 0);
+        // The environment and system properties can hold secrets, and stay out of downloads
+        assertTrue(RecordingFile.readAllEvents(file).stream().map(event -> event.getEventType().getName())
+                .noneMatch(name -> name.equals("jdk.InitialEnvironmentVariable") || name.equals("jdk.InitialSystemProperty")));
+
+        String cpu = mockMvc.perform(get("/actuator/jfr/" + id + "/cpu"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(cpu.lines().anyMatch(line -> line.matches("\\S+;\\S+ \\d+") && line.contains("FlightRecorderEndpointTest.spin")),
+                cpu.lines().limit(5).toList()::toString);
+        mockMvc.perform(get("/actuator/jfr/" + id + "/heap")).andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/actuator/jfr/" + id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("STOPPED"));
+        JsonNode recordings = objectMapper.readTree(mockMvc.perform(get("/actuator/jfr"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+        assertTrue(recordings.findValues("id").stream().anyMatch(node -> node.asLong() == id));
+        mockMvc.perform(delete("/actuator/jfr/" + id)).andExpect(status().isNoContent());
+        mockMvc.perform(get("/actuator/jfr/" + id)).andExpect(status().isNotFound());
+    }
+
+    // Keeps this thread on the CPU long enough for execution samples, taken every 10 ms, to land here
+    private static long spin() {
+        long end = System.nanoTime() + 500_000_000L;
+        long x = 0;
+        while (System.nanoTime() < end) {
+            x += Long.numberOfTrailingZeros(x ^ System.nanoTime());
+        }
+        return x;
+    }
+}
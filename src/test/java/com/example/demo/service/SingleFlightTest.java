@@ -0,0 +1,87 @@
+package com.example.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+    private final Counter joined = new SimpleMeterRegistry().counter("joined");
+    private final SingleFlight<Long, String> flight = new SingleFlight<>(joined);
+
+    @Test
+    void load_shouldShareOneLoadAmongConcurrentCallers() throws Exception {
+        int callers = 8;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> flight.load(1L, () -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return "value";
+                })));
+            }
+            while (joined.count() < callers - 1) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("value", result.get());
+            }
+        }
+        assertEquals(1, loads.get());
+        assertEquals(0, flight.inFlight());
+
+        // Finished loads are not kept
+        assertEquals("again", flight.load(1L, () -> "again"));
+    }
+
+    @Test
+    void load_shouldPassAFailureToEveryWaiterAndLoadAgainAfterwards() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> first = executor.submit(() -> flight.load(1L, () -> {
+                await(release);
+                throw new IllegalStateException("store unavailable");
+            }));
+            while (flight.inFlight() == 0) {
+                Thread.sleep(1);
+            }
+            Future<String> joiner = executor.submit(() -> flight.load(1L, () -> "unused"));
+            while (joined.count() < 1) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+            for (Future<String> result : List.of(first, joiner)) {
+                Exception e = assertThrows(Exception.class, result::get);
+                assertInstanceOf(IllegalStateException.class, e.getCause());
+            }
+        }
+        assertEquals("recovered", flight.load(1L, () -> "recovered"));
+    }
+
+    @Test
+    void load_shouldNotShareBetweenKeys() {
+        assertEquals("one", flight.load(1L, () -> flight.load(2L, () -> "two").replace("two", "one")));
+        assertEquals(0, joined.count());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.model.Money;
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderEntry;
+import com.example.demo.model.OrderStats;
+import com.example.demo.model.OrderStatus;
+import com.example.demo.persistence.OrderJournal;
+import com.example.demo.service.VersionConflictException;
+import com.example.demo.persistence.FileOrderJournal;
+import com.example.demo.persistence.FsyncPolicy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hammers orders with racing status changes and entry rewrites. Every committed
+ * update is captured by a recording journal, which sees them in commit order per id, so the
+ * history can be checked afterwards for skipped versions and illegal transitions.
+ */
+class OrderServiceImplConcurrencyTest {
+
+    private static final int ORDERS = 500;
+    // Writers move through the orders in step, so a few of them are contended at any time
+    private static final int HOT_WINDOW = 4;
+    private static final int WRITERS = 8;
+    private static final int READERS = 2;
+    private static final int ATTEMPTS_PER_WRITER = 5_000;
+    private static final OrderStatus[] TARGETS = {OrderStatus.PROCESSING, OrderStatus.COMPLETED, OrderStatus.CANCELLED, null};
+
+    private final Map<Long, Queue<Order>> history = new ConcurrentHashMap<>();
+
+    @Test
+    void concurrentUpdates_shouldNeverCommitIllegalTransitionsOrTornOrders() throws Exception {
+        OrderServiceImpl orderService = new OrderServiceImpl(
+                Clock.fixed(Instant.parse("2024-01-01T10:00:00Z"), ZoneId.of("UTC")), new RecordingJournal());
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            ids.add(orderService.createOrder(newOrder(1)).getId());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS + READERS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Future<?>> writers = new ArrayList<>();
+        List<Future<?>> readers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            writers.add(pool.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < ATTEMPTS_PER_WRITER; i++) {
+                    int hot = (int) ((long) i * (ORDERS - HOT_WINDOW) / ATTEMPTS_PER_WRITER);
+                    Long id = ids.get(hot + random.nextInt(HOT_WINDOW));
+                    Order update = newOrder(1 + random.nextInt(4));
+                    update.setStatus(TARGETS[random.nextInt(TARGETS.length)]);
+                    Long expectedVersion = random.nextBoolean() ? orderService.getOrder(id).getVersion() : null;
+                    try {
+                        orderService.updateOrder(id, update, expectedVersion);
+                    } catch (VersionConflictException e) {
+                        assertNotNull(expectedVersion);
+                    } catch (IllegalStateException e) {
+                        // Rejected transition or terminal order, expected under contention
+                    }
+                }
+                return null;
+            }));
+        }
+        for (int r = 0; r < READERS; r++) {
+            readers.add(pool.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (writing.get()) {
+                    assertConsistent(orderService.getOrder(ids.get(random.nextInt(ids.size()))));
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(60, TimeUnit.SECONDS);
+        }
+        writing.set(false);
+        for (Future<?> reader : readers) {
+            reader.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        for (Long id : ids) {
+            OrderStatus status = OrderStatus.CREATED;
+            long version = 1;
+            for (Order committed : history.getOrDefault(id, new ConcurrentLinkedQueue<>())) {
+                assertEquals(++version, committed.getVersion(), "versions of order " + id + " must be contiguous");
+                assertTrue(status == committed.getStatus() || isLegal(status, committed.getStatus()),
+                        "illegal transition " + status + " -> " + committed.getStatus() + " on order " + id);
+                assertTrue(status != OrderStatus.COMPLETED && status != OrderStatus.CANCELLED,
+                        "order " + id + " was updated after reaching " + status);
+                assertConsistent(committed);
+                status = committed.getStatus();
+            }
+            Order current = orderService.getOrder(id);
+            assertEquals(version, current.getVersion());
+            assertEquals(status, current.getStatus());
+        }
+    }
+
+    /**
+     * Writers of one order contend on its lock while the journal does file I/O. If that happened
+     * inside a monitor, blocked virtual threads would stay mounted and JFR would report them pinned.
+     */
+    @Test
+    void updatesOnVirtualThreads_shouldNotPinCarrierThreads(@TempDir Path directory) throws Exception {
+        List<RecordedEvent> pinned = new CopyOnWriteArrayList<>();
+        try (RecordingStream recording = new RecordingStream();
+             FileOrderJournal journal = new FileOrderJournal(directory, FsyncPolicy.GROUPED, Duration.ofMillis(1))) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO);
+            recording.onEvent("jdk.VirtualThreadPinned", pinned::add);
+            recording.startAsync();
+
+            OrderServiceImpl orderService = new OrderServiceImpl(
+                    Clock.fixed(Instant.parse("2024-01-01T10:00:00Z"), ZoneId.of("UTC")), journal);
+            orderService.recover();
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < HOT_WINDOW; i++) {
+                ids.add(orderService.createOrder(newOrder(1)).getId());
+            }
+            try (ExecutorService virtualThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int t = 0; t < 64; t++) {
+                    virtualThreads.submit(() -> {
+                        for (int i = 0; i < 50; i++) {
+                            Long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+                            orderService.updateOrder(id, newOrder(2));
+                            orderService.getOrder(id);
+                        }
+                        return null;
+                    });
+                }
+            }
+            recording.stop();
+        }
+        assertEquals(List.of(), pinned, "virtual threads were pinned");
+    }
+
+    /**
+     * Creates, updates that replace entries or move the status, and deletes race on a shared set
+     * of orders; once they settle the incremental aggregates must equal a recount of the store.
+     */
+    @Test
+    void concurrentWrites_shouldKeepAggregatesEqualToARecount() throws Exception {
+        OrderServiceImpl orderService = new OrderServiceImpl(
+                Clock.fixed(Instant.parse("2024-01-01T10:00:00Z"), ZoneId.of("UTC")));
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            writers.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 2_000; i++) {
+                    long id = 1 + random.nextInt(ORDERS);
+                    int action = random.nextInt(10);
+                    try {
+                        if (action < 4) {
+                            Order order = newOrder(1 + random.nextInt(4));
+                            order.setOrderDate(LocalDate.of(2024, 1, 1 + random.nextInt(28)));
+                            orderService.createOrder(order);
+                        } else if (action < 9) {
+                            Order update = random.nextBoolean() ? newOrder(1 + random.nextInt(4)) : new Order();
+                            update.setStatus(TARGETS[random.nextInt(TARGETS.length)]);
+                            orderService.updateOrder(id, update);
+                        } else {
+                            orderService.deleteOrder(id);
+                        }
+                    } catch (IllegalArgumentException | IllegalStateException e) {
+                        // Missing order, rejected transition or completed order, expected here
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        Map<OrderStatus, long[]> byStatus = new EnumMap<>(OrderStatus.class);
+        Map<LocalDate, long[]> byDay = new HashMap<>();
+        Map<String, long[]> byProduct = new HashMap<>();
+        for (Order order : orderService.getAllOrders()) {
+            long[] status = byStatus.computeIfAbsent(order.getStatus(), k -> new long[2]);
+            status[0]++;
+            status[1] += order.getAmountCents();
+            long[] day = byDay.computeIfAbsent(order.getOrderDate(), k -> new long[2]);
+            day[0]++;
+            day[1] += order.getAmountCents();
+            for (OrderEntry entry : order.getEntries()) {
+                long[] product = byProduct.computeIfAbsent(entry.getProductCode(), k -> new long[2]);
+                product[0] += entry.getQuantity();
+                product[1] += entry.getPriceCents() * entry.getQuantity();
+            }
+        }
+
+        OrderStats stats = orderService.getStats(null, null);
+        for (OrderStatus status : OrderStatus.values()) {
+            long[] expected = byStatus.getOrDefault(status, new long[2]);
+            assertEquals(expected[0], stats.getByStatus().get(status).getCount(), "count of " + status);
+            assertEquals(expected[1], stats.getByStatus().get(status).getRevenueCents(), "revenue of " + status);
+        }
+        assertEquals(byDay.keySet(), stats.getByDay().keySet());
+        byDay.forEach((day, expected) -> {
+            assertEquals(expected[0], stats.getByDay().get(day).getCount(), "count on " + day);
+            assertEquals(expected[1], stats.getByDay().get(day).getRevenueCents(), "revenue on " + day);
+        });
+        assertEquals(byProduct.keySet(), stats.getByProduct().keySet());
+        byProduct.forEach((code, expected) -> {
+            assertEquals(expected[0], stats.getByProduct().get(code).getQuantity(), "quantity of " + code);
+            assertEquals(expected[1], stats.getByProduct().get(code).getRevenueCents(), "revenue of " + code);
+        });
+    }
+
+    private static boolean isLegal(OrderStatus from, OrderStatus to) {
+        return (from == OrderStatus.CREATED && to == OrderStatus.PROCESSING)
+                || (from == OrderStatus.PROCESSING && (to == OrderStatus.COMPLETED || to == OrderStatus.CANCELLED));
+    }
+
+    private static void assertConsistent(Order order) {
+        assertEquals(Money.total(order.getEntries()), order.getAmountCents(), "amount must match the entries of the same version");
+    }
+
+    private static Order newOrder(int entries) {
+        List<OrderEntry> list = new ArrayList<>();
+        for (int i = 0; i < entries; i++) {
+            list.add(new OrderEntry("P" + i, "Product " + i, entries, 10.0 * entries));
+        }
+        Order order = new Order();
+        order.setDescription("Contended order");
+        order.setEntries(list);
+        return order;
+    }
+
+    private class RecordingJournal implements OrderJournal {
+        @Override public void beginMutation() {}
+        @Override public void endMutation() {}
+        @Override public long appendCreate(Order order) { return 0; }
+        @Override public long appendCreates(List<Order> orders) { return 0; }
+        @Override public long appendDelete(long id) { return 0; }
+        @Override public void awaitDurable(long position) {}
+        @Override public boolean recover(RecoveryHandler handler) { return false; }
+        @Override public void snapshot(SnapshotSource source) {}
+        @Override public void close() {}
+
+        @Override
+        public long appendUpdate(Order order) {
+            history.computeIfAbsent(order.getId(), id -> new ConcurrentLinkedQueue<>()).add(order);
+            return 0;
+        }
+    }
+}
@@ -1,8 +1,17 @@
 package com.example.demo.service.impl;
 
+import com.example.demo.events.OrderEvent;
+import com.example.demo.events.OrderEventLog;
+import com.example.demo.events.OrderEventSubscription;
+import com.example.demo.events.OverflowPolicy;
+import com.example.demo.model.BatchResult;
 import com.example.demo.model.Order;
 import com.example.demo.model.OrderEntry;
+import com.example.demo.model.OrderQuery;
 import com.example.demo.model.OrderStatus;
+import com.example.demo.persistence.OrderJournal;
+import com.example.demo.service.VersionConflictException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,7 +21,12 @@ import java.time.Clock;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -45,6 +59,35 @@ class OrderServiceImplTest {
         assertEquals(1, orderService.getAllOrders().size());
     }
 
+    @Test
+    void createOrder_shouldTotalInExactCents() {
+        Order order = new Order();
+        order.setEntries(List.of(
+                new OrderEntry("P1", "Product 1", 3, 0.1),
+                new OrderEntry("P2", "Product 2", 1, 0.2),
+                new OrderEntry("P3", "Product 3", 7, 19.99)));
+
+        Order createdOrder = orderService.createOrder(order);
+
+        // 0.1 * 3 + 0.2 is 0.5000000000000001 in double arithmetic
+        assertEquals(14043L, createdOrder.getAmountCents());
+        assertEquals(140.43, createdOrder.getAmount());
+    }
+
+    @Test
+    void createOrder_whenTotalOverflows_shouldThrowException() {
+        Order order = new Order();
+        order.setEntries(List.of(
+                new OrderEntry("P1", "Product 1", Integer.MAX_VALUE, 1e13),
+                new OrderEntry("P2", "Product 2", Integer.MAX_VALUE, 1e13)));
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
+            orderService.createOrder(order);
+        });
+
+        assertEquals("Order total is out of range", exception.getMessage());
+    }
+
     @Test
     void createOrder_whenEntriesAreNull_shouldThrowException() {
         Order order = new Order();
@@ -63,7 +106,7 @@ class OrderServiceImplTest {
         order.setDescription("Initial Order");
         order.setEntries(List.of(new OrderEntry("P1", "Product 1", 1, 100.0)));
         Order createdOrder = orderService.createOrder(order);
-        createdOrder.setStatus(OrderStatus.PROCESSING);
+        orderService.updateOrder(createdOrder.getId(), new Order(null, null, null, null, OrderStatus.PROCESSING, null));
 
 
         Order updateRequest = new Order();
@@ -96,7 +139,8 @@ class OrderServiceImplTest {
         order.setDescription("Initial Order");
         order.setEntries(List.of(new OrderEntry("P1", "Product 1", 1, 100.0)));
         Order createdOrder = orderService.createOrder(order);
-        createdOrder.setStatus(OrderStatus.COMPLETED);
+        orderService.updateOrder(createdOrder.getId(), new Order(null, null, null, null, OrderStatus.PROCESSING, null));
+        orderService.updateOrder(createdOrder.getId(), new Order(null, null, null, null, OrderStatus.COMPLETED, null));
 
 
         Order updateRequest = new Order();
@@ -126,4 +170,251 @@ class OrderServiceImplTest {
 
         assertEquals("Invalid status transition from CREATED to CANCELLED", exception.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void updateOrder_shouldStoreNewVersionWithoutTouchingPreviousOne() {
+        Order created = orderService.createOrder(newOrder("Initial Order", null, "P1"));
+        assertEquals(1L, created.getVersion());
+
+        Order updateRequest = new Order();
+        updateRequest.setEntries(List.of(new OrderEntry("P2", "Product 2", 2, 30.0)));
+        Order updated = orderService.updateOrder(created.getId(), updateRequest, 1L);
+
+        assertEquals(2L, updated.getVersion());
+        assertEquals(60.0, updated.getAmount());
+        Order stored = orderService.getOrder(created.getId());
+        assertEquals(updated.getVersion(), stored.getVersion());
+        assertEquals(updated.getAmount(), stored.getAmount());
+        assertEquals("P2", stored.getEntries().get(0).getProductCode());
+        // Readers holding the old instance still see a consistent order
+        assertEquals(1L, created.getVersion());
+        assertEquals(10.0, created.getAmount());
+        assertEquals("P1", created.getEntries().get(0).getProductCode());
+    }
+
+    @Test
+    void returnedOrders_shouldBeCopiesThatCannotChangeTheStore() {
+        Order created = orderService.createOrder(newOrder("Initial Order", null, "P1"));
+        created.setStatus(OrderStatus.COMPLETED);
+        created.getEntries().get(0).setQuantity(99);
+        Order read = orderService.getOrder(created.getId());
+        read.setDescription("Changed behind the service");
+        orderService.getAllOrders().forEach(order -> order.setVersion(42L));
+
+        Order stored = orderService.getOrder(created.getId());
+        assertEquals(OrderStatus.CREATED, stored.getStatus());
+        assertEquals("Initial Order", stored.getDescription());
+        assertEquals(1, stored.getEntries().get(0).getQuantity());
+        assertEquals(1L, stored.getVersion());
+        assertEquals(List.of(created.getId()),
+                ids(orderService.findOrders(new OrderQuery(OrderStatus.CREATED, null, null, "P1"))));
+    }
+
+    @Test
+    void publishedEvents_shouldCarryCopiesThatCannotChangeTheStore() throws Exception {
+        OrderEventLog eventLog = new OrderEventLog(8);
+        orderService.addChangeListener(eventLog);
+        BlockingQueue<OrderEvent> events = new LinkedBlockingQueue<>();
+        try (OrderEventSubscription ignored = eventLog.subscribe(events::add, OverflowPolicy.DISCONNECT)) {
+            Order created = orderService.createOrder(newOrder("Initial Order", null, "P1"));
+            orderService.updateOrder(created.getId(), new Order(null, "Updated", null, null, null, null));
+
+            for (int i = 0; i < 2; i++) {
+                OrderEvent event = events.poll(5, TimeUnit.SECONDS);
+                assertNotNull(event, "timed out waiting for an event");
+                event.getOrder().setStatus(OrderStatus.COMPLETED);
+                event.getOrder().setDescription("Changed behind the service");
+                event.getOrder().getEntries().get(0).setQuantity(99);
+            }
+
+            Order stored = orderService.getOrder(created.getId());
+            assertEquals(OrderStatus.CREATED, stored.getStatus());
+            assertEquals("Updated", stored.getDescription());
+            assertEquals(1, stored.getEntries().get(0).getQuantity());
+            assertEquals(List.of(created.getId()),
+                    ids(orderService.findOrders(new OrderQuery(OrderStatus.CREATED, null, null, "P1"))));
+        } finally {
+            eventLog.close();
+        }
+    }
+
+    @Test
+    void updateOrder_withStaleVersion_shouldThrowVersionConflict() {
+        Order created = orderService.createOrder(newOrder("Initial Order", null, "P1"));
+        Order updateRequest = new Order();
+        updateRequest.setDescription("First");
+        orderService.updateOrder(created.getId(), updateRequest, 1L);
+
+        updateRequest.setDescription("Second");
+        VersionConflictException exception = assertThrows(VersionConflictException.class,
+                () -> orderService.updateOrder(created.getId(), updateRequest, 1L));
+
+        assertEquals(2L, exception.getActualVersion());
+        assertEquals("First", orderService.getOrder(created.getId()).getDescription());
+    }
+
+    @Test
+    void operations_shouldRecordTimersGaugesAndRejections() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        OrderServiceImpl metered = new OrderServiceImpl(clock, OrderJournal.NOOP, registry);
+        Order created = metered.createOrder(newOrder("Metered", null, "P1"));
+        metered.getOrder(created.getId());
+        Order toCancelled = new Order();
+        toCancelled.setStatus(OrderStatus.CANCELLED);
+        assertThrows(IllegalStateException.class, () -> metered.updateOrder(created.getId(), toCancelled));
+        assertThrows(IllegalArgumentException.class, () -> metered.createOrder(new Order()));
+
+        assertEquals(2, registry.get(OrderMetrics.OPERATION_TIMER).tag("operation", "create").timer().count());
+        assertEquals(1, registry.get(OrderMetrics.OPERATION_TIMER).tag("operation", "get").timer().count());
+        assertEquals(1, registry.get(OrderMetrics.REJECTIONS)
+                .tags("operation", "update", "exception", "IllegalStateException").counter().count());
+        assertEquals(1, registry.get(OrderMetrics.REJECTIONS)
+                .tags("operation", "create", "exception", "IllegalArgumentException").counter().count());
+        assertEquals(1, registry.get(OrderMetrics.STORE_SIZE).gauge().value());
+        assertEquals(1, registry.get(OrderMetrics.STATUS_COUNT).tag("status", "CREATED").gauge().value());
+        assertEquals(0, registry.get(OrderMetrics.STATUS_COUNT).tag("status", "PROCESSING").gauge().value());
+    }
+
+    @Test
+    void getOrders_shouldPageByIdCursor() {
+        for (int i = 0; i < 5; i++) {
+            Order order = new Order();
+            order.setDescription("Order " + i);
+            order.setEntries(List.of(new OrderEntry("P1", "Product 1", 1, 10.0)));
+            orderService.createOrder(order);
+        }
+        orderService.deleteOrder(3L);
+
+        List<Order> firstPage = orderService.getOrders(null, 2);
+        assertEquals(List.of(1L, 2L), firstPage.stream().map(Order::getId).toList());
+
+        List<Order> secondPage = orderService.getOrders(2L, 2);
+        assertEquals(List.of(4L, 5L), secondPage.stream().map(Order::getId).toList());
+
+        assertTrue(orderService.getOrders(5L, 2).isEmpty());
+    }
+
+    @Test
+    void getOrders_withNonPositiveLimit_shouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> orderService.getOrders(null, 0));
+    }
+
+    @Test
+    void findOrders_shouldFollowStatusTransitionsAndDeletes() {
+        Order first = orderService.createOrder(newOrder("First", LocalDate.of(2024, 1, 1), "P1"));
+        Order second = orderService.createOrder(newOrder("Second", LocalDate.of(2024, 1, 5), "P2"));
+
+        Order toProcessing = new Order();
+        toProcessing.setStatus(OrderStatus.PROCESSING);
+        orderService.updateOrder(first.getId(), toProcessing);
+
+        assertEquals(List.of(second.getId()), ids(orderService.findOrders(new OrderQuery(OrderStatus.CREATED, null, null, null))));
+        assertEquals(List.of(first.getId()), ids(orderService.findOrders(new OrderQuery(OrderStatus.PROCESSING, null, null, null))));
+
+        orderService.deleteOrder(second.getId());
+        assertTrue(orderService.findOrders(new OrderQuery(OrderStatus.CREATED, null, null, null)).isEmpty());
+        assertTrue(orderService.findOrders(new OrderQuery(null, null, null, "P2")).isEmpty());
+    }
+
+    @Test
+    void findOrders_shouldFilterByDateRangeAndProduct() {
+        Order jan1 = orderService.createOrder(newOrder("Jan 1", LocalDate.of(2024, 1, 1), "P1"));
+        Order jan5 = orderService.createOrder(newOrder("Jan 5", LocalDate.of(2024, 1, 5), "P1"));
+        Order feb1 = orderService.createOrder(newOrder("Feb 1", LocalDate.of(2024, 2, 1), "P2"));
+
+        assertEquals(List.of(jan1.getId(), jan5.getId()),
+                ids(orderService.findOrders(new OrderQuery(null, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), null))));
+        assertEquals(List.of(jan5.getId(), feb1.getId()),
+                ids(orderService.findOrders(new OrderQuery(null, LocalDate.of(2024, 1, 2), null, null))));
+        assertEquals(List.of(jan5.getId()),
+                ids(orderService.findOrders(new OrderQuery(OrderStatus.CREATED, LocalDate.of(2024, 1, 2), null, "P1"))));
+        assertTrue(orderService.findOrders(new OrderQuery(null, LocalDate.of(2024, 2, 1), LocalDate.of(2024, 1, 1), null)).isEmpty());
+    }
+
+    @Test
+    void findOrders_shouldReindexProductsWhenEntriesChange() {
+        Order created = orderService.createOrder(newOrder("Order", null, "P1"));
+
+        Order newEntries = new Order();
+        newEntries.setEntries(List.of(new OrderEntry("P9", "Product 9", 1, 5.0)));
+        orderService.updateOrder(created.getId(), newEntries);
+
+        assertTrue(orderService.findOrders(new OrderQuery(null, null, null, "P1")).isEmpty());
+        assertEquals(List.of(created.getId()), ids(orderService.findOrders(new OrderQuery(null, null, null, "P9"))));
+    }
+
+    private static Order newOrder(String description, LocalDate orderDate, String productCode) {
+        Order order = new Order();
+        order.setDescription(description);
+        order.setOrderDate(orderDate);
+        order.setEntries(List.of(new OrderEntry(productCode, "Product", 1, 10.0)));
+        return order;
+    }
+
+    private static List<Long> ids(List<Order> orders) {
+        return orders.stream().map(Order::getId).toList();
+    }
+
+    @Test
+    void createOrders_shouldReserveContiguousIdsAndReportRejections() {
+        Order invalid = new Order();
+        invalid.setDescription("No entries");
+        List<BatchResult> results = orderService.createOrders(List.of(
+                newOrder("A", null, "P1"), invalid, newOrder("B", null, "P2")));
+
+        assertEquals(3, results.size());
+        assertEquals(BatchResult.Outcome.CREATED, results.get(0).getOutcome());
+        assertEquals(1L, results.get(0).getId());
+        assertEquals(10.0, results.get(0).getOrder().getAmount());
+        assertEquals(LocalDate.now(clock), results.get(0).getOrder().getOrderDate());
+        assertEquals(BatchResult.Outcome.REJECTED, results.get(1).getOutcome());
+        assertEquals("Order must have at least one entry", results.get(1).getError());
+        assertEquals(1, results.get(1).getIndex());
+        assertEquals(2L, results.get(2).getId());
+        assertEquals(List.of(2L), ids(orderService.findOrders(new OrderQuery(null, null, null, "P2"))));
+        assertEquals(3L, orderService.createOrder(newOrder("C", null, "P3")).getId());
+    }
+
+    @Test
+    void updateOrders_shouldApplyEachItemIndependently() {
+        Order first = orderService.createOrder(newOrder("First", null, "P1"));
+        Order second = orderService.createOrder(newOrder("Second", null, "P1"));
+
+        Order toProcessing = new Order();
+        toProcessing.setStatus(OrderStatus.PROCESSING);
+        Order toCompleted = new Order();
+        toCompleted.setStatus(OrderStatus.COMPLETED);
+        Map<Long, Order> updates = new LinkedHashMap<>();
+        updates.put(first.getId(), toProcessing);
+        updates.put(second.getId(), toCompleted);
+        updates.put(99L, toProcessing);
+
+        List<BatchResult> results = orderService.updateOrders(updates);
+
+        assertEquals(BatchResult.Outcome.UPDATED, results.get(0).getOutcome());
+        assertEquals(OrderStatus.PROCESSING, orderService.getOrder(first.getId()).getStatus());
+        assertEquals(BatchResult.Outcome.REJECTED, results.get(1).getOutcome());
+        assertEquals("Invalid status transition from CREATED to COMPLETED", results.get(1).getError());
+        assertEquals(BatchResult.Outcome.NOT_FOUND, results.get(2).getOutcome());
+        assertEquals(2, results.get(2).getIndex());
+    }
+
+    @Test
+    void deleteOrders_shouldSkipMissingAndCompletedOrders() {
+        Order toDelete = orderService.createOrder(newOrder("Delete me", null, "P1"));
+        Order completed = orderService.createOrder(newOrder("Completed", null, "P1"));
+        Order update = new Order();
+        update.setStatus(OrderStatus.PROCESSING);
+        orderService.updateOrder(completed.getId(), update);
+        update.setStatus(OrderStatus.COMPLETED);
+        orderService.updateOrder(completed.getId(), update);
+
+        List<BatchResult> results = orderService.deleteOrders(List.of(toDelete.getId(), completed.getId(), 42L));
+
+        assertEquals(BatchResult.Outcome.DELETED, results.get(0).getOutcome());
+        assertEquals(BatchResult.Outcome.REJECTED, results.get(1).getOutcome());
+        assertEquals(BatchResult.Outcome.NOT_FOUND, results.get(2).getOutcome());
+        assertNull(orderService.getOrder(toDelete.getId()));
+        assertNotNull(orderService.getOrder(completed.getId()));
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.demo.store;
+
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderEntry;
+import com.example.demo.model.OrderStatus;
+import com.example.demo.persistence.OrderJournal;
+import com.example.demo.service.impl.OrderServiceImpl;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapOrderStoreTest {
+
+    private static Order order(long id, String description, long version, int entries) {
+        List<OrderEntry> list = new ArrayList<>();
+        for (int i = 0; i < entries; i++) {
+            list.add(new OrderEntry("P" + i, "Product " + i, i + 1, 9.99));
+        }
+        Order order = new Order(id, description, null, LocalDate.of(2024, 1, 1), OrderStatus.PROCESSING, list);
+        order.setAmountCents(999L * entries);
+        order.setVersion(version);
+        return order;
+    }
+
+    @Test
+    void put_shouldRoundTripAllFields() {
+        OffHeapOrderStore store = new OffHeapOrderStore();
+        store.put(order(1, "Café order ☕", 3, 2));
+
+        Order read = store.get(1);
+
+        assertEquals(1L, read.getId());
+        assertEquals("Café order ☕", read.getDescription());
+        assertEquals(1998L, read.getAmountCents());
+        assertEquals(LocalDate.of(2024, 1, 1), read.getOrderDate());
+        assertEquals(OrderStatus.PROCESSING, read.getStatus());
+        assertEquals(3L, read.getVersion());
+        assertEquals(2, read.getEntries().size());
+        OrderEntry entry = read.getEntries().get(1);
+        assertEquals("P1", entry.getProductCode());
+        assertEquals("Product 1", entry.getProductName());
+        assertEquals(2, entry.getQuantity());
+        assertEquals(999L, entry.getPriceCents());
+        assertThrows(UnsupportedOperationException.class, () -> read.getEntries().clear());
+    }
+
+    @Test
+    void put_shouldKeepNulls() {
+        OffHeapOrderStore store = new OffHeapOrderStore();
+        Order order = new Order();
+        order.setId(7L);
+        order.setEntries(List.of(new OrderEntry(null, null, 1, 1.0)));
+        store.put(order);
+
+        Order read = store.get(7);
+
+        assertNull(read.getDescription());
+        assertNull(read.getAmount());
+        assertNull(read.getOrderDate());
+        assertNull(read.getStatus());
+        assertNull(read.getVersion());
+        assertNull(read.getEntries().get(0).getProductCode());
+
+        Order withoutEntries = new Order();
+        withoutEntries.setId(8L);
+        store.put(withoutEntries);
+        assertNull(store.get(8).getEntries());
+    }
+
+    @Test
+    void putAndRemove_shouldReplaceAndForget() {
+        OffHeapOrderStore store = new OffHeapOrderStore();
+        store.put(order(1, "First", 1, 1));
+        store.put(order(1, "Updated", 2, 1));
+
+        assertEquals("Updated", store.get(1).getDescription());
+        assertEquals(1, store.size());
+        assertTrue(store.remove(1));
+        assertFalse(store.remove(1));
+        assertNull(store.get(1));
+        assertFalse(store.contains(1));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void index_shouldGrowPastManyIds() {
+        OffHeapOrderStore store = new OffHeapOrderStore(64 * 1024);
+        for (long id = 1; id <= 50_000; id++) {
+            store.put(order(id, "Order " + id, 1, 1));
+        }
+        for (long id = 1; id <= 50_000; id += 2) {
+            store.remove(id);
+        }
+
+        assertEquals(25_000, store.size());
+        for (long id = 1; id <= 50_000; id++) {
+            Order read = store.get(id);
+            if (id % 2 == 1) {
+                assertNull(read);
+            } else {
+                assertEquals("Order " + id, read.getDescription());
+            }
+        }
+    }
+
+    @Test
+    void updates_shouldCompactSlabsWithoutLosingOrders() {
+        OffHeapOrderStore store = new OffHeapOrderStore(4096);
+        for (long id = 1; id <= 200; id++) {
+            store.put(order(id, "Order " + id, 1, 2));
+        }
+        for (int version = 2; version <= 20; version++) {
+            for (long id = 1; id <= 200; id++) {
+                store.put(order(id, "Order " + id, version, 2));
+            }
+        }
+
+        assertTrue(store.compactions() > 0);
+        // 200 records of ~120 bytes in 4KB slabs, compacted at half full
+        assertTrue(store.slabCount() < 20, "slabs: " + store.slabCount());
+        for (long id = 1; id <= 200; id++) {
+            Order read = store.get(id);
+            assertEquals(20L, read.getVersion());
+            assertEquals("Order " + id, read.getDescription());
+        }
+    }
+
+    @Test
+    void get_shouldSeeCompleteOrdersWhileWritersCompact() throws Exception {
+        OffHeapOrderStore store = new OffHeapOrderStore(4096);
+        for (long id = 1; id <= 100; id++) {
+            store.put(order(id, "Order " + id, 1, 1));
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            long lastVersion = 0;
+            while (running.get()) {
+                Order read = store.get(42);
+                if (read == null || !"Order 42".equals(read.getDescription()) || read.getVersion() < lastVersion) {
+                    failure.set("Unexpected read: " + read);
+                    return;
+                }
+                lastVersion = read.getVersion();
+            }
+        });
+        reader.start();
+        for (int version = 2; version <= 2_000; version++) {
+            for (long id = 1; id <= 100; id++) {
+                store.put(order(id, "Order " + id, version, 1));
+            }
+        }
+        running.set(false);
+        reader.join();
+
+        assertNull(failure.get());
+        assertTrue(store.compactions() > 0);
+    }
+
+    @Test
+    void service_shouldRunOnOffHeapStore() {
+        Clock clock = Clock.fixed(Instant.parse("2024-01-01T10:00:00Z"), ZoneId.of("UTC"));
+        OrderServiceImpl service = new OrderServiceImpl(clock, OrderJournal.NOOP, new CompositeMeterRegistry(),
+                new OffHeapOrderStore());
+        Order request = new Order();
+        request.setDescription("Off heap");
+        request.setEntries(List.of(new OrderEntry("P1", "Product 1", 3, 19.99)));
+        Order created = service.createOrder(request);
+
+        Order update = new Order();
+        update.setStatus(OrderStatus.PROCESSING);
+        service.updateOrder(created.getId(), update, 1L);
+
+        Order read = service.getOrder(created.getId());
+        assertEquals(OrderStatus.PROCESSING, read.getStatus());
+        assertEquals(2L, read.getVersion());
+        assertEquals(59.97, read.getAmount());
+        assertEquals(1, service.getAllOrders().size());
+        service.deleteOrder(created.getId());
+        assertNull(service.getOrder(created.getId()));
+        assertTrue(service.getAllOrders().isEmpty());
+    }
+}
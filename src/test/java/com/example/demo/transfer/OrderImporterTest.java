@@ -0,0 +1,199 @@
+package com.example.demo.transfer;
+
+import com.example.demo.model.Order;
+import com.example.demo.model.OrderEntry;
+import com.example.demo.model.OrderStatus;
+import com.example.demo.persistence.FileOrderJournal;
+import com.example.demo.persistence.FsyncPolicy;
+import com.example.demo.service.impl.OrderServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderImporterTest {
+    private final Clock clock = Clock.fixed(Instant.parse("2024-01-01T10:00:00Z"), ZoneId.of("UTC"));
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final OrderServiceImpl service = new OrderServiceImpl(clock);
+    // Chunks of two records, so orders straddle chunk boundaries
+    private final OrderImporter importer = new OrderImporter(service, objectMapper, registry, 2, 2);
+
+    @AfterEach
+    void tearDown() {
+        importer.close();
+    }
+
+    @Test
+    void ndjson_shouldImportValidOrdersInOrderAndReportTheRest() throws IOException {
+        String dump = """
+                {"description": "First", "orderDate": "2023-05-01", "entries": [{"productCode": "P1", "quantity": 2, "price": 5.0}]}
+
+                {"description": "Bad total", "amount": 99.0, "entries": [{"productCode": "P1", "quantity": 1, "price": 5.0}]}
+                {"description": "No entries", "entries": []}
+                not json
+                {"description": "Second", "amount": 15.0, "entries": [{"productCode": "P2", "quantity": 3, "price": 5.0}]}
+                {"description": "Third", "entries": [{"productCode": "P3", "quantity": 1, "price": 1.25}]}""";
+
+        ImportResult result = importFrom(dump, TransferFormat.NDJSON);
+
+        assertEquals(6, result.rows());
+        assertEquals(3, result.imported());
+        assertEquals(3, result.rejected());
+        assertEquals(List.of(3L, 4L, 5L), result.errors().stream().map(ImportResult.Error::line).toList());
+        assertTrue(result.errors().get(0).message().contains("does not match"), result.errors().get(0).message());
+        List<Order> orders = service.getAllOrders();
+        assertEquals(List.of("First", "Second", "Third"), orders.stream().map(Order::getDescription).toList());
+        assertEquals(LocalDate.of(2023, 5, 1), orders.get(0).getOrderDate());
+        assertEquals(15.0, orders.get(1).getAmount());
+        assertEquals(OrderStatus.CREATED, orders.get(2).getStatus());
+        assertEquals(6.0, registry.get(OrderImporter.ROWS).counter().count());
+        assertEquals(3.0, registry.get(OrderImporter.ORDERS).tag("result", "rejected").counter().count());
+    }
+
+    @Test
+    void csv_shouldRoundTripAnExportIncludingQuotedFields() throws IOException {
+        service.createOrder(new Order(null, "Comma, \"quote\"\nand newline", null, LocalDate.of(2023, 1, 2), null, List.of(
+                new OrderEntry("P1", "Product, one", 1, 10.0),
+                new OrderEntry("P2", "Product 2", 2, 0.5),
+                new OrderEntry("P3", "Product 3", 3, 7.99))));
+        service.createOrder(new Order(null, null, null, null, null, List.of(new OrderEntry("P4", null, 1, 3.0))));
+        List<Order> before = service.getAllOrders();
+        OrderExporter exporter = new OrderExporter(objectMapper, registry, 2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(4, exporter.exportTo(out, TransferFormat.CSV, service::getOrders));
+
+        ImportResult result = importFrom(out.toString(StandardCharsets.UTF_8), TransferFormat.CSV);
+
+        assertEquals(4, result.rows());
+        assertEquals(2, result.imported(), () -> result.errors().toString());
+        List<Order> imported = service.getOrders(before.get(before.size() - 1).getId(), 10);
+        for (int i = 0; i < before.size(); i++) {
+            Order original = before.get(i);
+            Order copy = imported.get(i);
+            assertEquals(original.getDescription(), copy.getDescription());
+            assertEquals(original.getOrderDate(), copy.getOrderDate());
+            assertEquals(original.getAmountCents(), copy.getAmountCents());
+            assertEquals(original.getEntries().size(), copy.getEntries().size());
+            assertEquals(original.getEntries().get(0).getProductName(), copy.getEntries().get(0).getProductName());
+        }
+        assertEquals(4.0, registry.get(OrderExporter.ROWS).tag("format", "CSV").counter().count());
+    }
+
+    @Test
+    void csv_shouldRejectAWholeOrderWhenOneOfItsRecordsIsInvalid() throws IOException {
+        String dump = """
+                productCode,quantity,price,id
+                P1,1,2.50,a
+                P2,x,1.00,a
+                P3,1,1.00,b
+                P4,2,1.00
+                """;
+
+        ImportResult result = importFrom(dump, TransferFormat.CSV);
+
+        assertEquals(4, result.rows());
+        assertEquals(2, result.imported());
+        assertEquals(1, result.rejected());
+        assertEquals(2L, result.errors().get(0).line());
+        List<Order> orders = service.getAllOrders();
+        assertEquals(List.of("P3", "P4"), orders.stream().map(order -> order.getEntries().get(0).getProductCode()).toList());
+    }
+
+    @Test
+    void restore_shouldKeepIdsStatusesAndVersionsThroughTheJournal(@TempDir Path dir) throws IOException {
+        service.createOrder(new Order(null, "Open", null, null, null, List.of(new OrderEntry("P1", "Product 1", 1, 10.0))));
+        Order done = service.createOrder(new Order(null, "Done", null, null, null, List.of(new OrderEntry("P2", "Product 2", 2, 1.5))));
+        service.updateOrder(done.getId(), status(OrderStatus.PROCESSING));
+        service.updateOrder(done.getId(), status(OrderStatus.COMPLETED));
+        service.deleteOrder(service.createOrder(new Order(null, "Gone", null, null, null, List.of(new OrderEntry("P3", null, 1, 1.0)))).getId());
+        service.createOrder(new Order(null, "Last", null, null, null, List.of(new OrderEntry("P4", null, 1, 1.0))));
+        List<Order> before = service.getAllOrders();
+        OrderExporter exporter = new OrderExporter(objectMapper, registry, 2);
+        for (TransferFormat format : TransferFormat.values()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            exporter.exportTo(out, format, service::getOrders);
+            String dump = out.toString(StandardCharsets.UTF_8);
+
+            // Importing creates: the completed order is refused rather than reopened
+            OrderServiceImpl created = new OrderServiceImpl(clock);
+            try (OrderImporter creating = new OrderImporter(created, objectMapper, registry, 2, 2)) {
+                ImportResult result = creating.importFrom(channel(dump), format);
+                assertEquals(2, result.imported());
+                assertTrue(result.errors().get(0).message().contains("COMPLETED"), result.errors().toString());
+            }
+
+            FileOrderJournal journal = new FileOrderJournal(dir.resolve(format.name()), FsyncPolicy.ALWAYS, Duration.ofMillis(2));
+            OrderServiceImpl restored = new OrderServiceImpl(clock, journal);
+            try (OrderImporter restoring = new OrderImporter(restored, objectMapper, registry, 2, 2)) {
+                ImportResult result = restoring.importFrom(channel(dump), format, true);
+                assertEquals(3, result.imported(), () -> result.errors().toString());
+                assertEquals(before.size(), restoring.importFrom(channel(dump), format, true).rejected());
+            }
+            journal.close();
+            journal = new FileOrderJournal(dir.resolve(format.name()), FsyncPolicy.ALWAYS, Duration.ofMillis(2));
+            OrderServiceImpl recovered = new OrderServiceImpl(clock, journal);
+            recovered.recover();
+            List<Order> after = recovered.getAllOrders();
+            assertEquals(before.stream().map(Order::getId).toList(), after.stream().map(Order::getId).toList());
+            assertEquals(before.stream().map(Order::getStatus).toList(), after.stream().map(Order::getStatus).toList());
+            assertEquals(before.stream().map(Order::getVersion).toList(), after.stream().map(Order::getVersion).toList());
+            assertEquals(before.stream().map(Order::getAmountCents).toList(), after.stream().map(Order::getAmountCents).toList());
+            assertEquals(5L, recovered.createOrder(new Order(null, "Next", null, null, null, List.of(new OrderEntry("P5", null, 1, 1.0)))).getId());
+            journal.close();
+        }
+    }
+
+    @Test
+    void restore_shouldRejectOrdersWithoutAnIdOrOwnedByAnotherNode() throws IOException {
+        String dump = """
+                {"description": "No id", "entries": [{"productCode": "P1", "quantity": 1, "price": 5.0}]}
+                {"id": 7, "description": "Remote", "entries": [{"productCode": "P1", "quantity": 1, "price": 5.0}]}
+                {"id": 8, "description": "Local", "status": "PROCESSING", "entries": [{"productCode": "P1", "quantity": 1, "price": 5.0}]}""";
+        try (OrderImporter restoring = new OrderImporter(service, objectMapper, registry, 2, 2, id -> id % 2 == 0)) {
+            ImportResult result = restoring.importFrom(channel(dump), TransferFormat.NDJSON, true);
+            assertEquals(1, result.imported());
+            assertEquals(List.of(1L, 2L), result.errors().stream().map(ImportResult.Error::line).toList());
+        }
+        assertEquals(OrderStatus.PROCESSING, service.getOrder(8L).getStatus());
+        assertThrows(IllegalArgumentException.class, () -> importer.importFrom(channel("productCode,quantity,price\nP1,1,1.0\n"),
+                TransferFormat.CSV, true));
+    }
+
+    @Test
+    void csv_shouldRequireTheEntryColumns() {
+        assertThrows(IllegalArgumentException.class, () -> importFrom("id,description\n1,x\n", TransferFormat.CSV));
+    }
+
+    private ImportResult importFrom(String dump, TransferFormat format) throws IOException {
+        return importer.importFrom(channel(dump), format);
+    }
+
+    private static ReadableByteChannel channel(String dump) {
+        return Channels.newChannel(new ByteArrayInputStream(dump.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static Order status(OrderStatus status) {
+        Order update = new Order();
+        update.setStatus(status);
+        return update;
+    }
+
+}